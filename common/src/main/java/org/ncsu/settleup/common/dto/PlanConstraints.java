@@ -0,0 +1,32 @@
+package org.ncsu.settleup.common.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Constraints and costs for computing a settlement plan.
+ *
+ * Every unit of money moved from a debtor to a creditor costs the cost of
+ * that pair, and the plan minimises the total cost.  Pairs without an
+ * explicit cost use defaultCost.  All fields are optional.
+ *
+ * @param allowedPayees        memberId to the only members that member may pay
+ * @param maxIncomingTransfers most transfers any member may receive
+ * @param pairCosts            cost of specific payer and payee pairs
+ * @param defaultCost          cost of every other pair; 10 if not given
+ * @param preferPastPayees     give pairs that have exchanged transfers before
+ *                             the lowest cost, unless pairCosts says otherwise
+ */
+public record PlanConstraints(Map<Long, List<Long>> allowedPayees,
+                              Integer maxIncomingTransfers,
+                              List<PairCost> pairCosts,
+                              Integer defaultCost,
+                              boolean preferPastPayees) {
+
+    /**
+     * Cost of moving money from one member to another.  Costs must not
+     * be negative; lower costs are preferred.
+     */
+    public static record PairCost(Long fromMemberId, Long toMemberId, int cost) {
+    }
+}
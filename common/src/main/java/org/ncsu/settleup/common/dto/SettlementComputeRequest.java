@@ -5,6 +5,26 @@ package org.ncsu.settleup.common.dto;
  *
  * The groupId identifies the group whose balances should be settled.
  * The baseCurrency indicates the currency in which the settlement should be expressed.
+ * The optional minSequence is a group event sequence number returned by an
+ * expense write; when set, the plan is computed only after the settlement
+ * service has applied that event, so it reflects the caller's own writes.
+ * The optional constraints restrict who may pay whom and weight payment
+ * pairs; without them the plan settles the largest debts first.
  */
-public record SettlementComputeRequest(Long groupId, String baseCurrency) {
+public record SettlementComputeRequest(Long groupId, String baseCurrency, Long minSequence,
+                                       PlanConstraints constraints) {
+
+    /**
+     * Create a request without a consistency requirement.
+     */
+    public SettlementComputeRequest(Long groupId, String baseCurrency) {
+        this(groupId, baseCurrency, null, null);
+    }
+
+    /**
+     * Create an unconstrained request.
+     */
+    public SettlementComputeRequest(Long groupId, String baseCurrency, Long minSequence) {
+        this(groupId, baseCurrency, minSequence, null);
+    }
 }
@@ -8,8 +8,19 @@ import java.util.List;
  * consists of one or more transfers that should be executed to
  * settle outstanding balances between members of a group.  Each
  * transfer indicates the payer, the payee and the amount to be paid.
+ *
+ * The version identifies the state of the group's balances the plan was
+ * computed from.  It is passed back when the whole plan is recorded so
+ * that a plan computed from balances that have since changed is rejected.
  */
-public record SettlementPlan(List<TransferDto> transfers) {
+public record SettlementPlan(List<TransferDto> transfers, Long version) {
+
+    /**
+     * Create a plan that is not tied to a balance version.
+     */
+    public SettlementPlan(List<TransferDto> transfers) {
+        this(transfers, null);
+    }
 
     /**
      * A single transfer from one member to another.  Amounts are
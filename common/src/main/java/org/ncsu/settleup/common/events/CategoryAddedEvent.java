@@ -0,0 +1,14 @@
+package org.ncsu.settleup.common.events;
+
+/**
+ * Event published by the membership service when a category is added to
+ * a group.
+ *
+ * @param groupId    the ID of the group
+ * @param categoryId the ID of the new category
+ * @param name       the category's name
+ * @param sequence   position of this event in the group's membership
+ *                   event stream
+ */
+public record CategoryAddedEvent(Long groupId, Long categoryId, String name, Long sequence) {
+}
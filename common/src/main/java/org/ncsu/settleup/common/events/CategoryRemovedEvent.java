@@ -0,0 +1,13 @@
+package org.ncsu.settleup.common.events;
+
+/**
+ * Event published by the membership service when a category is removed
+ * from a group.
+ *
+ * @param groupId    the ID of the group
+ * @param categoryId the ID of the removed category
+ * @param sequence   position of this event in the group's membership
+ *                   event stream
+ */
+public record CategoryRemovedEvent(Long groupId, Long categoryId, Long sequence) {
+}
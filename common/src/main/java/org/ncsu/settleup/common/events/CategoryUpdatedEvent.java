@@ -0,0 +1,13 @@
+package org.ncsu.settleup.common.events;
+
+/**
+ * Event published by the membership service when a category is renamed.
+ *
+ * @param groupId    the ID of the category's group
+ * @param categoryId the ID of the category
+ * @param name       the category's new name
+ * @param sequence   position of this event in the group's membership
+ *                   event stream
+ */
+public record CategoryUpdatedEvent(Long groupId, Long categoryId, String name, Long sequence) {
+}
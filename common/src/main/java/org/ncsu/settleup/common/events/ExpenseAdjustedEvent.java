@@ -0,0 +1,32 @@
+package org.ncsu.settleup.common.events;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Event published by the expense service when an existing expense is
+ * edited or deleted.  Instead of the whole expense it carries only how
+ * each member's net balance changed, so consumers can apply it without
+ * knowing the expense's previous state.
+ *
+ * @param groupId        the ID of the group whose balances changed
+ * @param expenseId      the ID of the edited or deleted expense
+ * @param balanceDeltas  a map of member IDs to the change in their net
+ *                       balance (positive means the member is owed more).
+ *                       Members whose balance is unchanged are omitted.
+ * @param sequence       position of this event in the group's event
+ *                       stream, shared with {@link ExpenseRecordedEvent};
+ *                       {@code null} for unsequenced events
+ */
+public record ExpenseAdjustedEvent(Long groupId,
+                                   Long expenseId,
+                                   Map<Long, BigDecimal> balanceDeltas,
+                                   Long sequence) {
+
+    /**
+     * Create an unsequenced event.
+     */
+    public ExpenseAdjustedEvent(Long groupId, Long expenseId, Map<Long, BigDecimal> balanceDeltas) {
+        this(groupId, expenseId, balanceDeltas, null);
+    }
+}
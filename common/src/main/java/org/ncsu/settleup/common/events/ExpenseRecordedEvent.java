@@ -14,9 +14,20 @@ import java.util.Map;
  * @param shares         a map of member IDs to the amount they owe.  The map
  *                       does not include the payer; shares should sum to
  *                       the total amount of the expense.
+ * @param sequence       position of this event in the group's event
+ *                       stream, starting at 1 and increasing by one per
+ *                       expense event; {@code null} for unsequenced events
  */
 public record ExpenseRecordedEvent(Long groupId,
                                    Long expenseId,
                                    Long payerMemberId,
-                                   Map<Long, BigDecimal> shares) {
+                                   Map<Long, BigDecimal> shares,
+                                   Long sequence) {
+
+    /**
+     * Create an unsequenced event.
+     */
+    public ExpenseRecordedEvent(Long groupId, Long expenseId, Long payerMemberId, Map<Long, BigDecimal> shares) {
+        this(groupId, expenseId, payerMemberId, shares, null);
+    }
 }
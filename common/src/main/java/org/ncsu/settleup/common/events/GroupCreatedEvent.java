@@ -0,0 +1,13 @@
+package org.ncsu.settleup.common.events;
+
+/**
+ * Event published by the membership service when a group is created.
+ *
+ * @param groupId      the ID of the new group
+ * @param name         the group's name
+ * @param baseCurrency the group's base currency
+ * @param sequence     position of this event in the group's membership
+ *                     event stream, starting at 1
+ */
+public record GroupCreatedEvent(Long groupId, String name, String baseCurrency, Long sequence) {
+}
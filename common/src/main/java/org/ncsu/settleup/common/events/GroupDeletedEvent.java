@@ -0,0 +1,14 @@
+package org.ncsu.settleup.common.events;
+
+/**
+ * Event published by the membership service when a group is deleted,
+ * together with all of its members and categories.  It is the last event
+ * of the group's stream; consumers can drop everything they hold for
+ * the group.
+ *
+ * @param groupId  the ID of the deleted group
+ * @param sequence position of this event in the group's membership event
+ *                 stream
+ */
+public record GroupDeletedEvent(Long groupId, Long sequence) {
+}
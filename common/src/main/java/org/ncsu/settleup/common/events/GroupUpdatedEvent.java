@@ -0,0 +1,14 @@
+package org.ncsu.settleup.common.events;
+
+/**
+ * Event published by the membership service when a group's name or base
+ * currency changes.  Carries the group's fields after the change.
+ *
+ * @param groupId      the ID of the group
+ * @param name         the group's name
+ * @param baseCurrency the group's base currency
+ * @param sequence     position of this event in the group's membership
+ *                     event stream
+ */
+public record GroupUpdatedEvent(Long groupId, String name, String baseCurrency, Long sequence) {
+}
@@ -0,0 +1,14 @@
+package org.ncsu.settleup.common.events;
+
+/**
+ * Event published by the membership service when a member joins a group.
+ *
+ * @param groupId  the ID of the group
+ * @param memberId the ID of the new member
+ * @param email    the member's email address
+ * @param role     the member's role in the group
+ * @param sequence position of this event in the group's membership event
+ *                 stream
+ */
+public record MemberAddedEvent(Long groupId, Long memberId, String email, String role, Long sequence) {
+}
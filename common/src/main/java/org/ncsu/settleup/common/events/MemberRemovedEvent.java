@@ -0,0 +1,13 @@
+package org.ncsu.settleup.common.events;
+
+/**
+ * Event published by the membership service when a member is removed
+ * from a group.
+ *
+ * @param groupId  the ID of the group
+ * @param memberId the ID of the removed member
+ * @param sequence position of this event in the group's membership event
+ *                 stream
+ */
+public record MemberRemovedEvent(Long groupId, Long memberId, Long sequence) {
+}
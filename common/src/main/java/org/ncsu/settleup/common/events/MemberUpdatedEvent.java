@@ -0,0 +1,15 @@
+package org.ncsu.settleup.common.events;
+
+/**
+ * Event published by the membership service when a member's email or
+ * role changes.  Carries the member's fields after the change.
+ *
+ * @param groupId  the ID of the member's group
+ * @param memberId the ID of the member
+ * @param email    the member's email address
+ * @param role     the member's role in the group
+ * @param sequence position of this event in the group's membership event
+ *                 stream
+ */
+public record MemberUpdatedEvent(Long groupId, Long memberId, String email, String role, Long sequence) {
+}
@@ -0,0 +1,69 @@
+package org.ncsu.settleup.common.events.codec;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Wire encoding of a member ID to amount map, shared by the event
+ * codecs:
+ * <pre>
+ *   byte    amount scale s (digits after the decimal point)
+ *   uvarint entry count n
+ *   n x     (memberId delta from the previous member, amount * 10^s)
+ * </pre>
+ * Entries are written in ascending member order so the ID deltas stay
+ * small.  All amounts share one scale, so an amount decodes to the same
+ * value but possibly with more trailing zeros than it was sent with.
+ */
+final class AmountMaps {
+    private static final int MAX_SCALE = 18;
+
+    private AmountMaps() {
+    }
+
+    static void write(VarIntWriter out, Map<Long, BigDecimal> amounts) {
+        long[] memberIds = new long[amounts.size()];
+        int scale = 0;
+        int i = 0;
+        for (Map.Entry<Long, BigDecimal> entry : amounts.entrySet()) {
+            if (entry.getKey() == null || entry.getValue() == null) {
+                throw new IllegalArgumentException("Amounts must not contain null member IDs or values");
+            }
+            memberIds[i++] = entry.getKey();
+            scale = Math.max(scale, entry.getValue().stripTrailingZeros().scale());
+        }
+        if (scale > MAX_SCALE) {
+            throw new IllegalArgumentException("Amounts have more than " + MAX_SCALE + " decimal places");
+        }
+        Arrays.sort(memberIds);
+        out.writeByte(scale);
+        out.writeUnsigned(memberIds.length);
+        long previous = 0;
+        for (long memberId : memberIds) {
+            out.writeSigned(memberId - previous);
+            previous = memberId;
+            try {
+                out.writeSigned(amounts.get(memberId).setScale(scale).unscaledValue().longValueExact());
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("Amount for member " + memberId + " does not fit in 64 bits", e);
+            }
+        }
+    }
+
+    static Map<Long, BigDecimal> read(VarIntReader in) {
+        int scale = in.readByte();
+        long count = in.readUnsigned();
+        if (count < 0 || count > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Malformed entry count in event payload");
+        }
+        Map<Long, BigDecimal> amounts = new HashMap<>((int) Math.min(count * 2, 1 << 16));
+        long memberId = 0;
+        for (long i = 0; i < count; i++) {
+            memberId += in.readSigned();
+            amounts.put(memberId, BigDecimal.valueOf(in.readSigned(), scale));
+        }
+        return amounts;
+    }
+}
@@ -0,0 +1,96 @@
+package org.ncsu.settleup.common.events.codec;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Spring AMQP {@link MessageConverter} for the compact binary event
+ * format.  Messages are tagged with {@link #CONTENT_TYPE} and carry the
+ * codec's type name in the {@link #TYPE_HEADER} header.
+ *
+ * <p>Use {@link #delegatingConverter(MessageConverter)} on the consuming
+ * side so that JSON and binary messages can be received from the same
+ * queue while producers are migrated one at a time.
+ */
+public class BinaryEventMessageConverter implements MessageConverter {
+    /** Content type of messages written by this converter. */
+    public static final String CONTENT_TYPE = "application/x-settleup-event";
+
+    /** Header naming the event type of a binary message. */
+    public static final String TYPE_HEADER = "x-settleup-event-type";
+
+    private final Map<Class<?>, EventCodec<?>> byType = new HashMap<>();
+    private final Map<String, EventCodec<?>> byName = new HashMap<>();
+
+    /**
+     * Create a converter for the built-in event types.
+     */
+    public BinaryEventMessageConverter() {
+        this(List.of(new ExpenseRecordedEventCodec(), new ExpenseAdjustedEventCodec()));
+    }
+
+    /**
+     * Create a converter for the given codecs.
+     */
+    public BinaryEventMessageConverter(List<EventCodec<?>> codecs) {
+        for (EventCodec<?> codec : codecs) {
+            byType.put(codec.type(), codec);
+            byName.put(codec.typeName(), codec);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Message toMessage(Object object, MessageProperties messageProperties) {
+        EventCodec<Object> codec = (EventCodec<Object>) byType.get(object.getClass());
+        if (codec == null) {
+            throw new MessageConversionException("No binary codec for " + object.getClass().getName());
+        }
+        byte[] body;
+        try {
+            body = codec.encode(object);
+        } catch (IllegalArgumentException e) {
+            throw new MessageConversionException("Could not encode " + codec.typeName(), e);
+        }
+        messageProperties.setContentType(CONTENT_TYPE);
+        messageProperties.setContentLength(body.length);
+        messageProperties.setHeader(TYPE_HEADER, codec.typeName());
+        return new Message(body, messageProperties);
+    }
+
+    @Override
+    public Object fromMessage(Message message) {
+        Object typeName = message.getMessageProperties().getHeader(TYPE_HEADER);
+        EventCodec<?> codec = typeName == null ? null : byName.get(typeName.toString());
+        if (codec == null) {
+            throw new MessageConversionException("Unknown binary event type " + typeName);
+        }
+        try {
+            return codec.decode(message.getBody());
+        } catch (IllegalArgumentException e) {
+            throw new MessageConversionException("Could not decode " + codec.typeName(), e);
+        }
+    }
+
+    /**
+     * Build a converter that decodes incoming messages by their content
+     * type: binary messages with this converter and everything else with
+     * {@code fallback} (typically the JSON converter).  Outgoing messages
+     * are written with {@code fallback}.
+     *
+     * @param fallback converter for non-binary content types
+     * @return a content-type delegating converter
+     */
+    public static ContentTypeDelegatingMessageConverter delegatingConverter(MessageConverter fallback) {
+        ContentTypeDelegatingMessageConverter converter = new ContentTypeDelegatingMessageConverter(fallback);
+        converter.addDelegate(CONTENT_TYPE, new BinaryEventMessageConverter());
+        return converter;
+    }
+}
@@ -0,0 +1,34 @@
+package org.ncsu.settleup.common.events.codec;
+
+/**
+ * Encodes one event type to and from the compact binary wire format
+ * used on the shared exchange.  Implementations must be stateless and
+ * thread-safe.
+ *
+ * @param <T> the event type handled by this codec
+ */
+public interface EventCodec<T> {
+
+    /**
+     * Stable name identifying the event type on the wire.  Carried in a
+     * message header so consumers can pick the matching codec.
+     */
+    String typeName();
+
+    /** The event class handled by this codec. */
+    Class<T> type();
+
+    /**
+     * Encode an event.
+     *
+     * @throws IllegalArgumentException if the event cannot be represented
+     */
+    byte[] encode(T event);
+
+    /**
+     * Decode an event previously produced by {@link #encode}.
+     *
+     * @throws IllegalArgumentException if the payload is malformed or of an unsupported version
+     */
+    T decode(byte[] payload);
+}
@@ -0,0 +1,82 @@
+package org.ncsu.settleup.common.events.codec;
+
+import org.ncsu.settleup.common.events.ExpenseAdjustedEvent;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Binary codec for {@link ExpenseAdjustedEvent}.
+ *
+ * <p>Version 2 layout, all integers as LEB128 varints (zig-zag for
+ * signed values):
+ * <pre>
+ *   byte    version (2)
+ *   byte    presence flags: 1 = groupId, 2 = expenseId, 4 = balanceDeltas, 8 = sequence
+ *   varint  groupId, expenseId, sequence (only those present)
+ *   amounts balanceDeltas, as described in {@link AmountMaps} (empty when absent)
+ * </pre>
+ * Version 1 is the same layout without the sequence and is still decoded.
+ */
+public final class ExpenseAdjustedEventCodec implements EventCodec<ExpenseAdjustedEvent> {
+    /** Wire type name of {@link ExpenseAdjustedEvent}. */
+    public static final String TYPE_NAME = "expense.adjusted";
+
+    static final int VERSION = 2;
+    private static final int HAS_GROUP = 1;
+    private static final int HAS_EXPENSE = 2;
+    private static final int HAS_DELTAS = 4;
+    private static final int HAS_SEQUENCE = 8;
+
+    @Override
+    public String typeName() {
+        return TYPE_NAME;
+    }
+
+    @Override
+    public Class<ExpenseAdjustedEvent> type() {
+        return ExpenseAdjustedEvent.class;
+    }
+
+    @Override
+    public byte[] encode(ExpenseAdjustedEvent event) {
+        Map<Long, BigDecimal> deltas = event.balanceDeltas();
+        VarIntWriter out = new VarIntWriter(8 + (deltas == null ? 0 : deltas.size() * 6));
+        out.writeByte(VERSION);
+        int flags = (event.groupId() != null ? HAS_GROUP : 0)
+                | (event.expenseId() != null ? HAS_EXPENSE : 0)
+                | (deltas != null ? HAS_DELTAS : 0)
+                | (event.sequence() != null ? HAS_SEQUENCE : 0);
+        out.writeByte(flags);
+        if (event.groupId() != null) {
+            out.writeSigned(event.groupId());
+        }
+        if (event.expenseId() != null) {
+            out.writeSigned(event.expenseId());
+        }
+        if (event.sequence() != null) {
+            out.writeSigned(event.sequence());
+        }
+        AmountMaps.write(out, deltas != null ? deltas : Map.of());
+        return out.toByteArray();
+    }
+
+    @Override
+    public ExpenseAdjustedEvent decode(byte[] payload) {
+        VarIntReader in = new VarIntReader(payload);
+        int version = in.readByte();
+        if (version < 1 || version > VERSION) {
+            throw new IllegalArgumentException("Unsupported " + TYPE_NAME + " payload version " + version);
+        }
+        int flags = in.readByte();
+        Long groupId = (flags & HAS_GROUP) != 0 ? in.readSigned() : null;
+        Long expenseId = (flags & HAS_EXPENSE) != 0 ? in.readSigned() : null;
+        Long sequence = (flags & HAS_SEQUENCE) != 0 ? in.readSigned() : null;
+        Map<Long, BigDecimal> amounts = AmountMaps.read(in);
+        Map<Long, BigDecimal> deltas = (flags & HAS_DELTAS) != 0 ? amounts : null;
+        if (in.hasRemaining()) {
+            throw new IllegalArgumentException("Trailing bytes in event payload");
+        }
+        return new ExpenseAdjustedEvent(groupId, expenseId, deltas, sequence);
+    }
+}
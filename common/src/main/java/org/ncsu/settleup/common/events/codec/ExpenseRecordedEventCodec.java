@@ -0,0 +1,89 @@
+package org.ncsu.settleup.common.events.codec;
+
+import org.ncsu.settleup.common.events.ExpenseRecordedEvent;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Binary codec for {@link ExpenseRecordedEvent}.
+ *
+ * <p>Version 2 layout, all integers as LEB128 varints (zig-zag for
+ * signed values):
+ * <pre>
+ *   byte    version (2)
+ *   byte    presence flags: 1 = groupId, 2 = expenseId, 4 = payerMemberId, 8 = shares,
+ *           16 = sequence
+ *   varint  groupId, expenseId, payerMemberId, sequence (only those present)
+ *   amounts shares, as described in {@link AmountMaps} (empty when absent)
+ * </pre>
+ * Version 1 is the same layout without the sequence and is still decoded.
+ */
+public final class ExpenseRecordedEventCodec implements EventCodec<ExpenseRecordedEvent> {
+    /** Wire type name of {@link ExpenseRecordedEvent}. */
+    public static final String TYPE_NAME = "expense.recorded";
+
+    static final int VERSION = 2;
+    private static final int HAS_GROUP = 1;
+    private static final int HAS_EXPENSE = 2;
+    private static final int HAS_PAYER = 4;
+    private static final int HAS_SHARES = 8;
+    private static final int HAS_SEQUENCE = 16;
+
+    @Override
+    public String typeName() {
+        return TYPE_NAME;
+    }
+
+    @Override
+    public Class<ExpenseRecordedEvent> type() {
+        return ExpenseRecordedEvent.class;
+    }
+
+    @Override
+    public byte[] encode(ExpenseRecordedEvent event) {
+        Map<Long, BigDecimal> shares = event.shares();
+        VarIntWriter out = new VarIntWriter(8 + (shares == null ? 0 : shares.size() * 6));
+        out.writeByte(VERSION);
+        int flags = (event.groupId() != null ? HAS_GROUP : 0)
+                | (event.expenseId() != null ? HAS_EXPENSE : 0)
+                | (event.payerMemberId() != null ? HAS_PAYER : 0)
+                | (shares != null ? HAS_SHARES : 0)
+                | (event.sequence() != null ? HAS_SEQUENCE : 0);
+        out.writeByte(flags);
+        if (event.groupId() != null) {
+            out.writeSigned(event.groupId());
+        }
+        if (event.expenseId() != null) {
+            out.writeSigned(event.expenseId());
+        }
+        if (event.payerMemberId() != null) {
+            out.writeSigned(event.payerMemberId());
+        }
+        if (event.sequence() != null) {
+            out.writeSigned(event.sequence());
+        }
+        AmountMaps.write(out, shares != null ? shares : Map.of());
+        return out.toByteArray();
+    }
+
+    @Override
+    public ExpenseRecordedEvent decode(byte[] payload) {
+        VarIntReader in = new VarIntReader(payload);
+        int version = in.readByte();
+        if (version < 1 || version > VERSION) {
+            throw new IllegalArgumentException("Unsupported " + TYPE_NAME + " payload version " + version);
+        }
+        int flags = in.readByte();
+        Long groupId = (flags & HAS_GROUP) != 0 ? in.readSigned() : null;
+        Long expenseId = (flags & HAS_EXPENSE) != 0 ? in.readSigned() : null;
+        Long payerMemberId = (flags & HAS_PAYER) != 0 ? in.readSigned() : null;
+        Long sequence = (flags & HAS_SEQUENCE) != 0 ? in.readSigned() : null;
+        Map<Long, BigDecimal> amounts = AmountMaps.read(in);
+        Map<Long, BigDecimal> shares = (flags & HAS_SHARES) != 0 ? amounts : null;
+        if (in.hasRemaining()) {
+            throw new IllegalArgumentException("Trailing bytes in event payload");
+        }
+        return new ExpenseRecordedEvent(groupId, expenseId, payerMemberId, shares, sequence);
+    }
+}
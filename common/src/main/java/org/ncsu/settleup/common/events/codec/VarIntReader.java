@@ -0,0 +1,43 @@
+package org.ncsu.settleup.common.events.codec;
+
+/**
+ * Reader for payloads produced by {@link VarIntWriter}.  Every read is
+ * bounds-checked and reports malformed input as an
+ * {@link IllegalArgumentException}.
+ */
+final class VarIntReader {
+    private final byte[] buf;
+    private int pos;
+
+    VarIntReader(byte[] buf) {
+        this.buf = buf;
+    }
+
+    int readByte() {
+        if (pos >= buf.length) {
+            throw new IllegalArgumentException("Truncated event payload");
+        }
+        return buf[pos++] & 0xFF;
+    }
+
+    long readUnsigned() {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in event payload");
+    }
+
+    long readSigned() {
+        long raw = readUnsigned();
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    boolean hasRemaining() {
+        return pos < buf.length;
+    }
+}
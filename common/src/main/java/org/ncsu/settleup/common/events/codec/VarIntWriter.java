@@ -0,0 +1,45 @@
+package org.ncsu.settleup.common.events.codec;
+
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer with LEB128 variable-length integer encoding.
+ * Signed values are zig-zag encoded so that small negative numbers
+ * stay small on the wire.
+ */
+final class VarIntWriter {
+    private byte[] buf;
+    private int size;
+
+    VarIntWriter(int initialCapacity) {
+        buf = new byte[Math.max(16, initialCapacity)];
+    }
+
+    void writeByte(int b) {
+        ensure(1);
+        buf[size++] = (byte) b;
+    }
+
+    void writeUnsigned(long value) {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            buf[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf[size++] = (byte) value;
+    }
+
+    void writeSigned(long value) {
+        writeUnsigned((value << 1) ^ (value >> 63));
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buf, size);
+    }
+
+    private void ensure(int extra) {
+        if (size + extra > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + extra));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.ncsu.settleup.common.observability;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.observation.ClientHttpObservationDocumentation;
+import org.springframework.http.client.observation.ClientRequestObservationContext;
+import org.springframework.http.client.observation.DefaultClientRequestObservationConvention;
+
+import java.util.regex.Pattern;
+
+/**
+ * Tags {@code http.client.requests}, which time the calls between the
+ * services, with the endpoint and the group size bucket of the request
+ * that made the call.  The outcome and status tags are left as Spring
+ * sets them.
+ *
+ * <p>The service clients build their URLs by concatenation rather than
+ * from URI templates, so the "template" RestTemplate reports is the full
+ * URL of the call.  The tag is built from it with the scheme, host and
+ * query string removed and every numeric path segment replaced by
+ * {@code {id}}, so every call of the same endpoint shares one series
+ * whatever the group, member or query.
+ */
+public class ClientRequestConvention extends DefaultClientRequestObservationConvention {
+    private static final Pattern SCHEME_AND_HOST = Pattern.compile("^[a-zA-Z][a-zA-Z0-9+.-]*://[^/?#]*");
+    private static final Pattern ID_SEGMENT = Pattern.compile("/\\d+(?=/|$)");
+
+    @Override
+    public KeyValues getLowCardinalityKeyValues(ClientRequestObservationContext context) {
+        ClientHttpRequest request = context.getCarrier();
+        String method = request == null ? ObservabilityTags.UNKNOWN : request.getMethod().name();
+        return super.getLowCardinalityKeyValues(context)
+                .and(ObservabilityTags.ENDPOINT, method + " " + uri(context).getValue())
+                .and(ObservabilityTags.GROUP_SIZE, GroupSizeBucket.ofCurrentRequest());
+    }
+
+    @Override
+    protected KeyValue uri(ClientRequestObservationContext context) {
+        String template = context.getUriTemplate();
+        if (template == null && context.getCarrier() != null) {
+            template = context.getCarrier().getURI().toString();
+        }
+        if (template == null) {
+            return super.uri(context);
+        }
+        return KeyValue.of(ClientHttpObservationDocumentation.LowCardinalityKeyNames.URI.asString(),
+                templatePath(template));
+    }
+
+    /**
+     * The path of a URL or URI template, without scheme, host or query
+     * string, with every numeric segment replaced by {@code {id}}.
+     */
+    static String templatePath(String url) {
+        String path = SCHEME_AND_HOST.matcher(url).replaceFirst("");
+        int end = path.length();
+        for (char c : new char[] {'?', '#'}) {
+            int i = path.indexOf(c);
+            if (i >= 0 && i < end) {
+                end = i;
+            }
+        }
+        path = path.substring(0, end);
+        return path.isEmpty() ? "/" : ID_SEGMENT.matcher(path).replaceAll("/{id}");
+    }
+}
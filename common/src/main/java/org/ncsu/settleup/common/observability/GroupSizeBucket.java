@@ -0,0 +1,84 @@
+package org.ncsu.settleup.common.observability;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Buckets of group sizes used as the {@link ObservabilityTags#GROUP_SIZE}
+ * tag.  A handful of fixed buckets keeps the number of time series
+ * small while still showing whether latency grows with the group.
+ *
+ * <p>A handler that knows how many members the group it serves has
+ * calls {@link #tagCurrentRequest(long)}; the HTTP server and client
+ * metrics of that request then carry the bucket.  Requests that do not
+ * are tagged {@link ObservabilityTags#UNKNOWN}.
+ */
+public final class GroupSizeBucket {
+    /** Request attribute holding the bucket of the current request. */
+    static final String ATTRIBUTE = GroupSizeBucket.class.getName();
+
+    private static final long[] UPPER_BOUNDS = {5, 20, 100, 1000};
+
+    private GroupSizeBucket() {
+    }
+
+    /**
+     * The bucket of a group with the given number of members: {@code 0},
+     * {@code 1-5}, {@code 6-20}, {@code 21-100}, {@code 101-1000} or
+     * {@code 1001+}.
+     */
+    public static String of(long members) {
+        if (members <= 0) {
+            return "0";
+        }
+        long lower = 1;
+        for (long upper : UPPER_BOUNDS) {
+            if (members <= upper) {
+                return lower + "-" + upper;
+            }
+            lower = upper + 1;
+        }
+        return lower + "+";
+    }
+
+    /**
+     * Tag the metrics of the HTTP request being handled on this thread
+     * with the size bucket of its group.  Does nothing outside a request,
+     * for example on a listener or pool thread.
+     *
+     * @param members number of members of the group
+     */
+    public static void tagCurrentRequest(long members) {
+        tagRequest(RequestContextHolder.getRequestAttributes(), members);
+    }
+
+    /**
+     * Tag the metrics of a request captured earlier with
+     * {@link RequestContextHolder#getRequestAttributes()}.  Handlers that
+     * finish a request asynchronously use this from the thread that
+     * completes it, where {@link #tagCurrentRequest(long)} sees no request.
+     *
+     * @param attributes the request, or {@code null} to do nothing
+     * @param members    number of members of the group
+     */
+    public static void tagRequest(RequestAttributes attributes, long members) {
+        if (attributes instanceof ServletRequestAttributes servlet) {
+            // Set on the servlet request itself: the attributes wrapper
+            // refuses writes once the handler thread has returned.
+            servlet.getRequest().setAttribute(ATTRIBUTE, of(members));
+        } else if (attributes != null) {
+            attributes.setAttribute(ATTRIBUTE, of(members), RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    /**
+     * The bucket the request being handled on this thread was tagged
+     * with, or {@link ObservabilityTags#UNKNOWN}.
+     */
+    public static String ofCurrentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        Object bucket = attributes == null ? null : attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        return bucket instanceof String value ? value : ObservabilityTags.UNKNOWN;
+    }
+}
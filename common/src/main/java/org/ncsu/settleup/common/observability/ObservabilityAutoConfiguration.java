@@ -0,0 +1,122 @@
+package org.ncsu.settleup.common.observability;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.config.MeterFilter;
+import org.springframework.amqp.rabbit.config.AbstractRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.observation.ClientRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationConvention;
+
+/**
+ * Metrics setup shared by every SettleUp service, picked up through
+ * Spring Boot auto-configuration from the {@code common} dependency.
+ *
+ * <p>Spring Boot Actuator already times HTTP requests served
+ * ({@code http.server.requests}) and made through {@code RestTemplate}
+ * ({@code http.client.requests}), and reports the Hikari connection pool
+ * ({@code hikaricp.connections.*}).  This configuration adds:
+ * <ul>
+ *   <li>the {@link ObservabilityTags#ENDPOINT} and
+ *       {@link ObservabilityTags#GROUP_SIZE} tags on HTTP server and
+ *       client requests, the latter with ID-free URIs so that calls such
+ *       as the {@code MembershipClient} checks do not make a series per
+ *       group;</li>
+ *   <li>RabbitMQ publish ({@code spring.rabbit.template}) and consume
+ *       ({@code spring.rabbit.listener}) timers, by turning on Spring
+ *       AMQP's observations, tagged with the routing key or queue as
+ *       {@link ObservabilityTags#ENDPOINT}.</li>
+ * </ul>
+ * The {@link ObservabilityTags#SERVICE} tag, the latency histograms and
+ * the Prometheus endpoint are switched on by default properties from
+ * {@link ObservabilityEnvironmentPostProcessor}.
+ */
+@AutoConfiguration
+@ConditionalOnClass(MeterRegistry.class)
+public class ObservabilityAutoConfiguration {
+
+    /**
+     * Endpoint and group size tags on the requests a service serves.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    @ConditionalOnClass(ServerRequestObservationConvention.class)
+    static class WebObservationConfiguration {
+
+        @Bean
+        ServerRequestObservationConvention settleUpServerRequestObservationConvention() {
+            return new ServerRequestConvention();
+        }
+
+        @Bean
+        ClientRequestObservationConvention settleUpClientRequestObservationConvention() {
+            return new ClientRequestConvention();
+        }
+    }
+
+    /**
+     * Publish and consume timers for RabbitMQ.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(RabbitTemplate.class)
+    static class RabbitObservationConfiguration {
+
+        /**
+         * Turn on observations for every template and listener container
+         * factory, including templates a service declares itself.
+         */
+        @Bean
+        static BeanPostProcessor settleUpRabbitObservationEnabler() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                    if (bean instanceof RabbitTemplate template) {
+                        template.setObservationEnabled(true);
+                    } else if (bean instanceof AbstractRabbitListenerContainerFactory<?> factory) {
+                        factory.setObservationEnabled(true);
+                    }
+                    return bean;
+                }
+            };
+        }
+
+        /**
+         * Tag RabbitMQ timers with the routing key a message was published
+         * with, or the queue it was consumed from.
+         */
+        @Bean
+        MeterFilter settleUpRabbitEndpointTag() {
+            return new MeterFilter() {
+                @Override
+                public Meter.Id map(Meter.Id id) {
+                    if (!id.getName().startsWith("spring.rabbit.")) {
+                        return id;
+                    }
+                    String endpoint = firstTag(id,
+                            "messaging.rabbitmq.destination.routing_key",
+                            "messaging.destination.name",
+                            "spring.rabbit.listener.id",
+                            "spring.rabbit.template.name");
+                    return id.withTag(Tag.of(ObservabilityTags.ENDPOINT, endpoint));
+                }
+            };
+        }
+
+        private static String firstTag(Meter.Id id, String... keys) {
+            for (String key : keys) {
+                String value = id.getTag(key);
+                if (value != null && !value.isEmpty()) {
+                    return value;
+                }
+            }
+            return ObservabilityTags.UNKNOWN;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package org.ncsu.settleup.common.observability;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Default metrics properties for every SettleUp service.  They are added
+ * with the lowest precedence, so a service's own properties or the
+ * environment override any of them.
+ *
+ * <ul>
+ *   <li>Expose {@code /actuator/prometheus} next to health and info.</li>
+ *   <li>Tag every meter with the service's {@code spring.application.name}.</li>
+ *   <li>Publish latency histograms, bounded to 1 ms to 30 s, for HTTP
+ *       server and client requests, RabbitMQ publishing and consuming,
+ *       and Hikari connection acquisition and use, so that percentiles
+ *       can be aggregated across instances in Prometheus.</li>
+ *   <li>Name the Hikari pool after the service.</li>
+ * </ul>
+ */
+public class ObservabilityEnvironmentPostProcessor implements EnvironmentPostProcessor {
+    static final String PROPERTY_SOURCE_NAME = "settleUpObservabilityDefaults";
+
+    private static final String[] HISTOGRAM_METERS = {
+            "http.server.requests", "http.client.requests", "spring.rabbit", "hikaricp.connections"};
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        Map<String, Object> defaults = new LinkedHashMap<>();
+        defaults.put("management.endpoints.web.exposure.include", "health,info,prometheus");
+        defaults.put("management.metrics.tags." + ObservabilityTags.SERVICE, "${spring.application.name:unknown}");
+        for (String meter : HISTOGRAM_METERS) {
+            defaults.put("management.metrics.distribution.percentiles-histogram." + meter, "true");
+            defaults.put("management.metrics.distribution.minimum-expected-value." + meter, "1ms");
+            defaults.put("management.metrics.distribution.maximum-expected-value." + meter, "30s");
+        }
+        defaults.put("spring.datasource.hikari.pool-name", "${spring.application.name:settleup}");
+        environment.getPropertySources().addLast(new MapPropertySource(PROPERTY_SOURCE_NAME, defaults));
+    }
+}
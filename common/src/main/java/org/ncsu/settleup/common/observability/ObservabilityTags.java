@@ -0,0 +1,26 @@
+package org.ncsu.settleup.common.observability;
+
+/**
+ * Tag names shared by the metrics of every SettleUp service, so that a
+ * dashboard can break down HTTP, HTTP client and RabbitMQ timings the
+ * same way.
+ */
+public final class ObservabilityTags {
+    /** Name of the service that recorded the metric. */
+    public static final String SERVICE = "service";
+
+    /**
+     * What was called: {@code METHOD /uri/{template}} for HTTP, the
+     * routing key or queue for RabbitMQ.
+     */
+    public static final String ENDPOINT = "endpoint";
+
+    /** Size bucket of the group a request was about, see {@link GroupSizeBucket}. */
+    public static final String GROUP_SIZE = "group.size";
+
+    /** Value of a tag that is not known for a measurement. */
+    public static final String UNKNOWN = "unknown";
+
+    private ObservabilityTags() {
+    }
+}
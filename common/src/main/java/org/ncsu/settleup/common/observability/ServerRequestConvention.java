@@ -0,0 +1,23 @@
+package org.ncsu.settleup.common.observability;
+
+import io.micrometer.common.KeyValues;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+
+/**
+ * Tags {@code http.server.requests} with the endpoint, as method and URI
+ * template, and with the group size bucket the handler recorded through
+ * {@link GroupSizeBucket#tagCurrentRequest(long)}.
+ */
+public class ServerRequestConvention extends DefaultServerRequestObservationConvention {
+
+    @Override
+    public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+        HttpServletRequest request = context.getCarrier();
+        Object bucket = request.getAttribute(GroupSizeBucket.ATTRIBUTE);
+        return super.getLowCardinalityKeyValues(context)
+                .and(ObservabilityTags.ENDPOINT, request.getMethod() + " " + uri(context).getValue())
+                .and(ObservabilityTags.GROUP_SIZE, bucket instanceof String value ? value : ObservabilityTags.UNKNOWN);
+    }
+}
@@ -0,0 +1,110 @@
+package org.ncsu.settleup.common.benchmark;
+
+import org.ncsu.settleup.common.events.ExpenseRecordedEvent;
+import org.ncsu.settleup.common.events.codec.BinaryEventMessageConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH comparison of the JSON and binary message converters for
+ * {@link ExpenseRecordedEvent} at different participant counts.
+ *
+ * <p>This is not a unit test and is not picked up by surefire.  Run it with:
+ * <pre>
+ * mvn -pl common test-compile exec:java \
+ *     -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.ncsu.settleup.common.benchmark.EventCodecBenchmark
+ * </pre>
+ * The message sizes are printed before the JMH run starts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventCodecBenchmark {
+
+    @Param({"2", "10", "50"})
+    public int participants;
+
+    private Jackson2JsonMessageConverter json;
+    private BinaryEventMessageConverter binary;
+    private ExpenseRecordedEvent event;
+    private Message jsonMessage;
+    private Message binaryMessage;
+
+    @Setup
+    public void setUp() {
+        json = new Jackson2JsonMessageConverter("org.ncsu.settleup.common.events");
+        binary = new BinaryEventMessageConverter();
+        event = sampleEvent(participants);
+        jsonMessage = json.toMessage(event, new MessageProperties());
+        binaryMessage = binary.toMessage(event, new MessageProperties());
+    }
+
+    @Benchmark
+    public Message encodeJson() {
+        return json.toMessage(event, new MessageProperties());
+    }
+
+    @Benchmark
+    public Message encodeBinary() {
+        return binary.toMessage(event, new MessageProperties());
+    }
+
+    @Benchmark
+    public Object decodeJson() {
+        return json.fromMessage(jsonMessage);
+    }
+
+    @Benchmark
+    public Object decodeBinary() {
+        return binary.fromMessage(binaryMessage);
+    }
+
+    /**
+     * Build an event shaped like a real even split: sequential member IDs
+     * in the thousands and two-decimal amounts.
+     */
+    static ExpenseRecordedEvent sampleEvent(int participants) {
+        Map<Long, BigDecimal> shares = new HashMap<>();
+        for (int i = 1; i <= participants; i++) {
+            shares.put(1000L + i, new BigDecimal("12.34").add(BigDecimal.valueOf(i, 2)));
+        }
+        return new ExpenseRecordedEvent(42L, 987_654L, 1001L, shares);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Jackson2JsonMessageConverter json = new Jackson2JsonMessageConverter("org.ncsu.settleup.common.events");
+        BinaryEventMessageConverter binary = new BinaryEventMessageConverter();
+        for (int participants : new int[] {2, 10, 50}) {
+            ExpenseRecordedEvent event = sampleEvent(participants);
+            int jsonBytes = json.toMessage(event, new MessageProperties()).getBody().length;
+            int binaryBytes = binary.toMessage(event, new MessageProperties()).getBody().length;
+            System.out.printf("participants=%-3d json=%5d bytes  binary=%5d bytes%n",
+                    participants, jsonBytes, binaryBytes);
+        }
+        new Runner(new OptionsBuilder().include(EventCodecBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,53 @@
+package org.ncsu.settleup.common.events.codec;
+
+import org.junit.jupiter.api.Test;
+import org.ncsu.settleup.common.events.ExpenseRecordedEvent;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link BinaryEventMessageConverter} and the
+ * content-type delegating converter used by consumers during rollout.
+ */
+class BinaryEventMessageConverterTest {
+
+    private final ExpenseRecordedEvent event =
+            new ExpenseRecordedEvent(1L, 2L, 3L, Map.of(4L, new BigDecimal("5.00")));
+
+    @Test
+    void toMessage_tagsContentTypeAndEventType() {
+        Message message = new BinaryEventMessageConverter().toMessage(event, new MessageProperties());
+        assertEquals(BinaryEventMessageConverter.CONTENT_TYPE, message.getMessageProperties().getContentType());
+        assertEquals(ExpenseRecordedEventCodec.TYPE_NAME,
+                message.getMessageProperties().getHeader(BinaryEventMessageConverter.TYPE_HEADER));
+    }
+
+    @Test
+    void toMessage_rejectsUnknownTypes() {
+        assertThrows(MessageConversionException.class,
+                () -> new BinaryEventMessageConverter().toMessage("not an event", new MessageProperties()));
+    }
+
+    @Test
+    void delegatingConverter_decodesBothJsonAndBinaryMessages() {
+        Jackson2JsonMessageConverter json = new Jackson2JsonMessageConverter("org.ncsu.settleup.common.events");
+        MessageConverter consumer = BinaryEventMessageConverter.delegatingConverter(json);
+
+        Message binary = new BinaryEventMessageConverter().toMessage(event, new MessageProperties());
+        Message jsonMessage = json.toMessage(event, new MessageProperties());
+
+        ExpenseRecordedEvent fromBinary = (ExpenseRecordedEvent) consumer.fromMessage(binary);
+        ExpenseRecordedEvent fromJson = (ExpenseRecordedEvent) consumer.fromMessage(jsonMessage);
+        assertEquals(event.groupId(), fromBinary.groupId());
+        assertEquals(event.groupId(), fromJson.groupId());
+        assertEquals(0, fromBinary.shares().get(4L).compareTo(fromJson.shares().get(4L)));
+    }
+}
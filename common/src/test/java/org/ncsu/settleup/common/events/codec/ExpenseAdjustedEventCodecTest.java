@@ -0,0 +1,39 @@
+package org.ncsu.settleup.common.events.codec;
+
+import org.junit.jupiter.api.Test;
+import org.ncsu.settleup.common.events.ExpenseAdjustedEvent;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link ExpenseAdjustedEventCodec}.
+ */
+class ExpenseAdjustedEventCodecTest {
+
+    private final ExpenseAdjustedEventCodec codec = new ExpenseAdjustedEventCodec();
+
+    @Test
+    void roundTrip_preservesSignedDeltas() {
+        Map<Long, BigDecimal> deltas = Map.of(
+                3L, new BigDecimal("-12.5"),
+                9L, new BigDecimal("12.50"));
+        ExpenseAdjustedEvent decoded = codec.decode(codec.encode(new ExpenseAdjustedEvent(4L, 77L, deltas)));
+
+        assertEquals(4L, decoded.groupId());
+        assertEquals(77L, decoded.expenseId());
+        assertEquals(deltas.keySet(), decoded.balanceDeltas().keySet());
+        assertEquals(0, new BigDecimal("-12.5").compareTo(decoded.balanceDeltas().get(3L)));
+        assertEquals(0, new BigDecimal("12.5").compareTo(decoded.balanceDeltas().get(9L)));
+    }
+
+    @Test
+    void decode_rejectsTrailingBytes() {
+        byte[] valid = codec.encode(new ExpenseAdjustedEvent(1L, 2L, Map.of()));
+        byte[] padded = new byte[valid.length + 1];
+        System.arraycopy(valid, 0, padded, 0, valid.length);
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(padded));
+    }
+}
@@ -0,0 +1,99 @@
+package org.ncsu.settleup.common.events.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.ncsu.settleup.common.events.ExpenseRecordedEvent;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link ExpenseRecordedEventCodec}.
+ */
+class ExpenseRecordedEventCodecTest {
+
+    private final ExpenseRecordedEventCodec codec = new ExpenseRecordedEventCodec();
+
+    private static void assertSameShares(Map<Long, BigDecimal> expected, Map<Long, BigDecimal> actual) {
+        assertEquals(expected.keySet(), actual.keySet());
+        expected.forEach((member, amount) ->
+                assertEquals(0, amount.compareTo(actual.get(member)), "amount for member " + member));
+    }
+
+    @Test
+    void roundTrip_preservesIdsAndAmounts() {
+        Map<Long, BigDecimal> shares = new HashMap<>();
+        shares.put(12L, new BigDecimal("10.5"));
+        shares.put(3L, new BigDecimal("0.25"));
+        shares.put(400_000L, new BigDecimal("1000"));
+        ExpenseRecordedEvent event = new ExpenseRecordedEvent(7L, 123_456_789L, 3L, shares);
+
+        ExpenseRecordedEvent decoded = codec.decode(codec.encode(event));
+
+        assertEquals(7L, decoded.groupId());
+        assertEquals(123_456_789L, decoded.expenseId());
+        assertEquals(3L, decoded.payerMemberId());
+        assertSameShares(shares, decoded.shares());
+    }
+
+    @Test
+    void roundTrip_handlesNullsAndNegativeValues() {
+        Map<Long, BigDecimal> shares = Map.of(-5L, new BigDecimal("-2.50"));
+        ExpenseRecordedEvent decoded = codec.decode(codec.encode(new ExpenseRecordedEvent(1L, null, null, shares)));
+        assertNull(decoded.expenseId());
+        assertNull(decoded.payerMemberId());
+        assertSameShares(shares, decoded.shares());
+
+        ExpenseRecordedEvent noShares = codec.decode(codec.encode(new ExpenseRecordedEvent(1L, 2L, 3L, null)));
+        assertNull(noShares.shares());
+    }
+
+    @Test
+    void roundTrip_preservesSequence() {
+        ExpenseRecordedEvent event = new ExpenseRecordedEvent(1L, 2L, 3L, Map.of(4L, BigDecimal.TEN), 981L);
+        assertEquals(981L, codec.decode(codec.encode(event)).sequence());
+    }
+
+    @Test
+    void decode_acceptsVersionOnePayloadsWithoutSequence() {
+        // version 1, flags = groupId, groupId 2 (zig-zag 4), scale 0, no shares
+        ExpenseRecordedEvent decoded = codec.decode(new byte[] {1, 1, 4, 0, 0});
+        assertEquals(2L, decoded.groupId());
+        assertNull(decoded.sequence());
+    }
+
+    @Test
+    void encode_isSmallerThanJsonForTypicalEvent() throws Exception {
+        Map<Long, BigDecimal> shares = new HashMap<>();
+        for (long m = 1; m <= 10; m++) {
+            shares.put(1000 + m, new BigDecimal("12.34"));
+        }
+        ExpenseRecordedEvent event = new ExpenseRecordedEvent(42L, 9000L, 1001L, shares);
+        byte[] payload = codec.encode(event);
+        // 1 version + 1 flags + 6 id bytes (1 + 3 + 2) + 1 scale + 1 count
+        // + first share (2-byte id delta + 2-byte amount) + 9 x (1-byte delta + 2-byte amount)
+        assertEquals(41, payload.length);
+        byte[] json = new ObjectMapper().writeValueAsBytes(event);
+        assertTrue(payload.length < json.length,
+                "payload was " + payload.length + " bytes, JSON " + json.length + " bytes");
+    }
+
+    @Test
+    void encode_rejectsAmountsThatDoNotFitInALong() {
+        Map<Long, BigDecimal> shares = Map.of(1L, new BigDecimal("1e30"));
+        assertThrows(IllegalArgumentException.class,
+                () -> codec.encode(new ExpenseRecordedEvent(1L, 1L, 1L, shares)));
+    }
+
+    @Test
+    void decode_rejectsUnknownVersionAndTruncatedPayloads() {
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(new byte[] {99, 0}));
+        byte[] valid = codec.encode(new ExpenseRecordedEvent(1L, 2L, 3L, Map.of(4L, BigDecimal.ONE)));
+        byte[] truncated = Arrays.copyOf(valid, valid.length - 1);
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(truncated));
+    }
+}
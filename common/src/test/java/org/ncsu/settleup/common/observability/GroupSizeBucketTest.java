@@ -0,0 +1,64 @@
+package org.ncsu.settleup.common.observability;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Unit tests for {@link GroupSizeBucket}.
+ */
+class GroupSizeBucketTest {
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void of_bucketsSizesAtTheirBounds() {
+        assertEquals("0", GroupSizeBucket.of(0));
+        assertEquals("1-5", GroupSizeBucket.of(1));
+        assertEquals("1-5", GroupSizeBucket.of(5));
+        assertEquals("6-20", GroupSizeBucket.of(6));
+        assertEquals("21-100", GroupSizeBucket.of(100));
+        assertEquals("101-1000", GroupSizeBucket.of(1000));
+        assertEquals("1001+", GroupSizeBucket.of(1001));
+        assertEquals("1001+", GroupSizeBucket.of(Long.MAX_VALUE));
+    }
+
+    @Test
+    void tagCurrentRequest_setsAttributeOfRequestOnThisThread() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        assertEquals(ObservabilityTags.UNKNOWN, GroupSizeBucket.ofCurrentRequest());
+        GroupSizeBucket.tagCurrentRequest(12);
+
+        assertEquals("6-20", request.getAttribute(GroupSizeBucket.ATTRIBUTE));
+        assertEquals("6-20", GroupSizeBucket.ofCurrentRequest());
+    }
+
+    @Test
+    void tagCurrentRequest_doesNothingOutsideARequest() {
+        GroupSizeBucket.tagCurrentRequest(12);
+
+        assertNull(RequestContextHolder.getRequestAttributes());
+        assertEquals(ObservabilityTags.UNKNOWN, GroupSizeBucket.ofCurrentRequest());
+    }
+
+    @Test
+    void tagRequest_tagsCapturedRequestAfterItsThreadReturned() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        ServletRequestAttributes attributes = new ServletRequestAttributes(request);
+        attributes.requestCompleted();
+
+        GroupSizeBucket.tagRequest(attributes, 150);
+
+        assertEquals("101-1000", request.getAttribute(GroupSizeBucket.ATTRIBUTE));
+    }
+}
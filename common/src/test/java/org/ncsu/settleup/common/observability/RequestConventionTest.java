@@ -0,0 +1,155 @@
+package org.ncsu.settleup.common.observability;
+
+import io.micrometer.common.KeyValues;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.observation.ClientRequestObservationContext;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+/**
+ * Unit tests for {@link ServerRequestConvention} and
+ * {@link ClientRequestConvention}.
+ */
+class RequestConventionTest {
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    private static String tag(KeyValues values, String key) {
+        return values.stream().filter(v -> v.getKey().equals(key)).findFirst().orElseThrow().getValue();
+    }
+
+    @Test
+    void server_tagsEndpointAndRecordedGroupSize() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/groups/7/members");
+        ServerRequestObservationContext context =
+                new ServerRequestObservationContext(request, new MockHttpServletResponse());
+        context.setPathPattern("/groups/{groupId}/members");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        GroupSizeBucket.tagCurrentRequest(3);
+
+        KeyValues values = new ServerRequestConvention().getLowCardinalityKeyValues(context);
+
+        assertEquals("GET /groups/{groupId}/members", tag(values, ObservabilityTags.ENDPOINT));
+        assertEquals("1-5", tag(values, ObservabilityTags.GROUP_SIZE));
+    }
+
+    @Test
+    void server_tagsUnknownGroupSizeWhenNotRecorded() {
+        ServerRequestObservationContext context = new ServerRequestObservationContext(
+                new MockHttpServletRequest("POST", "/expenses"), new MockHttpServletResponse());
+        context.setPathPattern("/expenses");
+
+        KeyValues values = new ServerRequestConvention().getLowCardinalityKeyValues(context);
+
+        assertEquals("POST /expenses", tag(values, ObservabilityTags.ENDPOINT));
+        assertEquals(ObservabilityTags.UNKNOWN, tag(values, ObservabilityTags.GROUP_SIZE));
+    }
+
+    /**
+     * Make a call through a RestTemplate using the convention, as the
+     * service clients do, and return the tags of its observation.
+     */
+    private static KeyValues clientTags(HttpMethod method, String url) {
+        AtomicReference<KeyValues> tags = new AtomicReference<>();
+        ObservationRegistry registry = ObservationRegistry.create();
+        registry.observationConfig().observationHandler(new ObservationHandler<>() {
+            @Override
+            public boolean supportsContext(Observation.Context context) {
+                return context instanceof ClientRequestObservationContext;
+            }
+
+            @Override
+            public void onStop(Observation.Context context) {
+                tags.set(context.getLowCardinalityKeyValues());
+            }
+        });
+        RestTemplate restTemplate = new RestTemplate();
+        restTemplate.setObservationRegistry(registry);
+        restTemplate.setObservationConvention(new ClientRequestConvention());
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        server.expect(requestTo(url)).andExpect(method(method)).andRespond(withSuccess());
+
+        restTemplate.exchange(url, method, null, Void.class);
+
+        server.verify();
+        return tags.get();
+    }
+
+    @Test
+    void client_replacesIdsInConcatenatedUrls() {
+        KeyValues values = clientTags(HttpMethod.HEAD, "http://membership:8081/groups/42/members/7");
+
+        assertEquals("/groups/{id}/members/{id}", tag(values, "uri"));
+        assertEquals("HEAD /groups/{id}/members/{id}", tag(values, ObservabilityTags.ENDPOINT));
+        assertEquals(ObservabilityTags.UNKNOWN, tag(values, ObservabilityTags.GROUP_SIZE));
+    }
+
+    @Test
+    void client_dropsQueryStringOfConcatenatedUrls() {
+        KeyValues values = clientTags(HttpMethod.GET,
+                "http://expense:8082/groups/42/events/resend?from=3&to=9");
+
+        assertEquals("/groups/{id}/events/resend", tag(values, "uri"));
+        assertEquals("GET /groups/{id}/events/resend", tag(values, ObservabilityTags.ENDPOINT));
+    }
+
+    @Test
+    void client_templatesFullUrlReportedAsUriTemplate() {
+        ClientRequestObservationContext context = new ClientRequestObservationContext(
+                new MockClientHttpRequest(HttpMethod.GET, URI.create("http://expense:8082/groups/42/expenses?size=20")));
+        context.setUriTemplate("http://expense:8082/groups/42/expenses?size=20");
+
+        KeyValues values = new ClientRequestConvention().getLowCardinalityKeyValues(context);
+
+        assertEquals("/groups/{id}/expenses", tag(values, "uri"));
+    }
+
+    @Test
+    void client_keepsUriTemplateWhenGiven() {
+        ClientRequestObservationContext context = new ClientRequestObservationContext(
+                new MockClientHttpRequest(HttpMethod.GET, URI.create("http://expense:8082/groups/3/expenses")));
+        context.setUriTemplate("/groups/{groupId}/expenses");
+
+        KeyValues values = new ClientRequestConvention().getLowCardinalityKeyValues(context);
+
+        assertEquals("/groups/{groupId}/expenses", tag(values, "uri"));
+    }
+
+    @Test
+    void templatePath_leavesNonNumericSegments() {
+        assertEquals("/groups/{id}/events/resend", ClientRequestConvention.templatePath("/groups/12/events/resend"));
+        assertEquals("/members/emails", ClientRequestConvention.templatePath("/members/emails"));
+        assertEquals("/v2/groups", ClientRequestConvention.templatePath("/v2/groups"));
+        assertEquals("/", ClientRequestConvention.templatePath(""));
+    }
+
+    @Test
+    void templatePath_stripsSchemeHostAndQuery() {
+        assertEquals("/groups/{id}", ClientRequestConvention.templatePath("http://membership:8081/groups/42"));
+        assertEquals("/groups/{id}/expenses",
+                ClientRequestConvention.templatePath("https://expense/groups/42/expenses?cursor=10&size=20"));
+        assertEquals("/", ClientRequestConvention.templatePath("http://membership:8081?x=1"));
+    }
+}
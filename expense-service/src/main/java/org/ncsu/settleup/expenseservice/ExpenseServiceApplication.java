@@ -3,6 +3,7 @@ package org.ncsu.settleup.expenseservice;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.web.client.RestTemplate;
 
@@ -12,6 +13,7 @@ import org.springframework.web.client.RestTemplate;
  * to new expenses.
  */
 @SpringBootApplication
+@EnableScheduling
 public class ExpenseServiceApplication {
 
     public static void main(String[] args) {
@@ -29,16 +29,17 @@ public class MembershipClient {
     }
 
     /**
-     * Check whether a group with the given ID exists by calling the
-     * membership service.  If the membership service responds with a
-     * non-200 code (e.g. 404), this method returns false.
+     * Check whether a group with the given ID exists by sending a HEAD
+     * request to the membership service, which answers from an index
+     * without serialising the group.  If the membership service responds
+     * with a non-200 code (e.g. 404), this method returns false.
      *
      * @param groupId group identifier
      * @return true if the group exists; false otherwise
      */
     public boolean groupExists(Long groupId) {
         try {
-            restTemplate.getForEntity(membershipServiceUrl + "/groups/" + groupId, Object.class);
+            restTemplate.headForHeaders(membershipServiceUrl + "/groups/" + groupId);
             return true;
         } catch (Exception e) {
             return false;
@@ -46,7 +47,8 @@ public class MembershipClient {
     }
 
     /**
-     * Check whether a given member exists in the specified group.
+     * Check whether a given member exists in the specified group with a
+     * HEAD request for that member alone.
      *
      * @param groupId  group identifier
      * @param memberId member identifier
@@ -54,22 +56,36 @@ public class MembershipClient {
      */
     public boolean memberExists(Long groupId, Long memberId) {
         try {
-            ResponseEntity<List<Long>> response = restTemplate.exchange(
-                membershipServiceUrl + "/groups/" + groupId + "/members",
+            restTemplate.headForHeaders(membershipServiceUrl + "/groups/" + groupId + "/members/" + memberId);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * Check whether a given category exists in the specified group.
+     *
+     * @param groupId    group identifier
+     * @param categoryId category identifier
+     * @return true if the category exists and belongs to the group
+     */
+    public boolean categoryExists(Long groupId, Long categoryId) {
+        try {
+            ResponseEntity<List<Map<String, Object>>> response = restTemplate.exchange(
+                membershipServiceUrl + "/groups/" + groupId + "/categories",
                 HttpMethod.GET,
                 null,
-                new ParameterizedTypeReference<List<Long>>() {}
+                new ParameterizedTypeReference<List<Map<String, Object>>>() {}
             );
-            List<Long> members = response.getBody();
-            if (members == null) {
+            List<Map<String, Object>> categories = response.getBody();
+            if (categories == null) {
                 return false;
             }
-            for (Object obj : members) {
-                if (obj instanceof Map<?, ?> map) {
-                    Object idObj = map.get("id");
-                    if (idObj instanceof Number num && num.longValue() == memberId) {
-                        return true;
-                    }
+            for (Map<String, Object> category : categories) {
+                Object idObj = category.get("id");
+                if (idObj instanceof Number num && num.longValue() == categoryId) {
+                    return true;
                 }
             }
             return false;
@@ -77,4 +93,4 @@ public class MembershipClient {
             return false;
         }
     }
-}
\ No newline at end of file
+}
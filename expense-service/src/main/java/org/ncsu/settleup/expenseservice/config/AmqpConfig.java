@@ -1,16 +1,22 @@
 package org.ncsu.settleup.expenseservice.config;
 
+import org.ncsu.settleup.common.events.codec.BinaryEventMessageConverter;
 import org.springframework.amqp.core.TopicExchange;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 
 /**
  * RabbitMQ configuration for the expense service.  Defines the
- * exchange used to publish expense recorded events and configures a
- * JSON message converter.
+ * exchange used to publish expense recorded events and configures the
+ * message converter.  Events are written as JSON unless
+ * {@code settleup.events.encoding=binary}, in which case the compact
+ * binary format from {@link BinaryEventMessageConverter} is used.
  */
 @Configuration
 public class AmqpConfig {
@@ -28,9 +34,20 @@ public class AmqpConfig {
         return new Jackson2JsonMessageConverter();
     }
 
+    @Bean
+    @Primary
+    public MessageConverter eventMessageConverter(@Value("${settleup.events.encoding:json}") String encoding,
+                                                  Jackson2JsonMessageConverter jsonConverter) {
+        return switch (encoding) {
+            case "json" -> jsonConverter;
+            case "binary" -> new BinaryEventMessageConverter();
+            default -> throw new IllegalArgumentException("Unknown settleup.events.encoding: " + encoding);
+        };
+    }
+
     @Bean
     public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory,
-                                         Jackson2JsonMessageConverter messageConverter) {
+                                         MessageConverter messageConverter) {
         RabbitTemplate template = new RabbitTemplate(connectionFactory);
         template.setMessageConverter(messageConverter);
         return template;
@@ -2,18 +2,34 @@ package org.ncsu.settleup.expenseservice.controller;
 
 import org.ncsu.settleup.expenseservice.model.Expense;
 import org.ncsu.settleup.expenseservice.model.SplitLine;
+import org.ncsu.settleup.expenseservice.repo.ExpenseFilter;
 import org.ncsu.settleup.expenseservice.repo.ExpenseRepository;
 import org.ncsu.settleup.expenseservice.service.ExpenseService;
+import org.ncsu.settleup.expenseservice.service.IdempotencyService;
 import org.ncsu.settleup.expenseservice.client.MembershipClient;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import io.swagger.v3.oas.annotations.Operation;
 import java.util.stream.Collectors;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * REST controller for recording and retrieving expenses.  The API
@@ -21,29 +37,63 @@ import java.util.List;
  */
 @RestController
 public class ExpenseController {
+    /** Request header carrying a client-generated idempotency key. */
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    /** Response header set when a response is replayed for a retried request. */
+    public static final String IDEMPOTENT_REPLAY_HEADER = "Idempotent-Replayed";
+    /**
+     * Response header carrying the group event sequence number of a write.
+     * Pass it as {@code minSequence} to the settlement service to read
+     * balances that include the write.
+     */
+    public static final String GROUP_SEQUENCE_HEADER = "X-Group-Sequence";
+
     private final ExpenseService expenseService;
     private final ExpenseRepository expenseRepository;
     private final MembershipClient membershipClient;
+    private final IdempotencyService idempotencyService;
+    private final ObjectMapper objectMapper;
 
     public ExpenseController(ExpenseService expenseService,
                              ExpenseRepository expenseRepository,
-                             MembershipClient membershipClient) {
+                             MembershipClient membershipClient,
+                             IdempotencyService idempotencyService,
+                             ObjectMapper objectMapper) {
         this.expenseService = expenseService;
         this.expenseRepository = expenseRepository;
         this.membershipClient = membershipClient;
+        this.idempotencyService = idempotencyService;
+        this.objectMapper = objectMapper;
     }
 
     /**
      * Record a new expense.  The payer is identified by payerMemberId and
      * the expense is apportioned among members according to the splits.
      *
+     * <p>Clients may send an {@code Idempotency-Key} header.  A retry with
+     * the same key and body is answered with the original response
+     * without recording the expense again; reusing a key for a different
+     * body is rejected with 422.  Keys are scoped to the expense's group.
+     *
+     * @param idempotencyKey optional client-generated key identifying this request
      * @param request request body describing the expense
      * @return the persisted expense
      */
     @PostMapping("/expenses")
-    @ResponseStatus(HttpStatus.CREATED)
     @Operation(summary = "Record a new expense with splits")
-    public Expense createExpense(@RequestBody ExpenseRequest request) {
+    public ResponseEntity<Object> createExpense(@RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                                                @RequestBody ExpenseRequest request) {
+        String requestHash = null;
+        if (idempotencyKey != null) {
+            if (request.groupId() == null) {
+                throw new IllegalArgumentException("Group does not exist");
+            }
+            requestHash = hashOf(request);
+            ResponseEntity<Object> replay = replay(request.groupId(), idempotencyKey, requestHash);
+            if (replay != null) {
+                return replay;
+            }
+        }
         // Validate that the group exists
         if (!membershipClient.groupExists(request.groupId())) {
             throw new IllegalArgumentException("Group does not exist");
@@ -52,6 +102,10 @@ public class ExpenseController {
         if (!membershipClient.memberExists(request.groupId(), request.payerMemberId())) {
             throw new IllegalArgumentException("Payer member does not exist or is not part of the group");
         }
+        if (request.categoryId() != null
+                && !membershipClient.categoryExists(request.groupId(), request.categoryId())) {
+            throw new IllegalArgumentException("Category does not exist or is not part of the group");
+        }
         // Validate splits and that each member exists
         BigDecimal sum = BigDecimal.ZERO;
         List<SplitLine> splitLines = new ArrayList<>();
@@ -75,12 +129,71 @@ public class ExpenseController {
         expense.setPayerMemberId(request.payerMemberId());
         expense.setCurrency(request.currency());
         expense.setTotalAmount(request.totalAmount());
+        expense.setCategoryId(request.categoryId());
+        expense.setOccurredAt(request.occurredAt());
         // Associate splits with expense
         for (SplitLine sl : splitLines) {
             sl.setExpense(expense);
         }
         expense.setSplits(splitLines);
-        return expenseService.recordExpense(expense);
+        if (idempotencyKey == null) {
+            return written(HttpStatus.CREATED, expenseService.recordExpense(expense));
+        }
+        try {
+            Expense saved = expenseService.recordExpense(expense, idempotencyKey, requestHash);
+            return written(HttpStatus.CREATED, saved);
+        } catch (DuplicateKeyException e) {
+            // A concurrent request with the same key committed first
+            ResponseEntity<Object> replay = replay(request.groupId(), idempotencyKey, requestHash);
+            if (replay == null) {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .<Object>body("A request with this Idempotency-Key is already in progress");
+            }
+            return replay;
+        }
+    }
+
+    /**
+     * Response for a successful write, carrying the expense's group event
+     * sequence as a consistency token.
+     */
+    private static ResponseEntity<Object> written(HttpStatus status, Expense saved) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(status);
+        if (saved.getEventSequence() != null) {
+            response.header(GROUP_SEQUENCE_HEADER, saved.getEventSequence().toString());
+        }
+        return response.body(saved);
+    }
+
+    /**
+     * Build the response for a retried request, or return null if the key
+     * has not been completed yet.
+     */
+    private ResponseEntity<Object> replay(Long groupId, String idempotencyKey, String requestHash) {
+        return idempotencyService.find(groupId, idempotencyKey)
+                .map(stored -> {
+                    if (!stored.requestHash().equals(requestHash)) {
+                        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                                .<Object>body("Idempotency-Key was already used for a different request");
+                    }
+                    ResponseEntity.BodyBuilder response = ResponseEntity.status(stored.status())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .header(IDEMPOTENT_REPLAY_HEADER, "true");
+                    if (stored.groupSequence() != null) {
+                        response.header(GROUP_SEQUENCE_HEADER, stored.groupSequence().toString());
+                    }
+                    return response.body((Object) stored.body());
+                })
+                .orElse(null);
+    }
+
+    private String hashOf(ExpenseRequest request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not hash request", e);
+        }
     }
 
     /**
@@ -98,13 +211,17 @@ public class ExpenseController {
     }
 
     /**
-     * Request payload for creating an expense.
+     * Request payload for creating an expense.  {@code categoryId} is
+     * optional; {@code occurredAt} defaults to the time the expense is
+     * recorded.
      */
     public static record ExpenseRequest(Long groupId,
                                         Long payerMemberId,
                                         String currency,
                                         BigDecimal totalAmount,
-                                        List<SplitRequest> splits) {
+                                        List<SplitRequest> splits,
+                                        Long categoryId,
+                                        Instant occurredAt) {
     }
 
     /**
@@ -114,7 +231,8 @@ public class ExpenseController {
     }
 
     /**
-     * Update an existing expense.  All fields are replaced.  Splits must be provided in full.
+     * Update an existing expense.  All fields are replaced.  Splits must be provided in full;
+     * split lines are matched to the existing ones by member, so unchanged shares are not rewritten.
      *
      * @param id expense identifier
      * @param request updated expense data
@@ -144,19 +262,80 @@ public class ExpenseController {
                                 .<Object>body("Sum of splits must equal total amount");
                     }
 
-                    existing.setGroupId(request.groupId());
-                    existing.setPayerMemberId(request.payerMemberId());
-                    existing.setCurrency(request.currency());
-                    existing.setTotalAmount(request.totalAmount());
-                    // Remove old splits and set new
-                    existing.getSplits().clear();
-                    existing.setSplits(newSplits);
-                    Expense saved = expenseRepository.save(existing);
-                    return ResponseEntity.ok((Object) saved);
+                    Expense replacement = new Expense();
+                    replacement.setGroupId(request.groupId());
+                    replacement.setPayerMemberId(request.payerMemberId());
+                    replacement.setCurrency(request.currency());
+                    replacement.setTotalAmount(request.totalAmount());
+                    replacement.setCategoryId(request.categoryId());
+                    replacement.setOccurredAt(request.occurredAt());
+                    replacement.setSplits(newSplits);
+                    Expense saved = expenseService.updateExpense(existing, replacement);
+                    return written(HttpStatus.OK, saved);
                 })
                 .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).<Object>body("Expense not found"));
     }
 
+    /**
+     * Partially edit an expense's split lines.  Each entry sets one
+     * member's share, adding the member if needed; an entry with a
+     * {@code null} share removes the member.  Members that are not
+     * mentioned keep their share.  Every entry must name a member and
+     * shares must not be negative.  {@code totalAmount} is optional and
+     * replaces the expense total; the resulting shares must sum to it.
+     *
+     * @param id expense identifier
+     * @param request the split changes
+     * @return the updated expense
+     */
+    @PatchMapping("/expenses/{id}/splits")
+    @Operation(summary = "Change, add or remove individual split lines of an expense")
+    public ResponseEntity<Object> patchSplits(@PathVariable Long id,
+                                              @RequestBody SplitPatchRequest request) {
+        if (request.splits() == null || request.splits().isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .<Object>body("At least one split change is required");
+        }
+        return expenseRepository.findById(id)
+                .map(existing -> {
+                    Set<Long> currentMembers = existing.getSplits().stream()
+                            .map(SplitLine::getMemberId)
+                            .collect(Collectors.toSet());
+                    Map<Long, BigDecimal> changes = new LinkedHashMap<>();
+                    for (SplitRequest sr : request.splits()) {
+                        if (sr.memberId() == null) {
+                            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                                    .<Object>body("Split member is required");
+                        }
+                        if (sr.shareAmount() != null && sr.shareAmount().signum() < 0) {
+                            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                                    .<Object>body("Split share of member " + sr.memberId() + " must not be negative");
+                        }
+                        if (changes.containsKey(sr.memberId())) {
+                            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                                    .<Object>body("Split member " + sr.memberId() + " is listed more than once");
+                        }
+                        // Only members joining the expense need to be checked with the membership service
+                        if (sr.shareAmount() != null && !currentMembers.contains(sr.memberId())
+                                && !membershipClient.memberExists(existing.getGroupId(), sr.memberId())) {
+                            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                                    .<Object>body("Split member " + sr.memberId() + " does not exist or is not part of the group");
+                        }
+                        changes.put(sr.memberId(), sr.shareAmount());
+                    }
+                    Expense saved = expenseService.patchSplits(existing, changes, request.totalAmount());
+                    return written(HttpStatus.OK, saved);
+                })
+                .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).<Object>body("Expense not found"));
+    }
+
+    /**
+     * Request payload for a partial split edit.  A split with a
+     * {@code null} share removes that member from the expense.
+     */
+    public static record SplitPatchRequest(BigDecimal totalAmount, List<SplitRequest> splits) {
+    }
+
     private ResponseEntity<Object> validateGroupAndPayer(ExpenseRequest request) {
         if (!membershipClient.groupExists(request.groupId())) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
@@ -166,6 +345,11 @@ public class ExpenseController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .<Object>body("Payer does not exist or is not part of the group");
         }
+        if (request.categoryId() != null
+                && !membershipClient.categoryExists(request.groupId(), request.categoryId())) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .<Object>body("Category does not exist or is not part of the group");
+        }
         return null;
     }
 
@@ -234,24 +418,136 @@ public class ExpenseController {
     public ResponseEntity<String> deleteExpense(@PathVariable Long id) {
         return expenseRepository.findById(id)
                 .map(expense -> {
-                    expenseRepository.delete(expense);
-                    return ResponseEntity.ok("Expense deleted successfully");
+                    Long sequence = expenseService.deleteExpense(expense);
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+                    if (sequence != null) {
+                        response.header(GROUP_SEQUENCE_HEADER, sequence.toString());
+                    }
+                    return response.body("Expense deleted successfully");
                 })
                 .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).body("Expense not found"));
     }
 
     /**
-     * List all expenses for a given group.
+     * List expenses for a given group one page at a time.  Pages are
+     * ordered by expense ID; pass the {@code nextCursor} of the previous
+     * page as {@code cursor} to continue.  The page size is capped at
+     * {@link ExpenseService#MAX_PAGE_SIZE}.
      */
     @GetMapping("/groups/{groupId}/expenses")
-    @Operation(summary = "List expenses for a given group")
-    public ResponseEntity<Object> getExpensesForGroup(@PathVariable Long groupId) {
+    @Operation(summary = "List expenses for a given group (keyset paginated)")
+    public ResponseEntity<Object> getExpensesForGroup(@PathVariable Long groupId,
+                                                      @RequestParam(required = false) Long cursor,
+                                                      @RequestParam(defaultValue = "" + ExpenseService.DEFAULT_PAGE_SIZE) int size) {
         // Validate group exists
         if (!membershipClient.groupExists(groupId)) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .<Object>body("Group not found");
         }
-        List<Expense> expenses = expenseRepository.findByGroupId(groupId);
-        return ResponseEntity.ok((Object) expenses);
+        int pageSize = Math.max(1, Math.min(size, ExpenseService.MAX_PAGE_SIZE));
+        List<Expense> expenses = expenseService.findExpensePage(groupId, cursor, pageSize);
+        return ResponseEntity.ok((Object) ExpensePage.of(expenses, pageSize));
+    }
+
+    /**
+     * Stream every expense of a group as a single JSON array.  This is
+     * the legacy unpaged shape and must be requested explicitly with
+     * {@code stream=true}.  The array is written incrementally from
+     * successive keyset pages so memory use stays bounded by one page.
+     */
+    @GetMapping(value = "/groups/{groupId}/expenses", params = "stream=true")
+    @Operation(summary = "Stream all expenses for a given group as one JSON array")
+    public ResponseEntity<StreamingResponseBody> streamExpensesForGroup(@PathVariable Long groupId) {
+        if (!membershipClient.groupExists(groupId)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .contentType(MediaType.TEXT_PLAIN)
+                    .body(out -> out.write("Group not found".getBytes(StandardCharsets.UTF_8)));
+        }
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+                generator.writeStartArray();
+                Long cursor = null;
+                List<Expense> page;
+                do {
+                    page = expenseService.findExpensePage(groupId, cursor, ExpenseService.MAX_PAGE_SIZE);
+                    for (Expense expense : page) {
+                        generator.writeObject(expense);
+                    }
+                    generator.flush();
+                    if (!page.isEmpty()) {
+                        cursor = page.get(page.size() - 1).getId();
+                    }
+                } while (page.size() == ExpenseService.MAX_PAGE_SIZE);
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * Summarise a group's spending per member, per category and per
+     * month.  Served from rollup tables maintained on every expense
+     * write, so the cost does not grow with the number of expenses.
+     */
+    @GetMapping("/groups/{groupId}/expenses/summary")
+    @Operation(summary = "Summarise a group's spending per member, category and month")
+    public ResponseEntity<Object> getExpenseSummary(@PathVariable Long groupId) {
+        if (!membershipClient.groupExists(groupId)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .<Object>body("Group not found");
+        }
+        return ResponseEntity.ok((Object) expenseService.summarize(groupId));
+    }
+
+    /**
+     * Search a group's expenses.  All filters are optional and combine
+     * with AND: {@code from} (inclusive) and {@code to} (exclusive) bound
+     * the occurrence time, {@code payer} and {@code participant} restrict
+     * to expenses paid by or split with a member, and {@code minAmount}
+     * and {@code maxAmount} bound the total.  Results are ordered by
+     * occurrence time and paginated with an opaque cursor.
+     */
+    @GetMapping("/groups/{groupId}/expenses/search")
+    @Operation(summary = "Search a group's expenses by date range, payer, participant and amount")
+    public ResponseEntity<Object> searchExpenses(@PathVariable Long groupId,
+                                                 @RequestParam(required = false) Instant from,
+                                                 @RequestParam(required = false) Instant to,
+                                                 @RequestParam(required = false) Long payer,
+                                                 @RequestParam(required = false) Long participant,
+                                                 @RequestParam(required = false) BigDecimal minAmount,
+                                                 @RequestParam(required = false) BigDecimal maxAmount,
+                                                 @RequestParam(required = false) String cursor,
+                                                 @RequestParam(defaultValue = "" + ExpenseService.DEFAULT_PAGE_SIZE) int size) {
+        if (!membershipClient.groupExists(groupId)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .<Object>body("Group not found");
+        }
+        int pageSize = Math.max(1, Math.min(size, ExpenseService.MAX_PAGE_SIZE));
+        ExpenseFilter filter = new ExpenseFilter(groupId, from, to, payer, participant, minAmount, maxAmount);
+        List<Expense> expenses = expenseService.searchExpenses(filter, cursor, pageSize);
+        String next = expenses.size() >= pageSize
+                ? ExpenseService.searchCursorOf(expenses.get(expenses.size() - 1))
+                : null;
+        return ResponseEntity.ok((Object) new ExpenseSearchPage(expenses, next));
+    }
+
+    /**
+     * One page of search results.  {@code nextCursor} is opaque and is
+     * {@code null} when there are no more matches.
+     */
+    public static record ExpenseSearchPage(List<Expense> expenses, String nextCursor) {
+    }
+
+    /**
+     * One page of expenses.  {@code nextCursor} is the ID of the last
+     * expense on the page, or {@code null} when there are no more pages.
+     */
+    public static record ExpensePage(List<Expense> expenses, Long nextCursor) {
+
+        static ExpensePage of(List<Expense> expenses, int pageSize) {
+            boolean full = !expenses.isEmpty() && expenses.size() >= pageSize;
+            Long next = full ? expenses.get(expenses.size() - 1).getId() : null;
+            return new ExpensePage(expenses, next);
+        }
     }
 }
@@ -0,0 +1,50 @@
+package org.ncsu.settleup.expenseservice.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import org.ncsu.settleup.expenseservice.service.ExpenseEventPublisher;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller through which event consumers ask for missed expense
+ * events to be published again.
+ */
+@RestController
+public class ExpenseEventController {
+
+    private final ExpenseEventPublisher eventPublisher;
+
+    public ExpenseEventController(ExpenseEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Publish a group's events with sequence numbers from {@code from} to
+     * {@code to} (inclusive) again.  The events go to the usual exchange,
+     * so every bound consumer receives them and skips any it has already
+     * applied.
+     *
+     * @param groupId group identifier
+     * @param from    first sequence number to resend
+     * @param to      last sequence number to resend
+     * @return the number of events resent
+     */
+    @PostMapping("/groups/{groupId}/events/resend")
+    @Operation(summary = "Resend a range of a group's expense events")
+    public ResponseEntity<ResendResult> resendEvents(@PathVariable Long groupId,
+                                                     @RequestParam long from,
+                                                     @RequestParam long to) {
+        int resent = eventPublisher.resend(groupId, from, to);
+        return ResponseEntity.accepted().body(new ResendResult(groupId, from, to, resent));
+    }
+
+    /**
+     * Outcome of a resend request.  {@code resent} can be lower than the
+     * size of the range if the newest numbers have not been committed yet.
+     */
+    public static record ResendResult(Long groupId, long from, long to, int resent) {
+    }
+}
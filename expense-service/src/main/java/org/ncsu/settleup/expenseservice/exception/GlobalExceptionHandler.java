@@ -2,6 +2,7 @@ package org.ncsu.settleup.expenseservice.exception;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectRetrievalFailureException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
@@ -31,6 +32,20 @@ public class GlobalExceptionHandler {
                 .body(ex.getMessage());
     }
 
+    /**
+     * Handle an entity that was deleted while the request was working on
+     * it, for example an expense deleted by a concurrent request before
+     * this one could lock it.
+     *
+     * @param ex the exception
+     * @return a not found response
+     */
+    @ExceptionHandler(ObjectRetrievalFailureException.class)
+    public ResponseEntity<String> handleObjectRetrievalFailure(ObjectRetrievalFailureException ex) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body("Expense not found");
+    }
+
     /**
      * Catch-all handler for any other runtime exception that escapes
      * from the controller.  This ensures that callers receive a
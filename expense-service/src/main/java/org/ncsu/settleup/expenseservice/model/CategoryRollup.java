@@ -0,0 +1,99 @@
+package org.ncsu.settleup.expenseservice.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Running total of expenses filed under one category of a group.
+ * Uncategorised expenses are collected under {@link #UNCATEGORIZED}
+ * because the category is part of the primary key.
+ */
+@Entity
+@Table(name = "expense_category_rollups")
+@IdClass(CategoryRollup.Key.class)
+public class CategoryRollup {
+    /** Category key used for expenses without a category. */
+    public static final long UNCATEGORIZED = 0L;
+
+    @Id
+    private Long groupId;
+
+    @Id
+    private Long categoryId;
+
+    private BigDecimal totalAmount;
+
+    private Long expenseCount;
+
+    public CategoryRollup() {
+    }
+
+    public Long getGroupId() {
+        return groupId;
+    }
+
+    public void setGroupId(Long groupId) {
+        this.groupId = groupId;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public void setTotalAmount(BigDecimal totalAmount) {
+        this.totalAmount = totalAmount;
+    }
+
+    public Long getExpenseCount() {
+        return expenseCount;
+    }
+
+    public void setExpenseCount(Long expenseCount) {
+        this.expenseCount = expenseCount;
+    }
+
+    /**
+     * Composite primary key of a category rollup row.
+     */
+    public static class Key implements Serializable {
+        private Long groupId;
+        private Long categoryId;
+
+        public Key() {
+        }
+
+        public Key(Long groupId, Long categoryId) {
+            this.groupId = groupId;
+            this.categoryId = categoryId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key other)) {
+                return false;
+            }
+            return Objects.equals(groupId, other.groupId) && Objects.equals(categoryId, other.categoryId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(groupId, categoryId);
+        }
+    }
+}
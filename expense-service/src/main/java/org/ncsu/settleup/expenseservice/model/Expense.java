@@ -1,13 +1,18 @@
 package org.ncsu.settleup.expenseservice.model;
 
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -17,10 +22,22 @@ import java.util.List;
  * amount is apportioned among members.
  */
 @Entity
-@Table(name = "expenses")
+@Table(name = "expenses", indexes = {
+        // Backs keyset pagination of a group's expenses (WHERE group_id = ? AND id > ? ORDER BY id)
+        @Index(name = "idx_expenses_group_id_id", columnList = "group_id, id"),
+        // Backs date-range filtering and its (occurred_at, id) keyset ordering
+        @Index(name = "idx_expenses_group_id_occurred_at", columnList = "group_id, occurred_at, id"),
+        @Index(name = "idx_expenses_group_id_payer", columnList = "group_id, payer_member_id")
+})
 public class Expense {
+    /**
+     * Identifiers are drawn from a pooled sequence rather than an
+     * identity column so that Hibernate can batch the expense and its
+     * split lines into a handful of JDBC round-trips.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "expenses_seq")
+    @SequenceGenerator(name = "expenses_seq", sequenceName = "expenses_seq", allocationSize = 50)
     private Long id;
 
     /** ID of the group this expense belongs to. */
@@ -33,6 +50,19 @@ public class Expense {
 
     private BigDecimal totalAmount;
 
+    /** ID of the membership-service category this expense is filed under, if any. */
+    private Long categoryId;
+
+    /** When the expense took place.  Defaults to the time it was recorded. */
+    private Instant occurredAt;
+
+    /** When the expense was recorded by this service. */
+    @Column(updatable = false)
+    private Instant createdAt;
+
+    /** Group event sequence of the last event published for this expense. */
+    private Long eventSequence;
+
     @OneToMany(mappedBy = "expense", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<SplitLine> splits = new ArrayList<>();
 
@@ -40,6 +70,14 @@ public class Expense {
         // Default constructor required by JPA for entity instantiation
     }
 
+    @PrePersist
+    void onCreate() {
+        createdAt = Instant.now();
+        if (occurredAt == null) {
+            occurredAt = createdAt;
+        }
+    }
+
     public Long getId() {
         return id;
     }
@@ -80,6 +118,30 @@ public class Expense {
         this.totalAmount = totalAmount;
     }
 
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public Instant getOccurredAt() {
+        return occurredAt;
+    }
+
+    public void setOccurredAt(Instant occurredAt) {
+        this.occurredAt = occurredAt;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
     public List<SplitLine> getSplits() {
         return splits;
     }
@@ -87,4 +149,12 @@ public class Expense {
     public void setSplits(List<SplitLine> splits) {
         this.splits = splits;
     }
+
+    public Long getEventSequence() {
+        return eventSequence;
+    }
+
+    public void setEventSequence(Long eventSequence) {
+        this.eventSequence = eventSequence;
+    }
 }
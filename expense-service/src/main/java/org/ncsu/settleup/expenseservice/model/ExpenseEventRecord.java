@@ -0,0 +1,125 @@
+package org.ncsu.settleup.expenseservice.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * A published expense event, keyed by its group and sequence number.
+ * Kept so that consumers which detect a gap in a group's sequence can
+ * ask for just the missing events to be sent again, until they are older
+ * than the retention window.
+ */
+@Entity
+@Table(name = "expense_events", indexes = {
+        @Index(name = "idx_expense_events_created_at", columnList = "created_at")
+})
+@IdClass(ExpenseEventRecord.Key.class)
+public class ExpenseEventRecord {
+    @Id
+    private Long groupId;
+
+    @Id
+    private Long sequence;
+
+    private Long expenseId;
+
+    /** Routing key the event was published with, which also identifies its type. */
+    @Column(length = 64)
+    private String eventType;
+
+    /** The event as JSON. */
+    @Column(columnDefinition = "text")
+    private String payload;
+
+    private Instant createdAt;
+
+    public ExpenseEventRecord() {
+    }
+
+    public Long getGroupId() {
+        return groupId;
+    }
+
+    public void setGroupId(Long groupId) {
+        this.groupId = groupId;
+    }
+
+    public Long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(Long sequence) {
+        this.sequence = sequence;
+    }
+
+    public Long getExpenseId() {
+        return expenseId;
+    }
+
+    public void setExpenseId(Long expenseId) {
+        this.expenseId = expenseId;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(String eventType) {
+        this.eventType = eventType;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * Composite primary key of an event record.
+     */
+    public static class Key implements Serializable {
+        private Long groupId;
+        private Long sequence;
+
+        public Key() {
+        }
+
+        public Key(Long groupId, Long sequence) {
+            this.groupId = groupId;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key other)) {
+                return false;
+            }
+            return Objects.equals(groupId, other.groupId) && Objects.equals(sequence, other.sequence);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(groupId, sequence);
+        }
+    }
+}
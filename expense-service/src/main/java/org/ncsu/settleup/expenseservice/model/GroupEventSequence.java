@@ -0,0 +1,39 @@
+package org.ncsu.settleup.expenseservice.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Last event sequence number handed out for a group.  The row is
+ * incremented with an UPSERT by
+ * {@link org.ncsu.settleup.expenseservice.service.ExpenseEventPublisher},
+ * whose row lock also serialises concurrent writers of the same group.
+ */
+@Entity
+@Table(name = "expense_group_sequences")
+public class GroupEventSequence {
+    @Id
+    private Long groupId;
+
+    private Long lastSequence;
+
+    public GroupEventSequence() {
+    }
+
+    public Long getGroupId() {
+        return groupId;
+    }
+
+    public void setGroupId(Long groupId) {
+        this.groupId = groupId;
+    }
+
+    public Long getLastSequence() {
+        return lastSequence;
+    }
+
+    public void setLastSequence(Long lastSequence) {
+        this.lastSequence = lastSequence;
+    }
+}
@@ -0,0 +1,138 @@
+package org.ncsu.settleup.expenseservice.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * The stored outcome of a request made with an {@code Idempotency-Key}
+ * header.  A retry carrying the same key for the same group is answered
+ * from this record instead of being processed again; keys are scoped to
+ * the group so that unrelated clients reusing a key do not collide.
+ * Records are purged once they are older than the configured retention
+ * window.
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = "idx_idempotency_keys_created_at", columnList = "created_at")
+})
+@IdClass(IdempotencyRecord.Key.class)
+public class IdempotencyRecord {
+    @Id
+    private Long groupId;
+
+    @Id
+    @Column(length = 255)
+    private String idempotencyKey;
+
+    /** SHA-256 of the request body, used to reject a key reused for a different request. */
+    @Column(length = 64)
+    private String requestHash;
+
+    private Integer responseStatus;
+
+    @Column(columnDefinition = "text")
+    private String responseBody;
+
+    /** Group event sequence of the original write, sent again on replay. */
+    private Long groupSequence;
+
+    private Instant createdAt;
+
+    public IdempotencyRecord() {
+    }
+
+    public Long getGroupId() {
+        return groupId;
+    }
+
+    public void setGroupId(Long groupId) {
+        this.groupId = groupId;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public String getRequestHash() {
+        return requestHash;
+    }
+
+    public void setRequestHash(String requestHash) {
+        this.requestHash = requestHash;
+    }
+
+    public Integer getResponseStatus() {
+        return responseStatus;
+    }
+
+    public void setResponseStatus(Integer responseStatus) {
+        this.responseStatus = responseStatus;
+    }
+
+    public String getResponseBody() {
+        return responseBody;
+    }
+
+    public void setResponseBody(String responseBody) {
+        this.responseBody = responseBody;
+    }
+
+    public Long getGroupSequence() {
+        return groupSequence;
+    }
+
+    public void setGroupSequence(Long groupSequence) {
+        this.groupSequence = groupSequence;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * Composite primary key of an idempotency record.
+     */
+    public static class Key implements Serializable {
+        private Long groupId;
+        private String idempotencyKey;
+
+        public Key() {
+        }
+
+        public Key(Long groupId, String idempotencyKey) {
+            this.groupId = groupId;
+            this.idempotencyKey = idempotencyKey;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key other)) {
+                return false;
+            }
+            return Objects.equals(groupId, other.groupId) && Objects.equals(idempotencyKey, other.idempotencyKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(groupId, idempotencyKey);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.ncsu.settleup.expenseservice.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Running totals of what a member has paid and owes within a group.
+ * Rows are maintained incrementally by
+ * {@link org.ncsu.settleup.expenseservice.service.ExpenseRollupService}
+ * in the same transaction as the expense write that changes them.
+ */
+@Entity
+@Table(name = "expense_member_rollups")
+@IdClass(MemberRollup.Key.class)
+public class MemberRollup {
+    @Id
+    private Long groupId;
+
+    @Id
+    private Long memberId;
+
+    /** Sum of the amounts of expenses this member paid for. */
+    private BigDecimal paidTotal;
+
+    /** Sum of this member's shares across all expenses. */
+    private BigDecimal owedTotal;
+
+    public MemberRollup() {
+    }
+
+    public Long getGroupId() {
+        return groupId;
+    }
+
+    public void setGroupId(Long groupId) {
+        this.groupId = groupId;
+    }
+
+    public Long getMemberId() {
+        return memberId;
+    }
+
+    public void setMemberId(Long memberId) {
+        this.memberId = memberId;
+    }
+
+    public BigDecimal getPaidTotal() {
+        return paidTotal;
+    }
+
+    public void setPaidTotal(BigDecimal paidTotal) {
+        this.paidTotal = paidTotal;
+    }
+
+    public BigDecimal getOwedTotal() {
+        return owedTotal;
+    }
+
+    public void setOwedTotal(BigDecimal owedTotal) {
+        this.owedTotal = owedTotal;
+    }
+
+    /**
+     * Composite primary key of a member rollup row.
+     */
+    public static class Key implements Serializable {
+        private Long groupId;
+        private Long memberId;
+
+        public Key() {
+        }
+
+        public Key(Long groupId, Long memberId) {
+            this.groupId = groupId;
+            this.memberId = memberId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key other)) {
+                return false;
+            }
+            return Objects.equals(groupId, other.groupId) && Objects.equals(memberId, other.memberId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(groupId, memberId);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package org.ncsu.settleup.expenseservice.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Running total of a group's expenses for one calendar month (UTC),
+ * keyed by the month in {@code yyyy-MM} form.
+ */
+@Entity
+@Table(name = "expense_month_rollups")
+@IdClass(MonthRollup.Key.class)
+public class MonthRollup {
+    @Id
+    private Long groupId;
+
+    @Id
+    @Column(length = 7)
+    private String month;
+
+    private BigDecimal totalAmount;
+
+    private Long expenseCount;
+
+    public MonthRollup() {
+    }
+
+    public Long getGroupId() {
+        return groupId;
+    }
+
+    public void setGroupId(Long groupId) {
+        this.groupId = groupId;
+    }
+
+    public String getMonth() {
+        return month;
+    }
+
+    public void setMonth(String month) {
+        this.month = month;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public void setTotalAmount(BigDecimal totalAmount) {
+        this.totalAmount = totalAmount;
+    }
+
+    public Long getExpenseCount() {
+        return expenseCount;
+    }
+
+    public void setExpenseCount(Long expenseCount) {
+        this.expenseCount = expenseCount;
+    }
+
+    /**
+     * Composite primary key of a month rollup row.
+     */
+    public static class Key implements Serializable {
+        private Long groupId;
+        private String month;
+
+        public Key() {
+        }
+
+        public Key(Long groupId, String month) {
+            this.groupId = groupId;
+            this.month = month;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key other)) {
+                return false;
+            }
+            return Objects.equals(groupId, other.groupId) && Objects.equals(month, other.month);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(groupId, month);
+        }
+    }
+}
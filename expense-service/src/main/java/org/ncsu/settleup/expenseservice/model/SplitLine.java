@@ -5,8 +5,10 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.math.BigDecimal;
@@ -16,10 +18,15 @@ import java.math.BigDecimal;
  * indicates how much a particular member owes for the expense.
  */
 @Entity
-@Table(name = "split_lines")
+@Table(name = "split_lines", indexes = {
+        @Index(name = "idx_split_lines_expense_id", columnList = "expense_id"),
+        // Backs "expenses involving member X" lookups
+        @Index(name = "idx_split_lines_member_id", columnList = "member_id, expense_id")
+})
 public class SplitLine {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "split_lines_seq")
+    @SequenceGenerator(name = "split_lines_seq", sequenceName = "split_lines_seq", allocationSize = 50)
     private Long id;
 
     private Long memberId;
@@ -0,0 +1,17 @@
+package org.ncsu.settleup.expenseservice.repo;
+
+import org.ncsu.settleup.expenseservice.model.CategoryRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.List;
+
+/**
+ * Repository for reading {@link CategoryRollup} rows.  Writes go through
+ * {@link org.ncsu.settleup.expenseservice.service.ExpenseRollupService}.
+ */
+public interface CategoryRollupRepository extends JpaRepository<CategoryRollup, CategoryRollup.Key> {
+
+    /**
+     * Find all rollup rows of a group.
+     */
+    List<CategoryRollup> findByGroupIdOrderByCategoryId(Long groupId);
+}
@@ -0,0 +1,18 @@
+package org.ncsu.settleup.expenseservice.repo;
+
+import org.ncsu.settleup.expenseservice.model.ExpenseEventRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.List;
+
+/**
+ * Repository for reading {@link ExpenseEventRecord} rows.  Writes go through
+ * {@link org.ncsu.settleup.expenseservice.service.ExpenseEventPublisher}.
+ */
+public interface ExpenseEventRecordRepository extends JpaRepository<ExpenseEventRecord, ExpenseEventRecord.Key> {
+
+    /**
+     * Find a group's events with sequence numbers in {@code [from, to]},
+     * in sequence order.  Served by the primary key index.
+     */
+    List<ExpenseEventRecord> findByGroupIdAndSequenceBetweenOrderBySequence(Long groupId, Long from, Long to);
+}
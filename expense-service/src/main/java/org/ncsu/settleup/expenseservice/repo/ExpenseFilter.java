@@ -0,0 +1,25 @@
+package org.ncsu.settleup.expenseservice.repo;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Criteria for searching a group's expenses.  Every field other than
+ * {@code groupId} is optional; {@code null} means "do not filter".
+ *
+ * @param groupId             group whose expenses are searched
+ * @param from                inclusive lower bound on {@code occurredAt}
+ * @param to                  exclusive upper bound on {@code occurredAt}
+ * @param payerMemberId       only expenses paid by this member
+ * @param participantMemberId only expenses with a split line for this member
+ * @param minAmount           inclusive lower bound on the total amount
+ * @param maxAmount           inclusive upper bound on the total amount
+ */
+public record ExpenseFilter(Long groupId,
+                            Instant from,
+                            Instant to,
+                            Long payerMemberId,
+                            Long participantMemberId,
+                            BigDecimal minAmount,
+                            BigDecimal maxAmount) {
+}
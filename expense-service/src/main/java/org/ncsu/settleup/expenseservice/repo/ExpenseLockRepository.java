@@ -0,0 +1,25 @@
+package org.ncsu.settleup.expenseservice.repo;
+
+import org.ncsu.settleup.expenseservice.model.Expense;
+
+/**
+ * Custom repository fragment for locking an expense before it is changed.
+ * Edits and deletes derive the rollup and balance changes from the
+ * expense as it was, so that state must be read under the row lock: two
+ * concurrent edits would otherwise both subtract the same old values.
+ */
+public interface ExpenseLockRepository {
+
+    /**
+     * Take the row lock of an expense for the rest of the current
+     * transaction and re-read the expense, with its split lines, under
+     * it.  An instance already loaded in the persistence context, for
+     * example by the controller, is refreshed in place.
+     *
+     * @param expense the expense to lock
+     * @return the managed, locked expense
+     * @throws org.springframework.orm.ObjectRetrievalFailureException if
+     *         the expense has been deleted
+     */
+    Expense lockForUpdate(Expense expense);
+}
@@ -0,0 +1,30 @@
+package org.ncsu.settleup.expenseservice.repo;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import org.ncsu.settleup.expenseservice.model.Expense;
+
+/**
+ * {@link EntityManager} implementation of {@link ExpenseLockRepository},
+ * picked up by Spring Data as a fragment of {@link ExpenseRepository}.
+ */
+public class ExpenseLockRepositoryImpl implements ExpenseLockRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Expense lockForUpdate(Expense expense) {
+        Expense managed = entityManager.contains(expense)
+                ? expense
+                : entityManager.find(Expense.class, expense.getId());
+        if (managed == null) {
+            throw new EntityNotFoundException("Expense " + expense.getId() + " no longer exists");
+        }
+        // SELECT ... FOR UPDATE; the split lines are refreshed through the cascade
+        entityManager.refresh(managed, LockModeType.PESSIMISTIC_WRITE);
+        return managed;
+    }
+}
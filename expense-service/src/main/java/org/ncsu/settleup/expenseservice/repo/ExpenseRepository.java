@@ -1,13 +1,18 @@
 package org.ncsu.settleup.expenseservice.repo;
 
 import org.ncsu.settleup.expenseservice.model.Expense;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import java.util.Collection;
 import java.util.List;
 
 /**
  * Repository for managing Expense entities.
  */
-public interface ExpenseRepository extends JpaRepository<Expense, Long> {
+public interface ExpenseRepository extends JpaRepository<Expense, Long>, ExpenseSearchRepository,
+        ExpenseLockRepository {
 
     /**
      * Find all expenses belonging to a particular group.
@@ -16,4 +21,32 @@ public interface ExpenseRepository extends JpaRepository<Expense, Long> {
      * @return list of expenses
      */
     List<Expense> findByGroupId(Long groupId);
+
+    /**
+     * Find the IDs of the next page of expenses in a group using keyset
+     * pagination.  Only expenses with an ID strictly greater than
+     * {@code afterId} are returned, in ascending ID order, so the scan
+     * is served by the (group_id, id) index regardless of how deep the
+     * caller has paged.
+     *
+     * @param groupId  group identifier
+     * @param afterId  exclusive lower bound on the expense ID
+     * @param pageable limits the number of IDs returned
+     * @return expense IDs in ascending order
+     */
+    @Query("select e.id from Expense e where e.groupId = :groupId and e.id > :afterId order by e.id")
+    List<Long> findIdsByGroupIdAfter(Long groupId, Long afterId, Pageable pageable);
+
+    /**
+     * Load the given expenses together with their split lines in a
+     * single query.  Used after {@link #findIdsByGroupIdAfter} so that
+     * the row limit is applied to expenses rather than to the joined
+     * split rows.
+     *
+     * @param ids expense identifiers
+     * @return expenses with splits initialised, in ascending ID order
+     */
+    @EntityGraph(attributePaths = "splits")
+    @Query("select distinct e from Expense e where e.id in :ids order by e.id")
+    List<Expense> findWithSplitsByIdIn(Collection<Long> ids);
 }
@@ -0,0 +1,25 @@
+package org.ncsu.settleup.expenseservice.repo;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Custom repository fragment for filtered expense searches.  The query
+ * is assembled from only the criteria that are present so that the
+ * database can pick the matching composite index for each combination.
+ */
+public interface ExpenseSearchRepository {
+
+    /**
+     * Find the IDs of expenses matching the filter, ordered by
+     * {@code (occurredAt, id)} and starting strictly after the given
+     * keyset position.
+     *
+     * @param filter          search criteria
+     * @param afterOccurredAt occurredAt of the last row of the previous page, or {@code null}
+     * @param afterId         ID of the last row of the previous page, or {@code null}
+     * @param limit           maximum number of IDs to return
+     * @return matching expense IDs in page order
+     */
+    List<Long> findIdsMatching(ExpenseFilter filter, Instant afterOccurredAt, Long afterId, int limit);
+}
@@ -0,0 +1,63 @@
+package org.ncsu.settleup.expenseservice.repo;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JPQL implementation of {@link ExpenseSearchRepository}.  Picked up by
+ * Spring Data as a fragment of {@link ExpenseRepository} through the
+ * {@code Impl} naming convention.
+ */
+public class ExpenseSearchRepositoryImpl implements ExpenseSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Long> findIdsMatching(ExpenseFilter filter, Instant afterOccurredAt, Long afterId, int limit) {
+        StringBuilder jpql = new StringBuilder("select e.id from Expense e where e.groupId = :groupId");
+        Map<String, Object> params = new HashMap<>();
+        params.put("groupId", filter.groupId());
+        if (filter.from() != null) {
+            jpql.append(" and e.occurredAt >= :from");
+            params.put("from", filter.from());
+        }
+        if (filter.to() != null) {
+            jpql.append(" and e.occurredAt < :to");
+            params.put("to", filter.to());
+        }
+        if (filter.payerMemberId() != null) {
+            jpql.append(" and e.payerMemberId = :payer");
+            params.put("payer", filter.payerMemberId());
+        }
+        if (filter.participantMemberId() != null) {
+            jpql.append(" and exists (select 1 from SplitLine s where s.expense = e and s.memberId = :participant)");
+            params.put("participant", filter.participantMemberId());
+        }
+        if (filter.minAmount() != null) {
+            jpql.append(" and e.totalAmount >= :minAmount");
+            params.put("minAmount", filter.minAmount());
+        }
+        if (filter.maxAmount() != null) {
+            jpql.append(" and e.totalAmount <= :maxAmount");
+            params.put("maxAmount", filter.maxAmount());
+        }
+        if (afterOccurredAt != null && afterId != null) {
+            jpql.append(" and (e.occurredAt > :afterOccurredAt"
+                    + " or (e.occurredAt = :afterOccurredAt and e.id > :afterId))");
+            params.put("afterOccurredAt", afterOccurredAt);
+            params.put("afterId", afterId);
+        }
+        jpql.append(" order by e.occurredAt, e.id");
+
+        TypedQuery<Long> query = entityManager.createQuery(jpql.toString(), Long.class);
+        params.forEach(query::setParameter);
+        return query.setMaxResults(limit).getResultList();
+    }
+}
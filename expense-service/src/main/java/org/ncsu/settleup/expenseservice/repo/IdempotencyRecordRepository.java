@@ -0,0 +1,24 @@
+package org.ncsu.settleup.expenseservice.repo;
+
+import org.ncsu.settleup.expenseservice.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import java.time.Instant;
+
+/**
+ * Repository for stored idempotency records.
+ */
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, IdempotencyRecord.Key> {
+
+    /**
+     * Delete every record created before the cutoff.  Served by the
+     * index on {@code created_at}.
+     *
+     * @param cutoff exclusive upper bound on the creation time
+     * @return number of records deleted
+     */
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.createdAt < :cutoff")
+    int deleteCreatedBefore(Instant cutoff);
+}
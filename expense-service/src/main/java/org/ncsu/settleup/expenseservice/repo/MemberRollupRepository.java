@@ -0,0 +1,17 @@
+package org.ncsu.settleup.expenseservice.repo;
+
+import org.ncsu.settleup.expenseservice.model.MemberRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.List;
+
+/**
+ * Repository for reading {@link MemberRollup} rows.  Writes go through
+ * {@link org.ncsu.settleup.expenseservice.service.ExpenseRollupService}.
+ */
+public interface MemberRollupRepository extends JpaRepository<MemberRollup, MemberRollup.Key> {
+
+    /**
+     * Find all rollup rows of a group.
+     */
+    List<MemberRollup> findByGroupIdOrderByMemberId(Long groupId);
+}
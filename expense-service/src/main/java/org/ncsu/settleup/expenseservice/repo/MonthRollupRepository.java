@@ -0,0 +1,17 @@
+package org.ncsu.settleup.expenseservice.repo;
+
+import org.ncsu.settleup.expenseservice.model.MonthRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.List;
+
+/**
+ * Repository for reading {@link MonthRollup} rows.  Writes go through
+ * {@link org.ncsu.settleup.expenseservice.service.ExpenseRollupService}.
+ */
+public interface MonthRollupRepository extends JpaRepository<MonthRollup, MonthRollup.Key> {
+
+    /**
+     * Find all rollup rows of a group.
+     */
+    List<MonthRollup> findByGroupIdOrderByMonth(Long groupId);
+}
@@ -0,0 +1,180 @@
+package org.ncsu.settleup.expenseservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.ncsu.settleup.common.events.ExpenseAdjustedEvent;
+import org.ncsu.settleup.common.events.ExpenseRecordedEvent;
+import org.ncsu.settleup.expenseservice.config.AmqpConfig;
+import org.ncsu.settleup.expenseservice.model.ExpenseEventRecord;
+import org.ncsu.settleup.expenseservice.repo.ExpenseEventRecordRepository;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Publishes expense events with a per-group sequence number.
+ *
+ * <p>Every event of a group gets the next number from the
+ * {@code expense_group_sequences} counter and is written to the
+ * {@code expense_events} log in the caller's transaction, so numbers are
+ * gap-free: a rolled back write releases its number together with its
+ * log entry.  The event is sent to the broker only after the transaction
+ * commits, which means consumers may see a group's events out of order
+ * (two commits racing to publish) or not at all (a crash between commit
+ * and send).  Consumers detect both from the sequence numbers and fetch
+ * missing events with {@link #resend}.
+ *
+ * <p>Logged events are kept for {@code expense.events.retention} and
+ * deleted after that, so the retention bounds how far behind a consumer
+ * can fall and still catch up through {@link #resend}.
+ */
+@Service
+public class ExpenseEventPublisher {
+    /** Routing key of {@link ExpenseRecordedEvent}. */
+    public static final String EXPENSE_RECORDED = "expense.recorded";
+
+    /** Routing key of {@link ExpenseAdjustedEvent}. */
+    public static final String EXPENSE_ADJUSTED = "expense.adjusted";
+
+    /** Largest number of events a single resend request may cover. */
+    public static final int MAX_RESEND_RANGE = 1000;
+
+    // The row lock taken by the upsert is held until commit, so writers of
+    // the same group are serialised and receive consecutive numbers.
+    private static final String NEXT_SEQUENCE =
+            "INSERT INTO expense_group_sequences (group_id, last_sequence) VALUES (?, 1) "
+                    + "ON CONFLICT (group_id) DO UPDATE SET last_sequence = expense_group_sequences.last_sequence + 1 "
+                    + "RETURNING last_sequence";
+    private static final String INSERT_EVENT =
+            "INSERT INTO expense_events (group_id, sequence, expense_id, event_type, payload, created_at) "
+                    + "VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String DELETE_EXPIRED =
+            "DELETE FROM expense_events WHERE created_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ExpenseEventRecordRepository repository;
+    private final RabbitTemplate rabbitTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration retention;
+
+    public ExpenseEventPublisher(JdbcTemplate jdbcTemplate,
+                                 ExpenseEventRecordRepository repository,
+                                 RabbitTemplate rabbitTemplate,
+                                 ObjectMapper objectMapper,
+                                 @Value("${expense.events.retention:P7D}") Duration retention) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.repository = repository;
+        this.rabbitTemplate = rabbitTemplate;
+        this.objectMapper = objectMapper;
+        this.retention = retention;
+    }
+
+    /**
+     * Allocate the next event sequence number of a group.  Must be called
+     * inside the transaction that publishes the event.
+     *
+     * @param groupId group identifier
+     * @return the allocated number, starting at 1
+     */
+    public long nextSequence(Long groupId) {
+        Long sequence = jdbcTemplate.queryForObject(NEXT_SEQUENCE, Long.class, groupId);
+        if (sequence == null) {
+            throw new IllegalStateException("No sequence returned for group " + groupId);
+        }
+        return sequence;
+    }
+
+    /**
+     * Log an event under its sequence number and send it once the
+     * surrounding transaction commits.
+     *
+     * @param groupId    group the event belongs to
+     * @param sequence   number obtained from {@link #nextSequence(Long)}
+     * @param expenseId  expense the event is about
+     * @param routingKey {@link #EXPENSE_RECORDED} or {@link #EXPENSE_ADJUSTED}
+     * @param event      the event, carrying the same sequence number
+     */
+    public void publish(Long groupId, long sequence, Long expenseId, String routingKey, Object event) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialise " + routingKey + " event", e);
+        }
+        jdbcTemplate.update(INSERT_EVENT, groupId, sequence, expenseId, routingKey, payload,
+                Timestamp.from(Instant.now()));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    send(routingKey, event);
+                }
+            });
+        } else {
+            send(routingKey, event);
+        }
+    }
+
+    /**
+     * Send a group's logged events with sequence numbers in
+     * {@code [from, to]} again.  Consumers ignore the ones they have
+     * already applied.
+     *
+     * @return the number of events sent; events older than the retention
+     *         window are no longer logged and not counted
+     * @throws IllegalArgumentException if the range is empty, starts below 1
+     *                                  or covers more than {@link #MAX_RESEND_RANGE} events
+     */
+    @Transactional(readOnly = true)
+    public int resend(Long groupId, long from, long to) {
+        if (from < 1 || to < from) {
+            throw new IllegalArgumentException("Invalid sequence range " + from + ".." + to);
+        }
+        if (to - from >= MAX_RESEND_RANGE) {
+            throw new IllegalArgumentException("At most " + MAX_RESEND_RANGE + " events can be resent at once");
+        }
+        List<ExpenseEventRecord> records =
+                repository.findByGroupIdAndSequenceBetweenOrderBySequence(groupId, from, to);
+        for (ExpenseEventRecord record : records) {
+            send(record.getEventType(), readEvent(record));
+        }
+        return records.size();
+    }
+
+    /**
+     * Periodically delete events logged longer ago than the retention
+     * window.  They can no longer be resent.
+     */
+    @Scheduled(fixedDelayString = "${expense.events.purge-interval:PT10M}")
+    public void purgeExpired() {
+        jdbcTemplate.update(DELETE_EXPIRED, Timestamp.from(Instant.now().minus(retention)));
+    }
+
+    private Object readEvent(ExpenseEventRecord record) {
+        Class<?> type = switch (record.getEventType()) {
+            case EXPENSE_RECORDED -> ExpenseRecordedEvent.class;
+            case EXPENSE_ADJUSTED -> ExpenseAdjustedEvent.class;
+            default -> throw new IllegalStateException("Unknown event type " + record.getEventType());
+        };
+        try {
+            return objectMapper.readValue(record.getPayload(), type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read logged event " + record.getGroupId()
+                    + "/" + record.getSequence(), e);
+        }
+    }
+
+    private void send(String routingKey, Object event) {
+        rabbitTemplate.convertAndSend(AmqpConfig.EXCHANGE_NAME, routingKey, event);
+    }
+}
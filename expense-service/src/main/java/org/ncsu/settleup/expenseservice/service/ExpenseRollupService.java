@@ -0,0 +1,216 @@
+package org.ncsu.settleup.expenseservice.service;
+
+import org.ncsu.settleup.expenseservice.model.CategoryRollup;
+import org.ncsu.settleup.expenseservice.model.Expense;
+import org.ncsu.settleup.expenseservice.model.SplitLine;
+import org.ncsu.settleup.expenseservice.repo.CategoryRollupRepository;
+import org.ncsu.settleup.expenseservice.repo.MemberRollupRepository;
+import org.ncsu.settleup.expenseservice.repo.MonthRollupRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains the per-group expense rollup tables.  Each expense write
+ * captures the expense's contribution before and after the change and
+ * applies only the difference as batched atomic UPSERTs, so the
+ * rollups stay exact under concurrent writers and the summary can be
+ * served without scanning expenses.
+ *
+ * <p>Callers must invoke {@link #apply} inside the transaction that
+ * writes the expense.
+ */
+@Service
+public class ExpenseRollupService {
+    private static final String UPSERT_MEMBER =
+            "INSERT INTO expense_member_rollups (group_id, member_id, paid_total, owed_total) VALUES (?, ?, ?, ?) "
+            + "ON CONFLICT (group_id, member_id) DO UPDATE SET "
+            + "paid_total = expense_member_rollups.paid_total + EXCLUDED.paid_total, "
+            + "owed_total = expense_member_rollups.owed_total + EXCLUDED.owed_total";
+    private static final String UPSERT_CATEGORY =
+            "INSERT INTO expense_category_rollups (group_id, category_id, total_amount, expense_count) VALUES (?, ?, ?, ?) "
+            + "ON CONFLICT (group_id, category_id) DO UPDATE SET "
+            + "total_amount = expense_category_rollups.total_amount + EXCLUDED.total_amount, "
+            + "expense_count = expense_category_rollups.expense_count + EXCLUDED.expense_count";
+    private static final String UPSERT_MONTH =
+            "INSERT INTO expense_month_rollups (group_id, month, total_amount, expense_count) VALUES (?, ?, ?, ?) "
+            + "ON CONFLICT (group_id, month) DO UPDATE SET "
+            + "total_amount = expense_month_rollups.total_amount + EXCLUDED.total_amount, "
+            + "expense_count = expense_month_rollups.expense_count + EXCLUDED.expense_count";
+    private static final String DELETE_EMPTY_MEMBER =
+            "DELETE FROM expense_member_rollups WHERE group_id = ? AND member_id = ? "
+            + "AND paid_total = 0 AND owed_total = 0";
+    private static final String DELETE_EMPTY_CATEGORY =
+            "DELETE FROM expense_category_rollups WHERE group_id = ? AND category_id = ? AND expense_count <= 0";
+    private static final String DELETE_EMPTY_MONTH =
+            "DELETE FROM expense_month_rollups WHERE group_id = ? AND month = ? AND expense_count <= 0";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MemberRollupRepository memberRollupRepository;
+    private final CategoryRollupRepository categoryRollupRepository;
+    private final MonthRollupRepository monthRollupRepository;
+
+    public ExpenseRollupService(JdbcTemplate jdbcTemplate,
+                                MemberRollupRepository memberRollupRepository,
+                                CategoryRollupRepository categoryRollupRepository,
+                                MonthRollupRepository monthRollupRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.memberRollupRepository = memberRollupRepository;
+        this.categoryRollupRepository = categoryRollupRepository;
+        this.monthRollupRepository = monthRollupRepository;
+    }
+
+    /**
+     * Capture what an expense currently contributes to the rollups.  Take
+     * the snapshot before mutating an expense so that the old contribution
+     * can be subtracted afterwards.
+     *
+     * @param expense the expense, or {@code null} for "no contribution"
+     * @return an immutable snapshot of the expense's contribution
+     */
+    public static Contribution contributionOf(Expense expense) {
+        if (expense == null) {
+            return null;
+        }
+        Map<Long, BigDecimal> owed = new HashMap<>();
+        BigDecimal shareSum = BigDecimal.ZERO;
+        for (SplitLine split : expense.getSplits()) {
+            owed.merge(split.getMemberId(), split.getShareAmount(), BigDecimal::add);
+            shareSum = shareSum.add(split.getShareAmount());
+        }
+        BigDecimal amount = expense.getTotalAmount() != null ? expense.getTotalAmount() : shareSum;
+        long categoryKey = expense.getCategoryId() != null ? expense.getCategoryId() : CategoryRollup.UNCATEGORIZED;
+        String month = expense.getOccurredAt() == null
+                ? null
+                : YearMonth.from(expense.getOccurredAt().atZone(ZoneOffset.UTC)).toString();
+        return new Contribution(expense.getGroupId(), expense.getPayerMemberId(), amount, owed, categoryKey, month);
+    }
+
+    /**
+     * Move the rollups from one contribution to another.  Pass
+     * {@code before == null} for a new expense and {@code after == null}
+     * for a deleted one.  Deltas are coalesced per rollup key so each
+     * affected row is written once.  Rows that shrink to nothing are
+     * deleted, so members and buckets that no longer have any expenses
+     * drop out of the summary.
+     */
+    public void apply(Contribution before, Contribution after) {
+        Map<RollupKey, Delta> members = new HashMap<>();
+        Map<RollupKey, Delta> categories = new HashMap<>();
+        Map<RollupKey, Delta> months = new HashMap<>();
+        accumulate(before, -1, members, categories, months);
+        accumulate(after, 1, members, categories, months);
+
+        List<Object[]> memberRows = new ArrayList<>();
+        List<Object[]> shrunkMembers = new ArrayList<>();
+        members.forEach((key, d) -> {
+            if (d.amount.signum() != 0 || d.owed.signum() != 0) {
+                memberRows.add(new Object[] {key.groupId(), key.bucket(), d.amount, d.owed});
+            }
+            if (d.amount.signum() < 0 || d.owed.signum() < 0) {
+                shrunkMembers.add(new Object[] {key.groupId(), key.bucket()});
+            }
+        });
+        if (!memberRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_MEMBER, memberRows);
+        }
+        if (!shrunkMembers.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_EMPTY_MEMBER, shrunkMembers);
+        }
+        upsertCounted(UPSERT_CATEGORY, DELETE_EMPTY_CATEGORY, categories);
+        upsertCounted(UPSERT_MONTH, DELETE_EMPTY_MONTH, months);
+    }
+
+    /**
+     * Read the summary of a group from the rollup tables.  The cost is
+     * proportional to the number of rollup rows, not to the number of
+     * expenses in the group.
+     */
+    public ExpenseSummary summarize(Long groupId) {
+        return new ExpenseSummary(groupId,
+                memberRollupRepository.findByGroupIdOrderByMemberId(groupId),
+                categoryRollupRepository.findByGroupIdOrderByCategoryId(groupId),
+                monthRollupRepository.findByGroupIdOrderByMonth(groupId));
+    }
+
+    private static void accumulate(Contribution c, int sign,
+                                   Map<RollupKey, Delta> members,
+                                   Map<RollupKey, Delta> categories,
+                                   Map<RollupKey, Delta> months) {
+        if (c == null) {
+            return;
+        }
+        BigDecimal signedAmount = sign < 0 ? c.amount().negate() : c.amount();
+        if (c.payerMemberId() != null) {
+            Delta payer = members.computeIfAbsent(new RollupKey(c.groupId(), c.payerMemberId()), k -> new Delta());
+            payer.amount = payer.amount.add(signedAmount);
+        }
+        c.owed().forEach((memberId, share) -> {
+            Delta member = members.computeIfAbsent(new RollupKey(c.groupId(), memberId), k -> new Delta());
+            member.owed = member.owed.add(sign < 0 ? share.negate() : share);
+        });
+        Delta category = categories.computeIfAbsent(new RollupKey(c.groupId(), c.categoryKey()), k -> new Delta());
+        category.amount = category.amount.add(signedAmount);
+        category.count += sign;
+        if (c.month() != null) {
+            Delta month = months.computeIfAbsent(new RollupKey(c.groupId(), c.month()), k -> new Delta());
+            month.amount = month.amount.add(signedAmount);
+            month.count += sign;
+        }
+    }
+
+    private void upsertCounted(String upsertSql, String deleteEmptySql, Map<RollupKey, Delta> deltas) {
+        List<Object[]> rows = new ArrayList<>();
+        List<Object[]> shrunk = new ArrayList<>();
+        deltas.forEach((key, d) -> {
+            if (d.amount.signum() != 0 || d.count != 0) {
+                rows.add(new Object[] {key.groupId(), key.bucket(), d.amount, d.count});
+            }
+            if (d.count < 0) {
+                shrunk.add(new Object[] {key.groupId(), key.bucket()});
+            }
+        });
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(upsertSql, rows);
+        }
+        if (!shrunk.isEmpty()) {
+            jdbcTemplate.batchUpdate(deleteEmptySql, shrunk);
+        }
+    }
+
+    /** Rollup row key: the group plus a member id, category id or month. */
+    private record RollupKey(Long groupId, Object bucket) {
+    }
+
+    /** Pending change to one rollup row. */
+    private static final class Delta {
+        private BigDecimal amount = BigDecimal.ZERO;
+        private BigDecimal owed = BigDecimal.ZERO;
+        private long count;
+    }
+
+    /**
+     * What one expense contributes to the rollups.
+     *
+     * @param groupId       group of the expense
+     * @param payerMemberId member credited with {@code amount} paid
+     * @param amount        total amount of the expense
+     * @param owed          share owed per member
+     * @param categoryKey   category, or {@link CategoryRollup#UNCATEGORIZED}
+     * @param month         UTC month of occurrence in {@code yyyy-MM} form
+     */
+    public record Contribution(Long groupId,
+                               Long payerMemberId,
+                               BigDecimal amount,
+                               Map<Long, BigDecimal> owed,
+                               long categoryKey,
+                               String month) {
+    }
+}
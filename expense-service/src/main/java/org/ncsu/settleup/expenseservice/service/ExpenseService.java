@@ -1,42 +1,92 @@
 package org.ncsu.settleup.expenseservice.service;
 
+import org.ncsu.settleup.common.events.ExpenseAdjustedEvent;
 import org.ncsu.settleup.common.events.ExpenseRecordedEvent;
-import org.ncsu.settleup.expenseservice.config.AmqpConfig;
 import org.ncsu.settleup.expenseservice.model.Expense;
 import org.ncsu.settleup.expenseservice.model.SplitLine;
+import org.ncsu.settleup.expenseservice.repo.ExpenseFilter;
 import org.ncsu.settleup.expenseservice.repo.ExpenseRepository;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * Business service for handling expense persistence and event publication.
  */
 @Service
 public class ExpenseService {
+    /** Number of expenses returned per page when the caller does not specify a size. */
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    /** Upper bound on the page size a caller may request. */
+    public static final int MAX_PAGE_SIZE = 200;
+
     private final ExpenseRepository expenseRepository;
-    private final RabbitTemplate rabbitTemplate;
+    private final ExpenseEventPublisher eventPublisher;
+    private final ExpenseRollupService rollupService;
+    private final IdempotencyService idempotencyService;
 
     public ExpenseService(ExpenseRepository expenseRepository,
-                          RabbitTemplate rabbitTemplate) {
+                          ExpenseEventPublisher eventPublisher,
+                          ExpenseRollupService rollupService,
+                          IdempotencyService idempotencyService) {
         this.expenseRepository = expenseRepository;
-        this.rabbitTemplate = rabbitTemplate;
+        this.eventPublisher = eventPublisher;
+        this.rollupService = rollupService;
+        this.idempotencyService = idempotencyService;
     }
 
     /**
      * Persist an expense and publish an {@link ExpenseRecordedEvent} so that
      * other services can update their state.  The event includes a map
-     * from member IDs to the amount they owe for the expense.
+     * from member IDs to the amount they owe for the expense and the
+     * group event sequence number, which is also stored on the expense.
      *
      * @param expense the expense to persist
      * @return the saved expense
      */
+    @Transactional
     public Expense recordExpense(Expense expense) {
+        return recordExpense(expense, null, null);
+    }
+
+    /**
+     * Persist an expense on behalf of a request that carries an
+     * {@code Idempotency-Key}.  The key is reserved before anything else
+     * happens, so a concurrent retry fails with a
+     * {@link org.springframework.dao.DuplicateKeyException} without
+     * persisting a second expense or publishing a second event.  The
+     * response is stored with the key in the same transaction.
+     *
+     * @param expense        the expense to persist
+     * @param idempotencyKey client-supplied key, scoped to the expense's group, or {@code null} for none
+     * @param requestHash    hash of the request body the key was sent with
+     * @return the saved expense
+     */
+    @Transactional
+    public Expense recordExpense(Expense expense, String idempotencyKey, String requestHash) {
+        if (idempotencyKey != null) {
+            idempotencyService.reserve(expense.getGroupId(), idempotencyKey, requestHash);
+        }
+        long sequence = eventPublisher.nextSequence(expense.getGroupId());
+        expense.setEventSequence(sequence);
         // Persist the expense along with its split lines
         Expense saved = expenseRepository.save(expense);
+        rollupService.apply(null, ExpenseRollupService.contributionOf(saved));
 
         // Build a map of member IDs to share amounts for the event
         Map<Long, BigDecimal> shares = new HashMap<>();
@@ -49,9 +99,305 @@ public class ExpenseService {
                 saved.getGroupId(),
                 saved.getId(),
                 saved.getPayerMemberId(),
-                shares);
-        rabbitTemplate.convertAndSend(AmqpConfig.EXCHANGE_NAME, "expense.recorded", event);
+                shares,
+                sequence);
+        eventPublisher.publish(saved.getGroupId(), sequence, saved.getId(),
+                ExpenseEventPublisher.EXPENSE_RECORDED, event);
+
+        if (idempotencyKey != null) {
+            idempotencyService.complete(saved.getGroupId(), idempotencyKey, requestHash, HttpStatus.CREATED.value(),
+                    saved, saved.getEventSequence());
+        }
+        return saved;
+    }
 
+    /**
+     * Replace the fields and split lines of an existing expense with
+     * those of {@code replacement}.  Split lines are matched to the
+     * existing rows by member, so only changed shares are updated and
+     * only added or removed members are inserted or deleted.  The
+     * rollups are moved from the old values to the new ones in the same
+     * transaction and the resulting balance changes are published as an
+     * {@link ExpenseAdjustedEvent}.  A {@code null} occurrence time on
+     * the replacement keeps the existing one.  The expense is locked and
+     * re-read first, so the old values are those of the last committed
+     * change.
+     *
+     * @param existing    the managed expense to update
+     * @param replacement detached expense carrying the new values
+     * @return the saved expense
+     * @throws IllegalArgumentException if the replacement lists a member twice
+     */
+    @Transactional
+    public Expense updateExpense(Expense existing, Expense replacement) {
+        Map<Long, BigDecimal> shares = sharesOf(replacement.getSplits());
+        Expense expense = expenseRepository.lockForUpdate(existing);
+        ExpenseRollupService.Contribution before = ExpenseRollupService.contributionOf(expense);
+        Long groupBefore = expense.getGroupId();
+        Map<Long, BigDecimal> balancesBefore = balanceEffectOf(expense);
+        expense.setGroupId(replacement.getGroupId());
+        expense.setPayerMemberId(replacement.getPayerMemberId());
+        expense.setCurrency(replacement.getCurrency());
+        expense.setTotalAmount(replacement.getTotalAmount());
+        expense.setCategoryId(replacement.getCategoryId());
+        if (replacement.getOccurredAt() != null) {
+            expense.setOccurredAt(replacement.getOccurredAt());
+        }
+        mergeSplits(expense, shares);
+        Expense saved = expenseRepository.save(expense);
+        rollupService.apply(before, ExpenseRollupService.contributionOf(saved));
+        publishAdjustment(saved, groupBefore, balancesBefore);
         return saved;
     }
+
+    /**
+     * Apply a partial edit to an expense's split lines.  Each entry of
+     * {@code changes} sets a member's share, adding the member if they
+     * are not yet part of the expense; a {@code null} share removes the
+     * member.  Members not mentioned are left untouched.  As in
+     * {@link #updateExpense}, the expense is locked and re-read first.
+     *
+     * @param existing    the managed expense to update
+     * @param changes     member ID to new share, or {@code null} to remove
+     * @param totalAmount new total, or {@code null} to keep the current one
+     * @return the saved expense
+     * @throws IllegalArgumentException if the resulting splits do not sum to the total
+     */
+    @Transactional
+    public Expense patchSplits(Expense existing, Map<Long, BigDecimal> changes, BigDecimal totalAmount) {
+        Expense expense = expenseRepository.lockForUpdate(existing);
+        Map<Long, BigDecimal> shares = sharesOf(expense.getSplits());
+        for (Map.Entry<Long, BigDecimal> change : changes.entrySet()) {
+            if (change.getValue() == null) {
+                shares.remove(change.getKey());
+            } else {
+                shares.put(change.getKey(), change.getValue());
+            }
+        }
+        BigDecimal total = totalAmount != null ? totalAmount : expense.getTotalAmount();
+        BigDecimal sum = shares.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+        if (total != null && sum.compareTo(total) != 0) {
+            throw new IllegalArgumentException("Sum of splits must equal total amount");
+        }
+        ExpenseRollupService.Contribution before = ExpenseRollupService.contributionOf(expense);
+        Map<Long, BigDecimal> balancesBefore = balanceEffectOf(expense);
+        expense.setTotalAmount(total);
+        mergeSplits(expense, shares);
+        Expense saved = expenseRepository.save(expense);
+        rollupService.apply(before, ExpenseRollupService.contributionOf(saved));
+        publishAdjustment(saved, saved.getGroupId(), balancesBefore);
+        return saved;
+    }
+
+    /**
+     * Delete an expense, subtract it from the rollups in the same
+     * transaction and publish the reversal of its balance effect.  The
+     * expense is locked and re-read first, so a concurrent edit or delete
+     * is not subtracted twice.
+     *
+     * @param expense the expense to delete
+     * @return sequence number of the published event, or {@code null} if
+     *         the expense had no balance effect
+     */
+    @Transactional
+    public Long deleteExpense(Expense expense) {
+        Expense locked = expenseRepository.lockForUpdate(expense);
+        rollupService.apply(ExpenseRollupService.contributionOf(locked), null);
+        Long sequence = publishDeltas(locked.getGroupId(), locked.getId(),
+                difference(Map.of(), balanceEffectOf(locked)));
+        expenseRepository.delete(locked);
+        return sequence;
+    }
+
+    /**
+     * Summarise a group's spending per member, per category and per
+     * month from the rollup tables.
+     *
+     * @param groupId group identifier
+     * @return the group's rollup rows
+     */
+    @Transactional(readOnly = true)
+    public ExpenseSummary summarize(Long groupId) {
+        return rollupService.summarize(groupId);
+    }
+
+    /**
+     * Fetch one page of a group's expenses using keyset pagination.  The
+     * page is resolved in two queries regardless of its size: one index
+     * scan for the expense IDs after the cursor and one entity-graph
+     * query that loads those expenses with their split lines.
+     *
+     * @param groupId group identifier
+     * @param afterId exclusive cursor; {@code null} starts from the beginning
+     * @param size    requested page size, clamped to {@link #MAX_PAGE_SIZE}
+     * @return expenses in ascending ID order with splits initialised
+     */
+    public List<Expense> findExpensePage(Long groupId, Long afterId, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        long cursor = afterId == null ? 0L : afterId;
+        List<Long> ids = expenseRepository.findIdsByGroupIdAfter(groupId, cursor, PageRequest.of(0, limit));
+        return loadWithSplits(ids);
+    }
+
+    /**
+     * Search a group's expenses by date range, payer, participant and
+     * amount bounds.  Results are ordered by {@code (occurredAt, id)} and
+     * paginated with an opaque keyset cursor produced by
+     * {@link #searchCursorOf(Expense)}.
+     *
+     * @param filter search criteria
+     * @param cursor cursor of the last expense on the previous page, or {@code null}
+     * @param size   requested page size, clamped to {@link #MAX_PAGE_SIZE}
+     * @return matching expenses in page order with splits initialised
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public List<Expense> searchExpenses(ExpenseFilter filter, String cursor, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Instant afterOccurredAt = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int sep = decoded.lastIndexOf('|');
+                afterOccurredAt = Instant.parse(decoded.substring(0, sep));
+                afterId = Long.parseLong(decoded.substring(sep + 1));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+        List<Long> ids = expenseRepository.findIdsMatching(filter, afterOccurredAt, afterId, limit);
+        return loadWithSplits(ids);
+    }
+
+    /**
+     * Build the search cursor that continues a search after the given expense.
+     *
+     * @param expense last expense of a search page
+     * @return opaque URL-safe cursor
+     */
+    public static String searchCursorOf(Expense expense) {
+        String raw = expense.getOccurredAt() + "|" + expense.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Load expenses with their split lines in one query and return them
+     * in the order of the given IDs.
+     */
+    private List<Expense> loadWithSplits(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Expense> byId = new HashMap<>();
+        for (Expense expense : expenseRepository.findWithSplitsByIdIn(ids)) {
+            byId.put(expense.getId(), expense);
+        }
+        List<Expense> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Expense expense = byId.get(id);
+            if (expense != null) {
+                ordered.add(expense);
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * Collect split lines into a member ID to share map, preserving order.
+     */
+    private static Map<Long, BigDecimal> sharesOf(List<SplitLine> splits) {
+        Map<Long, BigDecimal> shares = new LinkedHashMap<>();
+        for (SplitLine split : splits) {
+            if (shares.put(split.getMemberId(), split.getShareAmount()) != null) {
+                throw new IllegalArgumentException("Split member " + split.getMemberId() + " is listed more than once");
+            }
+        }
+        return shares;
+    }
+
+    /**
+     * Bring an expense's split lines in line with {@code shares} by
+     * member ID.  Rows whose share is unchanged are left alone so
+     * Hibernate's dirty checking issues UPDATEs only for changed shares;
+     * orphan removal deletes rows for members no longer present.
+     */
+    static void mergeSplits(Expense expense, Map<Long, BigDecimal> shares) {
+        Map<Long, BigDecimal> remaining = new LinkedHashMap<>(shares);
+        Iterator<SplitLine> it = expense.getSplits().iterator();
+        while (it.hasNext()) {
+            SplitLine split = it.next();
+            BigDecimal share = remaining.remove(split.getMemberId());
+            if (share == null) {
+                it.remove();
+            } else if (split.getShareAmount() == null || split.getShareAmount().compareTo(share) != 0) {
+                split.setShareAmount(share);
+            }
+        }
+        for (Map.Entry<Long, BigDecimal> added : remaining.entrySet()) {
+            expense.getSplits().add(new SplitLine(added.getKey(), added.getValue(), expense));
+        }
+    }
+
+    /**
+     * Net balance effect of an expense, computed the same way the
+     * settlement service applies an {@link ExpenseRecordedEvent}: the
+     * payer is credited the sum of the shares and each member is
+     * debited their share.
+     */
+    static Map<Long, BigDecimal> balanceEffectOf(Expense expense) {
+        Map<Long, BigDecimal> effect = new HashMap<>();
+        BigDecimal total = BigDecimal.ZERO;
+        for (SplitLine split : expense.getSplits()) {
+            total = total.add(split.getShareAmount());
+            effect.merge(split.getMemberId(), split.getShareAmount().negate(), BigDecimal::add);
+        }
+        effect.merge(expense.getPayerMemberId(), total, BigDecimal::add);
+        return effect;
+    }
+
+    /**
+     * Publish the balance changes of an edited expense and record the
+     * sequence number of the event on it.  When the expense moved
+     * between groups its old effect is reversed in the old group and the
+     * new one applied in the new group.
+     */
+    private void publishAdjustment(Expense saved, Long groupBefore, Map<Long, BigDecimal> before) {
+        Map<Long, BigDecimal> after = balanceEffectOf(saved);
+        Long sequence;
+        if (Objects.equals(groupBefore, saved.getGroupId())) {
+            sequence = publishDeltas(saved.getGroupId(), saved.getId(), difference(after, before));
+        } else {
+            publishDeltas(groupBefore, saved.getId(), difference(Map.of(), before));
+            sequence = publishDeltas(saved.getGroupId(), saved.getId(), difference(after, Map.of()));
+        }
+        if (sequence != null) {
+            saved.setEventSequence(sequence);
+        }
+    }
+
+    /**
+     * Publish an {@link ExpenseAdjustedEvent} unless nothing changed.
+     *
+     * @return the event's sequence number, or {@code null} if none was published
+     */
+    private Long publishDeltas(Long groupId, Long expenseId, Map<Long, BigDecimal> deltas) {
+        if (deltas.isEmpty()) {
+            return null;
+        }
+        long sequence = eventPublisher.nextSequence(groupId);
+        eventPublisher.publish(groupId, sequence, expenseId, ExpenseEventPublisher.EXPENSE_ADJUSTED,
+                new ExpenseAdjustedEvent(groupId, expenseId, deltas, sequence));
+        return sequence;
+    }
+
+    /**
+     * Per-member {@code after - before}, omitting members whose balance
+     * does not change.
+     */
+    static Map<Long, BigDecimal> difference(Map<Long, BigDecimal> after, Map<Long, BigDecimal> before) {
+        Map<Long, BigDecimal> deltas = new HashMap<>(after);
+        before.forEach((memberId, amount) -> deltas.merge(memberId, amount.negate(), BigDecimal::add));
+        deltas.values().removeIf(delta -> delta.signum() == 0);
+        return deltas;
+    }
 }
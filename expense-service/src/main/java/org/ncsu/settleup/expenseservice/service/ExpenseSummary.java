@@ -0,0 +1,21 @@
+package org.ncsu.settleup.expenseservice.service;
+
+import org.ncsu.settleup.expenseservice.model.CategoryRollup;
+import org.ncsu.settleup.expenseservice.model.MemberRollup;
+import org.ncsu.settleup.expenseservice.model.MonthRollup;
+
+import java.util.List;
+
+/**
+ * Aggregated spending for a group, served from the rollup tables.
+ *
+ * @param groupId    group identifier
+ * @param members    amounts paid and owed per member
+ * @param categories totals per category; category 0 collects uncategorised expenses
+ * @param months     totals per calendar month (UTC)
+ */
+public record ExpenseSummary(Long groupId,
+                             List<MemberRollup> members,
+                             List<CategoryRollup> categories,
+                             List<MonthRollup> months) {
+}
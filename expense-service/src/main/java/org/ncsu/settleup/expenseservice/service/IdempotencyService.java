@@ -0,0 +1,169 @@
+package org.ncsu.settleup.expenseservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.ncsu.settleup.expenseservice.model.IdempotencyRecord;
+import org.ncsu.settleup.expenseservice.repo.IdempotencyRecordRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Stores the outcome of requests made with an {@code Idempotency-Key}
+ * header so that retries are answered without reprocessing.
+ *
+ * <p>Keys are scoped to the group the request writes to, so the same
+ * key sent for two different groups refers to two separate requests.
+ * Records live in the {@code idempotency_keys} table for a bounded
+ * retention window, fronted by an in-memory LRU of recently completed
+ * keys.  A key is reserved by inserting its row at the start of the
+ * write transaction: a concurrent request with the same group and key
+ * blocks on the primary key until the first commits, then fails with a
+ * {@link org.springframework.dao.DuplicateKeyException} and can replay
+ * the stored response.
+ */
+@Service
+public class IdempotencyService {
+    private static final String INSERT_RESERVATION =
+            "INSERT INTO idempotency_keys (group_id, idempotency_key, request_hash, created_at) VALUES (?, ?, ?, ?)";
+    private static final String UPDATE_RESPONSE =
+            "UPDATE idempotency_keys SET response_status = ?, response_body = ?, group_sequence = ? "
+                    + "WHERE group_id = ? AND idempotency_key = ?";
+
+    private final IdempotencyRecordRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration retention;
+    private final Map<IdempotencyRecord.Key, StoredResponse> recent;
+
+    public IdempotencyService(IdempotencyRecordRepository repository,
+                              JdbcTemplate jdbcTemplate,
+                              ObjectMapper objectMapper,
+                              @Value("${expense.idempotency.retention:PT24H}") Duration retention,
+                              @Value("${expense.idempotency.cache-size:10000}") int cacheSize) {
+        this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.retention = retention;
+        this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<IdempotencyRecord.Key, StoredResponse> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Look up the stored response for a key.  Expired and still
+     * in-flight records are treated as absent.
+     *
+     * @param groupId the group the request writes to
+     * @param idempotencyKey the idempotency key
+     * @return the stored response, if the key was completed within the retention window
+     */
+    public Optional<StoredResponse> find(Long groupId, String idempotencyKey) {
+        IdempotencyRecord.Key key = new IdempotencyRecord.Key(groupId, idempotencyKey);
+        StoredResponse cached;
+        synchronized (recent) {
+            cached = recent.get(key);
+        }
+        Instant cutoff = Instant.now().minus(retention);
+        if (cached != null) {
+            if (cached.createdAt().isAfter(cutoff)) {
+                return Optional.of(cached);
+            }
+            synchronized (recent) {
+                recent.remove(key);
+            }
+            return Optional.empty();
+        }
+        Optional<StoredResponse> stored = repository.findById(key)
+                .filter(r -> r.getResponseStatus() != null && r.getCreatedAt().isAfter(cutoff))
+                .map(r -> new StoredResponse(r.getRequestHash(), r.getResponseStatus(),
+                        r.getResponseBody(), r.getGroupSequence(), r.getCreatedAt()));
+        stored.ifPresent(s -> remember(key, s));
+        return stored;
+    }
+
+    /**
+     * Reserve a key inside the current transaction.  Must be called before
+     * any side effect of the request so that a duplicate fails first.
+     *
+     * @throws org.springframework.dao.DuplicateKeyException if the key is already taken
+     */
+    public void reserve(Long groupId, String idempotencyKey, String requestHash) {
+        // An expired record may still be on disk until the next purge.
+        jdbcTemplate.update("DELETE FROM idempotency_keys WHERE group_id = ? AND idempotency_key = ? AND created_at < ?",
+                groupId, idempotencyKey, Timestamp.from(Instant.now().minus(retention)));
+        jdbcTemplate.update(INSERT_RESERVATION, groupId, idempotencyKey, requestHash, Timestamp.from(Instant.now()));
+    }
+
+    /**
+     * Record the response for a reserved key.  The response becomes
+     * visible to retries when the surrounding transaction commits.
+     *
+     * @param groupSequence group event sequence of the write, replayed in
+     *                      the response header; null if it has none
+     */
+    public void complete(Long groupId, String idempotencyKey, String requestHash, int status, Object body,
+                         Long groupSequence) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialise idempotent response", e);
+        }
+        jdbcTemplate.update(UPDATE_RESPONSE, status, json, groupSequence, groupId, idempotencyKey);
+        IdempotencyRecord.Key key = new IdempotencyRecord.Key(groupId, idempotencyKey);
+        StoredResponse stored = new StoredResponse(requestHash, status, json, groupSequence, Instant.now());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remember(key, stored);
+                }
+            });
+        } else {
+            remember(key, stored);
+        }
+    }
+
+    /**
+     * Periodically delete records older than the retention window.
+     */
+    @Scheduled(fixedDelayString = "${expense.idempotency.purge-interval:PT10M}")
+    @Transactional
+    public void purgeExpired() {
+        repository.deleteCreatedBefore(Instant.now().minus(retention));
+    }
+
+    private void remember(IdempotencyRecord.Key key, StoredResponse stored) {
+        synchronized (recent) {
+            recent.put(key, stored);
+        }
+    }
+
+    /**
+     * A completed response that can be replayed.
+     *
+     * @param requestHash   hash of the original request body
+     * @param status        HTTP status of the original response
+     * @param body          JSON body of the original response
+     * @param groupSequence group event sequence of the original write, or null
+     * @param createdAt     when the key was first used
+     */
+    public record StoredResponse(String requestHash, int status, String body, Long groupSequence,
+                                 Instant createdAt) {
+    }
+}
@@ -0,0 +1,93 @@
+package org.ncsu.settleup.expenseservice.benchmark;
+
+import org.ncsu.settleup.expenseservice.ExpenseServiceApplication;
+import org.ncsu.settleup.expenseservice.model.Expense;
+import org.ncsu.settleup.expenseservice.model.SplitLine;
+import org.ncsu.settleup.expenseservice.repo.ExpenseRepository;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Manual benchmark of per-expense write latency for different split
+ * counts.  It boots the expense service without the web layer against
+ * the datasource from {@code application.properties} and persists
+ * expenses through {@link ExpenseRepository} in their own transaction,
+ * exactly as {@code ExpenseService.recordExpense} does.
+ *
+ * <p>This is not a unit test and is not picked up by surefire.  Run it
+ * against a disposable database, for example:
+ * <pre>
+ * mvn -pl expense-service test-compile exec:java \
+ *     -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.ncsu.settleup.expenseservice.benchmark.ExpenseWriteBenchmark
+ * </pre>
+ * Toggle {@code spring.jpa.show-sql} or compare against a build that
+ * still uses identity columns to see the effect of JDBC batching.
+ */
+public final class ExpenseWriteBenchmark {
+
+    private static final int[] SPLIT_COUNTS = {1, 5, 10, 30, 100};
+    private static final int WARMUP_ITERATIONS = 50;
+    private static final int MEASURED_ITERATIONS = 200;
+    private static final long BENCHMARK_GROUP_ID = -1L;
+
+    private ExpenseWriteBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        try (ConfigurableApplicationContext ctx = new SpringApplicationBuilder(ExpenseServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.jpa.show-sql=false")
+                .run(args)) {
+            ExpenseRepository repository = ctx.getBean(ExpenseRepository.class);
+            TransactionTemplate tx = new TransactionTemplate(ctx.getBean(PlatformTransactionManager.class));
+
+            System.out.printf("%8s %12s %12s %12s%n", "splits", "mean(us)", "p50(us)", "p99(us)");
+            for (int splits : SPLIT_COUNTS) {
+                for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                    tx.executeWithoutResult(s -> repository.save(newExpense(splits)));
+                }
+                long[] samples = new long[MEASURED_ITERATIONS];
+                for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+                    Expense expense = newExpense(splits);
+                    long start = System.nanoTime();
+                    tx.executeWithoutResult(s -> repository.save(expense));
+                    samples[i] = System.nanoTime() - start;
+                }
+                Arrays.sort(samples);
+                long total = 0;
+                for (long sample : samples) {
+                    total += sample;
+                }
+                System.out.printf("%8d %12d %12d %12d%n", splits,
+                        total / samples.length / 1_000,
+                        samples[samples.length / 2] / 1_000,
+                        samples[(int) (samples.length * 0.99)] / 1_000);
+            }
+            // Remove the synthetic rows so the benchmark can be re-run.
+            tx.executeWithoutResult(s -> repository.deleteAll(repository.findByGroupId(BENCHMARK_GROUP_ID)));
+        }
+    }
+
+    private static Expense newExpense(int splits) {
+        Expense expense = new Expense();
+        expense.setGroupId(BENCHMARK_GROUP_ID);
+        expense.setPayerMemberId(1L);
+        expense.setCurrency("USD");
+        List<SplitLine> lines = new ArrayList<>(splits);
+        for (int i = 0; i < splits; i++) {
+            lines.add(new SplitLine((long) i + 2, BigDecimal.ONE, expense));
+        }
+        expense.setSplits(lines);
+        expense.setTotalAmount(BigDecimal.valueOf(splits));
+        return expense;
+    }
+}
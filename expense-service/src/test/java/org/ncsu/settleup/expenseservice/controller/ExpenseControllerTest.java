@@ -6,25 +6,42 @@ import org.junit.jupiter.api.Test;
 import org.ncsu.settleup.expenseservice.client.MembershipClient;
 import org.ncsu.settleup.expenseservice.model.Expense;
 import org.ncsu.settleup.expenseservice.model.SplitLine;
+import org.ncsu.settleup.expenseservice.repo.ExpenseFilter;
 import org.ncsu.settleup.expenseservice.repo.ExpenseRepository;
 import org.ncsu.settleup.expenseservice.service.ExpenseService;
+import org.ncsu.settleup.expenseservice.service.IdempotencyService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.web.client.RestTemplateAutoConfiguration;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
+import java.security.MessageDigest;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
@@ -35,6 +52,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * database or the membership service.
  */
 @WebMvcTest(controllers = ExpenseController.class)
+@Import(RestTemplateAutoConfiguration.class)
 class ExpenseControllerTest {
 
     @Autowired
@@ -52,6 +70,9 @@ class ExpenseControllerTest {
     @MockBean
     private ExpenseRepository expenseRepository;
 
+    @MockBean
+    private IdempotencyService idempotencyService;
+
     @Test
     @DisplayName("createExpense returns 400 when group does not exist")
     void createExpense_invalidGroup_returnsBadRequest() throws Exception {
@@ -62,7 +83,9 @@ class ExpenseControllerTest {
                 1L,
                 "USD",
                 BigDecimal.valueOf(50),
-                List.of()
+                List.of(),
+                null,
+                null
         );
         String json = objectMapper.writeValueAsString(request);
 
@@ -87,7 +110,9 @@ class ExpenseControllerTest {
                 99L,
                 "USD",
                 BigDecimal.valueOf(50),
-                List.of()
+                List.of(),
+                null,
+                null
         );
         String json = objectMapper.writeValueAsString(request);
 
@@ -115,7 +140,9 @@ class ExpenseControllerTest {
                 1L,
                 "USD",
                 BigDecimal.valueOf(50),
-                List.of(split1, split2)
+                List.of(split1, split2),
+                null,
+                null
         );
         String json = objectMapper.writeValueAsString(request);
 
@@ -143,7 +170,9 @@ class ExpenseControllerTest {
                 1L,
                 "USD",
                 BigDecimal.valueOf(100),
-                List.of(split1, split2)
+                List.of(split1, split2),
+                null,
+                null
         );
         String json = objectMapper.writeValueAsString(request);
 
@@ -170,6 +199,7 @@ class ExpenseControllerTest {
         savedExpense.setPayerMemberId(1L);
         savedExpense.setCurrency("USD");
         savedExpense.setTotalAmount(BigDecimal.valueOf(100));
+        savedExpense.setEventSequence(8L);
         // Add splits
         List<SplitLine> splits = new ArrayList<>();
         SplitLine s1 = new SplitLine();
@@ -192,7 +222,9 @@ class ExpenseControllerTest {
                 1L,
                 "USD",
                 BigDecimal.valueOf(100),
-                List.of(split1, split2)
+                List.of(split1, split2),
+                null,
+                null
         );
         String json = objectMapper.writeValueAsString(request);
 
@@ -201,7 +233,289 @@ class ExpenseControllerTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(json))
                 .andExpect(status().isCreated())
+                .andExpect(header().string(ExpenseController.GROUP_SEQUENCE_HEADER, "8"))
                 .andExpect(content().json(objectMapper.writeValueAsString(savedExpense)));
         verify(expenseService, times(1)).recordExpense(any(Expense.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("getExpensesForGroup returns a full page with a cursor to the next page")
+    void getExpensesForGroup_fullPage_returnsNextCursor() throws Exception {
+        when(membershipClient.groupExists(1L)).thenReturn(true);
+        Expense e1 = new Expense();
+        e1.setId(11L);
+        Expense e2 = new Expense();
+        e2.setId(12L);
+        when(expenseService.findExpensePage(1L, 10L, 2)).thenReturn(List.of(e1, e2));
+
+        mockMvc.perform(get("/groups/1/expenses").param("cursor", "10").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.expenses.length()").value(2))
+                .andExpect(jsonPath("$.nextCursor").value(12));
+    }
+
+    @Test
+    @DisplayName("getExpensesForGroup caps the page size and ends paging on a short page")
+    void getExpensesForGroup_oversizedRequest_isCapped() throws Exception {
+        when(membershipClient.groupExists(1L)).thenReturn(true);
+        Expense e1 = new Expense();
+        e1.setId(5L);
+        when(expenseService.findExpensePage(eq(1L), isNull(), eq(ExpenseService.MAX_PAGE_SIZE)))
+                .thenReturn(List.of(e1));
+
+        mockMvc.perform(get("/groups/1/expenses").param("size", "100000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.expenses.length()").value(1))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+        verify(expenseService).findExpensePage(1L, null, ExpenseService.MAX_PAGE_SIZE);
+    }
+
+    @Test
+    @DisplayName("searchExpenses forwards every filter and returns a cursor for a full page")
+    void searchExpenses_withFilters_forwardsCriteria() throws Exception {
+        when(membershipClient.groupExists(1L)).thenReturn(true);
+        Expense e1 = new Expense();
+        e1.setId(7L);
+        e1.setOccurredAt(Instant.parse("2024-03-05T10:00:00Z"));
+        ExpenseFilter expected = new ExpenseFilter(1L,
+                Instant.parse("2024-03-01T00:00:00Z"),
+                Instant.parse("2024-04-01T00:00:00Z"),
+                2L, 3L, new BigDecimal("10"), new BigDecimal("500"));
+        when(expenseService.searchExpenses(expected, null, 1)).thenReturn(List.of(e1));
+
+        mockMvc.perform(get("/groups/1/expenses/search")
+                        .param("from", "2024-03-01T00:00:00Z")
+                        .param("to", "2024-04-01T00:00:00Z")
+                        .param("payer", "2")
+                        .param("participant", "3")
+                        .param("minAmount", "10")
+                        .param("maxAmount", "500")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.expenses[0].id").value(7))
+                .andExpect(jsonPath("$.nextCursor").value(ExpenseService.searchCursorOf(e1)));
+    }
+
+    @Test
+    @DisplayName("createExpense replays the stored response for a retried Idempotency-Key")
+    void createExpense_retriedIdempotencyKey_replaysWithoutRecording() throws Exception {
+        ExpenseController.ExpenseRequest request = new ExpenseController.ExpenseRequest(
+                1L, 1L, "USD", BigDecimal.valueOf(50), List.of(), null, null);
+        String json = objectMapper.writeValueAsString(request);
+        String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                .digest(objectMapper.writeValueAsBytes(request)));
+        when(idempotencyService.find(1L, "retry-1")).thenReturn(Optional.of(
+                new IdempotencyService.StoredResponse(hash, 201, "{\"id\":77}", 4L, Instant.now())));
+
+        mockMvc.perform(post("/expenses")
+                        .header(ExpenseController.IDEMPOTENCY_KEY_HEADER, "retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(ExpenseController.IDEMPOTENT_REPLAY_HEADER, "true"))
+                .andExpect(header().string(ExpenseController.GROUP_SEQUENCE_HEADER, "4"))
+                .andExpect(jsonPath("$.id").value(77));
+        verify(expenseService, never()).recordExpense(any());
+        verify(expenseService, never()).recordExpense(any(), any(), any());
+        verify(membershipClient, never()).groupExists(any());
+    }
+
+    @Test
+    @DisplayName("createExpense rejects an Idempotency-Key reused for a different body")
+    void createExpense_reusedKeyDifferentBody_returnsUnprocessable() throws Exception {
+        ExpenseController.ExpenseRequest request = new ExpenseController.ExpenseRequest(
+                1L, 1L, "USD", BigDecimal.valueOf(50), List.of(), null, null);
+        when(idempotencyService.find(1L, "retry-2")).thenReturn(Optional.of(
+                new IdempotencyService.StoredResponse("other-hash", 201, "{}", 4L, Instant.now())));
+
+        mockMvc.perform(post("/expenses")
+                        .header(ExpenseController.IDEMPOTENCY_KEY_HEADER, "retry-2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isUnprocessableEntity());
+        verify(expenseService, never()).recordExpense(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("patchSplits only checks members joining the expense and forwards the changes")
+    void patchSplits_validChanges_delegatesToService() throws Exception {
+        Expense existing = new Expense();
+        existing.setId(5L);
+        existing.setGroupId(1L);
+        existing.setSplits(new ArrayList<>(List.of(new SplitLine(2L, new BigDecimal("10"), existing))));
+        when(expenseRepository.findById(5L)).thenReturn(Optional.of(existing));
+        when(membershipClient.memberExists(1L, 3L)).thenReturn(true);
+        when(expenseService.patchSplits(eq(existing), any(), isNull())).thenReturn(existing);
+
+        ExpenseController.SplitPatchRequest request = new ExpenseController.SplitPatchRequest(null, List.of(
+                new ExpenseController.SplitRequest(2L, new BigDecimal("4")),
+                new ExpenseController.SplitRequest(3L, new BigDecimal("6"))));
+        mockMvc.perform(patch("/expenses/5/splits")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk());
+        verify(membershipClient, never()).memberExists(1L, 2L);
+        verify(expenseService).patchSplits(existing,
+                Map.of(2L, new BigDecimal("4"), 3L, new BigDecimal("6")), null);
+    }
+
+    @Test
+    @DisplayName("patchSplits returns 400 when a new member is not part of the group")
+    void patchSplits_unknownMember_returnsBadRequest() throws Exception {
+        Expense existing = new Expense();
+        existing.setId(5L);
+        existing.setGroupId(1L);
+        when(expenseRepository.findById(5L)).thenReturn(Optional.of(existing));
+        when(membershipClient.memberExists(1L, 9L)).thenReturn(false);
+
+        ExpenseController.SplitPatchRequest request = new ExpenseController.SplitPatchRequest(null, List.of(
+                new ExpenseController.SplitRequest(9L, new BigDecimal("5"))));
+        mockMvc.perform(patch("/expenses/5/splits")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+        verify(expenseService, never()).patchSplits(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("createExpense with a new Idempotency-Key records the expense and returns its sequence")
+    void createExpense_newIdempotencyKey_recordsAndReturnsSequence() throws Exception {
+        when(membershipClient.groupExists(1L)).thenReturn(true);
+        when(membershipClient.memberExists(1L, 1L)).thenReturn(true);
+        when(idempotencyService.find(1L, "new-1")).thenReturn(Optional.empty());
+        Expense saved = new Expense();
+        saved.setId(31L);
+        saved.setEventSequence(5L);
+        when(expenseService.recordExpense(any(Expense.class), eq("new-1"), any())).thenReturn(saved);
+
+        ExpenseController.ExpenseRequest request = new ExpenseController.ExpenseRequest(
+                1L, 1L, "USD", BigDecimal.valueOf(50),
+                List.of(new ExpenseController.SplitRequest(1L, BigDecimal.valueOf(50))), null, null);
+        mockMvc.perform(post("/expenses")
+                        .header(ExpenseController.IDEMPOTENCY_KEY_HEADER, "new-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(ExpenseController.GROUP_SEQUENCE_HEADER, "5"))
+                .andExpect(header().doesNotExist(ExpenseController.IDEMPOTENT_REPLAY_HEADER));
+        verify(expenseService, never()).recordExpense(any());
+    }
+
+    @Test
+    @DisplayName("updateExpense returns the sequence of the update event")
+    void updateExpense_validInput_returnsSequence() throws Exception {
+        Expense existing = new Expense();
+        existing.setId(5L);
+        existing.setGroupId(1L);
+        when(expenseRepository.findById(5L)).thenReturn(Optional.of(existing));
+        when(membershipClient.groupExists(1L)).thenReturn(true);
+        when(membershipClient.memberExists(1L, 1L)).thenReturn(true);
+        when(membershipClient.memberExists(1L, 2L)).thenReturn(true);
+        Expense saved = new Expense();
+        saved.setId(5L);
+        saved.setEventSequence(12L);
+        when(expenseService.updateExpense(eq(existing), any(Expense.class))).thenReturn(saved);
+
+        ExpenseController.ExpenseRequest request = new ExpenseController.ExpenseRequest(
+                1L, 1L, "USD", BigDecimal.valueOf(30),
+                List.of(new ExpenseController.SplitRequest(2L, BigDecimal.valueOf(30))), null, null);
+        mockMvc.perform(put("/expenses/5")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ExpenseController.GROUP_SEQUENCE_HEADER, "12"));
+    }
+
+    @Test
+    @DisplayName("updateExpense returns 400 when the splits do not add up to the total")
+    void updateExpense_mismatchedSplits_returnsBadRequest() throws Exception {
+        Expense existing = new Expense();
+        existing.setId(5L);
+        when(expenseRepository.findById(5L)).thenReturn(Optional.of(existing));
+        when(membershipClient.groupExists(1L)).thenReturn(true);
+        when(membershipClient.memberExists(1L, 1L)).thenReturn(true);
+        when(membershipClient.memberExists(1L, 2L)).thenReturn(true);
+
+        ExpenseController.ExpenseRequest request = new ExpenseController.ExpenseRequest(
+                1L, 1L, "USD", BigDecimal.valueOf(30),
+                List.of(new ExpenseController.SplitRequest(2L, BigDecimal.valueOf(20))), null, null);
+        mockMvc.perform(put("/expenses/5")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+        verify(expenseService, never()).updateExpense(any(), any());
+    }
+
+    @Test
+    @DisplayName("deleteExpense returns the sequence of the delete event")
+    void deleteExpense_existing_returnsSequence() throws Exception {
+        Expense existing = new Expense();
+        existing.setId(5L);
+        when(expenseRepository.findById(5L)).thenReturn(Optional.of(existing));
+        when(expenseService.deleteExpense(existing)).thenReturn(13L);
+
+        mockMvc.perform(delete("/expenses/5"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ExpenseController.GROUP_SEQUENCE_HEADER, "13"));
+    }
+
+    @Test
+    @DisplayName("patchSplits returns 400 when a split change has no member")
+    void patchSplits_nullMember_returnsBadRequest() throws Exception {
+        Expense existing = new Expense();
+        existing.setId(5L);
+        existing.setGroupId(1L);
+        when(expenseRepository.findById(5L)).thenReturn(Optional.of(existing));
+
+        ExpenseController.SplitPatchRequest request = new ExpenseController.SplitPatchRequest(null, List.of(
+                new ExpenseController.SplitRequest(null, new BigDecimal("5"))));
+        mockMvc.perform(patch("/expenses/5/splits")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Split member is required"));
+        verify(expenseService, never()).patchSplits(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("patchSplits returns 400 for a negative share")
+    void patchSplits_negativeShare_returnsBadRequest() throws Exception {
+        Expense existing = new Expense();
+        existing.setId(5L);
+        existing.setGroupId(1L);
+        existing.setSplits(new ArrayList<>(List.of(new SplitLine(2L, new BigDecimal("10"), existing))));
+        when(expenseRepository.findById(5L)).thenReturn(Optional.of(existing));
+
+        ExpenseController.SplitPatchRequest request = new ExpenseController.SplitPatchRequest(null, List.of(
+                new ExpenseController.SplitRequest(2L, new BigDecimal("-1"))));
+        mockMvc.perform(patch("/expenses/5/splits")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+        verify(expenseService, never()).patchSplits(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("createExpense does not replay a key stored for another group")
+    void createExpense_keyUsedByAnotherGroup_isNotReplayed() throws Exception {
+        ExpenseController.ExpenseRequest request = new ExpenseController.ExpenseRequest(
+                2L, 1L, "USD", BigDecimal.valueOf(50),
+                List.of(new ExpenseController.SplitRequest(1L, BigDecimal.valueOf(50))), null, null);
+        when(idempotencyService.find(1L, "shared")).thenReturn(Optional.of(
+                new IdempotencyService.StoredResponse("other-hash", 201, "{\"id\":77}", 4L, Instant.now())));
+        when(idempotencyService.find(2L, "shared")).thenReturn(Optional.empty());
+        when(membershipClient.groupExists(2L)).thenReturn(true);
+        when(membershipClient.memberExists(2L, 1L)).thenReturn(true);
+        Expense saved = new Expense();
+        saved.setId(90L);
+        when(expenseService.recordExpense(any(Expense.class), eq("shared"), any())).thenReturn(saved);
+
+        mockMvc.perform(post("/expenses")
+                        .header(ExpenseController.IDEMPOTENCY_KEY_HEADER, "shared")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(90));
+        verify(idempotencyService).find(2L, "shared");
+    }
+}
@@ -0,0 +1,58 @@
+package org.ncsu.settleup.expenseservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.ncsu.settleup.expenseservice.repo.ExpenseEventRecordRepository;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link ExpenseEventPublisher}.  The database and the
+ * broker are mocked.
+ */
+class ExpenseEventPublisherTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private ExpenseEventRecordRepository repository;
+    private ExpenseEventPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        repository = mock(ExpenseEventRecordRepository.class);
+        publisher = new ExpenseEventPublisher(jdbcTemplate, repository, mock(RabbitTemplate.class),
+                new ObjectMapper(), Duration.ofDays(7));
+    }
+
+    @Test
+    void purgeExpired_deletesEventsOlderThanTheRetention() {
+        Instant before = Instant.now().minus(Duration.ofDays(7));
+
+        publisher.purgeExpired();
+
+        ArgumentCaptor<Object> cutoff = ArgumentCaptor.forClass(Object.class);
+        verify(jdbcTemplate).update(startsWith("DELETE FROM expense_events WHERE created_at < ?"),
+                cutoff.capture());
+        Instant at = ((Timestamp) cutoff.getValue()).toInstant();
+        assertFalse(at.isBefore(before));
+        assertTrue(at.isBefore(Instant.now().minus(Duration.ofDays(6))));
+    }
+
+    @Test
+    void resend_rejectsInvalidRanges() {
+        assertThrows(IllegalArgumentException.class, () -> publisher.resend(7L, 0L, 5L));
+        assertThrows(IllegalArgumentException.class, () -> publisher.resend(7L, 5L, 4L));
+        assertThrows(IllegalArgumentException.class,
+                () -> publisher.resend(7L, 1L, ExpenseEventPublisher.MAX_RESEND_RANGE + 1));
+        verifyNoInteractions(repository);
+    }
+}
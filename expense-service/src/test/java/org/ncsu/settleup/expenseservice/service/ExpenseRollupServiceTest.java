@@ -0,0 +1,140 @@
+package org.ncsu.settleup.expenseservice.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.ncsu.settleup.expenseservice.model.CategoryRollup;
+import org.ncsu.settleup.expenseservice.model.Expense;
+import org.ncsu.settleup.expenseservice.model.SplitLine;
+import org.ncsu.settleup.expenseservice.repo.CategoryRollupRepository;
+import org.ncsu.settleup.expenseservice.repo.MemberRollupRepository;
+import org.ncsu.settleup.expenseservice.repo.MonthRollupRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link ExpenseRollupService}.  The {@link JdbcTemplate}
+ * is mocked so the tests check which rollup deltas are written rather
+ * than the SQL itself.
+ */
+class ExpenseRollupServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private ExpenseRollupService rollupService;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        rollupService = new ExpenseRollupService(jdbcTemplate,
+                mock(MemberRollupRepository.class),
+                mock(CategoryRollupRepository.class),
+                mock(MonthRollupRepository.class));
+    }
+
+    private static Expense expense(Long payer, String total, Long categoryId, String occurredAt, Object... splits) {
+        Expense expense = new Expense();
+        expense.setGroupId(1L);
+        expense.setPayerMemberId(payer);
+        expense.setTotalAmount(new BigDecimal(total));
+        expense.setCategoryId(categoryId);
+        expense.setOccurredAt(Instant.parse(occurredAt));
+        List<SplitLine> lines = new ArrayList<>();
+        for (int i = 0; i < splits.length; i += 2) {
+            lines.add(new SplitLine((Long) splits[i], new BigDecimal((String) splits[i + 1]), expense));
+        }
+        expense.setSplits(lines);
+        return expense;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> rowsFor(String tableFragment) {
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(contains("INSERT INTO " + tableFragment), rows.capture());
+        return rows.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> deletedRowsFor(String table) {
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(contains("DELETE FROM " + table), rows.capture());
+        return rows.getValue();
+    }
+
+    @Test
+    void contributionOf_usesUncategorizedKeyAndUtcMonth() {
+        Expense e = expense(1L, "30", null, "2024-01-31T23:30:00Z", 2L, "30");
+        ExpenseRollupService.Contribution c = ExpenseRollupService.contributionOf(e);
+        assertEquals(CategoryRollup.UNCATEGORIZED, c.categoryKey());
+        assertEquals("2024-01", c.month());
+        assertEquals(new BigDecimal("30"), c.owed().get(2L));
+    }
+
+    @Test
+    void apply_newExpense_writesPaidOwedCategoryAndMonthRows() {
+        Expense e = expense(1L, "30", 5L, "2024-03-10T12:00:00Z", 1L, "10", 2L, "20");
+        rollupService.apply(null, ExpenseRollupService.contributionOf(e));
+
+        List<Object[]> members = rowsFor("expense_member_rollups");
+        assertEquals(2, members.size());
+        for (Object[] row : members) {
+            if (row[1].equals(1L)) {
+                assertEquals(new BigDecimal("30"), row[2], "payer credited with the total");
+                assertEquals(new BigDecimal("10"), row[3]);
+            } else {
+                assertEquals(BigDecimal.ZERO, row[2]);
+                assertEquals(new BigDecimal("20"), row[3]);
+            }
+        }
+        assertArrayEquals(new Object[] {1L, 5L, new BigDecimal("30"), 1L}, rowsFor("expense_category_rollups").get(0));
+        assertArrayEquals(new Object[] {1L, "2024-03", new BigDecimal("30"), 1L}, rowsFor("expense_month_rollups").get(0));
+        verify(jdbcTemplate, never()).batchUpdate(contains("DELETE"), anyList());
+    }
+
+    @Test
+    void apply_update_coalescesDeltasAndSkipsUnchangedRows() {
+        Expense before = expense(1L, "30", 5L, "2024-03-10T12:00:00Z", 1L, "10", 2L, "20");
+        Expense after = expense(1L, "30", 5L, "2024-03-10T12:00:00Z", 1L, "15", 2L, "15");
+        rollupService.apply(ExpenseRollupService.contributionOf(before), ExpenseRollupService.contributionOf(after));
+
+        List<Object[]> members = rowsFor("expense_member_rollups");
+        assertEquals(2, members.size(), "only the owed shares changed");
+        for (Object[] row : members) {
+            assertEquals(0, ((BigDecimal) row[2]).signum(), "paid total is unchanged");
+        }
+        // Category and month totals are unchanged, so nothing is written for them.
+        verify(jdbcTemplate, never()).batchUpdate(contains("expense_category_rollups"), anyList());
+        verify(jdbcTemplate, never()).batchUpdate(contains("expense_month_rollups"), anyList());
+    }
+
+    @Test
+    void apply_delete_decrementsAndPrunesEmptyBuckets() {
+        Expense e = expense(1L, "30", 5L, "2024-03-10T12:00:00Z", 2L, "30");
+        rollupService.apply(ExpenseRollupService.contributionOf(e), null);
+
+        assertArrayEquals(new Object[] {1L, 5L, new BigDecimal("-30"), -1L}, rowsFor("expense_category_rollups").get(0));
+        verify(jdbcTemplate).batchUpdate(contains("DELETE FROM expense_category_rollups"), anyList());
+        verify(jdbcTemplate).batchUpdate(contains("DELETE FROM expense_month_rollups"), anyList());
+        List<Object[]> prunedMembers = deletedRowsFor("expense_member_rollups");
+        assertEquals(2, prunedMembers.size(), "payer and split member may both be empty now");
+    }
+
+    @Test
+    void apply_memberRemovedFromSplits_prunesOnlyThatMember() {
+        Expense before = expense(1L, "30", 5L, "2024-03-10T12:00:00Z", 2L, "15", 3L, "15");
+        Expense after = expense(1L, "30", 5L, "2024-03-10T12:00:00Z", 2L, "30");
+        rollupService.apply(ExpenseRollupService.contributionOf(before), ExpenseRollupService.contributionOf(after));
+
+        List<Object[]> prunedMembers = deletedRowsFor("expense_member_rollups");
+        assertEquals(1, prunedMembers.size());
+        assertArrayEquals(new Object[] {1L, 3L}, prunedMembers.get(0));
+    }
+}
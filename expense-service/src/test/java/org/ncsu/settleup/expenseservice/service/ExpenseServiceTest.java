@@ -0,0 +1,227 @@
+package org.ncsu.settleup.expenseservice.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.ncsu.settleup.common.events.ExpenseAdjustedEvent;
+import org.ncsu.settleup.common.events.ExpenseRecordedEvent;
+import org.ncsu.settleup.expenseservice.model.Expense;
+import org.ncsu.settleup.expenseservice.model.SplitLine;
+import org.ncsu.settleup.expenseservice.repo.ExpenseRepository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the split-line diffing and adjustment events of
+ * {@link ExpenseService}.  The repository, rollups and event publisher
+ * are mocked.
+ */
+class ExpenseServiceTest {
+
+    private ExpenseRepository expenseRepository;
+    private ExpenseEventPublisher eventPublisher;
+    private IdempotencyService idempotencyService;
+    private ExpenseService expenseService;
+
+    @BeforeEach
+    void setUp() {
+        expenseRepository = mock(ExpenseRepository.class);
+        eventPublisher = mock(ExpenseEventPublisher.class);
+        idempotencyService = mock(IdempotencyService.class);
+        when(eventPublisher.nextSequence(any())).thenReturn(7L);
+        when(expenseRepository.save(any(Expense.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(expenseRepository.lockForUpdate(any(Expense.class))).thenAnswer(inv -> inv.getArgument(0));
+        expenseService = new ExpenseService(expenseRepository, eventPublisher,
+                mock(ExpenseRollupService.class), idempotencyService);
+    }
+
+    private static Expense expense(Long payer, String total, Object... splits) {
+        Expense expense = new Expense();
+        expense.setId(10L);
+        expense.setGroupId(1L);
+        expense.setPayerMemberId(payer);
+        expense.setTotalAmount(new BigDecimal(total));
+        List<SplitLine> lines = new ArrayList<>();
+        for (int i = 0; i < splits.length; i += 2) {
+            lines.add(new SplitLine((Long) splits[i], new BigDecimal((String) splits[i + 1]), expense));
+        }
+        expense.setSplits(lines);
+        return expense;
+    }
+
+    private ExpenseAdjustedEvent publishedAdjustment() {
+        ArgumentCaptor<ExpenseAdjustedEvent> event = ArgumentCaptor.forClass(ExpenseAdjustedEvent.class);
+        verify(eventPublisher).publish(eq(1L), eq(7L), eq(10L),
+                eq(ExpenseEventPublisher.EXPENSE_ADJUSTED), event.capture());
+        return event.getValue();
+    }
+
+    @Test
+    void updateExpense_keepsUnchangedRowsAndOnlyTouchesTheDiff() {
+        Expense existing = expense(1L, "30", 1L, "10", 2L, "10", 3L, "10");
+        SplitLine unchanged = existing.getSplits().get(0);
+        SplitLine changed = existing.getSplits().get(1);
+        Expense replacement = expense(1L, "30", 1L, "10.00", 2L, "15", 4L, "5");
+
+        Expense saved = expenseService.updateExpense(existing, replacement);
+
+        assertEquals(3, saved.getSplits().size());
+        assertSame(unchanged, saved.getSplits().get(0));
+        assertEquals(new BigDecimal("10"), unchanged.getShareAmount(), "Equal share must not be rewritten");
+        assertSame(changed, saved.getSplits().get(1));
+        assertEquals(new BigDecimal("15"), changed.getShareAmount());
+        assertEquals(4L, saved.getSplits().get(2).getMemberId());
+        assertSame(existing, saved.getSplits().get(2).getExpense());
+    }
+
+    @Test
+    void updateExpense_publishesOnlyChangedBalances() {
+        Expense existing = expense(1L, "30", 1L, "10", 2L, "10", 3L, "10");
+        Expense replacement = expense(1L, "30", 1L, "10", 2L, "15", 3L, "5");
+
+        expenseService.updateExpense(existing, replacement);
+
+        ExpenseAdjustedEvent event = publishedAdjustment();
+        assertEquals(1L, event.groupId());
+        assertEquals(10L, event.expenseId());
+        assertEquals(7L, event.sequence());
+        assertEquals(Map.of(2L, new BigDecimal("-5"), 3L, new BigDecimal("5")), event.balanceDeltas());
+        assertEquals(7L, existing.getEventSequence(), "Sequence should be stored with the expense");
+    }
+
+    @Test
+    void recordExpense_storesSequenceAndPublishesSequencedEvent() {
+        Expense expense = expense(1L, "30", 2L, "30");
+
+        Expense saved = expenseService.recordExpense(expense);
+
+        assertEquals(7L, saved.getEventSequence());
+        ArgumentCaptor<ExpenseRecordedEvent> event = ArgumentCaptor.forClass(ExpenseRecordedEvent.class);
+        verify(eventPublisher).publish(eq(1L), eq(7L), eq(10L),
+                eq(ExpenseEventPublisher.EXPENSE_RECORDED), event.capture());
+        assertEquals(7L, event.getValue().sequence());
+    }
+
+    @Test
+    void recordExpense_withIdempotencyKey_storesTheSequenceWithTheResponse() {
+        Expense expense = expense(1L, "30", 2L, "30");
+
+        Expense saved = expenseService.recordExpense(expense, "key-1", "hash");
+
+        InOrder inOrder = inOrder(idempotencyService, eventPublisher);
+        inOrder.verify(idempotencyService).reserve(1L, "key-1", "hash");
+        inOrder.verify(eventPublisher).nextSequence(1L);
+        inOrder.verify(idempotencyService).complete(1L, "key-1", "hash", 201, saved, 7L);
+    }
+
+    @Test
+    void updateExpense_movedToAnotherGroup_reversesOldGroupAndAppliesNewGroup() {
+        Expense existing = expense(1L, "30", 2L, "30");
+        Expense replacement = expense(1L, "30", 2L, "30");
+        replacement.setGroupId(2L);
+        when(eventPublisher.nextSequence(1L)).thenReturn(4L);
+        when(eventPublisher.nextSequence(2L)).thenReturn(9L);
+
+        expenseService.updateExpense(existing, replacement);
+
+        ArgumentCaptor<ExpenseAdjustedEvent> reversal = ArgumentCaptor.forClass(ExpenseAdjustedEvent.class);
+        verify(eventPublisher).publish(eq(1L), eq(4L), eq(10L), anyString(), reversal.capture());
+        assertEquals(Map.of(1L, new BigDecimal("-30"), 2L, new BigDecimal("30")), reversal.getValue().balanceDeltas());
+        ArgumentCaptor<ExpenseAdjustedEvent> applied = ArgumentCaptor.forClass(ExpenseAdjustedEvent.class);
+        verify(eventPublisher).publish(eq(2L), eq(9L), eq(10L), anyString(), applied.capture());
+        assertEquals(Map.of(1L, new BigDecimal("30"), 2L, new BigDecimal("-30")), applied.getValue().balanceDeltas());
+        assertEquals(9L, existing.getEventSequence());
+    }
+
+    @Test
+    void updateExpense_withNoEffectiveChange_publishesNothing() {
+        Expense existing = expense(1L, "30", 2L, "30");
+        expenseService.updateExpense(existing, expense(1L, "30", 2L, "30.00"));
+        verify(eventPublisher, never()).nextSequence(any());
+        verify(eventPublisher, never()).publish(any(), anyLong(), any(), anyString(), any());
+    }
+
+    @Test
+    void updateExpense_rejectsDuplicateMembers() {
+        Expense existing = expense(1L, "30", 2L, "30");
+        assertThrows(IllegalArgumentException.class,
+                () -> expenseService.updateExpense(existing, expense(1L, "30", 2L, "15", 2L, "15")));
+    }
+
+    @Test
+    void patchSplits_movesShareBetweenMembersAndRemovesNullEntries() {
+        Expense existing = expense(1L, "30", 1L, "10", 2L, "10", 3L, "10");
+        Map<Long, BigDecimal> changes = new HashMap<>();
+        changes.put(2L, new BigDecimal("20"));
+        changes.put(3L, null);
+
+        Expense saved = expenseService.patchSplits(existing, changes, null);
+
+        assertEquals(2, saved.getSplits().size());
+        assertEquals(new BigDecimal("20"), saved.getSplits().get(1).getShareAmount());
+        assertEquals(Map.of(2L, new BigDecimal("-10"), 3L, new BigDecimal("10")),
+                publishedAdjustment().balanceDeltas());
+    }
+
+    @Test
+    void patchSplits_rejectsSplitsThatNoLongerSumToTotal() {
+        Expense existing = expense(1L, "30", 1L, "10", 2L, "20");
+        assertThrows(IllegalArgumentException.class,
+                () -> expenseService.patchSplits(existing, Map.of(2L, new BigDecimal("25")), null));
+        verify(expenseRepository, never()).save(any());
+    }
+
+    @Test
+    void deleteExpense_publishesReversedBalances() {
+        Expense existing = expense(1L, "30", 1L, "10", 2L, "20");
+
+        expenseService.deleteExpense(existing);
+
+        // Payer 1 had +30 - 10 = 20, member 2 had -20
+        assertEquals(Map.of(1L, new BigDecimal("-20"), 2L, new BigDecimal("20")),
+                publishedAdjustment().balanceDeltas());
+        verify(expenseRepository).delete(existing);
+    }
+
+    @Test
+    void updateExpense_takesOldValuesFromTheLockedExpense() {
+        Expense stale = expense(1L, "30", 1L, "10", 2L, "10", 3L, "10");
+        // Committed by a concurrent edit after the stale copy was read
+        Expense current = expense(1L, "30", 1L, "10", 2L, "20");
+        when(expenseRepository.lockForUpdate(stale)).thenReturn(current);
+
+        Expense saved = expenseService.updateExpense(stale, expense(1L, "30", 1L, "10", 2L, "10", 3L, "10"));
+
+        assertSame(current, saved);
+        assertEquals(Map.of(2L, new BigDecimal("10"), 3L, new BigDecimal("-10")),
+                publishedAdjustment().balanceDeltas());
+    }
+
+    @Test
+    void deleteExpense_locksTheExpenseBeforeReversingIt() {
+        Expense stale = expense(1L, "30", 1L, "10", 2L, "20");
+        Expense current = expense(1L, "40", 2L, "40");
+        when(expenseRepository.lockForUpdate(stale)).thenReturn(current);
+
+        expenseService.deleteExpense(stale);
+
+        assertEquals(Map.of(1L, new BigDecimal("-40"), 2L, new BigDecimal("40")),
+                publishedAdjustment().balanceDeltas());
+        InOrder inOrder = inOrder(expenseRepository, eventPublisher);
+        inOrder.verify(expenseRepository).lockForUpdate(stale);
+        inOrder.verify(eventPublisher).nextSequence(1L);
+        inOrder.verify(expenseRepository).delete(current);
+    }
+}
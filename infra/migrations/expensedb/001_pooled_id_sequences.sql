@@ -0,0 +1,32 @@
+-- Move expenses and split_lines from identity columns to pooled sequences.
+--
+-- The entities now draw identifiers from expenses_seq and split_lines_seq
+-- with an allocation size of 50.  Hibernate's pooled optimizer treats each
+-- value returned by nextval as the upper bound of a block of 50 ids, so
+-- every sequence is positioned at least 50 past the current maximum id to
+-- guarantee the first block never overlaps existing rows.
+--
+-- Run this against expensedb BEFORE starting the new expense-service
+-- build (psql -d expensedb -f 001_pooled_id_sequences.sql).  The script is
+-- idempotent and may also be re-run after a deployment in which Hibernate
+-- created the sequences itself.
+
+DO $$
+DECLARE
+    tbl TEXT;
+    seq TEXT;
+    max_id BIGINT;
+BEGIN
+    FOREACH tbl IN ARRAY ARRAY['expenses', 'split_lines'] LOOP
+        seq := tbl || '_seq';
+        EXECUTE format('CREATE SEQUENCE IF NOT EXISTS %I INCREMENT BY 50', seq);
+        EXECUTE format('ALTER SEQUENCE %I INCREMENT BY 50', seq);
+        IF to_regclass(tbl) IS NOT NULL THEN
+            -- Ids are now assigned by the application; keep the column but
+            -- drop the identity default so the two generators cannot race.
+            EXECUTE format('ALTER TABLE %I ALTER COLUMN id DROP IDENTITY IF EXISTS', tbl);
+            EXECUTE format('SELECT COALESCE(MAX(id), 0) FROM %I', tbl) INTO max_id;
+            PERFORM setval(seq, max_id + 50, false);
+        END IF;
+    END LOOP;
+END $$;
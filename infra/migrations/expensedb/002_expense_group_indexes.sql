@@ -0,0 +1,12 @@
+-- Indexes backing keyset pagination of a group's expenses and the
+-- batched split-line fetch.  Hibernate creates these on a fresh schema;
+-- on an existing database build them without blocking writes:
+--   psql -d expensedb -f 002_expense_group_indexes.sql
+-- CREATE INDEX CONCURRENTLY cannot run inside a transaction, so do not
+-- wrap this script in BEGIN/COMMIT.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_expenses_group_id_id
+    ON expenses (group_id, id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_split_lines_expense_id
+    ON split_lines (expense_id);
@@ -0,0 +1,27 @@
+-- Add occurrence/creation timestamps and a category to expenses, plus the
+-- indexes used by GET /groups/{groupId}/expenses/search.
+--
+-- Existing expenses have no recorded time.  They are stamped with the time
+-- this migration runs so that they sort before anything recorded later and
+-- remain reachable through the (occurred_at, id) keyset ordering.
+--
+-- The ALTER/UPDATE part runs in a transaction; the index builds run
+-- concurrently afterwards and must not be wrapped in BEGIN/COMMIT.
+--   psql -d expensedb -f 003_expense_time_category.sql
+
+BEGIN;
+ALTER TABLE expenses ADD COLUMN IF NOT EXISTS category_id BIGINT;
+ALTER TABLE expenses ADD COLUMN IF NOT EXISTS occurred_at TIMESTAMP(6) WITH TIME ZONE;
+ALTER TABLE expenses ADD COLUMN IF NOT EXISTS created_at TIMESTAMP(6) WITH TIME ZONE;
+UPDATE expenses SET created_at = now() WHERE created_at IS NULL;
+UPDATE expenses SET occurred_at = created_at WHERE occurred_at IS NULL;
+COMMIT;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_expenses_group_id_occurred_at
+    ON expenses (group_id, occurred_at, id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_expenses_group_id_payer
+    ON expenses (group_id, payer_member_id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_split_lines_member_id
+    ON split_lines (member_id, expense_id);
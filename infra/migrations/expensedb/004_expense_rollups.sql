@@ -0,0 +1,71 @@
+-- Create and (re)build the per-group expense rollup tables served by
+-- GET /groups/{groupId}/expenses/summary.
+--
+-- expense-service keeps these rows up to date incrementally on every
+-- expense write.  This script creates the tables and rebuilds them from
+-- the expenses already on disk.  Run it with expense-service stopped so
+-- that no incremental update is lost between TRUNCATE and INSERT:
+--   psql -d expensedb -f 004_expense_rollups.sql
+-- Requires 003_expense_time_category.sql.
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS expense_member_rollups (
+    group_id    BIGINT NOT NULL,
+    member_id   BIGINT NOT NULL,
+    paid_total  NUMERIC(38, 2),
+    owed_total  NUMERIC(38, 2),
+    PRIMARY KEY (group_id, member_id)
+);
+
+CREATE TABLE IF NOT EXISTS expense_category_rollups (
+    group_id      BIGINT NOT NULL,
+    category_id   BIGINT NOT NULL,
+    total_amount  NUMERIC(38, 2),
+    expense_count BIGINT,
+    PRIMARY KEY (group_id, category_id)
+);
+
+CREATE TABLE IF NOT EXISTS expense_month_rollups (
+    group_id      BIGINT NOT NULL,
+    month         VARCHAR(7) NOT NULL,
+    total_amount  NUMERIC(38, 2),
+    expense_count BIGINT,
+    PRIMARY KEY (group_id, month)
+);
+
+TRUNCATE expense_member_rollups, expense_category_rollups, expense_month_rollups;
+
+-- An expense's amount is its total, or the sum of its shares when no
+-- total was given, matching ExpenseRollupService.contributionOf.
+CREATE TEMPORARY TABLE expense_amounts ON COMMIT DROP AS
+SELECT e.id, e.group_id, e.payer_member_id, e.category_id, e.occurred_at,
+       COALESCE(e.total_amount,
+                (SELECT SUM(s.share_amount) FROM split_lines s WHERE s.expense_id = e.id),
+                0) AS amount
+FROM expenses e;
+
+INSERT INTO expense_member_rollups (group_id, member_id, paid_total, owed_total)
+SELECT group_id, member_id, SUM(paid), SUM(owed)
+FROM (
+    SELECT group_id, payer_member_id AS member_id, amount AS paid, 0 AS owed
+    FROM expense_amounts
+    WHERE payer_member_id IS NOT NULL
+    UNION ALL
+    SELECT e.group_id, s.member_id, 0, s.share_amount
+    FROM split_lines s JOIN expenses e ON e.id = s.expense_id
+) contributions
+GROUP BY group_id, member_id;
+
+INSERT INTO expense_category_rollups (group_id, category_id, total_amount, expense_count)
+SELECT group_id, COALESCE(category_id, 0), SUM(amount), COUNT(*)
+FROM expense_amounts
+GROUP BY group_id, COALESCE(category_id, 0);
+
+INSERT INTO expense_month_rollups (group_id, month, total_amount, expense_count)
+SELECT group_id, to_char(occurred_at AT TIME ZONE 'UTC', 'YYYY-MM'), SUM(amount), COUNT(*)
+FROM expense_amounts
+WHERE occurred_at IS NOT NULL
+GROUP BY group_id, to_char(occurred_at AT TIME ZONE 'UTC', 'YYYY-MM');
+
+COMMIT;
@@ -0,0 +1,15 @@
+-- Table backing Idempotency-Key handling for POST /expenses.  Hibernate
+-- creates it on startup; this script is provided for databases where DDL
+-- is managed by hand.
+--   psql -d expensedb -f 005_idempotency_keys.sql
+
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    idempotency_key VARCHAR(255) PRIMARY KEY,
+    request_hash    VARCHAR(64),
+    response_status INTEGER,
+    response_body   TEXT,
+    created_at      TIMESTAMP(6) WITH TIME ZONE
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_created_at
+    ON idempotency_keys (created_at);
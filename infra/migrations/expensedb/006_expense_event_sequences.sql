@@ -0,0 +1,24 @@
+-- Per-group expense event sequence numbers and the event log used to
+-- resend missed events.  Hibernate creates these on startup; this script
+-- is provided for databases where DDL is managed by hand.
+--   psql -d expensedb -f 006_expense_event_sequences.sql
+--
+-- Sequences start at 1 for every group once this is deployed; events
+-- published before it carry no sequence and cannot be resent.
+
+ALTER TABLE expenses ADD COLUMN IF NOT EXISTS event_sequence BIGINT;
+
+CREATE TABLE IF NOT EXISTS expense_group_sequences (
+    group_id      BIGINT PRIMARY KEY,
+    last_sequence BIGINT
+);
+
+CREATE TABLE IF NOT EXISTS expense_events (
+    group_id   BIGINT NOT NULL,
+    sequence   BIGINT NOT NULL,
+    expense_id BIGINT,
+    event_type VARCHAR(64),
+    payload    TEXT,
+    created_at TIMESTAMP(6) WITH TIME ZONE,
+    PRIMARY KEY (group_id, sequence)
+);
@@ -0,0 +1,9 @@
+-- Index backing the periodic purge of expense events older than
+-- expense.events.retention.  Hibernate creates it on a fresh schema; on
+-- an existing database build it without blocking writes:
+--   psql -d expensedb -f 007_expense_events_created_at.sql
+-- CREATE INDEX CONCURRENTLY cannot run inside a transaction, so do not
+-- wrap this script in BEGIN/COMMIT.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_expense_events_created_at
+    ON expense_events (created_at);
@@ -0,0 +1,10 @@
+-- Group event sequence stored with an idempotent response, so a replayed
+-- POST /expenses sends the same X-Group-Sequence header as the original.
+-- Hibernate adds the column on startup; this script is provided for
+-- databases where DDL is managed by hand.
+--   psql -d expensedb -f 008_idempotency_group_sequence.sql
+--
+-- Responses stored before this column existed are replayed without the
+-- header until they expire.
+
+ALTER TABLE idempotency_keys ADD COLUMN IF NOT EXISTS group_sequence BIGINT;
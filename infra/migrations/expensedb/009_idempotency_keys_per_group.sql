@@ -0,0 +1,22 @@
+-- Scope Idempotency-Key records to the group of the expense, so that two
+-- clients reusing a key for different groups no longer share a stored
+-- response.  Hibernate adds the column on startup but does not change an
+-- existing primary key, so this script must be run on existing databases.
+--   psql -d expensedb -f 009_idempotency_keys_per_group.sql
+--
+-- Completed records take their group from the stored response.  Records
+-- without a response belong to requests that were still in flight or
+-- rolled back and are dropped.
+
+ALTER TABLE idempotency_keys ADD COLUMN IF NOT EXISTS group_id BIGINT;
+
+UPDATE idempotency_keys
+   SET group_id = (response_body::json ->> 'groupId')::BIGINT
+ WHERE group_id IS NULL
+   AND response_body IS NOT NULL;
+
+DELETE FROM idempotency_keys WHERE group_id IS NULL;
+
+ALTER TABLE idempotency_keys ALTER COLUMN group_id SET NOT NULL;
+ALTER TABLE idempotency_keys DROP CONSTRAINT IF EXISTS idempotency_keys_pkey;
+ALTER TABLE idempotency_keys ADD PRIMARY KEY (group_id, idempotency_key);
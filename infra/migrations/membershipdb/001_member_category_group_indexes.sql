@@ -0,0 +1,12 @@
+-- Indexes backing the group-scoped member and category listings and
+-- their keyset pagination.  Hibernate creates these on a fresh schema;
+-- on an existing database build them without blocking writes:
+--   psql -d membershipdb -f 001_member_category_group_indexes.sql
+-- CREATE INDEX CONCURRENTLY cannot run inside a transaction, so do not
+-- wrap this script in BEGIN/COMMIT.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_members_group_id_id
+    ON members (group_id, id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_categories_group_id_id
+    ON categories (group_id, id);
@@ -0,0 +1,28 @@
+-- Per-group membership event sequence numbers and the transactional
+-- outbox the events are relayed from.  Hibernate creates the tables on
+-- startup; this script is provided for databases where DDL is managed
+-- by hand.
+--   psql -d membershipdb -f 002_membership_event_outbox.sql
+--
+-- The partial index is not created by Hibernate.  Without it the relay's
+-- poll for pending events walks every published row, so run at least
+-- the last statement on every database.
+
+CREATE TABLE IF NOT EXISTS membership_group_sequences (
+    group_id      BIGINT PRIMARY KEY,
+    last_sequence BIGINT
+);
+
+CREATE TABLE IF NOT EXISTS membership_outbox (
+    id           BIGSERIAL PRIMARY KEY,
+    group_id     BIGINT NOT NULL,
+    sequence     BIGINT NOT NULL,
+    event_type   VARCHAR(64) NOT NULL,
+    payload      TEXT NOT NULL,
+    created_at   TIMESTAMP(6) WITH TIME ZONE,
+    published_at TIMESTAMP(6) WITH TIME ZONE,
+    CONSTRAINT uk_membership_outbox_group_sequence UNIQUE (group_id, sequence)
+);
+
+CREATE INDEX IF NOT EXISTS idx_membership_outbox_pending
+    ON membership_outbox (id) WHERE published_at IS NULL;
@@ -0,0 +1,24 @@
+-- Normalised member emails for the lookup of a person's groups and the
+-- add-member typeahead.
+--   psql -d membershipdb -f 003_member_email_lookup.sql
+--
+-- Hibernate adds the column and the equality index on startup, but it
+-- neither fills the column for existing members nor creates the pattern
+-- index, so run this script on every existing database.  The indexes
+-- are built CONCURRENTLY, which cannot run inside a transaction: do not
+-- wrap this script in BEGIN/COMMIT.  On a very large table, run the
+-- UPDATE in ranges of id to keep each transaction short.
+
+ALTER TABLE members ADD COLUMN IF NOT EXISTS email_normalized VARCHAR(255);
+
+UPDATE members
+SET email_normalized = lower(trim(email))
+WHERE email_normalized IS NULL AND email IS NOT NULL;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_members_email_normalized_group_id
+    ON members (email_normalized, group_id);
+
+-- LIKE 'prefix%' can only use a btree index under the C collation or
+-- with the pattern operator class.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_members_email_normalized_prefix
+    ON members (email_normalized varchar_pattern_ops);
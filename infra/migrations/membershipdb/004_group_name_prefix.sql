@@ -0,0 +1,13 @@
+-- Case-insensitive name-prefix filter of the paginated group listing
+-- (GET /groups?namePrefix=...).
+--   psql -d membershipdb -f 004_group_name_prefix.sql
+--
+-- Hibernate cannot declare an expression index, so run this script on
+-- every database, new or existing.  The index is built CONCURRENTLY,
+-- which cannot run inside a transaction: do not wrap this script in
+-- BEGIN/COMMIT.
+
+-- lower(name) LIKE 'prefix%' can only use a btree index on the same
+-- expression with the pattern operator class (or under the C collation).
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_groups_name_lower_prefix
+    ON groups (lower(name) varchar_pattern_ops);
@@ -0,0 +1,10 @@
+-- Index used to purge membership events published longer ago than the
+-- outbox retention window (membership.outbox.retention).
+--   psql -d membershipdb -f 005_membership_outbox_retention.sql
+--
+-- Hibernate creates this index on new databases.  On an existing one the
+-- index is built CONCURRENTLY, which cannot run inside a transaction: do
+-- not wrap this script in BEGIN/COMMIT.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_membership_outbox_published_at
+    ON membership_outbox (published_at);
@@ -0,0 +1,16 @@
+-- The add-member typeahead now only suggests emails of one group's
+-- members, so its prefix index leads with the group.
+--   psql -d membershipdb -f 006_member_email_prefix_per_group.sql
+--
+-- Hibernate cannot declare an index with an operator class, so run this
+-- script on every database.  The indexes are built and dropped
+-- CONCURRENTLY, which cannot run inside a transaction: do not wrap this
+-- script in BEGIN/COMMIT.
+
+-- LIKE 'prefix%' can only use a btree index under the C collation or
+-- with the pattern operator class.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_members_group_id_email_normalized_prefix
+    ON members (group_id, email_normalized varchar_pattern_ops);
+
+-- The cross-group prefix lookup it served is gone.
+DROP INDEX CONCURRENTLY IF EXISTS idx_members_email_normalized_prefix;
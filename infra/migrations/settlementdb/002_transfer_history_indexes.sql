@@ -0,0 +1,25 @@
+-- Add a creation timestamp to transfers, plus the indexes used by the
+-- keyset-paginated GET /groups/{groupId}/transfers and
+-- GET /groups/{groupId}/members/{memberId}/transfers endpoints.
+--
+-- Existing transfers have no recorded time.  They are stamped with the
+-- time this migration runs so that they sort before anything recorded
+-- later and remain reachable through the (created_at, id) keyset ordering.
+--
+-- The ALTER/UPDATE part runs in a transaction; the index builds run
+-- concurrently afterwards and must not be wrapped in BEGIN/COMMIT.
+--   psql -d settlementdb -f 002_transfer_history_indexes.sql
+
+BEGIN;
+ALTER TABLE transfers ADD COLUMN IF NOT EXISTS created_at TIMESTAMP(6) WITH TIME ZONE;
+UPDATE transfers SET created_at = now() WHERE created_at IS NULL;
+COMMIT;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_transfers_group_id_created_at
+    ON transfers (group_id, created_at, id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_transfers_group_id_from_member
+    ON transfers (group_id, from_member_id, created_at, id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_transfers_group_id_to_member
+    ON transfers (group_id, to_member_id, created_at, id);
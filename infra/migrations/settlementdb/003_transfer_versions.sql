@@ -0,0 +1,11 @@
+-- Add the optimistic-locking version column to transfers.
+--
+-- Edits and deletes of a transfer are compare-and-set operations on this
+-- column.  Existing rows start at version 0; the column must not be NULL
+-- because the conditional UPDATE/DELETE compares it with "=".
+--   psql -d settlementdb -f 003_transfer_versions.sql
+
+ALTER TABLE transfers ADD COLUMN IF NOT EXISTS version BIGINT;
+UPDATE transfers SET version = 0 WHERE version IS NULL;
+ALTER TABLE transfers ALTER COLUMN version SET DEFAULT 0;
+ALTER TABLE transfers ALTER COLUMN version SET NOT NULL;
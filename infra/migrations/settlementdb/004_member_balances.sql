@@ -0,0 +1,24 @@
+-- Create the balance projection tables written behind the in-memory
+-- ledger by settlement-service and read back on startup.
+--
+-- member_balances holds each member's net balance together with the
+-- group ledger version it was taken at; group_ledgers holds the latest
+-- version and the last expense event sequence included in the balances.
+-- Both tables start empty.  Until a group's rows exist its balances are
+-- rebuilt as before: the first event received for the group exposes the
+-- gap back to sequence 1, which is requested from expense-service.
+--   psql -d settlementdb -f 004_member_balances.sql
+
+CREATE TABLE IF NOT EXISTS member_balances (
+    group_id  BIGINT NOT NULL,
+    member_id BIGINT NOT NULL,
+    amount    NUMERIC(38, 2) NOT NULL,
+    version   BIGINT NOT NULL,
+    PRIMARY KEY (group_id, member_id)
+);
+
+CREATE TABLE IF NOT EXISTS group_ledgers (
+    group_id         BIGINT PRIMARY KEY,
+    version          BIGINT NOT NULL,
+    applied_sequence BIGINT NOT NULL
+);
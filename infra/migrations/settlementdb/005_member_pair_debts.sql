@@ -0,0 +1,20 @@
+-- Add storage for groups that keep direct debts between members instead
+-- of simplifying them ("pairwise mode").
+--
+-- group_ledgers.pairwise_debts records the mode; existing groups keep
+-- simplifying debts.  member_pair_debts holds one row per pair of members
+-- with a debt, lower member ID first, written behind the in-memory matrix
+-- by settlement-service and read back on startup.
+--   psql -d settlementdb -f 005_member_pair_debts.sql
+
+ALTER TABLE group_ledgers
+    ADD COLUMN IF NOT EXISTS pairwise_debts BOOLEAN NOT NULL DEFAULT FALSE;
+
+CREATE TABLE IF NOT EXISTS member_pair_debts (
+    group_id       BIGINT NOT NULL,
+    low_member_id  BIGINT NOT NULL,
+    high_member_id BIGINT NOT NULL,
+    amount         NUMERIC(38, 2) NOT NULL,
+    version        BIGINT NOT NULL,
+    PRIMARY KEY (group_id, low_member_id, high_member_id)
+);
@@ -0,0 +1,42 @@
+-- Take transfers out of the stored balance projection.
+--
+-- settlement-service now stores in member_balances and member_pair_debts
+-- only what expense events add up to, and adds the totals of the rows in
+-- transfers back on startup, so a transfer made just before a crash is
+-- not lost.  This script subtracts the stored transfers from the stored
+-- rows, so the balances after the next start are exactly those stored
+-- now.  Stop settlement-service first (it writes its last changes on a
+-- clean shutdown) and start the new version after the script commits.
+--   psql -d settlementdb -f 006_balances_without_transfers.sql
+
+BEGIN;
+
+-- A transfer raises its payer's balance and lowers its payee's
+INSERT INTO member_balances (group_id, member_id, amount, version)
+SELECT t.group_id, t.member_id, -SUM(t.amount), l.version
+FROM (
+    SELECT group_id, from_member_id AS member_id, amount FROM transfers
+    UNION ALL
+    SELECT group_id, to_member_id, -amount FROM transfers
+) t
+JOIN group_ledgers l ON l.group_id = t.group_id
+GROUP BY t.group_id, t.member_id, l.version
+ON CONFLICT (group_id, member_id) DO UPDATE
+    SET amount = member_balances.amount + EXCLUDED.amount;
+
+-- and reduces what the payer owes the payee; pairs store what the lower
+-- member ID owes the higher one
+INSERT INTO member_pair_debts (group_id, low_member_id, high_member_id, amount, version)
+SELECT t.group_id, LEAST(t.from_member_id, t.to_member_id), GREATEST(t.from_member_id, t.to_member_id),
+       SUM(CASE WHEN t.from_member_id < t.to_member_id THEN t.amount ELSE -t.amount END), l.version
+FROM transfers t
+JOIN group_ledgers l ON l.group_id = t.group_id AND l.pairwise_debts
+WHERE t.from_member_id <> t.to_member_id
+GROUP BY t.group_id, LEAST(t.from_member_id, t.to_member_id), GREATEST(t.from_member_id, t.to_member_id),
+         l.version
+ON CONFLICT (group_id, low_member_id, high_member_id) DO UPDATE
+    SET amount = member_pair_debts.amount + EXCLUDED.amount;
+
+DELETE FROM member_pair_debts WHERE amount = 0;
+
+COMMIT;
@@ -2,13 +2,16 @@ package org.ncsu.settleup.membershipservice;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Entry point for the membership service.  This service manages groups,
  * members and categories.  It exposes a REST API described by the
- * MembershipController.
+ * MembershipController and publishes membership events for the other
+ * services.
  */
 @SpringBootApplication
+@EnableScheduling
 public class MembershipServiceApplication {
 
     public static void main(String[] args) {
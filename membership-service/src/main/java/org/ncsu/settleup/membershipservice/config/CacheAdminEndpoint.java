@@ -0,0 +1,61 @@
+package org.ncsu.settleup.membershipservice.config;
+
+import org.ncsu.settleup.membershipservice.service.MembershipCache;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator endpoint for the second-level cache: per-region hit ratios,
+ * and clearing regions after data was changed outside the service.
+ *
+ * <p>Being an Actuator endpoint, it is served under
+ * {@code /actuator/membershipcache} only when listed in
+ * {@code management.endpoints.web.exposure.include}, which it is not by
+ * default.  Expose it on a management port that is not reachable from
+ * outside, as clearing the cache is open to anyone who can reach it.
+ */
+@Component
+@Endpoint(id = "membershipcache")
+public class CacheAdminEndpoint {
+
+    private final MembershipCache membershipCache;
+
+    public CacheAdminEndpoint(MembershipCache membershipCache) {
+        this.membershipCache = membershipCache;
+    }
+
+    /**
+     * Statistics of every cache region since startup.
+     */
+    @ReadOperation
+    public List<MembershipCache.RegionStats> getRegions() {
+        return membershipCache.regionStats();
+    }
+
+    /**
+     * Clear every cache region.
+     */
+    @DeleteOperation
+    public WebEndpointResponse<String> clearAll() {
+        membershipCache.clearAll();
+        return new WebEndpointResponse<>("All cache regions cleared");
+    }
+
+    /**
+     * Clear one cache region.  Returns 404 for an unknown region.
+     */
+    @DeleteOperation
+    public WebEndpointResponse<String> clearRegion(@Selector String region) {
+        if (!membershipCache.hasRegion(region)) {
+            return new WebEndpointResponse<>("Cache region not found", WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        membershipCache.clear(region);
+        return new WebEndpointResponse<>("Cache region cleared");
+    }
+}
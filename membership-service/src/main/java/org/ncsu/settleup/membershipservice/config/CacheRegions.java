@@ -0,0 +1,35 @@
+package org.ncsu.settleup.membershipservice.config;
+
+/**
+ * Names of the Hibernate second-level cache regions.  Every region is
+ * declared with a size bound in {@code ehcache.xml}; Hibernate refuses to
+ * start if a region used here is missing there.
+ */
+public final class CacheRegions {
+    /** {@code GroupEntity} instances by ID. */
+    public static final String GROUP = "membership.group";
+
+    /** {@code MemberEntity} instances by ID. */
+    public static final String MEMBER = "membership.member";
+
+    /** {@code CategoryEntity} instances by ID. */
+    public static final String CATEGORY = "membership.category";
+
+    /** IDs of each group's members. */
+    public static final String GROUP_MEMBERS = "membership.group.members";
+
+    /** IDs of each group's categories. */
+    public static final String GROUP_CATEGORIES = "membership.group.categories";
+
+    /** Results of the group listing and group lookup queries. */
+    public static final String GROUP_QUERIES = "membership.query.groups";
+
+    /** Results of the group-scoped member queries. */
+    public static final String MEMBER_QUERIES = "membership.query.members";
+
+    /** Results of the group-scoped category queries. */
+    public static final String CATEGORY_QUERIES = "membership.query.categories";
+
+    private CacheRegions() {
+    }
+}
@@ -0,0 +1,86 @@
+package org.ncsu.settleup.membershipservice.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import org.ncsu.settleup.membershipservice.model.MemberEntity;
+import org.ncsu.settleup.membershipservice.model.MemberGroupSummary;
+import org.ncsu.settleup.membershipservice.repo.MemberRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * REST controller for finding members across groups by email.  Emails
+ * are matched in their normalised form (trimmed, lower case), so the
+ * lookups do not depend on how an email was capitalised when it was
+ * added.
+ */
+@RestController
+@RequestMapping("/members")
+public class MemberLookupController {
+    /** Number of suggestions returned when no limit is given. */
+    public static final int DEFAULT_SUGGESTIONS = 10;
+
+    /** Largest number of suggestions returned at once. */
+    public static final int MAX_SUGGESTIONS = 50;
+
+    /** Shortest email prefix suggestions are given for. */
+    public static final int MIN_PREFIX_LENGTH = 3;
+
+    private final MemberRepository memberRepository;
+
+    public MemberLookupController(MemberRepository memberRepository) {
+        this.memberRepository = memberRepository;
+    }
+
+    /**
+     * List every group a person belongs to, with their member ID and role
+     * in each, in one indexed query.
+     *
+     * @param email the person's email
+     * @return the person's memberships, empty if they belong to no group
+     */
+    @GetMapping("/groups")
+    @Operation(summary = "List the groups a person belongs to by email")
+    public ResponseEntity<Object> getGroupsByEmail(@RequestParam String email) {
+        if (email.isBlank()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Email must not be blank");
+        }
+        List<MemberGroupSummary> groups =
+                memberRepository.findGroupsByNormalizedEmail(MemberEntity.normalizeEmail(email));
+        return ResponseEntity.ok(groups);
+    }
+
+    /**
+     * Suggest emails of a group's members starting with a prefix, for the
+     * add-member typeahead.  Suggestions are limited to one group so the
+     * endpoint cannot be used to list every user's address, and short
+     * prefixes are rejected for the same reason.
+     *
+     * @param groupId the group whose members' emails are suggested
+     * @param prefix  the start of the email typed so far, at least
+     *                {@link #MIN_PREFIX_LENGTH} characters
+     * @param limit   maximum number of suggestions, at most {@link #MAX_SUGGESTIONS}
+     * @return distinct normalised emails in alphabetical order
+     */
+    @GetMapping("/emails")
+    @Operation(summary = "Suggest emails of a group's members starting with a prefix")
+    public ResponseEntity<Object> suggestEmails(@RequestParam Long groupId,
+                                                @RequestParam String prefix,
+                                                @RequestParam(defaultValue = "" + DEFAULT_SUGGESTIONS) int limit) {
+        String normalized = MemberEntity.normalizeEmail(prefix);
+        if (normalized.length() < MIN_PREFIX_LENGTH) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Prefix must be at least " + MIN_PREFIX_LENGTH + " characters");
+        }
+        String pattern = normalized.replaceAll("[!%_]", "!$0") + "%";
+        int size = Math.max(1, Math.min(limit, MAX_SUGGESTIONS));
+        return ResponseEntity.ok(memberRepository.findNormalizedEmailsInGroupLike(groupId, pattern,
+                PageRequest.of(0, size)));
+    }
+}
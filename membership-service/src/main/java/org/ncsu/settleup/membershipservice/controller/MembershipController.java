@@ -1,23 +1,56 @@
 package org.ncsu.settleup.membershipservice.controller;
 
+import org.ncsu.settleup.common.events.CategoryAddedEvent;
+import org.ncsu.settleup.common.events.CategoryRemovedEvent;
+import org.ncsu.settleup.common.events.CategoryUpdatedEvent;
+import org.ncsu.settleup.common.events.GroupCreatedEvent;
+import org.ncsu.settleup.common.events.GroupUpdatedEvent;
+import org.ncsu.settleup.common.events.MemberAddedEvent;
+import org.ncsu.settleup.common.events.MemberRemovedEvent;
+import org.ncsu.settleup.common.events.MemberUpdatedEvent;
+import org.ncsu.settleup.common.observability.GroupSizeBucket;
 import org.ncsu.settleup.membershipservice.model.CategoryEntity;
+import org.ncsu.settleup.membershipservice.model.CategorySummary;
 import org.ncsu.settleup.membershipservice.model.GroupEntity;
+import org.ncsu.settleup.membershipservice.model.GroupSummary;
 import org.ncsu.settleup.membershipservice.model.MemberEntity;
+import org.ncsu.settleup.membershipservice.model.MemberSummary;
 import org.ncsu.settleup.membershipservice.repo.CategoryRepository;
 import org.ncsu.settleup.membershipservice.repo.GroupRepository;
 import org.ncsu.settleup.membershipservice.repo.MemberRepository;
+import org.ncsu.settleup.membershipservice.service.GroupDeletionService;
+import org.ncsu.settleup.membershipservice.service.GroupExportService;
+import org.ncsu.settleup.membershipservice.service.MemberImportService;
+import org.ncsu.settleup.membershipservice.service.MembershipCache;
+import org.ncsu.settleup.membershipservice.service.MembershipEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import io.swagger.v3.oas.annotations.Operation;
 
+import java.io.InputStream;
+import java.net.URI;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * REST controller for managing groups, members and categories.  The API
  * methods defined here closely follow the endpoints designed in
  * Assignment 1.  Swagger/OpenAPI documentation is generated
  * automatically by springdoc.
+ *
+ * <p>Every change is published as a membership event.  Changing methods
+ * are transactional so that the event is written to the outbox if and
+ * only if the change commits, and evict what they changed from the
+ * second-level cache once it has committed.  Bulk imports and group
+ * deletion do the same inside their services.
  */
 @RestController
 @RequestMapping("/groups")
@@ -25,24 +58,95 @@ public class MembershipController {
     private final GroupRepository groupRepository;
     private final MemberRepository memberRepository;
     private final CategoryRepository categoryRepository;
+    private final MembershipEventPublisher eventPublisher;
+    private final MembershipCache membershipCache;
+    private final MemberImportService memberImportService;
+    private final GroupDeletionService groupDeletionService;
+    private final GroupExportService groupExportService;
     private static final String GROUP_NOT_FOUND_MESSAGE = "Group not found";
+    /** Largest page served by the paginated group, member and category listings. */
+    public static final int MAX_PAGE_SIZE = 200;
+    /** Number of groups listed when no page size is given. */
+    public static final int DEFAULT_GROUP_PAGE_SIZE = 50;
+    /** Fields of a group that may be selected with {@code fields}. */
+    static final List<String> GROUP_FIELDS = List.of("id", "name", "baseCurrency");
     public MembershipController(GroupRepository groupRepository,
                                 MemberRepository memberRepository,
-                                CategoryRepository categoryRepository) {
+                                CategoryRepository categoryRepository,
+                                MembershipEventPublisher eventPublisher,
+                                MembershipCache membershipCache,
+                                MemberImportService memberImportService,
+                                GroupDeletionService groupDeletionService,
+                                GroupExportService groupExportService) {
         this.groupRepository = groupRepository;
         this.memberRepository = memberRepository;
         this.categoryRepository = categoryRepository;
+        this.eventPublisher = eventPublisher;
+        this.membershipCache = membershipCache;
+        this.memberImportService = memberImportService;
+        this.groupDeletionService = groupDeletionService;
+        this.groupExportService = groupExportService;
     }
 
     /**
-     * List all groups.
+     * List groups one page at a time, in ID order.  {@code cursor} is the
+     * {@code nextCursor} of the previous page.  {@code namePrefix} keeps
+     * only groups whose name starts with it, ignoring case.
+     * {@code fields} is a comma-separated subset of {@code id},
+     * {@code name} and {@code baseCurrency} to return; the ID is always
+     * returned so that callers can page on.  The whole table is
+     * available from {@link #exportGroups}.
      *
-     * @return list of groups
+     * @return one page of groups
      */
     @GetMapping
-    @Operation(summary = "List all groups")
-    public List<GroupEntity> getGroups() {
-        return groupRepository.findAll();
+    @Operation(summary = "List groups (keyset paginated)")
+    public ResponseEntity<Object> getGroups(@RequestParam(required = false) Long cursor,
+                                            @RequestParam(defaultValue = "" + DEFAULT_GROUP_PAGE_SIZE) int size,
+                                            @RequestParam(required = false) String namePrefix,
+                                            @RequestParam(required = false) List<String> fields) {
+        if (fields != null && !GROUP_FIELDS.containsAll(fields)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("fields must be a subset of " + String.join(",", GROUP_FIELDS));
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        long afterId = cursor == null ? 0L : cursor;
+        List<GroupSummary> groups = namePrefix == null || namePrefix.isEmpty()
+                ? groupRepository.findSummariesAfter(afterId, PageRequest.of(0, pageSize))
+                : groupRepository.findSummariesByNameLikeAfter(
+                        namePrefix.toLowerCase(Locale.ROOT).replaceAll("[!%_]", "!$0") + "%",
+                        afterId, PageRequest.of(0, pageSize));
+        Long next = groups.size() < pageSize ? null : groups.get(groups.size() - 1).id();
+        List<?> page = fields == null ? groups : groups.stream().map(g -> selectFields(g, fields)).toList();
+        return ResponseEntity.ok(new GroupPage(page, next));
+    }
+
+    /**
+     * Export every group as a single JSON array, streamed as it is read.
+     * Meant for exports and backfills; interactive callers should page
+     * through {@link #getGroups}.
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Export all groups as a streamed JSON array")
+    public ResponseEntity<StreamingResponseBody> exportGroups() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(groupExportService::writeAll);
+    }
+
+    /**
+     * The requested fields of a group, in the order of {@link #GROUP_FIELDS}.
+     */
+    private static Map<String, Object> selectFields(GroupSummary group, List<String> fields) {
+        Map<String, Object> selected = new LinkedHashMap<>();
+        selected.put("id", group.id());
+        if (fields.contains("name")) {
+            selected.put("name", group.name());
+        }
+        if (fields.contains("baseCurrency")) {
+            selected.put("baseCurrency", group.baseCurrency());
+        }
+        return selected;
     }
 
     /**
@@ -50,12 +154,24 @@ public class MembershipController {
      */
     @GetMapping("/{groupId}")
     @Operation(summary = "Get a group by ID")
-    public ResponseEntity<GroupEntity> getGroup(@PathVariable Long groupId) {
-        return groupRepository.findById(groupId)
+    public ResponseEntity<GroupSummary> getGroup(@PathVariable Long groupId) {
+        return groupRepository.findSummaryById(groupId)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
     }
 
+    /**
+     * Check that a group exists without returning it.  Answers 200 or 404
+     * with an empty body.
+     */
+    @RequestMapping(value = "/{groupId}", method = RequestMethod.HEAD)
+    @Operation(summary = "Check that a group exists")
+    public ResponseEntity<Void> headGroup(@PathVariable Long groupId) {
+        return groupRepository.existsById(groupId)
+                ? ResponseEntity.ok().build()
+                : ResponseEntity.notFound().build();
+    }
+
     /**
      * Create a new group.
      *
@@ -65,9 +181,13 @@ public class MembershipController {
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     @Operation(summary = "Create a new group")
-    public GroupEntity createGroup(@RequestBody GroupCreateRequest request) {
-        GroupEntity group = new GroupEntity(request.name(), request.baseCurrency());
-        return groupRepository.save(group);
+    @Transactional
+    public GroupSummary createGroup(@RequestBody GroupCreateRequest request) {
+        GroupEntity group = groupRepository.save(new GroupEntity(request.name(), request.baseCurrency()));
+        eventPublisher.publish(group.getId(), MembershipEventPublisher.GROUP_CREATED,
+                sequence -> new GroupCreatedEvent(group.getId(), group.getName(), group.getBaseCurrency(), sequence));
+        membershipCache.evictGroup(group.getId());
+        return summaryOf(group);
     }
 
     /**
@@ -79,8 +199,9 @@ public class MembershipController {
      */
     @PutMapping("/{groupId}")
     @Operation(summary = "Update an existing group")
-    public GroupEntity updateGroup(@PathVariable Long groupId,
-                                   @RequestBody GroupUpdateRequest request) {
+    @Transactional
+    public GroupSummary updateGroup(@PathVariable Long groupId,
+                                    @RequestBody GroupUpdateRequest request) {
         GroupEntity group = groupRepository.findById(groupId)
                 .orElseThrow(() -> new IllegalArgumentException(GROUP_NOT_FOUND_MESSAGE));
         if (request.name() != null) {
@@ -89,21 +210,52 @@ public class MembershipController {
         if (request.baseCurrency() != null) {
             group.setBaseCurrency(request.baseCurrency());
         }
-        return groupRepository.save(group);
+        GroupEntity saved = groupRepository.save(group);
+        eventPublisher.publish(groupId, MembershipEventPublisher.GROUP_UPDATED,
+                sequence -> new GroupUpdatedEvent(groupId, saved.getName(), saved.getBaseCurrency(), sequence));
+        membershipCache.evictGroup(groupId);
+        return summaryOf(saved);
+    }
+
+    private static GroupSummary summaryOf(GroupEntity group) {
+        return new GroupSummary(group.getId(), group.getName(), group.getBaseCurrency());
     }
 
     /**
-     * Delete a group and all associated members and categories.
+     * Delete a group and all associated members and categories.  Large
+     * groups are deleted in the background: the response is then 202 with
+     * the deletion job, whose progress is available from
+     * {@link #getGroupDeletion}.
      */
     @DeleteMapping("/{groupId}")
     @Operation(summary = "Delete a group and its members/categories")
-    public ResponseEntity<String> deleteGroup(@PathVariable Long groupId) {
-        return groupRepository.findById(groupId)
-                .map(g -> {
-                    groupRepository.delete(g);
-                    return ResponseEntity.ok("Group deleted successfully");
-                })
-                .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).body(GROUP_NOT_FOUND_MESSAGE));
+    public ResponseEntity<Object> deleteGroup(@PathVariable Long groupId) {
+        if (!groupRepository.existsById(groupId)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(GROUP_NOT_FOUND_MESSAGE);
+        }
+        if (groupDeletionService.isLarge(groupId)) {
+            return ResponseEntity.accepted()
+                    .location(URI.create("/groups/" + groupId + "/deletion"))
+                    .body(groupDeletionService.submit(groupId));
+        }
+        if (!groupDeletionService.delete(groupId)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(GROUP_NOT_FOUND_MESSAGE);
+        }
+        return ResponseEntity.ok("Group deleted successfully");
+    }
+
+    /**
+     * Progress of a group's background deletion.  Returns 404 if the
+     * group was not deleted in the background recently, or the service
+     * has restarted since; a group still found then was not fully
+     * deleted and can be deleted again.
+     */
+    @GetMapping("/{groupId}/deletion")
+    @Operation(summary = "Get the progress of a group's background deletion")
+    public ResponseEntity<Object> getGroupDeletion(@PathVariable Long groupId) {
+        return groupDeletionService.job(groupId)
+                .<ResponseEntity<Object>>map(ResponseEntity::ok)
+                .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).body("No deletion job for this group"));
     }
 
     /**
@@ -114,15 +266,46 @@ public class MembershipController {
      */
     @GetMapping("/{groupId}/members")
     @Operation(summary = "List members of a group")
-    public ResponseEntity<List<MemberEntity>> getGroupMembers(@PathVariable Long groupId) {
-        return groupRepository.findById(groupId)
-                .map(group -> {
-                    List<MemberEntity> members = memberRepository.findAll().stream()
-                            .filter(m -> m.getGroup().getId().equals(groupId))
-                            .toList();
-                    return ResponseEntity.ok(members);
-                })
-                .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+    public ResponseEntity<List<MemberSummary>> getGroupMembers(@PathVariable Long groupId) {
+        if (!groupRepository.existsById(groupId)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        List<MemberSummary> members = memberRepository.findSummariesByGroupId(groupId);
+        GroupSizeBucket.tagCurrentRequest(members.size());
+        return ResponseEntity.ok(members);
+    }
+
+    /**
+     * List the members of a group one page at a time, in ID order.
+     * Requested by passing {@code size}; {@code cursor} is the
+     * {@code nextCursor} of the previous page.
+     */
+    @GetMapping(value = "/{groupId}/members", params = "size")
+    @Operation(summary = "List members of a group (keyset paginated)")
+    public ResponseEntity<Object> getGroupMembersPage(@PathVariable Long groupId,
+                                                      @RequestParam(required = false) Long cursor,
+                                                      @RequestParam int size) {
+        if (!groupRepository.existsById(groupId)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(GROUP_NOT_FOUND_MESSAGE);
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        List<MemberSummary> members = memberRepository.findSummariesByGroupIdAfter(
+                groupId, cursor == null ? 0L : cursor, PageRequest.of(0, pageSize));
+        Long next = members.size() < pageSize ? null : members.get(members.size() - 1).id();
+        return ResponseEntity.ok(new MemberPage(members, next));
+    }
+
+    /**
+     * Check that a member exists and belongs to the given group.  Answers
+     * 200 or 404 with an empty body.
+     */
+    @RequestMapping(value = "/{groupId}/members/{memberId}", method = RequestMethod.HEAD)
+    @Operation(summary = "Check that a member belongs to a group")
+    public ResponseEntity<Void> headMember(@PathVariable Long groupId,
+                                           @PathVariable Long memberId) {
+        return memberRepository.existsByIdAndGroupId(memberId, groupId)
+                ? ResponseEntity.ok().build()
+                : ResponseEntity.notFound().build();
     }
 
     /**
@@ -135,12 +318,52 @@ public class MembershipController {
     @PostMapping("/{groupId}/members")
     @ResponseStatus(HttpStatus.CREATED)
     @Operation(summary = "Add a member to a group")
+    @Transactional
     public MemberEntity addMember(@PathVariable Long groupId,
                                   @RequestBody MemberCreateRequest request) {
         GroupEntity group = groupRepository.findById(groupId)
                 .orElseThrow(() -> new IllegalArgumentException(GROUP_NOT_FOUND_MESSAGE));
-        MemberEntity member = new MemberEntity(request.email(), request.role(), group);
-        return memberRepository.save(member);
+        MemberEntity member = memberRepository.save(new MemberEntity(request.email(), request.role(), group));
+        eventPublisher.publish(groupId, MembershipEventPublisher.MEMBER_ADDED,
+                sequence -> new MemberAddedEvent(groupId, member.getId(), member.getEmail(), member.getRole(), sequence));
+        membershipCache.evictMembers(groupId);
+        return member;
+    }
+
+    /**
+     * Add many members to a group from CSV with {@code email} and
+     * {@code role} columns.  See {@link #importMembersJson}.
+     */
+    @PostMapping(value = "/{groupId}/members/bulk", consumes = "text/csv")
+    @Operation(summary = "Add members to a group in bulk from CSV")
+    public ResponseEntity<Object> importMembersCsv(@PathVariable Long groupId, InputStream body) {
+        return importMembers(groupId, () -> memberImportService.readCsv(body));
+    }
+
+    /**
+     * Add many members to a group from a JSON array of
+     * {@code {"email": ..., "role": ...}} objects.  Emails already in the
+     * group or repeated in the input are skipped.  Returns 201 with the
+     * member ID of every input row in input order, 404 if the group does
+     * not exist, or 400 if the input is malformed.
+     */
+    @PostMapping(value = "/{groupId}/members/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Add members to a group in bulk from a JSON array")
+    public ResponseEntity<Object> importMembersJson(@PathVariable Long groupId, InputStream body) {
+        return importMembers(groupId, () -> memberImportService.readJson(body));
+    }
+
+    private ResponseEntity<Object> importMembers(Long groupId, Supplier<List<MemberImportService.Row>> reader) {
+        if (!groupRepository.existsById(groupId)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(GROUP_NOT_FOUND_MESSAGE);
+        }
+        List<MemberImportService.Row> rows;
+        try {
+            rows = reader.get();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).body(memberImportService.importMembers(groupId, rows));
     }
 
     /**
@@ -148,6 +371,7 @@ public class MembershipController {
      */
     @PutMapping("/{groupId}/members/{memberId}")
     @Operation(summary = "Update a member's email or role")
+    @Transactional
     public MemberEntity updateMember(@PathVariable Long groupId,
                                      @PathVariable Long memberId,
                                      @RequestBody MemberUpdateRequest request) {
@@ -162,7 +386,11 @@ public class MembershipController {
         if (request.role() != null) {
             member.setRole(request.role());
         }
-        return memberRepository.save(member);
+        MemberEntity saved = memberRepository.save(member);
+        eventPublisher.publish(groupId, MembershipEventPublisher.MEMBER_UPDATED,
+                sequence -> new MemberUpdatedEvent(groupId, memberId, saved.getEmail(), saved.getRole(), sequence));
+        membershipCache.evictMembers(groupId);
+        return saved;
     }
 
     /**
@@ -170,6 +398,7 @@ public class MembershipController {
      */
     @DeleteMapping("/{groupId}/members/{memberId}")
     @Operation(summary = "Delete a member from a group")
+    @Transactional
     public ResponseEntity<String> deleteMember(@PathVariable Long groupId,
                                                @PathVariable Long memberId) {
         return memberRepository.findById(memberId)
@@ -179,6 +408,9 @@ public class MembershipController {
                                 .body("Member does not belong to this group");
                     }
                     memberRepository.delete(member);
+                    eventPublisher.publish(groupId, MembershipEventPublisher.MEMBER_REMOVED,
+                            sequence -> new MemberRemovedEvent(groupId, memberId, sequence));
+                    membershipCache.evictMembers(groupId);
                     return ResponseEntity.ok("Member deleted successfully");
                 })
                 .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).body("Member not found"));
@@ -189,15 +421,30 @@ public class MembershipController {
      */
     @GetMapping("/{groupId}/categories")
     @Operation(summary = "List categories of a group")
-    public ResponseEntity<List<CategoryEntity>> getGroupCategories(@PathVariable Long groupId) {
-        return groupRepository.findById(groupId)
-                .map(g -> {
-                    List<CategoryEntity> cats = categoryRepository.findAll().stream()
-                            .filter(c -> c.getGroup().getId().equals(groupId))
-                            .toList();
-                    return ResponseEntity.ok(cats);
-                })
-                .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+    public ResponseEntity<List<CategorySummary>> getGroupCategories(@PathVariable Long groupId) {
+        if (!groupRepository.existsById(groupId)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        return ResponseEntity.ok(categoryRepository.findSummariesByGroupId(groupId));
+    }
+
+    /**
+     * List the categories of a group one page at a time, in ID order.
+     * Requested by passing {@code size}, as for members.
+     */
+    @GetMapping(value = "/{groupId}/categories", params = "size")
+    @Operation(summary = "List categories of a group (keyset paginated)")
+    public ResponseEntity<Object> getGroupCategoriesPage(@PathVariable Long groupId,
+                                                         @RequestParam(required = false) Long cursor,
+                                                         @RequestParam int size) {
+        if (!groupRepository.existsById(groupId)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(GROUP_NOT_FOUND_MESSAGE);
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        List<CategorySummary> categories = categoryRepository.findSummariesByGroupIdAfter(
+                groupId, cursor == null ? 0L : cursor, PageRequest.of(0, pageSize));
+        Long next = categories.size() < pageSize ? null : categories.get(categories.size() - 1).id();
+        return ResponseEntity.ok(new CategoryPage(categories, next));
     }
 
     /**
@@ -206,12 +453,16 @@ public class MembershipController {
     @PostMapping("/{groupId}/categories")
     @ResponseStatus(HttpStatus.CREATED)
     @Operation(summary = "Add a category to a group")
+    @Transactional
     public CategoryEntity addCategory(@PathVariable Long groupId,
                                       @RequestBody CategoryCreateRequest request) {
         GroupEntity group = groupRepository.findById(groupId)
                 .orElseThrow(() -> new IllegalArgumentException(GROUP_NOT_FOUND_MESSAGE));
-        CategoryEntity category = new CategoryEntity(request.name(), group);
-        return categoryRepository.save(category);
+        CategoryEntity category = categoryRepository.save(new CategoryEntity(request.name(), group));
+        eventPublisher.publish(groupId, MembershipEventPublisher.CATEGORY_ADDED,
+                sequence -> new CategoryAddedEvent(groupId, category.getId(), category.getName(), sequence));
+        membershipCache.evictCategories(groupId);
+        return category;
     }
 
     /**
@@ -219,6 +470,7 @@ public class MembershipController {
      */
     @PutMapping("/{groupId}/categories/{categoryId}")
     @Operation(summary = "Update a category's name")
+    @Transactional
     public CategoryEntity updateCategory(@PathVariable Long groupId,
                                          @PathVariable Long categoryId,
                                          @RequestBody CategoryUpdateRequest request) {
@@ -230,7 +482,11 @@ public class MembershipController {
         if (request.name() != null) {
             category.setName(request.name());
         }
-        return categoryRepository.save(category);
+        CategoryEntity saved = categoryRepository.save(category);
+        eventPublisher.publish(groupId, MembershipEventPublisher.CATEGORY_UPDATED,
+                sequence -> new CategoryUpdatedEvent(groupId, categoryId, saved.getName(), sequence));
+        membershipCache.evictCategories(groupId);
+        return saved;
     }
 
     /**
@@ -238,6 +494,7 @@ public class MembershipController {
      */
     @DeleteMapping("/{groupId}/categories/{categoryId}")
     @Operation(summary = "Delete a category from a group")
+    @Transactional
     public ResponseEntity<String> deleteCategory(@PathVariable Long groupId,
                                                  @PathVariable Long categoryId) {
         return categoryRepository.findById(categoryId)
@@ -247,11 +504,36 @@ public class MembershipController {
                                 .body("Category does not belong to this group");
                     }
                     categoryRepository.delete(cat);
+                    eventPublisher.publish(groupId, MembershipEventPublisher.CATEGORY_REMOVED,
+                            sequence -> new CategoryRemovedEvent(groupId, categoryId, sequence));
+                    membershipCache.evictCategories(groupId);
                     return ResponseEntity.ok("Category deleted successfully");
                 })
                 .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).body("Category not found"));
     }
 
+    /**
+     * One page of groups.  Each group is a {@link GroupSummary}, or a map
+     * of the selected fields when {@code fields} was given.
+     * {@code nextCursor} is the ID of the last group on the page, or
+     * {@code null} when there are no more pages.
+     */
+    public static record GroupPage(List<?> groups, Long nextCursor) {
+    }
+
+    /**
+     * One page of a group's members.  {@code nextCursor} is the ID of the
+     * last member on the page, or {@code null} when there are no more pages.
+     */
+    public static record MemberPage(List<MemberSummary> members, Long nextCursor) {
+    }
+
+    /**
+     * One page of a group's categories, paginated like {@link MemberPage}.
+     */
+    public static record CategoryPage(List<CategorySummary> categories, Long nextCursor) {
+    }
+
     /**
      * Request body for creating a group.  Declared as a record to
      * leverage compact syntax and generated getters.
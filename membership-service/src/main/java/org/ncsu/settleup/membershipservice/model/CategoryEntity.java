@@ -1,21 +1,32 @@
 package org.ncsu.settleup.membershipservice.model;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.ncsu.settleup.membershipservice.config.CacheRegions;
 
 /**
  * Represents an expense category within a group.  Categories can be used
- * to group expenses (e.g. "Rent", "Utilities").
+ * to group expenses (e.g. "Rent", "Utilities").  Categories are kept in
+ * the second-level cache.
  */
 @Entity
-@Table(name = "categories")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.CATEGORY)
+@Table(name = "categories", indexes = {
+        // Backs the group-scoped listing and its keyset pagination (WHERE group_id = ? AND id > ? ORDER BY id)
+        @Index(name = "idx_categories_group_id_id", columnList = "group_id, id")
+})
 public class CategoryEntity {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,9 @@
+package org.ncsu.settleup.membershipservice.model;
+
+/**
+ * Read-only view of a category, selected directly into this record so
+ * that listing a group's categories loads neither entities nor their
+ * group.  It serialises to the same JSON as {@link CategoryEntity}.
+ */
+public record CategorySummary(Long id, String name) {
+}
@@ -1,5 +1,6 @@
 package org.ncsu.settleup.membershipservice.model;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
@@ -7,14 +8,25 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.ncsu.settleup.membershipservice.config.CacheRegions;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Represents a group of members who share expenses.  Each group has a
  * base currency used when computing settlements.
+ *
+ * <p>Groups and their member and category collections are kept in the
+ * second-level cache.  The collections are the inverse side of the
+ * association, so Hibernate does not refresh them when a member or
+ * category is saved on its own; writers evict them through
+ * {@link org.ncsu.settleup.membershipservice.service.MembershipCache}.
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.GROUP)
 @Table(name = "groups")
 public class GroupEntity {
     @Id
@@ -26,9 +38,11 @@ public class GroupEntity {
     private String baseCurrency;
 
     @OneToMany(mappedBy = "group", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.GROUP_MEMBERS)
     private List<MemberEntity> members = new ArrayList<>();
 
     @OneToMany(mappedBy = "group", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.GROUP_CATEGORIES)
     private List<CategoryEntity> categories = new ArrayList<>();
 
     public GroupEntity() {
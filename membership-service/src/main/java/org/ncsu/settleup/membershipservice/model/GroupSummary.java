@@ -0,0 +1,9 @@
+package org.ncsu.settleup.membershipservice.model;
+
+/**
+ * Read-only view of a group without its members and categories.  Selected
+ * directly into this record, so reading a group never initialises its
+ * collections.
+ */
+public record GroupSummary(Long id, String name, String baseCurrency) {
+}
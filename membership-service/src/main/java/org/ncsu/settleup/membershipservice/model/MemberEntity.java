@@ -1,22 +1,37 @@
 package org.ncsu.settleup.membershipservice.model;
 
+import jakarta.persistence.Cacheable;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.ncsu.settleup.membershipservice.config.CacheRegions;
+import java.util.Locale;
 
 /**
  * Represents a member of a group.  Members are associated with exactly one
  * group and can be assigned a role (e.g. OWNER or MEMBER) which may be
- * used to determine authorisation for future enhancements.
+ * used to determine authorisation for future enhancements.  Members are
+ * kept in the second-level cache.
  */
 @Entity
-@Table(name = "members")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.MEMBER)
+@Table(name = "members", indexes = {
+        // Backs the group-scoped listing and its keyset pagination (WHERE group_id = ? AND id > ? ORDER BY id)
+        @Index(name = "idx_members_group_id_id", columnList = "group_id, id"),
+        // Backs the lookup of a person's groups by email (WHERE email_normalized = ?)
+        @Index(name = "idx_members_email_normalized_group_id", columnList = "email_normalized, group_id")
+})
 public class MemberEntity {
 
     @Id
@@ -25,6 +40,11 @@ public class MemberEntity {
 
     private String email;
 
+    /** {@link #email} as returned by {@link #normalizeEmail}, for lookups. */
+    @Column(name = "email_normalized")
+    @JsonIgnore
+    private String normalizedEmail;
+
     private String role;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -36,7 +56,7 @@ public class MemberEntity {
     }
 
     public MemberEntity(String email, String role, GroupEntity group) {
-        this.email = email;
+        setEmail(email);
         this.role = role;
         this.group = group;
     }
@@ -55,6 +75,20 @@ public class MemberEntity {
 
     public void setEmail(String email) {
         this.email = email;
+        this.normalizedEmail = normalizeEmail(email);
+    }
+
+    public String getNormalizedEmail() {
+        return normalizedEmail;
+    }
+
+    /**
+     * The form in which emails are compared: trimmed and lower case.
+     *
+     * @return the normalised email, or {@code null} for {@code null}
+     */
+    public static String normalizeEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
     }
 
     public String getRole() {
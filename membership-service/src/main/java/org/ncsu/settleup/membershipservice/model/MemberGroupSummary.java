@@ -0,0 +1,9 @@
+package org.ncsu.settleup.membershipservice.model;
+
+/**
+ * One group a person belongs to, with their membership in it.  Selected
+ * directly into this record by the lookup of a person's groups by email.
+ */
+public record MemberGroupSummary(Long groupId, String groupName, String baseCurrency,
+                                 Long memberId, String role) {
+}
@@ -0,0 +1,9 @@
+package org.ncsu.settleup.membershipservice.model;
+
+/**
+ * Read-only view of a member, selected directly into this record so that
+ * listing a group's members loads neither entities nor their group.  It
+ * serialises to the same JSON as {@link MemberEntity}.
+ */
+public record MemberSummary(Long id, String email, String role) {
+}
@@ -0,0 +1,40 @@
+package org.ncsu.settleup.membershipservice.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Last membership event sequence number handed out for a group.  The row
+ * is incremented with an UPSERT by
+ * {@link org.ncsu.settleup.membershipservice.service.MembershipEventPublisher},
+ * whose row lock also serialises concurrent writers of the same group.
+ * It outlives the group so that numbers are never reused.
+ */
+@Entity
+@Table(name = "membership_group_sequences")
+public class MembershipEventSequence {
+    @Id
+    private Long groupId;
+
+    private Long lastSequence;
+
+    public MembershipEventSequence() {
+    }
+
+    public Long getGroupId() {
+        return groupId;
+    }
+
+    public void setGroupId(Long groupId) {
+        this.groupId = groupId;
+    }
+
+    public Long getLastSequence() {
+        return lastSequence;
+    }
+
+    public void setLastSequence(Long lastSequence) {
+        this.lastSequence = lastSequence;
+    }
+}
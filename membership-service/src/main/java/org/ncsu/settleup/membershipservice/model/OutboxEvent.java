@@ -0,0 +1,107 @@
+package org.ncsu.settleup.membershipservice.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import java.time.Instant;
+
+/**
+ * A membership event waiting in, or already relayed from, the outbox.
+ * Rows are written in the same transaction as the change they describe
+ * and sent to the broker afterwards in {@code id} order.  Sent rows keep
+ * their {@code publishedAt} time and stay available for resending until
+ * they are purged after the outbox retention window.
+ */
+@Entity
+@Table(name = "membership_outbox",
+        uniqueConstraints = @UniqueConstraint(name = "uk_membership_outbox_group_sequence",
+                columnNames = {"group_id", "sequence"}),
+        indexes = @Index(name = "idx_membership_outbox_published_at", columnList = "published_at"))
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "group_id", nullable = false)
+    private Long groupId;
+
+    @Column(nullable = false)
+    private Long sequence;
+
+    /** Routing key the event is published with, which also identifies its type. */
+    @Column(length = 64, nullable = false)
+    private String eventType;
+
+    /** The event as JSON. */
+    @Column(columnDefinition = "text", nullable = false)
+    private String payload;
+
+    private Instant createdAt;
+
+    /** When the broker confirmed the event, or {@code null} while pending. */
+    private Instant publishedAt;
+
+    public OutboxEvent() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getGroupId() {
+        return groupId;
+    }
+
+    public void setGroupId(Long groupId) {
+        this.groupId = groupId;
+    }
+
+    public Long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(Long sequence) {
+        this.sequence = sequence;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(String eventType) {
+        this.eventType = eventType;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getPublishedAt() {
+        return publishedAt;
+    }
+
+    public void setPublishedAt(Instant publishedAt) {
+        this.publishedAt = publishedAt;
+    }
+}
@@ -1,10 +1,79 @@
 package org.ncsu.settleup.membershipservice.repo;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.ncsu.settleup.membershipservice.config.CacheRegions;
 import org.ncsu.settleup.membershipservice.model.CategoryEntity;
+import org.ncsu.settleup.membershipservice.model.CategorySummary;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Repository for managing CategoryEntity instances.
+ *
+ * <p>Like the member queries, the group-scoped queries are served by the
+ * {@code (group_id, id)} index on {@code categories}, and their results
+ * are kept in the query cache.
  */
 public interface CategoryRepository extends JpaRepository<CategoryEntity, Long> {
+
+    /**
+     * All categories of a group, in ID order.
+     */
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheRegions.CATEGORY_QUERIES)})
+    @Query("select new org.ncsu.settleup.membershipservice.model.CategorySummary(c.id, c.name)"
+            + " from CategoryEntity c where c.group.id = :groupId order by c.id")
+    List<CategorySummary> findSummariesByGroupId(Long groupId);
+
+    /**
+     * The next page of a group's categories after the given category ID.
+     *
+     * @param groupId  group identifier
+     * @param afterId  ID of the last category of the previous page
+     * @param pageable limits the number of categories returned
+     * @return categories in ID order
+     */
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheRegions.CATEGORY_QUERIES)})
+    @Query("select new org.ncsu.settleup.membershipservice.model.CategorySummary(c.id, c.name)"
+            + " from CategoryEntity c where c.group.id = :groupId and c.id > :afterId order by c.id")
+    List<CategorySummary> findSummariesByGroupIdAfter(Long groupId, Long afterId, Pageable pageable);
+
+    /**
+     * Number of categories of a group, counted from the index.
+     */
+    long countByGroupId(Long groupId);
+
+    /**
+     * Delete every category of a group with a single statement, without
+     * loading them.
+     *
+     * @return the number of categories deleted
+     */
+    @Modifying
+    @Query("delete from CategoryEntity c where c.group.id = :groupId")
+    int bulkDeleteByGroupId(Long groupId);
+
+    /**
+     * IDs of a page of a group's categories, in ID order, to delete them
+     * in batches.
+     */
+    @Query("select c.id from CategoryEntity c where c.group.id = :groupId order by c.id")
+    List<Long> findIdsByGroupId(Long groupId, Pageable pageable);
+
+    /**
+     * Delete the given categories with a single statement, without
+     * loading them.
+     *
+     * @return the number of categories deleted
+     */
+    @Modifying
+    @Query("delete from CategoryEntity c where c.id in :ids")
+    int bulkDeleteByIdIn(Collection<Long> ids);
 }
@@ -1,11 +1,75 @@
 package org.ncsu.settleup.membershipservice.repo;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.ncsu.settleup.membershipservice.config.CacheRegions;
 import org.ncsu.settleup.membershipservice.model.GroupEntity;
+import org.ncsu.settleup.membershipservice.model.GroupSummary;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository for managing GroupEntity instances.  Spring Data JPA
- * automatically implements the CRUD operations.
+ * automatically implements the CRUD operations.  Group lookups are kept
+ * in the query cache.
  */
 public interface GroupRepository extends JpaRepository<GroupEntity, Long> {
+
+    /**
+     * One page of groups without their collections, for keyset
+     * pagination.
+     *
+     * @param afterId  ID of the last group of the previous page
+     * @param pageable limits the number of groups returned
+     * @return groups in ID order
+     */
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheRegions.GROUP_QUERIES)})
+    @Query("select new org.ncsu.settleup.membershipservice.model.GroupSummary(g.id, g.name, g.baseCurrency)"
+            + " from GroupEntity g where g.id > :afterId order by g.id")
+    List<GroupSummary> findSummariesAfter(Long afterId, Pageable pageable);
+
+    /**
+     * One page of the groups whose lower-case name matches a LIKE
+     * pattern, paginated like {@link #findSummariesAfter}.  Served by the
+     * {@code lower(name) varchar_pattern_ops} index when the pattern is a
+     * prefix; {@code !} escapes wildcards in the pattern.  Not cached, as
+     * every prefix typed would take a query cache entry of its own.
+     */
+    @Query("select new org.ncsu.settleup.membershipservice.model.GroupSummary(g.id, g.name, g.baseCurrency)"
+            + " from GroupEntity g where lower(g.name) like :pattern escape '!' and g.id > :afterId"
+            + " order by g.id")
+    List<GroupSummary> findSummariesByNameLikeAfter(String pattern, Long afterId, Pageable pageable);
+
+    /**
+     * One group without its collections.
+     */
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheRegions.GROUP_QUERIES)})
+    @Query("select new org.ncsu.settleup.membershipservice.model.GroupSummary(g.id, g.name, g.baseCurrency)"
+            + " from GroupEntity g where g.id = :groupId")
+    Optional<GroupSummary> findSummaryById(Long groupId);
+
+    /**
+     * Whether a group exists, answered from the query cache when possible.
+     */
+    @Override
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheRegions.GROUP_QUERIES)})
+    boolean existsById(Long id);
+
+    /**
+     * Delete a group row with a single statement.  Its members and
+     * categories must have been deleted first.
+     *
+     * @return the number of groups deleted, 0 or 1
+     */
+    @Modifying
+    @Query("delete from GroupEntity g where g.id = :groupId")
+    int bulkDeleteById(Long groupId);
 }
@@ -1,10 +1,116 @@
 package org.ncsu.settleup.membershipservice.repo;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.ncsu.settleup.membershipservice.config.CacheRegions;
 import org.ncsu.settleup.membershipservice.model.MemberEntity;
+import org.ncsu.settleup.membershipservice.model.MemberGroupSummary;
+import org.ncsu.settleup.membershipservice.model.MemberSummary;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Repository for managing MemberEntity instances.
+ *
+ * <p>The group-scoped queries read {@code members.group_id} directly and
+ * are served by the {@code (group_id, id)} index, so their cost depends
+ * on the size of the group rather than of the table.  Their results are
+ * kept in the query cache, which Hibernate invalidates whenever the
+ * members table is written through JPA.
  */
 public interface MemberRepository extends JpaRepository<MemberEntity, Long> {
+
+    /**
+     * All members of a group, in ID order.
+     */
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheRegions.MEMBER_QUERIES)})
+    @Query("select new org.ncsu.settleup.membershipservice.model.MemberSummary(m.id, m.email, m.role)"
+            + " from MemberEntity m where m.group.id = :groupId order by m.id")
+    List<MemberSummary> findSummariesByGroupId(Long groupId);
+
+    /**
+     * The next page of a group's members after the given member ID.
+     *
+     * @param groupId  group identifier
+     * @param afterId  ID of the last member of the previous page
+     * @param pageable limits the number of members returned
+     * @return members in ID order
+     */
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheRegions.MEMBER_QUERIES)})
+    @Query("select new org.ncsu.settleup.membershipservice.model.MemberSummary(m.id, m.email, m.role)"
+            + " from MemberEntity m where m.group.id = :groupId and m.id > :afterId order by m.id")
+    List<MemberSummary> findSummariesByGroupIdAfter(Long groupId, Long afterId, Pageable pageable);
+
+    /**
+     * Whether a member exists and belongs to the given group.  Answered
+     * from the {@code (group_id, id)} index without loading the member.
+     */
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheRegions.MEMBER_QUERIES)})
+    boolean existsByIdAndGroupId(Long id, Long groupId);
+
+    /**
+     * Every group a person belongs to, found by their normalised email
+     * through the {@code (email_normalized, group_id)} index.
+     *
+     * @param normalizedEmail email as returned by {@link MemberEntity#normalizeEmail}
+     * @return one entry per membership, by group ID
+     */
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheRegions.MEMBER_QUERIES)})
+    @Query("select new org.ncsu.settleup.membershipservice.model.MemberGroupSummary("
+            + "g.id, g.name, g.baseCurrency, m.id, m.role)"
+            + " from MemberEntity m join m.group g where m.normalizedEmail = :normalizedEmail order by g.id, m.id")
+    List<MemberGroupSummary> findGroupsByNormalizedEmail(String normalizedEmail);
+
+    /**
+     * Distinct normalised emails of a group's members matching a LIKE
+     * pattern, in order.  With a pattern of the form {@code prefix%} this
+     * is a range scan of the {@code (group_id, email_normalized
+     * varchar_pattern_ops)} index that stops after one page.  {@code !}
+     * escapes wildcards in the pattern.
+     */
+    @Query("select distinct m.normalizedEmail from MemberEntity m"
+            + " where m.group.id = :groupId and m.normalizedEmail like :pattern escape '!'"
+            + " order by m.normalizedEmail")
+    List<String> findNormalizedEmailsInGroupLike(Long groupId, String pattern, Pageable pageable);
+
+    /**
+     * Number of members of a group, counted from the index.
+     */
+    long countByGroupId(Long groupId);
+
+    /**
+     * Delete every member of a group with a single statement, without
+     * loading them.  Hibernate clears the member cache regions.
+     *
+     * @return the number of members deleted
+     */
+    @Modifying
+    @Query("delete from MemberEntity m where m.group.id = :groupId")
+    int bulkDeleteByGroupId(Long groupId);
+
+    /**
+     * IDs of a page of a group's members, in ID order, to delete them in
+     * batches.
+     */
+    @Query("select m.id from MemberEntity m where m.group.id = :groupId order by m.id")
+    List<Long> findIdsByGroupId(Long groupId, Pageable pageable);
+
+    /**
+     * Delete the given members with a single statement, without loading
+     * them.  Hibernate clears the member cache regions.
+     *
+     * @return the number of members deleted
+     */
+    @Modifying
+    @Query("delete from MemberEntity m where m.id in :ids")
+    int bulkDeleteByIdIn(Collection<Long> ids);
 }
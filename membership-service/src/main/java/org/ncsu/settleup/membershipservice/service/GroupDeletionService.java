@@ -0,0 +1,220 @@
+package org.ncsu.settleup.membershipservice.service;
+
+import jakarta.annotation.PreDestroy;
+import org.ncsu.settleup.common.events.GroupDeletedEvent;
+import org.ncsu.settleup.membershipservice.repo.CategoryRepository;
+import org.ncsu.settleup.membershipservice.repo.GroupRepository;
+import org.ncsu.settleup.membershipservice.repo.MemberRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Deletes groups with bulk DELETE statements instead of loading and
+ * removing every member and category through the JPA cascade.
+ *
+ * <p>A deletion ends with one transaction that first locks the group row,
+ * which makes concurrent inserts of members or categories wait and then
+ * fail, then deletes the group's remaining members, categories and the
+ * group itself, and publishes a single {@code group.deleted} event.
+ *
+ * <p>Groups with at least {@code membership.deletion.async-threshold}
+ * members and categories are deleted by a background worker instead, one
+ * group at a time.  The worker first deletes their members and categories
+ * {@code membership.deletion.batch-size} at a time, each batch in its own
+ * transaction, so that no transaction holds locks on a whole large group;
+ * readers can see the group partly emptied meanwhile.  The final
+ * transaction then removes whatever is left, as above.
+ *
+ * <p>Background jobs are kept in memory only, for
+ * {@code membership.deletion.job-retention} after they finish.  After a
+ * restart their progress is no longer known and is reported as not
+ * found; a deletion interrupted by the restart leaves the group in
+ * place, possibly partly emptied, and is finished by deleting the group
+ * again.
+ */
+@Service
+public class GroupDeletionService {
+    private static final String LOCK_GROUP = "SELECT id FROM groups WHERE id = ? FOR UPDATE";
+
+    private final GroupRepository groupRepository;
+    private final MemberRepository memberRepository;
+    private final CategoryRepository categoryRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MembershipEventPublisher eventPublisher;
+    private final MembershipCache membershipCache;
+    private final long asyncThreshold;
+    private final int batchSize;
+    private final Duration jobRetention;
+    private final Map<Long, DeletionJob> jobs = new ConcurrentHashMap<>();
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "group-deletion");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public GroupDeletionService(GroupRepository groupRepository,
+                                MemberRepository memberRepository,
+                                CategoryRepository categoryRepository,
+                                JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                MembershipEventPublisher eventPublisher,
+                                MembershipCache membershipCache,
+                                @Value("${membership.deletion.async-threshold:5000}") long asyncThreshold,
+                                @Value("${membership.deletion.batch-size:1000}") int batchSize,
+                                @Value("${membership.deletion.job-retention:PT1H}") Duration jobRetention) {
+        this.groupRepository = groupRepository;
+        this.memberRepository = memberRepository;
+        this.categoryRepository = categoryRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.membershipCache = membershipCache;
+        this.asyncThreshold = asyncThreshold;
+        this.batchSize = batchSize;
+        this.jobRetention = jobRetention;
+    }
+
+    /**
+     * Whether a group is large enough to be deleted in the background.
+     */
+    public boolean isLarge(Long groupId) {
+        return memberRepository.countByGroupId(groupId) + categoryRepository.countByGroupId(groupId)
+                >= asyncThreshold;
+    }
+
+    /**
+     * Delete a group, its members and its categories now.
+     *
+     * @return false if the group does not exist
+     */
+    public boolean delete(Long groupId) {
+        Boolean deleted = transactionTemplate.execute(status -> {
+            List<Long> locked = jdbcTemplate.queryForList(LOCK_GROUP, Long.class, groupId);
+            if (locked.isEmpty()) {
+                return false;
+            }
+            memberRepository.bulkDeleteByGroupId(groupId);
+            categoryRepository.bulkDeleteByGroupId(groupId);
+            groupRepository.bulkDeleteById(groupId);
+            eventPublisher.publish(groupId, MembershipEventPublisher.GROUP_DELETED,
+                    sequence -> new GroupDeletedEvent(groupId, sequence));
+            membershipCache.evictDeletedGroup(groupId);
+            return true;
+        });
+        return Boolean.TRUE.equals(deleted);
+    }
+
+    /**
+     * Queue a group for deletion in the background.  A group that is
+     * already queued or being deleted is not queued again.
+     *
+     * @return the group's deletion job
+     */
+    public DeletionJob submit(Long groupId) {
+        pruneFinishedJobs();
+        DeletionJob[] queued = new DeletionJob[1];
+        DeletionJob job = jobs.compute(groupId, (id, existing) -> {
+            if (existing != null && existing.status() == Status.RUNNING) {
+                return existing;
+            }
+            queued[0] = new DeletionJob(groupId, Status.RUNNING, Instant.now(), null, null);
+            return queued[0];
+        });
+        if (queued[0] == null) {
+            return job;
+        }
+        worker.execute(() -> {
+            DeletionJob finished;
+            try {
+                deleteInBatches(groupId, memberRepository::findIdsByGroupId, memberRepository::bulkDeleteByIdIn,
+                        membershipCache::evictMembers);
+                deleteInBatches(groupId, categoryRepository::findIdsByGroupId, categoryRepository::bulkDeleteByIdIn,
+                        membershipCache::evictCategories);
+                delete(groupId);
+                finished = job.finish(Status.COMPLETED, null);
+            } catch (RuntimeException e) {
+                finished = job.finish(Status.FAILED, e.getMessage());
+            }
+            jobs.put(groupId, finished);
+        });
+        return job;
+    }
+
+    /**
+     * Delete rows of a group {@link #batchSize} at a time, one transaction
+     * per batch, until none are left.
+     */
+    private void deleteInBatches(Long groupId, BiFunction<Long, Pageable, List<Long>> findIds,
+                                 Function<Collection<Long>, Integer> deleteIds, Consumer<Long> evict) {
+        Integer deleted;
+        do {
+            deleted = transactionTemplate.execute(status -> {
+                List<Long> ids = findIds.apply(groupId, PageRequest.of(0, batchSize));
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                deleteIds.apply(ids);
+                evict.accept(groupId);
+                return ids.size();
+            });
+        } while (deleted != null && deleted == batchSize);
+    }
+
+    /**
+     * The latest background deletion of a group, if it is still running or
+     * finished within the retention period.
+     */
+    public Optional<DeletionJob> job(Long groupId) {
+        return Optional.ofNullable(jobs.get(groupId));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        worker.shutdown();
+    }
+
+    private void pruneFinishedJobs() {
+        Instant cutoff = Instant.now().minus(jobRetention);
+        jobs.values().removeIf(job -> job.finishedAt() != null && job.finishedAt().isBefore(cutoff));
+    }
+
+    /**
+     * State of a background deletion.
+     */
+    public enum Status {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    /**
+     * A background deletion.  {@code finishedAt} is {@code null} while it
+     * runs; {@code error} is set only when it failed, in which case the
+     * group still exists, possibly without some of its members and
+     * categories, and the deletion can be requested again.
+     */
+    public static record DeletionJob(Long groupId, Status status, Instant startedAt,
+                                     Instant finishedAt, String error) {
+
+        DeletionJob finish(Status outcome, String failure) {
+            return new DeletionJob(groupId, outcome, startedAt, Instant.now(), failure);
+        }
+    }
+}
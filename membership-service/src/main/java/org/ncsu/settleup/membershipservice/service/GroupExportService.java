@@ -0,0 +1,77 @@
+package org.ncsu.settleup.membershipservice.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes every group as one JSON array, for exports and backfills that
+ * really do need the whole table.
+ *
+ * <p>Groups are read in keyset batches of {@link #BATCH_SIZE} straight
+ * from JDBC and written to the stream as they arrive, so neither the
+ * table nor the response is ever held in memory, and a connection is
+ * held for one batch at a time rather than for the whole export.  The
+ * batches bypass the second-level cache, which an export would otherwise
+ * flush.  Each batch is its own statement: groups created or deleted
+ * during an export may or may not appear in it.
+ */
+@Service
+public class GroupExportService {
+    /** Number of groups read per statement. */
+    static final int BATCH_SIZE = 1000;
+
+    private static final String SELECT_BATCH =
+            "SELECT id, name, base_currency FROM groups WHERE id > ? ORDER BY id LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public GroupExportService(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Write all groups, in ID order, as a JSON array of
+     * {@code {id, name, baseCurrency}} objects.
+     *
+     * @param out the response stream; left open
+     */
+    public void writeAll(OutputStream out) throws IOException {
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.writeStartArray();
+            long afterId = 0;
+            int read;
+            do {
+                long[] last = {afterId};
+                int[] count = {0};
+                jdbcTemplate.query(SELECT_BATCH, rs -> {
+                    try {
+                        json.writeStartObject();
+                        json.writeNumberField("id", rs.getLong("id"));
+                        json.writeStringField("name", rs.getString("name"));
+                        json.writeStringField("baseCurrency", rs.getString("base_currency"));
+                        json.writeEndObject();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    last[0] = rs.getLong("id");
+                    count[0]++;
+                }, afterId, BATCH_SIZE);
+                json.flush();
+                afterId = last[0];
+                read = count[0];
+            } while (read == BATCH_SIZE);
+            json.writeEndArray();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
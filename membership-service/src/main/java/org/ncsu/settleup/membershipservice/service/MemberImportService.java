@@ -0,0 +1,290 @@
+package org.ncsu.settleup.membershipservice.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import org.ncsu.settleup.common.events.MemberAddedEvent;
+import org.ncsu.settleup.membershipservice.model.MemberEntity;
+import org.ncsu.settleup.membershipservice.model.MemberSummary;
+import org.ncsu.settleup.membershipservice.repo.MemberRepository;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongFunction;
+
+/**
+ * Adds many members to a group in one request.
+ *
+ * <p>The input is parsed row by row from the request stream.  Emails are
+ * compared case-insensitively: a row whose email is already a member of
+ * the group, or appeared earlier in the input, is not inserted again but
+ * answered with the existing member's ID.  New members are inserted with
+ * batched JDBC statements, {@link #CHUNK_SIZE} per transaction together
+ * with their {@code member.added} events.  A failure leaves the chunks
+ * committed before it in place; sending the same input again adds only
+ * the members that are still missing.
+ */
+@Service
+public class MemberImportService {
+    /** Largest number of rows accepted in one import. */
+    public static final int MAX_ROWS = 50_000;
+
+    /** Number of members inserted per transaction. */
+    static final int CHUNK_SIZE = 500;
+
+    private static final String INSERT_MEMBER =
+            "INSERT INTO members (email, email_normalized, role, group_id) VALUES (?, ?, ?, ?)";
+
+    // Each record as an array of its cells, quoted cells unquoted
+    private static final ObjectReader CSV_READER = new CsvMapper()
+            .readerFor(String[].class)
+            .with(CsvParser.Feature.WRAP_AS_ARRAY)
+            .with(CsvParser.Feature.SKIP_EMPTY_LINES);
+
+    private final MemberRepository memberRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MembershipEventPublisher eventPublisher;
+    private final MembershipCache membershipCache;
+    private final ObjectMapper objectMapper;
+
+    public MemberImportService(MemberRepository memberRepository,
+                               JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               MembershipEventPublisher eventPublisher,
+                               MembershipCache membershipCache,
+                               ObjectMapper objectMapper) {
+        this.memberRepository = memberRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.membershipCache = membershipCache;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Read rows from CSV with an {@code email} column and an optional
+     * {@code role} column.  Cells may be quoted, so they can contain
+     * commas, quotes and line breaks.  A first record naming the columns
+     * is optional and recognised by a cell reading {@code email} or
+     * {@code role}; it may name other columns too, which are ignored.
+     * Without it the columns are taken to be email then role.
+     *
+     * @throws IllegalArgumentException if the CSV is malformed, a row has
+     *                                  no email or there are more than
+     *                                  {@link #MAX_ROWS} rows
+     */
+    public List<Row> readCsv(InputStream in) {
+        List<Row> rows = new ArrayList<>();
+        try (MappingIterator<String[]> records =
+                     CSV_READER.readValues(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            int emailColumn = 0;
+            int roleColumn = 1;
+            boolean first = true;
+            int recordNumber = 0;
+            while (records.hasNextValue()) {
+                String[] fields = records.nextValue();
+                recordNumber++;
+                for (int i = 0; i < fields.length; i++) {
+                    fields[i] = fields[i].trim();
+                }
+                if (isBlank(fields)) {
+                    continue;
+                }
+                boolean header = first && (indexOf(fields, "email") >= 0 || indexOf(fields, "role") >= 0);
+                first = false;
+                if (header) {
+                    emailColumn = indexOf(fields, "email");
+                    roleColumn = indexOf(fields, "role");
+                    if (emailColumn < 0) {
+                        throw new IllegalArgumentException("CSV header has no email column");
+                    }
+                    continue;
+                }
+                String email = emailColumn < fields.length ? fields[emailColumn] : "";
+                String role = roleColumn >= 0 && roleColumn < fields.length ? fields[roleColumn] : "";
+                add(rows, email, role, "record " + recordNumber);
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed CSV: " + e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return rows;
+    }
+
+    /**
+     * Read rows from a JSON array of objects with {@code email} and
+     * optional {@code role} fields, one element at a time.
+     *
+     * @throws IllegalArgumentException if the JSON is malformed, an
+     *                                  element has no email or there are
+     *                                  more than {@link #MAX_ROWS} elements
+     */
+    public List<Row> readJson(InputStream in) {
+        List<Row> rows = new ArrayList<>();
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Expected a JSON array of members");
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                String email = "";
+                String role = "";
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    parser.nextToken();
+                    switch (field) {
+                        case "email" -> email = parser.getValueAsString("");
+                        case "role" -> role = parser.getValueAsString("");
+                        default -> parser.skipChildren();
+                    }
+                }
+                add(rows, email.trim(), role.trim(), "element " + (rows.size() + 1));
+            }
+            if (parser.currentToken() != JsonToken.END_ARRAY) {
+                throw new IllegalArgumentException("Expected only member objects in the JSON array");
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed JSON: " + e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return rows;
+    }
+
+    /**
+     * Add members to a group that is known to exist.
+     *
+     * @param groupId group identifier
+     * @param rows    members to add, in input order
+     * @return the number of members created and every row's member ID, in
+     *         input order
+     */
+    public ImportResult importMembers(Long groupId, List<Row> rows) {
+        Map<String, Long> idsByEmail = new HashMap<>();
+        for (MemberSummary member : memberRepository.findSummariesByGroupId(groupId)) {
+            idsByEmail.putIfAbsent(key(member.email()), member.id());
+        }
+        List<Row> toInsert = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (Row row : rows) {
+            String key = key(row.email());
+            if (!idsByEmail.containsKey(key) && seen.add(key)) {
+                toInsert.add(row);
+            }
+        }
+        for (int from = 0; from < toInsert.size(); from += CHUNK_SIZE) {
+            List<Row> chunk = toInsert.subList(from, Math.min(from + CHUNK_SIZE, toInsert.size()));
+            List<Long> ids = transactionTemplate.execute(status -> insertChunk(groupId, chunk));
+            for (int i = 0; i < chunk.size(); i++) {
+                idsByEmail.put(key(chunk.get(i).email()), ids.get(i));
+            }
+        }
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            ids.add(idsByEmail.get(key(row.email())));
+        }
+        return new ImportResult(toInsert.size(), rows.size() - toInsert.size(), ids);
+    }
+
+    private List<Long> insertChunk(Long groupId, List<Row> chunk) {
+        GeneratedKeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_MEMBER, new String[] {"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Row row = chunk.get(i);
+                        ps.setString(1, row.email());
+                        ps.setString(2, MemberEntity.normalizeEmail(row.email()));
+                        ps.setString(3, row.role());
+                        ps.setLong(4, groupId);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return chunk.size();
+                    }
+                },
+                keys);
+        List<Long> ids = new ArrayList<>(chunk.size());
+        List<LongFunction<Object>> events = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            Long id = ((Number) keys.getKeyList().get(i).get("id")).longValue();
+            Row row = chunk.get(i);
+            ids.add(id);
+            events.add(sequence -> new MemberAddedEvent(groupId, id, row.email(), row.role(), sequence));
+        }
+        eventPublisher.publishAll(groupId, MembershipEventPublisher.MEMBER_ADDED, events);
+        // Inserted with plain SQL, so Hibernate knows nothing about them
+        membershipCache.evictMembers(groupId);
+        return ids;
+    }
+
+    private static void add(List<Row> rows, String email, String role, String position) {
+        if (email.isEmpty()) {
+            throw new IllegalArgumentException("Missing email at " + position);
+        }
+        if (rows.size() == MAX_ROWS) {
+            throw new IllegalArgumentException("At most " + MAX_ROWS + " members can be imported at once");
+        }
+        rows.add(new Row(email, role.isEmpty() ? null : role));
+    }
+
+    private static String key(String email) {
+        return MemberEntity.normalizeEmail(email);
+    }
+
+    private static boolean isBlank(String[] fields) {
+        for (String field : fields) {
+            if (!field.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(String[] header, String column) {
+        for (int i = 0; i < header.length; i++) {
+            if (header[i].equalsIgnoreCase(column)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * One member to import.  {@code role} is {@code null} when not given.
+     */
+    public static record Row(String email, String role) {
+    }
+
+    /**
+     * Outcome of an import.  {@code ids} holds the member ID of every
+     * input row in input order, including rows that matched an existing
+     * member or an earlier row and were therefore {@code skipped}.
+     */
+    public static record ImportResult(int created, int skipped, List<Long> ids) {
+    }
+}
@@ -0,0 +1,165 @@
+package org.ncsu.settleup.membershipservice.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.ncsu.settleup.membershipservice.config.CacheRegions;
+import org.ncsu.settleup.membershipservice.model.GroupEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Evicts and reports on the Hibernate second-level cache.
+ *
+ * <p>Hibernate keeps cached entities and query results consistent with
+ * writes made through JPA, but not the inverse-side collections of
+ * {@link GroupEntity}, and not anything written with plain SQL.  Writers
+ * therefore call the {@code evict} methods, which drop the affected
+ * entries once the transaction has committed; evicting earlier would let
+ * a concurrent reader cache the old state again before the commit.  Query
+ * result regions cannot be evicted per group, so a write to a group
+ * clears the whole region of the kind of data it changed.
+ */
+@Service
+public class MembershipCache {
+    private static final List<String> ENTITY_REGIONS = List.of(CacheRegions.GROUP, CacheRegions.MEMBER,
+            CacheRegions.CATEGORY, CacheRegions.GROUP_MEMBERS, CacheRegions.GROUP_CATEGORIES);
+    private static final List<String> QUERY_REGIONS = List.of(CacheRegions.GROUP_QUERIES,
+            CacheRegions.MEMBER_QUERIES, CacheRegions.CATEGORY_QUERIES);
+    private static final String MEMBERS_ROLE = GroupEntity.class.getName() + ".members";
+    private static final String CATEGORIES_ROLE = GroupEntity.class.getName() + ".categories";
+
+    private final SessionFactory sessionFactory;
+
+    public MembershipCache(EntityManagerFactory entityManagerFactory) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    /**
+     * Evict a group and the group lookup results after a change to the
+     * group itself.
+     */
+    public void evictGroup(Long groupId) {
+        afterCommit(cache -> {
+            cache.evictEntityData(GroupEntity.class, groupId);
+            cache.evictQueryRegion(CacheRegions.GROUP_QUERIES);
+        });
+    }
+
+    /**
+     * Evict everything cached about a deleted group.
+     */
+    public void evictDeletedGroup(Long groupId) {
+        afterCommit(cache -> {
+            cache.evictEntityData(GroupEntity.class, groupId);
+            cache.evictCollectionData(MEMBERS_ROLE, groupId);
+            cache.evictCollectionData(CATEGORIES_ROLE, groupId);
+            cache.evictQueryRegion(CacheRegions.GROUP_QUERIES);
+            cache.evictQueryRegion(CacheRegions.MEMBER_QUERIES);
+            cache.evictQueryRegion(CacheRegions.CATEGORY_QUERIES);
+        });
+    }
+
+    /**
+     * Evict a group's member collection and the member query results after
+     * a member of the group was added, changed or removed.
+     */
+    public void evictMembers(Long groupId) {
+        afterCommit(cache -> {
+            cache.evictCollectionData(MEMBERS_ROLE, groupId);
+            cache.evictQueryRegion(CacheRegions.MEMBER_QUERIES);
+        });
+    }
+
+    /**
+     * Evict a group's category collection and the category query results
+     * after a category of the group was added, changed or removed.
+     */
+    public void evictCategories(Long groupId) {
+        afterCommit(cache -> {
+            cache.evictCollectionData(CATEGORIES_ROLE, groupId);
+            cache.evictQueryRegion(CacheRegions.CATEGORY_QUERIES);
+        });
+    }
+
+    /**
+     * Hit and miss counts of every cache region.
+     */
+    public List<RegionStats> regionStats() {
+        Statistics statistics = sessionFactory.getStatistics();
+        List<RegionStats> stats = new ArrayList<>(ENTITY_REGIONS.size() + QUERY_REGIONS.size());
+        for (String name : ENTITY_REGIONS) {
+            stats.add(RegionStats.of(name, statistics.getDomainDataRegionStatistics(name)));
+        }
+        for (String name : QUERY_REGIONS) {
+            stats.add(RegionStats.of(name, statistics.getQueryRegionStatistics(name)));
+        }
+        return stats;
+    }
+
+    /**
+     * Whether a region of this name exists.
+     */
+    public boolean hasRegion(String region) {
+        return ENTITY_REGIONS.contains(region) || QUERY_REGIONS.contains(region);
+    }
+
+    /**
+     * Clear one region immediately.
+     */
+    public void clear(String region) {
+        sessionFactory.getCache().evictRegion(region);
+    }
+
+    /**
+     * Clear every region, query results included, immediately.
+     */
+    public void clearAll() {
+        Cache cache = sessionFactory.getCache();
+        cache.evictAllRegions();
+        cache.evictQueryRegions();
+    }
+
+    private void afterCommit(Consumer<Cache> action) {
+        Cache cache = sessionFactory.getCache();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.accept(cache);
+                }
+            });
+        } else {
+            action.accept(cache);
+        }
+    }
+
+    /**
+     * Statistics of one cache region since startup.  {@code hitRatio} is
+     * the share of lookups answered from the cache, or {@code null} before
+     * the first lookup; {@code elements} is {@code -1} when the cache
+     * provider does not report it.
+     */
+    public static record RegionStats(String region, long hits, long misses, long puts,
+                                     long elements, Double hitRatio) {
+
+        static RegionStats of(String region, CacheRegionStatistics statistics) {
+            if (statistics == null) {
+                // Query result regions are created on their first use
+                return new RegionStats(region, 0, 0, 0, -1, null);
+            }
+            long hits = statistics.getHitCount();
+            long misses = statistics.getMissCount();
+            long lookups = hits + misses;
+            return new RegionStats(region, hits, misses, statistics.getPutCount(),
+                    statistics.getElementCountInMemory(), lookups == 0 ? null : (double) hits / lookups);
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package org.ncsu.settleup.membershipservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.ncsu.settleup.common.events.CategoryAddedEvent;
+import org.ncsu.settleup.common.events.CategoryRemovedEvent;
+import org.ncsu.settleup.common.events.CategoryUpdatedEvent;
+import org.ncsu.settleup.common.events.GroupCreatedEvent;
+import org.ncsu.settleup.common.events.GroupDeletedEvent;
+import org.ncsu.settleup.common.events.GroupUpdatedEvent;
+import org.ncsu.settleup.common.events.MemberAddedEvent;
+import org.ncsu.settleup.common.events.MemberRemovedEvent;
+import org.ncsu.settleup.common.events.MemberUpdatedEvent;
+import org.ncsu.settleup.membershipservice.config.AmqpConfig;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongFunction;
+
+/**
+ * Publishes membership events through a transactional outbox.
+ *
+ * <p>{@link #publish} gives the event the group's next sequence number
+ * from the {@code membership_group_sequences} counter and writes it to
+ * the {@code membership_outbox} table in the caller's transaction, so an
+ * event exists exactly when its change was committed and numbers are
+ * gap-free.  {@link #relay} then sends committed events to the broker in
+ * outbox order and marks them published once the broker has confirmed
+ * them.  A relay that fails part-way sends the batch again on the next
+ * poll, so consumers may see an event more than once and must skip
+ * sequence numbers they have already applied.
+ *
+ * <p>Several instances may relay at once.  A relay claims whole groups
+ * with a transaction-scoped advisory lock on the group ID before taking
+ * their events, so a group's events are only ever sent by one relay at a
+ * time and always in sequence order.
+ *
+ * <p>Published events are kept for {@code membership.outbox.retention}
+ * so that consumers can ask for them again with {@link #resend}, and are
+ * deleted after that.
+ */
+@Service
+public class MembershipEventPublisher {
+    /** Routing key of {@link GroupCreatedEvent}. */
+    public static final String GROUP_CREATED = "membership.group.created";
+
+    /** Routing key of {@link GroupUpdatedEvent}. */
+    public static final String GROUP_UPDATED = "membership.group.updated";
+
+    /** Routing key of {@link GroupDeletedEvent}. */
+    public static final String GROUP_DELETED = "membership.group.deleted";
+
+    /** Routing key of {@link MemberAddedEvent}. */
+    public static final String MEMBER_ADDED = "membership.member.added";
+
+    /** Routing key of {@link MemberUpdatedEvent}. */
+    public static final String MEMBER_UPDATED = "membership.member.updated";
+
+    /** Routing key of {@link MemberRemovedEvent}. */
+    public static final String MEMBER_REMOVED = "membership.member.removed";
+
+    /** Routing key of {@link CategoryAddedEvent}. */
+    public static final String CATEGORY_ADDED = "membership.category.added";
+
+    /** Routing key of {@link CategoryUpdatedEvent}. */
+    public static final String CATEGORY_UPDATED = "membership.category.updated";
+
+    /** Routing key of {@link CategoryRemovedEvent}. */
+    public static final String CATEGORY_REMOVED = "membership.category.removed";
+
+    /** Largest number of events a single resend request may cover. */
+    public static final int MAX_RESEND_RANGE = 1000;
+
+    private static final Map<String, Class<?>> EVENT_TYPES = Map.of(
+            GROUP_CREATED, GroupCreatedEvent.class,
+            GROUP_UPDATED, GroupUpdatedEvent.class,
+            GROUP_DELETED, GroupDeletedEvent.class,
+            MEMBER_ADDED, MemberAddedEvent.class,
+            MEMBER_UPDATED, MemberUpdatedEvent.class,
+            MEMBER_REMOVED, MemberRemovedEvent.class,
+            CATEGORY_ADDED, CategoryAddedEvent.class,
+            CATEGORY_UPDATED, CategoryUpdatedEvent.class,
+            CATEGORY_REMOVED, CategoryRemovedEvent.class);
+
+    // The row lock taken by the upsert is held until commit, so writers of
+    // the same group are serialised and receive consecutive numbers.  The
+    // second parameter is how many numbers to reserve.
+    private static final String NEXT_SEQUENCE =
+            "INSERT INTO membership_group_sequences (group_id, last_sequence) VALUES (?, ?) "
+                    + "ON CONFLICT (group_id) DO UPDATE "
+                    + "SET last_sequence = membership_group_sequences.last_sequence + EXCLUDED.last_sequence "
+                    + "RETURNING last_sequence";
+    private static final String INSERT_EVENT =
+            "INSERT INTO membership_outbox (group_id, sequence, event_type, payload, created_at) "
+                    + "VALUES (?, ?, ?, ?, ?)";
+    // Claims the groups with the oldest pending events that no other relay
+    // holds; the advisory locks last until the batch's transaction ends.
+    // The first parameter bounds the groups claimed, the second the events.
+    private static final String SELECT_PENDING =
+            "SELECT id, event_type, payload FROM membership_outbox "
+                    + "WHERE published_at IS NULL AND group_id IN ("
+                    + "SELECT group_id FROM (SELECT group_id, min(id) AS first_id FROM membership_outbox "
+                    + "WHERE published_at IS NULL GROUP BY group_id ORDER BY first_id LIMIT ?) oldest "
+                    + "WHERE pg_try_advisory_xact_lock(group_id)) "
+                    + "ORDER BY id LIMIT ?";
+    private static final String MARK_PUBLISHED =
+            "UPDATE membership_outbox SET published_at = ? WHERE id = ?";
+    private static final String MARK_PENDING =
+            "UPDATE membership_outbox SET published_at = NULL "
+                    + "WHERE group_id = ? AND sequence BETWEEN ? AND ? AND published_at IS NOT NULL";
+    private static final String DELETE_PUBLISHED =
+            "DELETE FROM membership_outbox WHERE published_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RabbitTemplate rabbitTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration confirmTimeout;
+    private final Duration retention;
+
+    public MembershipEventPublisher(JdbcTemplate jdbcTemplate,
+                                    RabbitTemplate rabbitTemplate,
+                                    ObjectMapper objectMapper,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${membership.outbox.batch-size:200}") int batchSize,
+                                    @Value("${membership.outbox.confirm-timeout:PT5S}") Duration confirmTimeout,
+                                    @Value("${membership.outbox.retention:P7D}") Duration retention) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rabbitTemplate = rabbitTemplate;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.confirmTimeout = confirmTimeout;
+        this.retention = retention;
+    }
+
+    /**
+     * Write an event for a group to the outbox.  Must be called inside the
+     * transaction that makes the change the event describes.
+     *
+     * @param groupId    group the event belongs to
+     * @param routingKey one of the routing key constants of this class
+     * @param event      builds the event from its sequence number
+     * @return the event's sequence number
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long publish(Long groupId, String routingKey, LongFunction<Object> event) {
+        long sequence = reserveSequences(groupId, 1);
+        jdbcTemplate.update(INSERT_EVENT, groupId, sequence, routingKey, serialise(routingKey, event.apply(sequence)),
+                Timestamp.from(Instant.now()));
+        return sequence;
+    }
+
+    /**
+     * Write several events of one type for a group to the outbox, with
+     * consecutive sequence numbers in list order.  Uses one sequence
+     * update and one batched insert however many events there are.
+     *
+     * @param groupId    group the events belong to
+     * @param routingKey one of the routing key constants of this class
+     * @param events     each builds an event from its sequence number
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishAll(Long groupId, String routingKey, List<LongFunction<Object>> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        long first = reserveSequences(groupId, events.size()) - events.size() + 1;
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> rows = new ArrayList<>(events.size());
+        for (int i = 0; i < events.size(); i++) {
+            long sequence = first + i;
+            rows.add(new Object[] {groupId, sequence, routingKey,
+                    serialise(routingKey, events.get(i).apply(sequence)), now});
+        }
+        jdbcTemplate.batchUpdate(INSERT_EVENT, rows);
+    }
+
+    /**
+     * Reserve the next {@code count} sequence numbers of a group.
+     *
+     * @return the last reserved number
+     */
+    private long reserveSequences(Long groupId, int count) {
+        Long last = jdbcTemplate.queryForObject(NEXT_SEQUENCE, Long.class, groupId, count);
+        if (last == null) {
+            throw new IllegalStateException("No sequence returned for group " + groupId);
+        }
+        return last;
+    }
+
+    private String serialise(String routingKey, Object event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialise " + routingKey + " event", e);
+        }
+    }
+
+    /**
+     * Send pending outbox events to the broker, oldest first, until none
+     * are left.  Each batch is marked published only after the broker has
+     * confirmed all of it; if sending fails the batch stays pending and is
+     * retried on the next poll.
+     */
+    @Scheduled(fixedDelayString = "${membership.outbox.relay-interval:PT0.2S}")
+    public void relay() {
+        Integer sent;
+        do {
+            sent = transactionTemplate.execute(status -> relayBatch());
+        } while (sent != null && sent == batchSize);
+    }
+
+    /**
+     * Send and mark one batch of pending events.  The selected rows stay
+     * locked until the surrounding transaction ends.
+     *
+     * @return the number of events sent
+     */
+    private int relayBatch() {
+        List<PendingEvent> pending = jdbcTemplate.query(SELECT_PENDING,
+                (rs, rowNum) -> new PendingEvent(rs.getLong("id"), rs.getString("event_type"),
+                        rs.getString("payload")),
+                batchSize, batchSize);
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        rabbitTemplate.invoke(operations -> {
+            for (PendingEvent event : pending) {
+                operations.convertAndSend(AmqpConfig.EXCHANGE_NAME, event.eventType(), readEvent(event));
+            }
+            operations.waitForConfirmsOrDie(confirmTimeout.toMillis());
+            return null;
+        });
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(MARK_PUBLISHED,
+                pending.stream().map(e -> new Object[] {now, e.id()}).toList());
+        return pending.size();
+    }
+
+    /**
+     * Periodically delete events published longer ago than the retention
+     * window.  They can no longer be resent.
+     */
+    @Scheduled(fixedDelayString = "${membership.outbox.purge-interval:PT10M}")
+    public void purgePublished() {
+        jdbcTemplate.update(DELETE_PUBLISHED, Timestamp.from(Instant.now().minus(retention)));
+    }
+
+    /**
+     * Queue a group's published events with sequence numbers in
+     * {@code [from, to]} to be relayed again.  Consumers ignore the ones
+     * they have already applied.
+     *
+     * @return the number of events queued
+     * @throws IllegalArgumentException if the range is empty, starts below 1
+     *                                  or covers more than {@link #MAX_RESEND_RANGE} events
+     */
+    @Transactional
+    public int resend(Long groupId, long from, long to) {
+        if (from < 1 || to < from) {
+            throw new IllegalArgumentException("Invalid sequence range " + from + ".." + to);
+        }
+        if (to - from >= MAX_RESEND_RANGE) {
+            throw new IllegalArgumentException("At most " + MAX_RESEND_RANGE + " events can be resent at once");
+        }
+        return jdbcTemplate.update(MARK_PENDING, groupId, from, to);
+    }
+
+    private Object readEvent(PendingEvent event) {
+        Class<?> type = EVENT_TYPES.get(event.eventType());
+        if (type == null) {
+            throw new IllegalStateException("Unknown event type " + event.eventType());
+        }
+        try {
+            return objectMapper.readValue(event.payload(), type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read outbox event " + event.id(), e);
+        }
+    }
+
+    private record PendingEvent(long id, String eventType, String payload) {
+    }
+}
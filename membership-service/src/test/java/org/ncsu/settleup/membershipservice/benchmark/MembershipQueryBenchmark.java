@@ -0,0 +1,126 @@
+package org.ncsu.settleup.membershipservice.benchmark;
+
+import org.ncsu.settleup.membershipservice.MembershipServiceApplication;
+import org.ncsu.settleup.membershipservice.model.GroupEntity;
+import org.ncsu.settleup.membershipservice.model.MemberEntity;
+import org.ncsu.settleup.membershipservice.repo.GroupRepository;
+import org.ncsu.settleup.membershipservice.repo.MemberRepository;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Manual benchmark of listing one group's members as the members table
+ * grows.  It boots the membership service without the web layer against
+ * the datasource from {@code application.properties}, creates a probe
+ * group of {@link #PROBE_GROUP_SIZE} members, and then keeps adding
+ * members of other groups.  At each table size it times the indexed
+ * {@code findSummariesByGroupId} query next to the previous
+ * load-everything-and-filter approach.  The indexed query should stay
+ * flat while the scan grows with the table.
+ *
+ * <p>This is not a unit test and is not picked up by surefire.  Run it
+ * against a disposable database, for example:
+ * <pre>
+ * mvn -pl membership-service test-compile exec:java \
+ *     -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.ncsu.settleup.membershipservice.benchmark.MembershipQueryBenchmark
+ * </pre>
+ */
+public final class MembershipQueryBenchmark {
+
+    private static final int[] TABLE_SIZES = {1_000, 10_000, 100_000};
+    private static final int PROBE_GROUP_SIZE = 50;
+    private static final int FILLER_GROUPS = 100;
+    private static final int WARMUP_ITERATIONS = 50;
+    private static final int MEASURED_ITERATIONS = 200;
+    private static final int SCAN_ITERATIONS = 10;
+    private static final String GROUP_NAME = "membership-query-benchmark";
+
+    private MembershipQueryBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        try (ConfigurableApplicationContext ctx = new SpringApplicationBuilder(MembershipServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.jpa.show-sql=false",
+                        // Measure the database query, not the query cache
+                        "spring.jpa.properties.hibernate.cache.use_query_cache=false")
+                .run(args)) {
+            GroupRepository groups = ctx.getBean(GroupRepository.class);
+            MemberRepository members = ctx.getBean(MemberRepository.class);
+            JdbcTemplate jdbc = ctx.getBean(JdbcTemplate.class);
+            TransactionTemplate tx = new TransactionTemplate(ctx.getBean(PlatformTransactionManager.class));
+
+            List<Long> groupIds = new ArrayList<>();
+            GroupEntity probe = groups.save(new GroupEntity(GROUP_NAME, "USD"));
+            groupIds.add(probe.getId());
+            insertMembers(jdbc, List.of(probe.getId()), PROBE_GROUP_SIZE);
+            List<Long> fillers = new ArrayList<>();
+            for (int i = 0; i < FILLER_GROUPS; i++) {
+                fillers.add(groups.save(new GroupEntity(GROUP_NAME, "USD")).getId());
+            }
+            groupIds.addAll(fillers);
+
+            System.out.printf("%10s %14s %14s %14s%n", "members", "indexed(us)", "p99(us)", "scan(us)");
+            long existing = members.count();
+            for (int tableSize : TABLE_SIZES) {
+                if (existing < tableSize) {
+                    insertMembers(jdbc, fillers, (int) (tableSize - existing));
+                    existing = tableSize;
+                }
+                jdbc.execute("ANALYZE members");
+                long[] indexed = time(WARMUP_ITERATIONS, MEASURED_ITERATIONS,
+                        () -> members.findSummariesByGroupId(probe.getId()));
+                long[] scan = time(1, SCAN_ITERATIONS, () -> tx.execute(s -> members.findAll().stream()
+                        .filter(m -> m.getGroup().getId().equals(probe.getId()))
+                        .map(MemberEntity::getId)
+                        .toList()));
+                System.out.printf("%10d %14d %14d %14d%n", existing,
+                        indexed[indexed.length / 2] / 1_000,
+                        indexed[(int) (indexed.length * 0.99)] / 1_000,
+                        scan[scan.length / 2] / 1_000);
+            }
+            // Remove the synthetic rows so the benchmark can be re-run.
+            for (Long groupId : groupIds) {
+                jdbc.update("DELETE FROM members WHERE group_id = ?", groupId);
+                jdbc.update("DELETE FROM groups WHERE id = ?", groupId);
+            }
+        }
+    }
+
+    /**
+     * Run an operation repeatedly and return the sorted latencies in
+     * nanoseconds.
+     */
+    private static long[] time(int warmup, int iterations, Supplier<?> operation) {
+        for (int i = 0; i < warmup; i++) {
+            operation.get();
+        }
+        long[] samples = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            operation.get();
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples;
+    }
+
+    private static void insertMembers(JdbcTemplate jdbc, List<Long> groupIds, int count) {
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String email = "bench-" + System.nanoTime() + "-" + i + "@example.com";
+            rows.add(new Object[] {email, email, "MEMBER", groupIds.get(i % groupIds.size())});
+        }
+        jdbc.batchUpdate("INSERT INTO members (email, email_normalized, role, group_id) VALUES (?, ?, ?, ?)", rows);
+    }
+}
@@ -0,0 +1,41 @@
+package org.ncsu.settleup.membershipservice.config;
+
+import org.junit.jupiter.api.Test;
+import org.ncsu.settleup.membershipservice.service.MembershipCache;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link CacheAdminEndpoint}.
+ */
+class CacheAdminEndpointTest {
+
+    private final MembershipCache membershipCache = mock(MembershipCache.class);
+    private final CacheAdminEndpoint endpoint = new CacheAdminEndpoint(membershipCache);
+
+    @Test
+    void clearRegion_clearsAKnownRegion() {
+        when(membershipCache.hasRegion(CacheRegions.MEMBER)).thenReturn(true);
+
+        WebEndpointResponse<String> response = endpoint.clearRegion(CacheRegions.MEMBER);
+
+        assertEquals(WebEndpointResponse.STATUS_OK, response.getStatus());
+        verify(membershipCache).clear(CacheRegions.MEMBER);
+    }
+
+    @Test
+    void clearRegion_returnsNotFoundForAnUnknownRegion() {
+        WebEndpointResponse<String> response = endpoint.clearRegion("membership.unknown");
+
+        assertEquals(WebEndpointResponse.STATUS_NOT_FOUND, response.getStatus());
+        verify(membershipCache, never()).clear(anyString());
+    }
+
+    @Test
+    void clearAll_clearsEveryRegion() {
+        assertEquals(WebEndpointResponse.STATUS_OK, endpoint.clearAll().getStatus());
+        verify(membershipCache).clearAll();
+    }
+}
@@ -0,0 +1,89 @@
+package org.ncsu.settleup.membershipservice.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ncsu.settleup.membershipservice.model.MemberGroupSummary;
+import org.ncsu.settleup.membershipservice.repo.MemberRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link MemberLookupController}.  The repository is
+ * mocked and the controller methods are invoked directly.
+ */
+class MemberLookupControllerTest {
+
+    private MemberRepository memberRepository;
+    private MemberLookupController controller;
+
+    @BeforeEach
+    void setUp() {
+        memberRepository = mock(MemberRepository.class);
+        controller = new MemberLookupController(memberRepository);
+    }
+
+    @Test
+    void getGroupsByEmail_looksUpTheNormalisedEmail() {
+        List<MemberGroupSummary> groups = List.of(new MemberGroupSummary(7L, "Trip", "USD", 1L, "ADMIN"));
+        when(memberRepository.findGroupsByNormalizedEmail("ann@example.com")).thenReturn(groups);
+
+        ResponseEntity<Object> response = controller.getGroupsByEmail(" Ann@Example.com ");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(groups, response.getBody());
+    }
+
+    @Test
+    void getGroupsByEmail_blankEmail_isRejected() {
+        assertEquals(HttpStatus.BAD_REQUEST, controller.getGroupsByEmail("  ").getStatusCode());
+        verifyNoInteractions(memberRepository);
+    }
+
+    @Test
+    void suggestEmails_escapesWildcardsAndTheEscapeCharacter() {
+        when(memberRepository.findNormalizedEmailsInGroupLike(anyLong(), anyString(), any())).thenReturn(List.of());
+
+        controller.suggestEmails(7L, " A_b%c!", MemberLookupController.DEFAULT_SUGGESTIONS);
+
+        verify(memberRepository).findNormalizedEmailsInGroupLike(7L, "a!_b!%c!!%",
+                PageRequest.of(0, MemberLookupController.DEFAULT_SUGGESTIONS));
+    }
+
+    @Test
+    void suggestEmails_capsTheLimit() {
+        when(memberRepository.findNormalizedEmailsInGroupLike(anyLong(), anyString(), any()))
+                .thenReturn(List.of("ann@example.com"));
+
+        ResponseEntity<Object> response = controller.suggestEmails(7L, "ann", 1000);
+        controller.suggestEmails(7L, "ann", 0);
+
+        assertEquals(List.of("ann@example.com"), response.getBody());
+        verify(memberRepository).findNormalizedEmailsInGroupLike(7L, "ann%",
+                PageRequest.of(0, MemberLookupController.MAX_SUGGESTIONS));
+        verify(memberRepository).findNormalizedEmailsInGroupLike(7L, "ann%", PageRequest.of(0, 1));
+    }
+
+    @Test
+    void suggestEmails_onlySearchesTheGivenGroup() {
+        when(memberRepository.findNormalizedEmailsInGroupLike(8L, "ann%", PageRequest.of(0, 10)))
+                .thenReturn(List.of("ann@example.com"));
+
+        ResponseEntity<Object> response = controller.suggestEmails(8L, "Ann", 10);
+
+        assertEquals(List.of("ann@example.com"), response.getBody());
+        verify(memberRepository, never()).findNormalizedEmailsInGroupLike(eq(7L), anyString(), any());
+    }
+
+    @Test
+    void suggestEmails_shortPrefix_isRejected() {
+        assertEquals(HttpStatus.BAD_REQUEST, controller.suggestEmails(7L, " ", 10).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, controller.suggestEmails(7L, " an ", 10).getStatusCode());
+        verifyNoInteractions(memberRepository);
+    }
+}
@@ -0,0 +1,230 @@
+package org.ncsu.settleup.membershipservice.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ncsu.settleup.membershipservice.model.CategorySummary;
+import org.ncsu.settleup.membershipservice.model.GroupSummary;
+import org.ncsu.settleup.membershipservice.model.MemberSummary;
+import org.ncsu.settleup.membershipservice.repo.CategoryRepository;
+import org.ncsu.settleup.membershipservice.repo.GroupRepository;
+import org.ncsu.settleup.membershipservice.repo.MemberRepository;
+import org.ncsu.settleup.membershipservice.service.GroupDeletionService;
+import org.ncsu.settleup.membershipservice.service.GroupExportService;
+import org.ncsu.settleup.membershipservice.service.MemberImportService;
+import org.ncsu.settleup.membershipservice.service.MembershipCache;
+import org.ncsu.settleup.membershipservice.service.MembershipEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link MembershipController}.  Repositories and services
+ * are mocked and the controller methods are invoked directly.
+ */
+class MembershipControllerTest {
+
+    private static final GroupSummary TRIP = new GroupSummary(3L, "Trip", "USD");
+    private static final GroupSummary FLAT = new GroupSummary(8L, "Flat", "EUR");
+
+    private GroupRepository groupRepository;
+    private MemberRepository memberRepository;
+    private CategoryRepository categoryRepository;
+    private MembershipController controller;
+
+    @BeforeEach
+    void setUp() {
+        groupRepository = mock(GroupRepository.class);
+        memberRepository = mock(MemberRepository.class);
+        categoryRepository = mock(CategoryRepository.class);
+        controller = new MembershipController(groupRepository, memberRepository, categoryRepository,
+                mock(MembershipEventPublisher.class), mock(MembershipCache.class),
+                mock(MemberImportService.class), mock(GroupDeletionService.class), mock(GroupExportService.class));
+    }
+
+    @Test
+    void getGroups_fullPage_pointsToTheLastGroup() {
+        when(groupRepository.findSummariesAfter(0L, PageRequest.of(0, 2))).thenReturn(List.of(TRIP, FLAT));
+
+        ResponseEntity<Object> response = controller.getGroups(null, 2, null, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(new MembershipController.GroupPage(List.of(TRIP, FLAT), 8L), response.getBody());
+    }
+
+    @Test
+    void getGroups_lastPage_hasNoCursor() {
+        when(groupRepository.findSummariesAfter(8L, PageRequest.of(0, 2))).thenReturn(List.of(FLAT));
+
+        ResponseEntity<Object> response = controller.getGroups(8L, 2, null, null);
+
+        assertEquals(new MembershipController.GroupPage(List.of(FLAT), null), response.getBody());
+    }
+
+    @Test
+    void getGroups_clampsThePageSize() {
+        when(groupRepository.findSummariesAfter(eq(0L), any())).thenReturn(List.of());
+
+        controller.getGroups(null, 10_000, null, null);
+        controller.getGroups(null, 0, null, null);
+
+        verify(groupRepository).findSummariesAfter(0L, PageRequest.of(0, MembershipController.MAX_PAGE_SIZE));
+        verify(groupRepository).findSummariesAfter(0L, PageRequest.of(0, 1));
+    }
+
+    @Test
+    void getGroups_fields_returnsOnlyTheSelectedFieldsAndTheId() {
+        when(groupRepository.findSummariesAfter(0L, PageRequest.of(0, 50))).thenReturn(List.of(TRIP));
+
+        ResponseEntity<Object> response = controller.getGroups(null, 50, null, List.of("name"));
+
+        MembershipController.GroupPage page = (MembershipController.GroupPage) response.getBody();
+        assertEquals(List.of(Map.of("id", 3L, "name", "Trip")), page.groups());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void getGroups_unknownField_isRejected() {
+        ResponseEntity<Object> response = controller.getGroups(null, 50, null, List.of("name", "members"));
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyNoInteractions(groupRepository);
+    }
+
+    @Test
+    void getGroups_namePrefix_isLowerCasedWithWildcardsEscaped() {
+        when(groupRepository.findSummariesByNameLikeAfter(anyString(), eq(0L), any())).thenReturn(List.of());
+
+        controller.getGroups(null, 50, "50%_Off!", null);
+
+        verify(groupRepository).findSummariesByNameLikeAfter("50!%!_off!!%", 0L, PageRequest.of(0, 50));
+        verify(groupRepository, never()).findSummariesAfter(anyLong(), any());
+    }
+
+    @Test
+    void getGroups_emptyNamePrefix_listsAllGroups() {
+        when(groupRepository.findSummariesAfter(0L, PageRequest.of(0, 50))).thenReturn(List.of(TRIP));
+
+        controller.getGroups(null, 50, "", null);
+
+        verify(groupRepository, never()).findSummariesByNameLikeAfter(anyString(), anyLong(), any());
+    }
+
+    @Test
+    void getGroupMembers_returnsTheSelectedSummaries() {
+        List<MemberSummary> members = List.of(new MemberSummary(1L, "a@example.com", "ADMIN"));
+        when(groupRepository.existsById(7L)).thenReturn(true);
+        when(memberRepository.findSummariesByGroupId(7L)).thenReturn(members);
+
+        ResponseEntity<List<MemberSummary>> response = controller.getGroupMembers(7L);
+
+        assertEquals(members, response.getBody());
+        verify(memberRepository, never()).findAll();
+    }
+
+    @Test
+    void getGroupMembers_unknownGroup_isNotFound() {
+        ResponseEntity<List<MemberSummary>> response = controller.getGroupMembers(7L);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertNull(response.getBody());
+        verifyNoInteractions(memberRepository);
+    }
+
+    @Test
+    void getGroupMembersPage_fullPage_pointsToTheLastMember() {
+        List<MemberSummary> members = List.of(new MemberSummary(4L, "a@example.com", "ADMIN"),
+                new MemberSummary(9L, "b@example.com", "MEMBER"));
+        when(groupRepository.existsById(7L)).thenReturn(true);
+        when(memberRepository.findSummariesByGroupIdAfter(7L, 2L, PageRequest.of(0, 2))).thenReturn(members);
+
+        ResponseEntity<Object> response = controller.getGroupMembersPage(7L, 2L, 2);
+
+        assertEquals(new MembershipController.MemberPage(members, 9L), response.getBody());
+    }
+
+    @Test
+    void getGroupMembersPage_clampsThePageSizeAndStartsAtTheBeginning() {
+        when(groupRepository.existsById(7L)).thenReturn(true);
+        when(memberRepository.findSummariesByGroupIdAfter(eq(7L), eq(0L), any())).thenReturn(List.of());
+
+        ResponseEntity<Object> response = controller.getGroupMembersPage(7L, null, 10_000);
+
+        assertEquals(new MembershipController.MemberPage(List.of(), null), response.getBody());
+        verify(memberRepository).findSummariesByGroupIdAfter(7L, 0L,
+                PageRequest.of(0, MembershipController.MAX_PAGE_SIZE));
+    }
+
+    @Test
+    void getGroupMembersPage_unknownGroup_isNotFound() {
+        ResponseEntity<Object> response = controller.getGroupMembersPage(7L, null, 10);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertEquals("Group not found", response.getBody());
+        verifyNoInteractions(memberRepository);
+    }
+
+    @Test
+    void getGroupCategoriesPage_lastPage_hasNoCursor() {
+        List<CategorySummary> categories = List.of(new CategorySummary(5L, "Food"));
+        when(groupRepository.existsById(7L)).thenReturn(true);
+        when(categoryRepository.findSummariesByGroupIdAfter(7L, 0L, PageRequest.of(0, 2))).thenReturn(categories);
+
+        ResponseEntity<Object> response = controller.getGroupCategoriesPage(7L, null, 2);
+
+        assertEquals(new MembershipController.CategoryPage(categories, null), response.getBody());
+    }
+
+    @Test
+    void getGroupCategoriesPage_unknownGroup_isNotFound() {
+        ResponseEntity<Object> response = controller.getGroupCategoriesPage(7L, null, 10);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        verifyNoInteractions(categoryRepository);
+    }
+
+    @Test
+    void getGroup_returnsTheSummaryWithoutLoadingTheEntity() {
+        when(groupRepository.findSummaryById(3L)).thenReturn(Optional.of(TRIP));
+
+        ResponseEntity<GroupSummary> response = controller.getGroup(3L);
+
+        assertEquals(TRIP, response.getBody());
+        verify(groupRepository, never()).findById(any());
+    }
+
+    @Test
+    void getGroup_unknownGroup_isNotFound() {
+        when(groupRepository.findSummaryById(3L)).thenReturn(Optional.empty());
+
+        assertEquals(HttpStatus.NOT_FOUND, controller.getGroup(3L).getStatusCode());
+    }
+
+    @Test
+    void headGroup_answersFromExistence() {
+        when(groupRepository.existsById(3L)).thenReturn(true);
+
+        assertEquals(HttpStatus.OK, controller.headGroup(3L).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, controller.headGroup(4L).getStatusCode());
+        verify(groupRepository, never()).findById(any());
+    }
+
+    @Test
+    void headMember_requiresTheMemberToBelongToTheGroup() {
+        when(memberRepository.existsByIdAndGroupId(1L, 7L)).thenReturn(true);
+
+        ResponseEntity<Void> found = controller.headMember(7L, 1L);
+        ResponseEntity<Void> otherGroup = controller.headMember(8L, 1L);
+
+        assertEquals(HttpStatus.OK, found.getStatusCode());
+        assertNull(found.getBody());
+        assertEquals(HttpStatus.NOT_FOUND, otherGroup.getStatusCode());
+        assertNull(otherGroup.getBody());
+    }
+}
@@ -0,0 +1,38 @@
+package org.ncsu.settleup.membershipservice.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link MemberEntity} email normalisation.
+ */
+class MemberEntityTest {
+
+    @Test
+    void normalizeEmail_trimsAndLowerCases() {
+        assertEquals("ann@example.com", MemberEntity.normalizeEmail("  Ann@Example.COM "));
+        assertEquals("", MemberEntity.normalizeEmail("   "));
+        assertNull(MemberEntity.normalizeEmail(null));
+    }
+
+    @Test
+    void constructor_setsTheNormalisedEmail() {
+        MemberEntity member = new MemberEntity(" Ann@Example.com", "MEMBER", null);
+
+        assertEquals(" Ann@Example.com", member.getEmail());
+        assertEquals("ann@example.com", member.getNormalizedEmail());
+    }
+
+    @Test
+    void setEmail_keepsTheNormalisedEmailInStep() {
+        MemberEntity member = new MemberEntity("ann@example.com", "MEMBER", null);
+
+        member.setEmail("BOB@example.com");
+        assertEquals("BOB@example.com", member.getEmail());
+        assertEquals("bob@example.com", member.getNormalizedEmail());
+
+        member.setEmail(null);
+        assertNull(member.getNormalizedEmail());
+    }
+}
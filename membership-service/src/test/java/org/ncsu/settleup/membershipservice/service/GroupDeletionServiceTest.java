@@ -0,0 +1,166 @@
+package org.ncsu.settleup.membershipservice.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.ncsu.settleup.membershipservice.repo.CategoryRepository;
+import org.ncsu.settleup.membershipservice.repo.GroupRepository;
+import org.ncsu.settleup.membershipservice.repo.MemberRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link GroupDeletionService}.  Repositories and the
+ * database are mocked; background jobs run on the service's own worker.
+ */
+class GroupDeletionServiceTest {
+
+    private GroupRepository groupRepository;
+    private MemberRepository memberRepository;
+    private CategoryRepository categoryRepository;
+    private JdbcTemplate jdbcTemplate;
+    private MembershipEventPublisher eventPublisher;
+    private MembershipCache membershipCache;
+    private GroupDeletionService deletionService;
+
+    @BeforeEach
+    void setUp() {
+        groupRepository = mock(GroupRepository.class);
+        memberRepository = mock(MemberRepository.class);
+        categoryRepository = mock(CategoryRepository.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        eventPublisher = mock(MembershipEventPublisher.class);
+        membershipCache = mock(MembershipCache.class);
+        deletionService = new GroupDeletionService(groupRepository, memberRepository, categoryRepository,
+                jdbcTemplate, mock(PlatformTransactionManager.class), eventPublisher, membershipCache,
+                10, 2, Duration.ofHours(1));
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(7L))).thenReturn(List.of(7L));
+        when(memberRepository.findIdsByGroupId(eq(7L), any())).thenReturn(List.of());
+        when(categoryRepository.findIdsByGroupId(eq(7L), any())).thenReturn(List.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        deletionService.shutdown();
+    }
+
+    private GroupDeletionService.DeletionJob awaitFinished(Long groupId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            GroupDeletionService.DeletionJob job = deletionService.job(groupId).orElseThrow();
+            if (job.status() != GroupDeletionService.Status.RUNNING) {
+                return job;
+            }
+            Thread.sleep(10);
+        }
+        return fail("Deletion did not finish");
+    }
+
+    @Test
+    void isLarge_comparesMembersAndCategoriesWithTheThreshold() {
+        when(memberRepository.countByGroupId(7L)).thenReturn(8L);
+        when(categoryRepository.countByGroupId(7L)).thenReturn(1L);
+        assertFalse(deletionService.isLarge(7L));
+
+        when(categoryRepository.countByGroupId(7L)).thenReturn(2L);
+        assertTrue(deletionService.isLarge(7L));
+    }
+
+    @Test
+    void delete_locksTheGroupThenDeletesWithSetBasedStatements() {
+        assertTrue(deletionService.delete(7L));
+
+        InOrder inOrder = inOrder(jdbcTemplate, memberRepository, categoryRepository, groupRepository,
+                eventPublisher, membershipCache);
+        inOrder.verify(jdbcTemplate).queryForList(contains("FOR UPDATE"), eq(Long.class), eq(7L));
+        inOrder.verify(memberRepository).bulkDeleteByGroupId(7L);
+        inOrder.verify(categoryRepository).bulkDeleteByGroupId(7L);
+        inOrder.verify(groupRepository).bulkDeleteById(7L);
+        inOrder.verify(eventPublisher).publish(eq(7L), eq(MembershipEventPublisher.GROUP_DELETED), any());
+        inOrder.verify(membershipCache).evictDeletedGroup(7L);
+    }
+
+    @Test
+    void delete_returnsFalseWithoutDeletingWhenTheGroupIsGone() {
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(8L))).thenReturn(List.of());
+
+        assertFalse(deletionService.delete(8L));
+
+        verify(memberRepository, never()).bulkDeleteByGroupId(any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void submit_deletesMembersAndCategoriesInBatchesBeforeTheGroup() throws Exception {
+        when(memberRepository.findIdsByGroupId(eq(7L), any()))
+                .thenReturn(List.of(1L, 2L), List.of(3L, 4L), List.of(5L), List.of());
+        when(categoryRepository.findIdsByGroupId(eq(7L), any())).thenReturn(List.of(9L), List.of());
+
+        GroupDeletionService.DeletionJob job = deletionService.submit(7L);
+        assertEquals(GroupDeletionService.Status.RUNNING, job.status());
+
+        GroupDeletionService.DeletionJob finished = awaitFinished(7L);
+        assertEquals(GroupDeletionService.Status.COMPLETED, finished.status());
+        assertNotNull(finished.finishedAt());
+        InOrder inOrder = inOrder(memberRepository, categoryRepository, groupRepository);
+        inOrder.verify(memberRepository).bulkDeleteByIdIn(List.of(1L, 2L));
+        inOrder.verify(memberRepository).bulkDeleteByIdIn(List.of(3L, 4L));
+        inOrder.verify(memberRepository).bulkDeleteByIdIn(List.of(5L));
+        inOrder.verify(categoryRepository).bulkDeleteByIdIn(List.of(9L));
+        inOrder.verify(groupRepository).bulkDeleteById(7L);
+        verify(memberRepository, times(3)).findIdsByGroupId(7L, PageRequest.of(0, 2));
+        verify(membershipCache, times(3)).evictMembers(7L);
+        verify(membershipCache).evictCategories(7L);
+    }
+
+    @Test
+    void submit_whileRunning_returnsTheSameJob() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(memberRepository.findIdsByGroupId(eq(7L), any())).thenAnswer(inv -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+
+        GroupDeletionService.DeletionJob first = deletionService.submit(7L);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        GroupDeletionService.DeletionJob second = deletionService.submit(7L);
+        release.countDown();
+
+        assertSame(first, second);
+        assertEquals(GroupDeletionService.Status.COMPLETED, awaitFinished(7L).status());
+        verify(groupRepository, times(1)).bulkDeleteById(7L);
+    }
+
+    @Test
+    void submit_recordsFailureAndCanBeRequestedAgain() throws Exception {
+        when(categoryRepository.findIdsByGroupId(eq(7L), any()))
+                .thenThrow(new IllegalStateException("database unavailable"))
+                .thenReturn(List.of());
+
+        deletionService.submit(7L);
+        GroupDeletionService.DeletionJob failed = awaitFinished(7L);
+        assertEquals(GroupDeletionService.Status.FAILED, failed.status());
+        assertEquals("database unavailable", failed.error());
+        verify(groupRepository, never()).bulkDeleteById(7L);
+
+        deletionService.submit(7L);
+        assertEquals(GroupDeletionService.Status.COMPLETED, awaitFinished(7L).status());
+    }
+
+    @Test
+    void job_isEmptyForGroupsNeverDeletedInTheBackground() {
+        assertTrue(deletionService.job(7L).isEmpty());
+    }
+}
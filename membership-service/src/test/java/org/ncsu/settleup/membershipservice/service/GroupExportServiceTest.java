@@ -0,0 +1,88 @@
+package org.ncsu.settleup.membershipservice.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.io.ByteArrayOutputStream;
+import java.sql.ResultSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link GroupExportService}.  The database is a mocked
+ * {@link JdbcTemplate} serving groups with IDs from 1 to a given count.
+ */
+class GroupExportServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private JdbcTemplate jdbcTemplate;
+    private GroupExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        exportService = new GroupExportService(jdbcTemplate, objectMapper);
+    }
+
+    private void groupsUpTo(long count) throws Exception {
+        long[] current = {0};
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("id")).thenAnswer(inv -> current[0]);
+        when(rs.getString("name")).thenAnswer(inv -> "Group " + current[0]);
+        when(rs.getString("base_currency")).thenReturn("USD");
+        doAnswer(inv -> {
+            RowCallbackHandler handler = inv.getArgument(1);
+            long afterId = inv.getArgument(2);
+            int limit = inv.getArgument(3);
+            for (long id = afterId + 1; id <= Math.min(count, afterId + limit); id++) {
+                current[0] = id;
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), anyLong(), anyInt());
+    }
+
+    @Test
+    void writeAll_writesEveryGroupInIdOrderAcrossBatches() throws Exception {
+        groupsUpTo(GroupExportService.BATCH_SIZE + 1);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.writeAll(out);
+
+        JsonNode groups = objectMapper.readTree(out.toByteArray());
+        assertEquals(GroupExportService.BATCH_SIZE + 1, groups.size());
+        assertEquals(1L, groups.get(0).get("id").asLong());
+        assertEquals("Group 1", groups.get(0).get("name").asText());
+        assertEquals("USD", groups.get(0).get("baseCurrency").asText());
+        assertEquals(GroupExportService.BATCH_SIZE + 1L, groups.get(GroupExportService.BATCH_SIZE).get("id").asLong());
+        verify(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), eq(0L), eq(GroupExportService.BATCH_SIZE));
+        verify(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class),
+                eq((long) GroupExportService.BATCH_SIZE), eq(GroupExportService.BATCH_SIZE));
+    }
+
+    @Test
+    void writeAll_stopsAfterAShortBatch() throws Exception {
+        groupsUpTo(GroupExportService.BATCH_SIZE - 1);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.writeAll(out);
+
+        assertEquals(GroupExportService.BATCH_SIZE - 1, objectMapper.readTree(out.toByteArray()).size());
+        verify(jdbcTemplate, times(1)).query(anyString(), any(RowCallbackHandler.class), anyLong(), anyInt());
+    }
+
+    @Test
+    void writeAll_withNoGroups_writesAnEmptyArray() throws Exception {
+        groupsUpTo(0);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.writeAll(out);
+
+        assertEquals("[]", out.toString());
+    }
+}
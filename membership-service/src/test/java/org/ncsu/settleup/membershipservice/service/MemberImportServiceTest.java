@@ -0,0 +1,187 @@
+package org.ncsu.settleup.membershipservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ncsu.settleup.membershipservice.model.MemberSummary;
+import org.ncsu.settleup.membershipservice.repo.MemberRepository;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link MemberImportService}.  Parsing runs for real;
+ * inserts are answered by a mocked {@link JdbcTemplate} that hands out
+ * increasing IDs.
+ */
+class MemberImportServiceTest {
+
+    private MemberRepository memberRepository;
+    private JdbcTemplate jdbcTemplate;
+    private MembershipEventPublisher eventPublisher;
+    private MembershipCache membershipCache;
+    private MemberImportService importService;
+    private final AtomicLong nextId = new AtomicLong(100);
+    private final List<Integer> chunkSizes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        memberRepository = mock(MemberRepository.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        eventPublisher = mock(MembershipEventPublisher.class);
+        membershipCache = mock(MembershipCache.class);
+        importService = new MemberImportService(memberRepository, jdbcTemplate,
+                mock(PlatformTransactionManager.class), eventPublisher, membershipCache, new ObjectMapper());
+        when(jdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class),
+                any(KeyHolder.class))).thenAnswer(inv -> {
+                    int size = inv.<BatchPreparedStatementSetter>getArgument(1).getBatchSize();
+                    KeyHolder keys = inv.getArgument(2);
+                    for (int i = 0; i < size; i++) {
+                        keys.getKeyList().add(Map.<String, Object>of("id", nextId.getAndIncrement()));
+                    }
+                    chunkSizes.add(size);
+                    return new int[size];
+                });
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void readCsv_withoutHeader_takesEmailThenRole() {
+        List<MemberImportService.Row> rows = importService.readCsv(stream("a@example.com,ADMIN\nb@example.com\n"));
+
+        assertEquals(List.of(new MemberImportService.Row("a@example.com", "ADMIN"),
+                new MemberImportService.Row("b@example.com", null)), rows);
+    }
+
+    @Test
+    void readCsv_keepsCommasAndQuotesInsideQuotedCells() {
+        String csv = "name,email,role\n"
+                + "\"Smith, J\",j@example.com,admin\n"
+                + "\"The \"\"Boss\"\"\",\"boss@example.com\",\"MEMBER\"\n";
+
+        List<MemberImportService.Row> rows = importService.readCsv(stream(csv));
+
+        assertEquals(List.of(new MemberImportService.Row("j@example.com", "admin"),
+                new MemberImportService.Row("boss@example.com", "MEMBER")), rows);
+    }
+
+    @Test
+    void readCsv_recognisesHeaderByColumnNames() {
+        List<MemberImportService.Row> rows = importService.readCsv(stream("Role,EMAIL\nMEMBER,a@example.com\n"));
+
+        assertEquals(List.of(new MemberImportService.Row("a@example.com", "MEMBER")), rows);
+    }
+
+    @Test
+    void readCsv_firstRowWithoutAtSignIsNotMistakenForHeader() {
+        List<MemberImportService.Row> rows = importService.readCsv(stream("local-user,ADMIN\n"));
+        assertEquals(List.of(new MemberImportService.Row("local-user", "ADMIN")), rows);
+    }
+
+    @Test
+    void readCsv_skipsBlankLines() {
+        List<MemberImportService.Row> rows = importService.readCsv(stream("\na@example.com\n  \n\nb@example.com\n"));
+
+        assertEquals(2, rows.size());
+    }
+
+    @Test
+    void readCsv_rejectsRowsWithoutEmail() {
+        assertThrows(IllegalArgumentException.class,
+                () -> importService.readCsv(stream("email,role\na@example.com,ADMIN\n,MEMBER\n")));
+    }
+
+    @Test
+    void readCsv_rejectsMoreThanMaxRows() {
+        StringBuilder csv = new StringBuilder("email\n");
+        for (int i = 0; i <= MemberImportService.MAX_ROWS; i++) {
+            csv.append("m").append(i).append("@example.com\n");
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> importService.readCsv(stream(csv.toString())));
+    }
+
+    @Test
+    void readJson_readsEmailAndRoleAndSkipsOtherFields() {
+        String json = "[{\"email\": \" a@example.com \", \"role\": \"ADMIN\", \"extra\": {\"x\": [1]}},"
+                + " {\"email\": \"b@example.com\"}]";
+
+        List<MemberImportService.Row> rows = importService.readJson(stream(json));
+
+        assertEquals(List.of(new MemberImportService.Row("a@example.com", "ADMIN"),
+                new MemberImportService.Row("b@example.com", null)), rows);
+    }
+
+    @Test
+    void readJson_rejectsMalformedInput() {
+        assertThrows(IllegalArgumentException.class, () -> importService.readJson(stream("{\"email\": \"a\"}")));
+        assertThrows(IllegalArgumentException.class, () -> importService.readJson(stream("[{\"email\": ")));
+        assertThrows(IllegalArgumentException.class, () -> importService.readJson(stream("[{\"role\": \"ADMIN\"}]")));
+        assertThrows(IllegalArgumentException.class, () -> importService.readJson(stream("[\"a@example.com\"]")));
+    }
+
+    @Test
+    void importMembers_skipsExistingAndRepeatedEmailsAndKeepsInputOrder() {
+        when(memberRepository.findSummariesByGroupId(7L))
+                .thenReturn(List.of(new MemberSummary(5L, "Old@Example.com", "MEMBER")));
+        List<MemberImportService.Row> rows = List.of(
+                new MemberImportService.Row("new@example.com", null),
+                new MemberImportService.Row("old@example.com ", "ADMIN"),
+                new MemberImportService.Row("NEW@example.com", null),
+                new MemberImportService.Row("other@example.com", "ADMIN"));
+
+        MemberImportService.ImportResult result = importService.importMembers(7L, rows);
+
+        assertEquals(2, result.created());
+        assertEquals(2, result.skipped());
+        assertEquals(List.of(100L, 5L, 100L, 101L), result.ids());
+        verify(eventPublisher).publishAll(eq(7L), eq(MembershipEventPublisher.MEMBER_ADDED), argThat(e -> e.size() == 2));
+        verify(membershipCache).evictMembers(7L);
+    }
+
+    @Test
+    void importMembers_insertsInChunksWithOneEventBatchEach() {
+        when(memberRepository.findSummariesByGroupId(7L)).thenReturn(List.of());
+        List<MemberImportService.Row> rows = new ArrayList<>();
+        for (int i = 0; i < 2 * MemberImportService.CHUNK_SIZE + 1; i++) {
+            rows.add(new MemberImportService.Row("m" + i + "@example.com", null));
+        }
+
+        MemberImportService.ImportResult result = importService.importMembers(7L, rows);
+
+        assertEquals(List.of(MemberImportService.CHUNK_SIZE, MemberImportService.CHUNK_SIZE, 1), chunkSizes);
+        verify(eventPublisher, times(3)).publishAll(eq(7L), eq(MembershipEventPublisher.MEMBER_ADDED), anyList());
+        assertEquals(rows.size(), result.created());
+        assertEquals(100L, result.ids().get(0));
+        assertEquals(100L + rows.size() - 1, result.ids().get(rows.size() - 1));
+    }
+
+    @Test
+    void importMembers_withNothingNew_insertsNothing() {
+        when(memberRepository.findSummariesByGroupId(7L))
+                .thenReturn(List.of(new MemberSummary(5L, "a@example.com", "MEMBER")));
+
+        MemberImportService.ImportResult result =
+                importService.importMembers(7L, List.of(new MemberImportService.Row("A@example.com", null)));
+
+        assertEquals(new MemberImportService.ImportResult(0, 1, List.of(5L)), result);
+        assertTrue(chunkSizes.isEmpty());
+        verifyNoInteractions(eventPublisher);
+    }
+}
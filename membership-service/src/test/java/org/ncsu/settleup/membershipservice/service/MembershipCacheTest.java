@@ -0,0 +1,152 @@
+package org.ncsu.settleup.membershipservice.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ncsu.settleup.membershipservice.config.CacheRegions;
+import org.ncsu.settleup.membershipservice.model.GroupEntity;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link MembershipCache}.  The Hibernate cache and its
+ * statistics are mocked.
+ */
+class MembershipCacheTest {
+    private static final String MEMBERS_ROLE = GroupEntity.class.getName() + ".members";
+    private static final String CATEGORIES_ROLE = GroupEntity.class.getName() + ".categories";
+
+    private Cache cache;
+    private Statistics statistics;
+    private MembershipCache membershipCache;
+
+    @BeforeEach
+    void setUp() {
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        SessionFactory sessionFactory = mock(SessionFactory.class);
+        cache = mock(Cache.class);
+        statistics = mock(Statistics.class);
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getCache()).thenReturn(cache);
+        when(sessionFactory.getStatistics()).thenReturn(statistics);
+        membershipCache = new MembershipCache(entityManagerFactory);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static void commit() {
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+    }
+
+    @Test
+    void evictMembers_inATransaction_waitsForTheCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        membershipCache.evictMembers(7L);
+        verifyNoInteractions(cache);
+
+        commit();
+        verify(cache).evictCollectionData(MEMBERS_ROLE, 7L);
+        verify(cache).evictQueryRegion(CacheRegions.MEMBER_QUERIES);
+        verifyNoMoreInteractions(cache);
+    }
+
+    @Test
+    void evictCategories_inATransaction_waitsForTheCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        membershipCache.evictCategories(7L);
+        verifyNoInteractions(cache);
+
+        commit();
+        verify(cache).evictCollectionData(CATEGORIES_ROLE, 7L);
+        verify(cache).evictQueryRegion(CacheRegions.CATEGORY_QUERIES);
+    }
+
+    @Test
+    void evictGroup_withoutATransaction_evictsImmediately() {
+        membershipCache.evictGroup(7L);
+
+        verify(cache).evictEntityData(GroupEntity.class, 7L);
+        verify(cache).evictQueryRegion(CacheRegions.GROUP_QUERIES);
+    }
+
+    @Test
+    void evictDeletedGroup_evictsTheGroupItsCollectionsAndEveryQueryRegion() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        membershipCache.evictDeletedGroup(7L);
+        verifyNoInteractions(cache);
+
+        commit();
+        verify(cache).evictEntityData(GroupEntity.class, 7L);
+        verify(cache).evictCollectionData(MEMBERS_ROLE, 7L);
+        verify(cache).evictCollectionData(CATEGORIES_ROLE, 7L);
+        verify(cache).evictQueryRegion(CacheRegions.GROUP_QUERIES);
+        verify(cache).evictQueryRegion(CacheRegions.MEMBER_QUERIES);
+        verify(cache).evictQueryRegion(CacheRegions.CATEGORY_QUERIES);
+    }
+
+    @Test
+    void evict_rolledBack_evictsNothing() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        membershipCache.evictMembers(7L);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        verifyNoInteractions(cache);
+    }
+
+    @Test
+    void regionStats_reportsHitRatioPerRegion() {
+        CacheRegionStatistics groups = mock(CacheRegionStatistics.class);
+        when(groups.getHitCount()).thenReturn(3L);
+        when(groups.getMissCount()).thenReturn(1L);
+        when(groups.getPutCount()).thenReturn(1L);
+        when(groups.getElementCountInMemory()).thenReturn(2L);
+        CacheRegionStatistics unused = mock(CacheRegionStatistics.class);
+        when(unused.getElementCountInMemory()).thenReturn(0L);
+        when(statistics.getDomainDataRegionStatistics(anyString())).thenReturn(unused);
+        when(statistics.getDomainDataRegionStatistics(CacheRegions.GROUP)).thenReturn(groups);
+
+        List<MembershipCache.RegionStats> stats = membershipCache.regionStats();
+
+        assertEquals(8, stats.size());
+        assertEquals(new MembershipCache.RegionStats(CacheRegions.GROUP, 3, 1, 1, 2, 0.75), stats.get(0));
+        assertEquals(new MembershipCache.RegionStats(CacheRegions.MEMBER, 0, 0, 0, 0, null), stats.get(1));
+        // Query regions are only created on first use
+        assertEquals(new MembershipCache.RegionStats(CacheRegions.GROUP_QUERIES, 0, 0, 0, -1, null),
+                stats.stream().filter(s -> s.region().equals(CacheRegions.GROUP_QUERIES)).findFirst().orElseThrow());
+    }
+
+    @Test
+    void hasRegion_knowsEntityAndQueryRegions() {
+        assertTrue(membershipCache.hasRegion(CacheRegions.GROUP_MEMBERS));
+        assertTrue(membershipCache.hasRegion(CacheRegions.CATEGORY_QUERIES));
+        assertFalse(membershipCache.hasRegion("membership.unknown"));
+    }
+
+    @Test
+    void clearAll_clearsEntityAndQueryRegions() {
+        membershipCache.clearAll();
+
+        verify(cache).evictAllRegions();
+        verify(cache).evictQueryRegions();
+    }
+}
@@ -0,0 +1,198 @@
+package org.ncsu.settleup.membershipservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.ncsu.settleup.common.events.GroupCreatedEvent;
+import org.ncsu.settleup.common.events.MemberAddedEvent;
+import org.ncsu.settleup.membershipservice.config.AmqpConfig;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link MembershipEventPublisher}.  The database and the
+ * broker are mocked; transactions are real where propagation matters.
+ */
+class MembershipEventPublisherTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private RabbitTemplate rabbitTemplate;
+    private RabbitOperations operations;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private MembershipEventPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        rabbitTemplate = mock(RabbitTemplate.class);
+        operations = mock(RabbitOperations.class);
+        publisher = new MembershipEventPublisher(jdbcTemplate, rabbitTemplate, objectMapper,
+                mock(PlatformTransactionManager.class), 200, Duration.ofSeconds(5), Duration.ofDays(7));
+        when(rabbitTemplate.invoke(any())).thenAnswer(inv ->
+                ((RabbitOperations.OperationsCallback<?>) inv.getArgument(0)).doInRabbit(operations));
+    }
+
+    private void reserveReturns(long groupId, int count, long last) {
+        when(jdbcTemplate.queryForObject(startsWith("INSERT INTO membership_group_sequences"),
+                eq(Long.class), eq(groupId), eq(count))).thenReturn(last);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void pendingEvent(long id, String eventType, Object event) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("id")).thenReturn(id);
+        when(rs.getString("event_type")).thenReturn(eventType);
+        when(rs.getString("payload")).thenReturn(objectMapper.writeValueAsString(event));
+        when(jdbcTemplate.query(startsWith("SELECT id, event_type, payload"), any(RowMapper.class),
+                any(Object[].class)))
+                .thenAnswer(inv -> List.of(((RowMapper<Object>) inv.getArgument(1)).mapRow(rs, 0)))
+                .thenReturn(List.of());
+    }
+
+    @Test
+    void publish_usesTheGroupsNextSequenceForEventAndRow() throws Exception {
+        reserveReturns(7L, 1, 3L);
+
+        long sequence = publisher.publish(7L, MembershipEventPublisher.GROUP_CREATED,
+                seq -> new GroupCreatedEvent(7L, "Trip", "USD", seq));
+
+        assertEquals(3L, sequence);
+        ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+        verify(jdbcTemplate).update(startsWith("INSERT INTO membership_outbox"), eq(7L), eq(3L),
+                eq(MembershipEventPublisher.GROUP_CREATED), payload.capture(), any(Timestamp.class));
+        assertEquals(new GroupCreatedEvent(7L, "Trip", "USD", 3L),
+                objectMapper.readValue((String) payload.getValue(), GroupCreatedEvent.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void publishAll_reservesOneRangeAndNumbersEventsInOrder() {
+        reserveReturns(7L, 3, 12L);
+
+        publisher.publishAll(7L, MembershipEventPublisher.MEMBER_ADDED, List.of(
+                seq -> new MemberAddedEvent(7L, 1L, "a@example.com", "MEMBER", seq),
+                seq -> new MemberAddedEvent(7L, 2L, "b@example.com", "MEMBER", seq),
+                seq -> new MemberAddedEvent(7L, 3L, "c@example.com", "MEMBER", seq)));
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO membership_outbox"), rows.capture());
+        assertEquals(List.of(10L, 11L, 12L), rows.getValue().stream().map(row -> row[1]).toList());
+        verify(jdbcTemplate, times(1)).queryForObject(anyString(), eq(Long.class), any(), any());
+    }
+
+    @Test
+    void publishAll_withNoEvents_reservesNothing() {
+        publisher.publishAll(7L, MembershipEventPublisher.MEMBER_ADDED, List.of());
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void publish_requiresAnExistingTransaction() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(mock(Connection.class));
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        ProxyFactory factory = new ProxyFactory(publisher);
+        factory.setProxyTargetClass(true);
+        factory.addAdvice(new TransactionInterceptor(transactionManager, new AnnotationTransactionAttributeSource()));
+        MembershipEventPublisher proxy = (MembershipEventPublisher) factory.getProxy();
+        reserveReturns(7L, 1, 1L);
+
+        assertThrows(IllegalTransactionStateException.class, () -> proxy.publish(7L,
+                MembershipEventPublisher.GROUP_CREATED, seq -> new GroupCreatedEvent(7L, "Trip", "USD", seq)));
+        verifyNoInteractions(jdbcTemplate);
+
+        Long sequence = new TransactionTemplate(transactionManager).execute(status -> proxy.publish(7L,
+                MembershipEventPublisher.GROUP_CREATED, seq -> new GroupCreatedEvent(7L, "Trip", "USD", seq)));
+        assertEquals(1L, sequence);
+    }
+
+    @Test
+    void relay_marksEventsPublishedOnlyAfterTheBrokerConfirms() throws Exception {
+        GroupCreatedEvent event = new GroupCreatedEvent(7L, "Trip", "USD", 1L);
+        pendingEvent(41L, MembershipEventPublisher.GROUP_CREATED, event);
+
+        publisher.relay();
+
+        InOrder inOrder = inOrder(operations, jdbcTemplate);
+        inOrder.verify(operations).convertAndSend(AmqpConfig.EXCHANGE_NAME,
+                MembershipEventPublisher.GROUP_CREATED, event);
+        inOrder.verify(operations).waitForConfirmsOrDie(5000L);
+        inOrder.verify(jdbcTemplate).batchUpdate(startsWith("UPDATE membership_outbox SET published_at = ?"),
+                argThat((List<Object[]> rows) -> rows.size() == 1 && rows.get(0)[1].equals(41L)));
+    }
+
+    @Test
+    void relay_leavesEventsPendingWhenTheBrokerDoesNotConfirm() throws Exception {
+        pendingEvent(41L, MembershipEventPublisher.GROUP_CREATED, new GroupCreatedEvent(7L, "Trip", "USD", 1L));
+        doThrow(new AmqpException("nacked")).when(operations).waitForConfirmsOrDie(anyLong());
+
+        assertThrows(AmqpException.class, () -> publisher.relay());
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void relay_claimsWholeGroupsBeforeTakingTheirEvents() throws Exception {
+        pendingEvent(41L, MembershipEventPublisher.GROUP_CREATED, new GroupCreatedEvent(7L, "Trip", "USD", 1L));
+
+        publisher.relay();
+
+        verify(jdbcTemplate).query(contains("pg_try_advisory_xact_lock(group_id)"), any(RowMapper.class),
+                eq(200), eq(200));
+    }
+
+    @Test
+    void resend_marksTheRangePendingAgain() {
+        when(jdbcTemplate.update(startsWith("UPDATE membership_outbox SET published_at = NULL"),
+                eq(7L), eq(2L), eq(5L))).thenReturn(4);
+
+        assertEquals(4, publisher.resend(7L, 2L, 5L));
+    }
+
+    @Test
+    void resend_rejectsInvalidRanges() {
+        assertThrows(IllegalArgumentException.class, () -> publisher.resend(7L, 0L, 5L));
+        assertThrows(IllegalArgumentException.class, () -> publisher.resend(7L, 5L, 4L));
+        assertThrows(IllegalArgumentException.class,
+                () -> publisher.resend(7L, 1L, MembershipEventPublisher.MAX_RESEND_RANGE + 1));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void purgePublished_deletesEventsOlderThanTheRetention() {
+        Instant before = Instant.now().minus(Duration.ofDays(7));
+
+        publisher.purgePublished();
+
+        ArgumentCaptor<Object> cutoff = ArgumentCaptor.forClass(Object.class);
+        verify(jdbcTemplate).update(startsWith("DELETE FROM membership_outbox WHERE published_at < ?"),
+                cutoff.capture());
+        Instant at = ((Timestamp) cutoff.getValue()).toInstant();
+        assertFalse(at.isBefore(before));
+        assertTrue(at.isBefore(Instant.now().minus(Duration.ofDays(6))));
+    }
+}
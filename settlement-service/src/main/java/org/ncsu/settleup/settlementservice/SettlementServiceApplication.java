@@ -1,19 +1,24 @@
 package org.ncsu.settleup.settlementservice;
 
 import org.springframework.amqp.rabbit.annotation.EnableRabbit;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+
 /**
  * Entry point for the settlement service.  This service listens for
- * expense events, maintains group balances in-memory and computes
- * settlement plans on demand.
+ * expense events, maintains group balances in-memory (with a persisted
+ * projection for warm starts) and computes settlement plans on demand.
  */
 @SpringBootApplication
 @EnableRabbit
+@EnableScheduling
 public class SettlementServiceApplication {
 
     public static void main(String[] args) {
@@ -22,9 +27,16 @@ public class SettlementServiceApplication {
 
     /**
      * RestTemplate bean to call other services (e.g. membership-service).
+     * Connecting and waiting for a response are both bounded, so a stuck
+     * backend cannot hold a calling thread indefinitely.
      */
     @Bean
-    public RestTemplate restTemplate(RestTemplateBuilder builder) {
-        return builder.build();
+    public RestTemplate restTemplate(RestTemplateBuilder builder,
+                                     @Value("${settlement.http.connect-timeout:PT1S}") Duration connectTimeout,
+                                     @Value("${settlement.http.read-timeout:PT2S}") Duration readTimeout) {
+        return builder
+                .setConnectTimeout(connectTimeout)
+                .setReadTimeout(readTimeout)
+                .build();
     }
 }
@@ -0,0 +1,60 @@
+package org.ncsu.settleup.settlementservice.client;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Client for interacting with the expense service.  It is used by the
+ * settlement service to ask for expense events it has missed to be
+ * published again, and to read a group's latest expenses for the group
+ * dashboard.
+ */
+@Service
+public class ExpenseClient {
+    @Value("${expense.service.url:http://localhost:8082}")
+    private String expenseServiceUrl;
+    private final RestTemplate restTemplate;
+
+    public ExpenseClient(RestTemplate restTemplate) {
+        this.restTemplate = restTemplate;
+    }
+
+    /**
+     * Ask the expense service to publish a group's events with sequence
+     * numbers from {@code from} to {@code to} (inclusive) again.
+     *
+     * @return true if the request was accepted
+     */
+    public boolean requestResend(Long groupId, long from, long to) {
+        try {
+            restTemplate.postForEntity(expenseServiceUrl + "/groups/" + groupId
+                    + "/events/resend?from=" + from + "&to=" + to, null, Object.class);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * The first page of a group's expenses.  Failures propagate as
+     * {@link org.springframework.web.client.RestClientException}.
+     *
+     * @param size number of expenses to ask for; the expense service caps it
+     */
+    public ExpensePage firstExpensePage(Long groupId, int size) {
+        ExpensePage page = restTemplate.getForObject(
+                expenseServiceUrl + "/groups/" + groupId + "/expenses?size=" + size, ExpensePage.class);
+        return page == null ? new ExpensePage(List.of(), null) : page;
+    }
+
+    /**
+     * One page of expenses as returned by the expense service.  Expenses
+     * are passed on as they were received.
+     */
+    public static record ExpensePage(List<Map<String, Object>> expenses, Long nextCursor) {
+    }
+}
@@ -6,14 +6,25 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpMethod;
+import org.springframework.web.client.HttpClientErrorException;
 
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 /**
  * Client for interacting with the membership service.  It is used by the
  * settlement service to verify the existence of groups and members
- * before recording or updating transfers.
+ * before recording or updating transfers, and to read a group's members
+ * and categories for the group dashboard.
+ *
+ * <p>The existence checks answer {@code false} when the call fails.  The
+ * read methods instead let failures other than a missing group propagate
+ * as {@link org.springframework.web.client.RestClientException}, so that
+ * callers can tell an empty group from an unreachable service.
  */
 @Service
 public class MembershipClient {
@@ -25,16 +36,41 @@ public class MembershipClient {
         this.restTemplate = restTemplate;
     }
 
+    /**
+     * Check whether a group exists with a HEAD request, which the
+     * membership service answers without serialising the group.
+     */
     public boolean groupExists(Long groupId) {
         try {
-            restTemplate.getForEntity(membershipServiceUrl + "/groups/" + groupId, Object.class);
+            restTemplate.headForHeaders(membershipServiceUrl + "/groups/" + groupId);
             return true;
         } catch (Exception e) {
             return false;
         }
     }
 
+    /**
+     * Check whether a member belongs to a group with a HEAD request for
+     * that member alone.
+     */
     public boolean memberExists(Long groupId, Long memberId) {
+        try {
+            restTemplate.headForHeaders(membershipServiceUrl + "/groups/" + groupId + "/members/" + memberId);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * IDs of all members of a group, fetched in one call so that callers
+     * checking several members do not go back to the membership service
+     * for each one.
+     *
+     * @param groupId the group identifier
+     * @return the member IDs, empty if the group has none or the call fails
+     */
+    public Set<Long> memberIds(Long groupId) {
         try {
             ResponseEntity<List<Map<String, Object>>> response = restTemplate.exchange(
                     membershipServiceUrl + "/groups/" + groupId + "/members",
@@ -44,17 +80,79 @@ public class MembershipClient {
             );
             List<Map<String, Object>> members = response.getBody();
             if (members == null) {
-                return false;
+                return Collections.emptySet();
             }
+            Set<Long> ids = new HashSet<>();
             for (Map<String, Object> member : members) {
                 Object idObj = member.get("id");
-                if (idObj instanceof Number num && num.longValue() == memberId) {
-                    return true;
+                if (idObj instanceof Number num) {
+                    ids.add(num.longValue());
                 }
             }
-            return false;
+            return ids;
         } catch (Exception e) {
-            return false;
+            return Collections.emptySet();
+        }
+    }
+
+    /**
+     * Fetch a group's own fields.
+     *
+     * @return the group, or empty if the membership service does not know it
+     */
+    public Optional<Group> findGroup(Long groupId) {
+        try {
+            return Optional.ofNullable(restTemplate.getForObject(
+                    membershipServiceUrl + "/groups/" + groupId, Group.class));
+        } catch (HttpClientErrorException e) {
+            if (e.getStatusCode().value() == 404) {
+                return Optional.empty();
+            }
+            throw e;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * All members of a group, in ID order.
+     */
+    public List<Member> listMembers(Long groupId) {
+        List<Member> members = restTemplate.exchange(
+                membershipServiceUrl + "/groups/" + groupId + "/members",
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<List<Member>>() {}
+        ).getBody();
+        return members == null ? List.of() : members;
+    }
+
+    /**
+     * All categories of a group, in ID order.
+     */
+    public List<Category> listCategories(Long groupId) {
+        List<Category> categories = restTemplate.exchange(
+                membershipServiceUrl + "/groups/" + groupId + "/categories",
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<List<Category>>() {}
+        ).getBody();
+        return categories == null ? List.of() : categories;
+    }
+
+    /**
+     * A group as returned by the membership service.
+     */
+    public static record Group(Long id, String name, String baseCurrency) {
+    }
+
+    /**
+     * A member of a group as returned by the membership service.
+     */
+    public static record Member(Long id, String email, String role) {
+    }
+
+    /**
+     * An expense category of a group as returned by the membership service.
+     */
+    public static record Category(Long id, String name) {
+    }
+}
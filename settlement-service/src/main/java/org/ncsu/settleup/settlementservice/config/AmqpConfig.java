@@ -1,5 +1,6 @@
 package org.ncsu.settleup.settlementservice.config;
 
+import org.ncsu.settleup.common.events.codec.BinaryEventMessageConverter;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
 import org.springframework.amqp.core.Queue;
@@ -7,18 +8,22 @@ import org.springframework.amqp.core.TopicExchange;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 
 /**
  * RabbitMQ configuration for the settlement service.  Declares a
- * durable queue bound to the application exchange so that expense
- * events can be consumed.
+ * durable queue per expense event type, bound to the application
+ * exchange, so that expense events can be consumed.  Incoming messages are decoded by content
+ * type, so JSON and binary encoded events can share the queue.
  */
 @Configuration
 public class AmqpConfig {
     public static final String EXCHANGE_NAME = "settleup.exchange";
     public static final String QUEUE_NAME = "settlement.expense.recorded.queue";
+    public static final String ADJUSTED_QUEUE_NAME = "settlement.expense.adjusted.queue";
 
     @Bean
     public TopicExchange topicExchange() {
@@ -35,11 +40,31 @@ public class AmqpConfig {
         return BindingBuilder.bind(queue).to(topicExchange).with("expense.recorded");
     }
 
+    @Bean
+    public Queue adjustedQueue() {
+        return new Queue(ADJUSTED_QUEUE_NAME, true);
+    }
+
+    @Bean
+    public Binding adjustedBinding(Queue adjustedQueue, TopicExchange topicExchange) {
+        return BindingBuilder.bind(adjustedQueue).to(topicExchange).with("expense.adjusted");
+    }
+
     @Bean
     public Jackson2JsonMessageConverter jackson2JsonMessageConverter() {
         return new Jackson2JsonMessageConverter();
     }
 
+    /**
+     * Converter used by the listener container: binary events are decoded
+     * with {@link BinaryEventMessageConverter}, everything else as JSON.
+     */
+    @Bean
+    @Primary
+    public MessageConverter eventMessageConverter(Jackson2JsonMessageConverter jsonConverter) {
+        return BinaryEventMessageConverter.delegatingConverter(jsonConverter);
+    }
+
     @Bean
     public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory,
                                          Jackson2JsonMessageConverter messageConverter) {
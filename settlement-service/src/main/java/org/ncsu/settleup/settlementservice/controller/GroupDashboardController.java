@@ -0,0 +1,47 @@
+package org.ncsu.settleup.settlementservice.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import org.ncsu.settleup.settlementservice.service.GroupDashboardService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * REST controller for the group dashboard: the group, its members,
+ * categories, latest expenses and settlement plan in one response
+ * instead of five.
+ */
+@RestController
+public class GroupDashboardController {
+    private final GroupDashboardService dashboardService;
+
+    public GroupDashboardController(GroupDashboardService dashboardService) {
+        this.dashboardService = dashboardService;
+    }
+
+    /**
+     * Everything the UI shows for one group.  The sections are loaded in
+     * parallel; a section whose backend fails or is too slow is marked
+     * as such while the others are still returned, so the response is
+     * 200 even when some sections are missing.  Each section carries the
+     * time it took.  An optional {@code minSequence} defers the settlement
+     * plan until that expense event has been applied, within the same
+     * deadline.
+     *
+     * @return the dashboard, or 404 if the group does not exist
+     */
+    @GetMapping("/groups/{groupId}/dashboard")
+    @Operation(summary = "Get a group's members, categories, expenses and settlement plan at once")
+    public CompletableFuture<ResponseEntity<Object>> getDashboard(@PathVariable Long groupId,
+                                                                  @RequestParam(required = false) Long minSequence) {
+        return dashboardService.load(groupId, minSequence)
+                .thenApply(dashboard -> dashboard
+                        .map(d -> ResponseEntity.ok((Object) d))
+                        .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).body("Group not found")));
+    }
+}
@@ -2,15 +2,25 @@ package org.ncsu.settleup.settlementservice.controller;
 
 import org.ncsu.settleup.common.dto.SettlementComputeRequest;
 import org.ncsu.settleup.common.dto.SettlementPlan;
+import org.ncsu.settleup.common.observability.GroupSizeBucket;
 import org.ncsu.settleup.settlementservice.model.Transfer;
 import org.ncsu.settleup.settlementservice.repo.TransferRepository;
+import org.ncsu.settleup.settlementservice.service.ExpenseEventListener;
 import org.ncsu.settleup.settlementservice.service.SettlementService;
+import org.ncsu.settleup.settlementservice.service.TransferService;
 import org.ncsu.settleup.settlementservice.client.MembershipClient;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 import io.swagger.v3.oas.annotations.Operation;
 
 import java.util.Optional;
@@ -24,32 +34,173 @@ public class SettlementController {
     private final SettlementService settlementService;
     private final TransferRepository transferRepository;
     private final MembershipClient membershipClient;
+    private final ExpenseEventListener expenseEventListener;
+    private final TransferService transferService;
     private static final String GROUP_NOT_FOUND_MESSAGE = "Group not found";
+    private static final String TRANSFER_NOT_FOUND_MESSAGE = "Transfer not found";
 
     public SettlementController(SettlementService settlementService,
                                 TransferRepository transferRepository,
-                                MembershipClient membershipClient) {
+                                MembershipClient membershipClient,
+                                ExpenseEventListener expenseEventListener,
+                                TransferService transferService) {
         this.settlementService = settlementService;
         this.transferRepository = transferRepository;
         this.membershipClient = membershipClient;
+        this.expenseEventListener = expenseEventListener;
+        this.transferService = transferService;
     }
 
     /**
      * Compute a settlement plan for the given group.  This endpoint
      * aggregates outstanding balances into a minimal set of transfers.
      *
-     * @param request group ID and base currency
+     * <p>If the request carries a {@code minSequence} returned by an
+     * expense write, the plan is computed once that event has been
+     * applied.  The wait is asynchronous and bounded; if it runs out the
+     * response is 503 with a {@code Retry-After} header.
+     *
+     * <p>When the request carries {@code constraints}, the plan is the
+     * cheapest one that respects them rather than the default largest-debt
+     * first pairing.  Constraints that leave a balance unsettled are
+     * rejected with 400.
+     *
+     * @param request group ID, base currency, optional minimum sequence
+     *                and optional constraints
      * @return a settlement plan
      */
     @PostMapping("/settlements/compute")
     @Operation(summary = "Compute a settlement plan for a group")
-    public ResponseEntity<Object> computeSettlement(@RequestBody SettlementComputeRequest request) {
+    public CompletableFuture<ResponseEntity<Object>> computeSettlement(@RequestBody SettlementComputeRequest request) {
         if (!membershipClient.groupExists(request.groupId())) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .<Object>body(GROUP_NOT_FOUND_MESSAGE));
+        }
+        return afterSequence(request.groupId(), request.minSequence(), () -> {
+            SettlementPlan plan = request.constraints() == null
+                    ? settlementService.computeSettlement(request.groupId())
+                    : settlementService.computeSettlement(request.groupId(), request.constraints(),
+                            request.constraints().preferPastPayees()
+                                    ? transferService.pastPayees(request.groupId()) : Map.of());
+            return ResponseEntity.ok((Object) plan);
+        });
+    }
+
+    /**
+     * Current net balances of a group.  Like settlement computation, an
+     * optional {@code minSequence} defers the response until that
+     * expense event has been applied.
+     */
+    @GetMapping("/groups/{groupId}/balances")
+    @Operation(summary = "Get the net balances of a group's members")
+    public CompletableFuture<ResponseEntity<Object>> getBalances(@PathVariable Long groupId,
+                                                                 @RequestParam(required = false) Long minSequence) {
+        if (!membershipClient.groupExists(groupId)) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .<Object>body(GROUP_NOT_FOUND_MESSAGE));
+        }
+        return afterSequence(groupId, minSequence, () -> ResponseEntity.ok((Object) new GroupBalances(
+                groupId,
+                settlementService.getBalances(groupId),
+                expenseEventListener.lastAppliedSequence(groupId))));
+    }
+
+    /**
+     * Build a response once the group's event {@code minSequence} has been
+     * applied, or right away when no minimum is given.  The request is
+     * tagged with the group's size at the same point, so the bucket
+     * reflects the state the response is built from.
+     */
+    private CompletableFuture<ResponseEntity<Object>> afterSequence(Long groupId, Long minSequence,
+                                                                    Supplier<ResponseEntity<Object>> response) {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        Supplier<ResponseEntity<Object>> tagged = () -> {
+            GroupSizeBucket.tagRequest(request, settlementService.getMemberCount(groupId));
+            return response.get();
+        };
+        if (minSequence == null) {
+            return CompletableFuture.completedFuture(tagged.get());
+        }
+        return expenseEventListener.whenApplied(groupId, minSequence)
+                .handleAsync((ignored, error) -> {
+                    if (error != null) {
+                        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                .header(HttpHeaders.RETRY_AFTER, "1")
+                                .<Object>body("Expense event " + minSequence + " of group " + groupId
+                                        + " has not been applied yet");
+                    }
+                    return tagged.get();
+                });
+    }
+
+    /**
+     * Net balances of a group and the last expense event sequence they include.
+     */
+    public static record GroupBalances(Long groupId, Map<Long, BigDecimal> balances, long appliedSequence) {
+    }
+
+    /**
+     * Whether a group keeps direct debts between members rather than
+     * simplifying them.
+     */
+    @GetMapping("/groups/{groupId}/pairwise-debts")
+    @Operation(summary = "Get whether a group keeps pairwise debts")
+    public ResponseEntity<Object> getPairwiseMode(@PathVariable Long groupId) {
+        if (!membershipClient.groupExists(groupId)) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .<Object>body(GROUP_NOT_FOUND_MESSAGE);
         }
-        SettlementPlan plan = settlementService.computeSettlement(request.groupId());
-        return ResponseEntity.ok((Object) plan);
+        return ResponseEntity.ok((Object) new PairwiseMode(settlementService.isPairwise(groupId)));
+    }
+
+    /**
+     * Switch a group into or out of pairwise mode.  In pairwise mode the
+     * settlement plan lists who owes whom directly, per the expenses and
+     * transfers recorded since the switch, instead of a simplified plan.
+     */
+    @PutMapping("/groups/{groupId}/pairwise-debts")
+    @Operation(summary = "Turn pairwise debts on or off for a group")
+    public ResponseEntity<Object> setPairwiseMode(@PathVariable Long groupId, @RequestBody PairwiseMode request) {
+        if (!membershipClient.groupExists(groupId)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .<Object>body(GROUP_NOT_FOUND_MESSAGE);
+        }
+        settlementService.setPairwise(groupId, request.enabled());
+        return ResponseEntity.ok((Object) new PairwiseMode(settlementService.isPairwise(groupId)));
+    }
+
+    /**
+     * Direct debts between a member of a pairwise group and the other
+     * members.
+     */
+    @GetMapping("/groups/{groupId}/members/{memberId}/debts")
+    @Operation(summary = "Get a member's direct debts within a pairwise group")
+    public ResponseEntity<Object> getMemberDebts(@PathVariable Long groupId, @PathVariable Long memberId) {
+        if (!membershipClient.groupExists(groupId)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .<Object>body(GROUP_NOT_FOUND_MESSAGE);
+        }
+        if (!settlementService.isPairwise(groupId)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .<Object>body("Group does not keep pairwise debts");
+        }
+        return ResponseEntity.ok((Object) new MemberDebts(groupId, memberId,
+                settlementService.getMemberDebts(groupId, memberId)));
+    }
+
+    /**
+     * Debt mode of a group.
+     *
+     * @param enabled whether the group keeps pairwise debts
+     */
+    public static record PairwiseMode(boolean enabled) {
+    }
+
+    /**
+     * Direct debts of one member.  Each amount is what the other member
+     * owes this one, negative when this member owes them.
+     */
+    public static record MemberDebts(Long groupId, Long memberId, Map<Long, BigDecimal> debts) {
     }
 
     /**
@@ -93,7 +244,7 @@ public class SettlementController {
     @Operation(summary = "Retrieve a transfer by ID")
     public ResponseEntity<Transfer> getTransfer(@PathVariable Long id) {
         Optional<Transfer> transfer = transferRepository.findById(id);
-        return transfer.map(ResponseEntity::ok)
+        return transfer.map(t -> tagged(ResponseEntity.ok(), t).body(t))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -107,84 +258,188 @@ public class SettlementController {
                                          String note) {
     }
 
+    /**
+     * Record every transfer of a settlement plan in one request.  Group
+     * membership is fetched once for all transfers, the plan is checked
+     * against the current balances, and the transfers are saved together
+     * with their combined effect on the balances.  A plan whose
+     * {@code version} no longer matches the group's balances is rejected
+     * with 409.
+     */
+    @PostMapping("/groups/{groupId}/settlements")
+    @ResponseStatus(HttpStatus.CREATED)
+    @Operation(summary = "Record all transfers of a settlement plan at once")
+    public ResponseEntity<Object> recordSettlement(@PathVariable Long groupId,
+                                                   @RequestBody SettlementRequest request) {
+        if (!membershipClient.groupExists(groupId)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .<Object>body(GROUP_NOT_FOUND_MESSAGE);
+        }
+        if (request.transfers() == null || request.transfers().isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .<Object>body("At least one transfer is required");
+        }
+        Set<Long> memberIds = membershipClient.memberIds(groupId);
+        for (SettlementPlan.TransferDto transfer : request.transfers()) {
+            if (!memberIds.contains(transfer.fromMemberId()) || !memberIds.contains(transfer.toMemberId())) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .<Object>body("From or To member does not exist or is not part of the group");
+            }
+            if (transfer.fromMemberId().equals(transfer.toMemberId())) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .<Object>body("A member cannot pay themselves");
+            }
+            if (transfer.amount() == null || transfer.amount().signum() <= 0) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .<Object>body("Transfer amounts must be positive");
+            }
+        }
+        List<Transfer> saved = transferService.recordPlan(groupId, request.transfers(), request.version(),
+                request.note());
+        return ResponseEntity.status(HttpStatus.CREATED).body((Object) saved);
+    }
+
+    /**
+     * Request body for recording a whole settlement plan.  The transfers
+     * and version are those of the {@link SettlementPlan} returned by
+     * {@code /settlements/compute}; the note is stored on every transfer.
+     */
+    public static record SettlementRequest(List<SettlementPlan.TransferDto> transfers,
+                                           Long version,
+                                           String note) {
+    }
+
     /**
      * Update an existing transfer.  When a transfer is updated, the old transfer
      * effects are reversed and the new values are applied to the in-memory balances.
+     *
+     * <p>The update is a compare-and-set on the transfer's version and the
+     * balances are adjusted only once it commits.  Send the transfer's
+     * {@code ETag} as {@code If-Match} to fail with 409 instead of
+     * overwriting a concurrent change.
      */
     @PutMapping("/transfers/{id}")
     @Operation(summary = "Update an existing transfer and adjust balances")
     public ResponseEntity<Object> updateTransfer(@PathVariable Long id,
-                                                 @RequestBody TransferRequest request) {
-        return transferRepository.findById(id)
-                .map(existing -> {
-                    // Validate group and members exist
-                    if (!membershipClient.groupExists(request.groupId())) {
-                        return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                                .<Object>body(GROUP_NOT_FOUND_MESSAGE);
-                    }
-                    if (!membershipClient.memberExists(request.groupId(), request.fromMemberId()) ||
-                            !membershipClient.memberExists(request.groupId(), request.toMemberId())) {
-                        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                                .<Object>body("From or To member does not exist or is not part of the group");
-                    }
-                    // Reverse the old transfer
-                    settlementService.applyTransfer(
-                            existing.getGroupId(),
-                            existing.getToMemberId(),
-                            existing.getFromMemberId(),
-                            existing.getAmount()
-                    );
-                    // Apply new values
-                    existing.setGroupId(request.groupId());
-                    existing.setFromMemberId(request.fromMemberId());
-                    existing.setToMemberId(request.toMemberId());
-                    existing.setAmount(request.amount());
-                    existing.setNote(request.note());
-                    Transfer saved = transferRepository.save(existing);
-                    // Apply the new transfer to balances
-                    settlementService.applyTransfer(
-                            saved.getGroupId(),
-                            saved.getFromMemberId(),
-                            saved.getToMemberId(),
-                            saved.getAmount()
-                    );
-                    return ResponseEntity.ok((Object) saved);
-                })
+                                                 @RequestBody TransferRequest request,
+                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = versionOf(ifMatch);
+        if (!transferRepository.existsById(id)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .<Object>body(TRANSFER_NOT_FOUND_MESSAGE);
+        }
+        // Validate group and members exist
+        if (!membershipClient.groupExists(request.groupId())) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .<Object>body(GROUP_NOT_FOUND_MESSAGE);
+        }
+        if (!membershipClient.memberExists(request.groupId(), request.fromMemberId()) ||
+                !membershipClient.memberExists(request.groupId(), request.toMemberId())) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .<Object>body("From or To member does not exist or is not part of the group");
+        }
+        Transfer values = new Transfer();
+        values.setGroupId(request.groupId());
+        values.setFromMemberId(request.fromMemberId());
+        values.setToMemberId(request.toMemberId());
+        values.setAmount(request.amount());
+        values.setNote(request.note());
+        return transferService.updateTransfer(id, values, expectedVersion)
+                .map(saved -> tagged(ResponseEntity.ok(), saved).body((Object) saved))
                 .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .<Object>body("Transfer not found"));
+                        .<Object>body(TRANSFER_NOT_FOUND_MESSAGE));
     }
 
     /**
      * Delete a transfer.  Removing a transfer reverses its effects on the in-memory balances.
+     * Like updates, deletes honour {@code If-Match} and reverse the
+     * balances only once the deletion commits.
      */
     @DeleteMapping("/transfers/{id}")
     @Operation(summary = "Delete a transfer and reverse its effects")
-    public ResponseEntity<String> deleteTransfer(@PathVariable Long id) {
-        return transferRepository.findById(id)
-                .map(existing -> {
-                    settlementService.applyTransfer(
-                            existing.getGroupId(),
-                            existing.getToMemberId(),
-                            existing.getFromMemberId(),
-                            existing.getAmount()
-                    );
-                    transferRepository.delete(existing);
-                    return ResponseEntity.ok("Transfer deleted successfully");
-                })
-                .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).body("Transfer not found"));
+    public ResponseEntity<String> deleteTransfer(@PathVariable Long id,
+                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (!transferService.deleteTransfer(id, versionOf(ifMatch))) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(TRANSFER_NOT_FOUND_MESSAGE);
+        }
+        return ResponseEntity.ok("Transfer deleted successfully");
+    }
+
+    /**
+     * Add the transfer's version as its {@code ETag}.
+     */
+    private static ResponseEntity.BodyBuilder tagged(ResponseEntity.BodyBuilder builder, Transfer transfer) {
+        return transfer.getVersion() == null ? builder : builder.eTag(transfer.getVersion().toString());
+    }
+
+    /**
+     * Parse an {@code If-Match} header carrying a transfer {@code ETag}.
+     * A missing header or {@code *} matches any version.
+     */
+    static Long versionOf(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        try {
+            return Long.valueOf(tag.replace("\"", ""));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid If-Match header");
+        }
     }
 
     /**
-     * List transfers for a given group.
+     * List transfers for a given group one page at a time, newest first.
+     * Pass the {@code nextCursor} of the previous page as {@code cursor}
+     * to continue.  The page size is capped at
+     * {@link TransferService#MAX_PAGE_SIZE}.
      */
     @GetMapping("/groups/{groupId}/transfers")
-    @Operation(summary = "List transfers for a group")
-    public ResponseEntity<Object> getTransfersForGroup(@PathVariable Long groupId) {
+    @Operation(summary = "List transfers for a group (keyset paginated)")
+    public ResponseEntity<Object> getTransfersForGroup(@PathVariable Long groupId,
+                                                       @RequestParam(required = false) String cursor,
+                                                       @RequestParam(defaultValue = "" + TransferService.DEFAULT_PAGE_SIZE) int size) {
         if (!membershipClient.groupExists(groupId)) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .<Object>body(GROUP_NOT_FOUND_MESSAGE);
         }
-        List<Transfer> transfers = transferRepository.findByGroupId(groupId);
-        return ResponseEntity.ok((Object) transfers);
+        int pageSize = Math.max(1, Math.min(size, TransferService.MAX_PAGE_SIZE));
+        List<Transfer> transfers = transferService.findGroupHistory(groupId, cursor, pageSize);
+        return ResponseEntity.ok((Object) TransferPage.of(transfers, pageSize));
+    }
+
+    /**
+     * List the transfers a member paid or received within a group, one
+     * page at a time and newest first.
+     */
+    @GetMapping("/groups/{groupId}/members/{memberId}/transfers")
+    @Operation(summary = "List a member's transfers within a group (keyset paginated)")
+    public ResponseEntity<Object> getTransfersForMember(@PathVariable Long groupId,
+                                                        @PathVariable Long memberId,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(defaultValue = "" + TransferService.DEFAULT_PAGE_SIZE) int size) {
+        if (!membershipClient.groupExists(groupId)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .<Object>body(GROUP_NOT_FOUND_MESSAGE);
+        }
+        int pageSize = Math.max(1, Math.min(size, TransferService.MAX_PAGE_SIZE));
+        List<Transfer> transfers = transferService.findMemberHistory(groupId, memberId, cursor, pageSize);
+        return ResponseEntity.ok((Object) TransferPage.of(transfers, pageSize));
+    }
+
+    /**
+     * One page of transfer history.  {@code nextCursor} is opaque and is
+     * {@code null} when there are no more pages.
+     */
+    public static record TransferPage(List<Transfer> transfers, String nextCursor) {
+
+        static TransferPage of(List<Transfer> transfers, int pageSize) {
+            boolean full = !transfers.isEmpty() && transfers.size() >= pageSize;
+            String next = full ? TransferService.cursorOf(transfers.get(transfers.size() - 1)) : null;
+            return new TransferPage(transfers, next);
+        }
     }
 }
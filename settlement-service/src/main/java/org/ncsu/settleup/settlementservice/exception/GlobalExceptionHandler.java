@@ -1,5 +1,6 @@
 package org.ncsu.settleup.settlementservice.exception;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -28,6 +29,33 @@ public class GlobalExceptionHandler {
                 .body(ex.getMessage());
     }
 
+    /**
+     * Handle a settlement plan recorded against balances that have since
+     * changed.  Returns 409 so the caller knows to compute a new plan.
+     *
+     * @param ex the exception
+     * @return a conflict response containing the error message
+     */
+    @ExceptionHandler(StalePlanException.class)
+    public ResponseEntity<String> handleStalePlan(StalePlanException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ex.getMessage());
+    }
+
+    /**
+     * Handle a transfer edit that lost a race with a concurrent change, or
+     * whose {@code If-Match} version is stale.  Returns 409 so the caller
+     * can read the transfer again and retry.
+     *
+     * @param ex the exception
+     * @return a conflict response containing the error message
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ex.getMessage());
+    }
+
     /**
      * Catch-all handler for unexpected runtime exceptions.  Returns
      * an internal server error response without exposing sensitive
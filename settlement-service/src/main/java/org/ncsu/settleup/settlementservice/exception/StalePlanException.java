@@ -0,0 +1,14 @@
+package org.ncsu.settleup.settlementservice.exception;
+
+/**
+ * Thrown when a settlement plan is recorded after the group's balances
+ * have changed since the plan was computed.  The caller should compute
+ * a new plan and try again.
+ */
+public class StalePlanException extends RuntimeException {
+
+    public StalePlanException(Long groupId, long planVersion) {
+        super("Balances of group " + groupId + " changed since plan version " + planVersion
+                + " was computed; compute a new plan");
+    }
+}
@@ -0,0 +1,60 @@
+package org.ncsu.settleup.settlementservice.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Position of a group's persisted balances: the ledger version of the
+ * last {@link MemberBalance} write and the last expense event sequence
+ * those balances include.  A warm start resumes the group's event stream
+ * after {@code appliedSequence}.
+ */
+@Entity
+@Table(name = "group_ledgers")
+public class GroupLedger {
+    @Id
+    private Long groupId;
+
+    private Long version;
+
+    private Long appliedSequence;
+
+    /** Whether the group keeps direct debts in {@link MemberPairDebt} rows. */
+    private boolean pairwiseDebts;
+
+    public GroupLedger() {
+    }
+
+    public Long getGroupId() {
+        return groupId;
+    }
+
+    public void setGroupId(Long groupId) {
+        this.groupId = groupId;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Long getAppliedSequence() {
+        return appliedSequence;
+    }
+
+    public void setAppliedSequence(Long appliedSequence) {
+        this.appliedSequence = appliedSequence;
+    }
+
+    public boolean isPairwiseDebts() {
+        return pairwiseDebts;
+    }
+
+    public void setPairwiseDebts(boolean pairwiseDebts) {
+        this.pairwiseDebts = pairwiseDebts;
+    }
+}
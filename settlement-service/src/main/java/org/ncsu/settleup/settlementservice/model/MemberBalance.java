@@ -0,0 +1,102 @@
+package org.ncsu.settleup.settlementservice.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Persisted copy of one member's net balance within a group.  Rows are
+ * written behind the in-memory ledger by
+ * {@link org.ncsu.settleup.settlementservice.service.BalanceProjection}
+ * and read back on startup, so other readers and a restarted instance
+ * do not depend on the heap of the instance that applied the events.
+ */
+@Entity
+@Table(name = "member_balances")
+@IdClass(MemberBalance.Key.class)
+public class MemberBalance {
+    @Id
+    private Long groupId;
+
+    @Id
+    private Long memberId;
+
+    /** Net balance; positive amounts are owed to the member. */
+    @Column(precision = 38, scale = 2)
+    private BigDecimal amount;
+
+    /** Group ledger version the amount was taken at. */
+    private Long version;
+
+    public MemberBalance() {
+    }
+
+    public Long getGroupId() {
+        return groupId;
+    }
+
+    public void setGroupId(Long groupId) {
+        this.groupId = groupId;
+    }
+
+    public Long getMemberId() {
+        return memberId;
+    }
+
+    public void setMemberId(Long memberId) {
+        this.memberId = memberId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    /**
+     * Composite primary key of a member balance row.
+     */
+    public static class Key implements Serializable {
+        private Long groupId;
+        private Long memberId;
+
+        public Key() {
+        }
+
+        public Key(Long groupId, Long memberId) {
+            this.groupId = groupId;
+            this.memberId = memberId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key other)) {
+                return false;
+            }
+            return Objects.equals(groupId, other.groupId) && Objects.equals(memberId, other.memberId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(groupId, memberId);
+        }
+    }
+}
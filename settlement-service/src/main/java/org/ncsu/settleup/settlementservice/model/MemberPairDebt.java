@@ -0,0 +1,116 @@
+package org.ncsu.settleup.settlementservice.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Persisted direct debt between two members of a group in pairwise mode.
+ * There is one row per pair of members, keyed with the lower member ID
+ * first.  Rows are written behind the in-memory matrix by
+ * {@link org.ncsu.settleup.settlementservice.service.BalanceProjection}
+ * and read back on startup.
+ */
+@Entity
+@Table(name = "member_pair_debts")
+@IdClass(MemberPairDebt.Key.class)
+public class MemberPairDebt {
+    @Id
+    private Long groupId;
+
+    @Id
+    private Long lowMemberId;
+
+    @Id
+    private Long highMemberId;
+
+    /** What the lower member owes the higher one; negative if the debt runs the other way. */
+    @Column(precision = 38, scale = 2)
+    private BigDecimal amount;
+
+    /** Group ledger version the amount was taken at. */
+    private Long version;
+
+    public MemberPairDebt() {
+    }
+
+    public Long getGroupId() {
+        return groupId;
+    }
+
+    public void setGroupId(Long groupId) {
+        this.groupId = groupId;
+    }
+
+    public Long getLowMemberId() {
+        return lowMemberId;
+    }
+
+    public void setLowMemberId(Long lowMemberId) {
+        this.lowMemberId = lowMemberId;
+    }
+
+    public Long getHighMemberId() {
+        return highMemberId;
+    }
+
+    public void setHighMemberId(Long highMemberId) {
+        this.highMemberId = highMemberId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    /**
+     * Composite primary key of a pair debt row.
+     */
+    public static class Key implements Serializable {
+        private Long groupId;
+        private Long lowMemberId;
+        private Long highMemberId;
+
+        public Key() {
+        }
+
+        public Key(Long groupId, Long lowMemberId, Long highMemberId) {
+            this.groupId = groupId;
+            this.lowMemberId = lowMemberId;
+            this.highMemberId = highMemberId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key other)) {
+                return false;
+            }
+            return Objects.equals(groupId, other.groupId) && Objects.equals(lowMemberId, other.lowMemberId)
+                    && Objects.equals(highMemberId, other.highMemberId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(groupId, lowMemberId, highMemberId);
+        }
+    }
+}
@@ -1,11 +1,17 @@
 package org.ncsu.settleup.settlementservice.model;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import java.math.BigDecimal;
+import java.time.Instant;
 
 /**
  * Represents a payment made from one member to another to settle
@@ -13,10 +19,16 @@ import java.math.BigDecimal;
  * can be retrieved and to prevent duplicate payments.
  */
 @Entity
-@Table(name = "transfers")
+@Table(name = "transfers", indexes = {
+        // Back the (created_at, id) keyset ordering of group and member transfer history
+        @Index(name = "idx_transfers_group_id_created_at", columnList = "group_id, created_at, id"),
+        @Index(name = "idx_transfers_group_id_from_member", columnList = "group_id, from_member_id, created_at, id"),
+        @Index(name = "idx_transfers_group_id_to_member", columnList = "group_id, to_member_id, created_at, id")
+})
 public class Transfer {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transfers_seq")
+    @SequenceGenerator(name = "transfers_seq", sequenceName = "transfers_seq", allocationSize = 50)
     private Long id;
 
     private Long groupId;
@@ -29,10 +41,27 @@ public class Transfer {
 
     private String note;
 
+    /**
+     * Incremented on every change.  Edits and deletes are applied with a
+     * compare-and-set on this column so that each version of a transfer
+     * is reversed from the balances at most once.
+     */
+    @Version
+    private Long version;
+
+    /** When the transfer was recorded by this service. */
+    @Column(updatable = false)
+    private Instant createdAt;
+
     public Transfer() {
         // Default constructor required by JPA for entity instantiation
     }
 
+    @PrePersist
+    void onCreate() {
+        createdAt = Instant.now();
+    }
+
     public Long getId() {
         return id;
     }
@@ -80,4 +109,20 @@ public class Transfer {
     public void setNote(String note) {
         this.note = note;
     }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
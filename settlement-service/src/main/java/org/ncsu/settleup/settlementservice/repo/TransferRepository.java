@@ -1,11 +1,22 @@
 package org.ncsu.settleup.settlementservice.repo;
 
 import org.ncsu.settleup.settlementservice.model.Transfer;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
 
 /**
  * Repository for managing transfer entities.
+ *
+ * <p>The history queries return transfers newest first, ordered by
+ * {@code (createdAt, id)} and starting strictly before the given keyset
+ * position, so each page is one range scan of the matching
+ * {@code (group_id, ..., created_at, id)} index however deep the caller
+ * has paged.
  */
 public interface TransferRepository extends JpaRepository<Transfer, Long> {
 
@@ -13,4 +24,68 @@ public interface TransferRepository extends JpaRepository<Transfer, Long> {
      * Find transfers belonging to a particular group.
      */
     List<Transfer> findByGroupId(Long groupId);
+
+    /**
+     * Find the next page of a group's transfer history.
+     *
+     * @param groupId         group identifier
+     * @param beforeCreatedAt createdAt of the last transfer of the previous page
+     * @param beforeId        ID of the last transfer of the previous page
+     * @param pageable        limits the number of transfers returned
+     * @return transfers, newest first
+     */
+    @Query("select t from Transfer t where t.groupId = :groupId"
+            + " and (t.createdAt < :beforeCreatedAt or (t.createdAt = :beforeCreatedAt and t.id < :beforeId))"
+            + " order by t.createdAt desc, t.id desc")
+    List<Transfer> findGroupPage(Long groupId, Instant beforeCreatedAt, Long beforeId, Pageable pageable);
+
+    /**
+     * Find the next page of transfers a member paid within a group.
+     */
+    @Query("select t from Transfer t where t.groupId = :groupId and t.fromMemberId = :memberId"
+            + " and (t.createdAt < :beforeCreatedAt or (t.createdAt = :beforeCreatedAt and t.id < :beforeId))"
+            + " order by t.createdAt desc, t.id desc")
+    List<Transfer> findPaidByMemberPage(Long groupId, Long memberId, Instant beforeCreatedAt, Long beforeId,
+                                        Pageable pageable);
+
+    /**
+     * Find the next page of transfers a member received within a group.
+     * Transfers the member also paid are left to {@link #findPaidByMemberPage}.
+     */
+    @Query("select t from Transfer t where t.groupId = :groupId and t.toMemberId = :memberId"
+            + " and t.fromMemberId <> :memberId"
+            + " and (t.createdAt < :beforeCreatedAt or (t.createdAt = :beforeCreatedAt and t.id < :beforeId))"
+            + " order by t.createdAt desc, t.id desc")
+    List<Transfer> findReceivedByMemberPage(Long groupId, Long memberId, Instant beforeCreatedAt, Long beforeId,
+                                            Pageable pageable);
+
+    /**
+     * Distinct payer and payee pairs of a group's transfers, each as
+     * {@code [fromMemberId, toMemberId]}.
+     */
+    @Query("select distinct t.fromMemberId, t.toMemberId from Transfer t where t.groupId = :groupId")
+    List<Object[]> findPaymentPairs(Long groupId);
+
+    /**
+     * Overwrite a transfer only if it is still at the given version,
+     * incrementing the version.  The row lock taken by the update makes a
+     * concurrent writer of the same version wait and then match no rows.
+     *
+     * @return 1 if the transfer was updated, 0 if it changed or no longer exists
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update Transfer t set t.groupId = :groupId, t.fromMemberId = :fromMemberId,"
+            + " t.toMemberId = :toMemberId, t.amount = :amount, t.note = :note, t.version = t.version + 1"
+            + " where t.id = :id and t.version = :version")
+    int compareAndSetUpdate(Long id, Long version, Long groupId, Long fromMemberId, Long toMemberId,
+                            BigDecimal amount, String note);
+
+    /**
+     * Delete a transfer only if it is still at the given version.
+     *
+     * @return 1 if the transfer was deleted, 0 if it changed or no longer exists
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("delete from Transfer t where t.id = :id and t.version = :version")
+    int compareAndSetDelete(Long id, Long version);
 }
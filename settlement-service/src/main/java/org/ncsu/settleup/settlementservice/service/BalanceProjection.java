@@ -0,0 +1,199 @@
+package org.ncsu.settleup.settlementservice.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.ncsu.settleup.common.dto.SettlementPlan;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the {@code member_balances} and {@code group_ledgers} tables in
+ * step with the in-memory ledger of {@link SettlementService}.
+ *
+ * <p>Writes happen behind the ledger: every
+ * {@code settlement.projection.flush-interval} the members changed since
+ * the previous flush are drained and written with two batched UPSERTs,
+ * so however many events touched a member in between, its row is written
+ * once.  Both UPSERTs share a transaction, so the stored applied sequence
+ * always matches the stored balances.  Each row carries the group's ledger version and an older write
+ * never overwrites a newer one.  A failed flush puts the members back to
+ * be written next time.
+ *
+ * <p>The tables leave out the effect of transfers, which are stored in
+ * {@code transfers} by the request that makes them.  On startup the
+ * tables are read back into {@link SettlementService} together with the
+ * totals of the stored transfers, before the event listeners start, and
+ * each group's event stream resumes after the persisted applied
+ * sequence.  A crash therefore loses no transfer, however recent: only
+ * events applied in the last flush interval are not in the tables, and
+ * they are fetched again from the expense service as a gap.  Groups with
+ * transfers but no stored ledger are rebuilt from sequence 1 on top of
+ * their transfers.
+ *
+ * <p>Groups in pairwise mode also have their changed direct debts written
+ * to {@code member_pair_debts} in the same transaction; settled pairs are
+ * deleted.  Switching a group's mode replaces its stored pairs.
+ */
+@Service
+public class BalanceProjection {
+    // Both upserts skip rows whose stored version is newer than the write
+    private static final String UPSERT_BALANCE =
+            "INSERT INTO member_balances (group_id, member_id, amount, version) VALUES (?, ?, ?, ?) "
+                    + "ON CONFLICT (group_id, member_id) DO UPDATE SET amount = EXCLUDED.amount, version = EXCLUDED.version "
+                    + "WHERE member_balances.version <= EXCLUDED.version";
+    private static final String UPSERT_LEDGER =
+            "INSERT INTO group_ledgers (group_id, version, applied_sequence) VALUES (?, ?, ?) "
+                    + "ON CONFLICT (group_id) DO UPDATE SET version = EXCLUDED.version, "
+                    + "applied_sequence = EXCLUDED.applied_sequence "
+                    + "WHERE group_ledgers.version <= EXCLUDED.version";
+    private static final String UPDATE_MODE =
+            "UPDATE group_ledgers SET pairwise_debts = ? WHERE group_id = ? AND version <= ?";
+    private static final String UPSERT_PAIR =
+            "INSERT INTO member_pair_debts (group_id, low_member_id, high_member_id, amount, version) "
+                    + "VALUES (?, ?, ?, ?, ?) "
+                    + "ON CONFLICT (group_id, low_member_id, high_member_id) DO UPDATE SET amount = EXCLUDED.amount, "
+                    + "version = EXCLUDED.version WHERE member_pair_debts.version <= EXCLUDED.version";
+    private static final String DELETE_PAIR =
+            "DELETE FROM member_pair_debts WHERE group_id = ? AND low_member_id = ? AND high_member_id = ? "
+                    + "AND version <= ?";
+    private static final String DELETE_GROUP_PAIRS =
+            "DELETE FROM member_pair_debts WHERE group_id = ? AND version <= ?";
+    private static final String SELECT_LEDGERS =
+            "SELECT group_id, version, applied_sequence, pairwise_debts FROM group_ledgers";
+    private static final String SELECT_BALANCES =
+            "SELECT group_id, member_id, amount FROM member_balances";
+    private static final String SELECT_PAIRS =
+            "SELECT group_id, low_member_id, high_member_id, amount FROM member_pair_debts";
+    private static final String SELECT_TRANSFER_TOTALS =
+            "SELECT group_id, from_member_id, to_member_id, SUM(amount) FROM transfers "
+                    + "GROUP BY group_id, from_member_id, to_member_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SettlementService settlementService;
+
+    public BalanceProjection(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             SettlementService settlementService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.settlementService = settlementService;
+    }
+
+    /**
+     * Load the persisted balances and the stored transfers into the
+     * in-memory ledger.
+     *
+     * @return number of groups restored
+     */
+    @PostConstruct
+    public int warmStart() {
+        Map<Long, long[]> ledgers = new HashMap<>();
+        Set<Long> pairwiseGroups = new HashSet<>();
+        jdbcTemplate.query(SELECT_LEDGERS, rs -> {
+            ledgers.put(rs.getLong(1), new long[] {rs.getLong(2), rs.getLong(3)});
+            if (rs.getBoolean(4)) {
+                pairwiseGroups.add(rs.getLong(1));
+            }
+        });
+        Map<Long, Map<Long, BigDecimal>> balances = new HashMap<>();
+        jdbcTemplate.query(SELECT_BALANCES, rs -> {
+            balances.computeIfAbsent(rs.getLong(1), k -> new HashMap<>()).put(rs.getLong(2), rs.getBigDecimal(3));
+        });
+        Map<Long, List<SettlementService.PairDebt>> pairs = new HashMap<>();
+        if (!pairwiseGroups.isEmpty()) {
+            jdbcTemplate.query(SELECT_PAIRS, rs -> {
+                pairs.computeIfAbsent(rs.getLong(1), k -> new ArrayList<>()).add(
+                        new SettlementService.PairDebt(rs.getLong(2), rs.getLong(3), rs.getBigDecimal(4)));
+            });
+        }
+        Map<Long, List<SettlementPlan.TransferDto>> transfers = new HashMap<>();
+        jdbcTemplate.query(SELECT_TRANSFER_TOTALS, rs -> {
+            transfers.computeIfAbsent(rs.getLong(1), k -> new ArrayList<>()).add(
+                    new SettlementPlan.TransferDto(rs.getLong(2), rs.getLong(3), rs.getBigDecimal(4)));
+        });
+        Set<Long> groupIds = new HashSet<>(ledgers.keySet());
+        groupIds.addAll(transfers.keySet());
+        int restored = 0;
+        for (Long groupId : groupIds) {
+            long[] ledger = ledgers.getOrDefault(groupId, new long[] {0L, 0L});
+            SettlementService.GroupSnapshot snapshot = new SettlementService.GroupSnapshot(groupId,
+                    ledger[0], ledger[1], balances.getOrDefault(groupId, Map.of()),
+                    pairwiseGroups.contains(groupId), pairs.getOrDefault(groupId, List.of()));
+            if (settlementService.restore(snapshot, transfers.getOrDefault(groupId, List.of()))) {
+                restored++;
+            }
+        }
+        return restored;
+    }
+
+    /**
+     * Write the balances changed since the previous flush.
+     *
+     * @return number of member rows written
+     */
+    @Scheduled(fixedDelayString = "${settlement.projection.flush-interval:PT1S}")
+    @PreDestroy // Write what is left on a clean shutdown
+    public int flush() {
+        List<SettlementService.GroupSnapshot> changes = settlementService.drainChanges();
+        if (changes.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> balanceRows = new ArrayList<>();
+        List<Object[]> ledgerRows = new ArrayList<>(changes.size());
+        List<Object[]> modeRows = new ArrayList<>();
+        List<Object[]> resetRows = new ArrayList<>();
+        List<Object[]> pairRows = new ArrayList<>();
+        List<Object[]> settledPairRows = new ArrayList<>();
+        for (SettlementService.GroupSnapshot change : changes) {
+            for (Map.Entry<Long, BigDecimal> balance : change.balances().entrySet()) {
+                balanceRows.add(new Object[] {change.groupId(), balance.getKey(), balance.getValue(), change.version()});
+            }
+            ledgerRows.add(new Object[] {change.groupId(), change.version(), change.appliedSequence()});
+            if (change.pairwise() != null) {
+                modeRows.add(new Object[] {change.pairwise(), change.groupId(), change.version()});
+                resetRows.add(new Object[] {change.groupId(), change.version()});
+            }
+            for (SettlementService.PairDebt pair : change.pairs()) {
+                if (pair.amount().signum() == 0) {
+                    settledPairRows.add(new Object[] {change.groupId(), pair.lowMemberId(), pair.highMemberId(),
+                            change.version()});
+                } else {
+                    pairRows.add(new Object[] {change.groupId(), pair.lowMemberId(), pair.highMemberId(),
+                            pair.amount(), change.version()});
+                }
+            }
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(UPSERT_BALANCE, balanceRows);
+                jdbcTemplate.batchUpdate(UPSERT_LEDGER, ledgerRows);
+                if (!modeRows.isEmpty()) {
+                    jdbcTemplate.batchUpdate(UPDATE_MODE, modeRows);
+                    jdbcTemplate.batchUpdate(DELETE_GROUP_PAIRS, resetRows);
+                }
+                if (!settledPairRows.isEmpty()) {
+                    jdbcTemplate.batchUpdate(DELETE_PAIR, settledPairRows);
+                }
+                if (!pairRows.isEmpty()) {
+                    jdbcTemplate.batchUpdate(UPSERT_PAIR, pairRows);
+                }
+            });
+        } catch (RuntimeException e) {
+            settlementService.requeueChanges(changes);
+            throw e;
+        }
+        return balanceRows.size();
+    }
+}
@@ -0,0 +1,239 @@
+package org.ncsu.settleup.settlementservice.service;
+
+import org.ncsu.settleup.common.events.ExpenseAdjustedEvent;
+import org.ncsu.settleup.common.events.ExpenseRecordedEvent;
+import org.ncsu.settleup.settlementservice.client.ExpenseClient;
+import org.ncsu.settleup.settlementservice.config.AmqpConfig;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Consumes expense events and applies them to {@link SettlementService}
+ * in per-group sequence order.
+ *
+ * <p>Each group's events carry consecutive sequence numbers.  An event
+ * that arrives ahead of its predecessors is held in a reorder buffer of
+ * {@code settlement.events.reorder-window} events and applied once the
+ * gap is filled; events further ahead are dropped and fetched again
+ * later.  When a gap is seen the missing range, and only that range, is
+ * requested from the expense service, at most once per
+ * {@code settlement.events.resend-timeout}.  Events already applied are
+ * ignored, so a resend that overlaps what was received is harmless.
+ * Events without a sequence number are applied as they arrive.
+ *
+ * <p>Readers that need to see their own expense writes can wait for a
+ * sequence number with {@link #whenApplied(Long, long)}; the wait is a
+ * future completed by the listener thread, so no request thread is held.
+ */
+@Service
+public class ExpenseEventListener {
+    private final SettlementService settlementService;
+    private final ExpenseClient expenseClient;
+    private final int reorderWindow;
+    private final long resendTimeoutNanos;
+    private final Duration maxConsistencyWait;
+    private final Map<Long, GroupStream> streams = new ConcurrentHashMap<>();
+
+    public ExpenseEventListener(SettlementService settlementService,
+                                ExpenseClient expenseClient,
+                                @Value("${settlement.events.reorder-window:256}") int reorderWindow,
+                                @Value("${settlement.events.resend-timeout:PT5S}") Duration resendTimeout,
+                                @Value("${settlement.consistency.max-wait:PT5S}") Duration maxConsistencyWait) {
+        this.settlementService = settlementService;
+        this.expenseClient = expenseClient;
+        this.reorderWindow = reorderWindow;
+        this.resendTimeoutNanos = resendTimeout.toNanos();
+        this.maxConsistencyWait = maxConsistencyWait;
+    }
+
+    @RabbitListener(queues = AmqpConfig.QUEUE_NAME)
+    public void onExpenseRecorded(ExpenseRecordedEvent event) {
+        accept(event.groupId(), event.sequence(), () -> settlementService.handleExpenseRecorded(event));
+    }
+
+    @RabbitListener(queues = AmqpConfig.ADJUSTED_QUEUE_NAME)
+    public void onExpenseAdjusted(ExpenseAdjustedEvent event) {
+        accept(event.groupId(), event.sequence(), () -> settlementService.handleExpenseAdjusted(event));
+    }
+
+    /**
+     * Sequence number of the last event applied for a group, or 0 if
+     * none has been applied.
+     */
+    public long lastAppliedSequence(Long groupId) {
+        GroupStream stream = streams.get(groupId);
+        if (stream == null) {
+            return settlementService.getAppliedSequence(groupId);
+        }
+        synchronized (stream) {
+            return stream.lastApplied;
+        }
+    }
+
+    /**
+     * Wait until a group's event with the given sequence number has been
+     * applied.  The returned future completes immediately if it already
+     * has, and otherwise when the listener applies it.  After
+     * {@code settlement.consistency.max-wait} it fails with a
+     * {@link TimeoutException}; the missing events are then requested
+     * from the expense service in case they were lost.
+     *
+     * @param groupId  group identifier
+     * @param sequence sequence number returned by an expense write
+     * @return a future completed once the event has been applied
+     */
+    public CompletableFuture<Void> whenApplied(Long groupId, long sequence) {
+        GroupStream stream = streamOf(groupId);
+        CompletableFuture<Void> applied = new CompletableFuture<>();
+        synchronized (stream) {
+            if (stream.lastApplied >= sequence) {
+                return CompletableFuture.completedFuture(null);
+            }
+            stream.waiters.computeIfAbsent(sequence, k -> new ArrayList<>()).add(applied);
+        }
+        applied.orTimeout(maxConsistencyWait.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((ignored, error) -> {
+                    if (error instanceof TimeoutException) {
+                        onWaitTimedOut(groupId, stream, sequence, applied);
+                    }
+                });
+        return applied;
+    }
+
+    private void onWaitTimedOut(Long groupId, GroupStream stream, long sequence, CompletableFuture<Void> waiter) {
+        long[] missing;
+        synchronized (stream) {
+            List<CompletableFuture<Void>> forSequence = stream.waiters.get(sequence);
+            if (forSequence != null) {
+                forSequence.remove(waiter);
+                if (forSequence.isEmpty()) {
+                    stream.waiters.remove(sequence);
+                }
+            }
+            // The event is known to exist, so treat it as seen and fetch what is missing
+            stream.highestSeen = Math.max(stream.highestSeen, sequence);
+            missing = stream.missingRange(reorderWindow, System.nanoTime(), resendTimeoutNanos);
+        }
+        if (missing != null) {
+            expenseClient.requestResend(groupId, missing[0], missing[1]);
+        }
+    }
+
+    /**
+     * The group's stream, created on first use to continue after the
+     * last event included in the balances restored on startup.
+     */
+    private GroupStream streamOf(Long groupId) {
+        return streams.computeIfAbsent(groupId, k -> new GroupStream(settlementService.getAppliedSequence(k)));
+    }
+
+    void accept(Long groupId, Long sequence, Runnable apply) {
+        if (sequence == null) {
+            apply.run();
+            return;
+        }
+        GroupStream stream = streamOf(groupId);
+        long[] missing;
+        List<CompletableFuture<Void>> released;
+        synchronized (stream) {
+            missing = stream.offer(sequence, apply, reorderWindow, System.nanoTime(), resendTimeoutNanos);
+            released = stream.takeSatisfiedWaiters();
+        }
+        // Outside the lock so neither waiting readers nor a slow expense
+        // service stall other events of the group
+        released.forEach(waiter -> waiter.complete(null));
+        if (missing != null) {
+            expenseClient.requestResend(groupId, missing[0], missing[1]);
+        }
+    }
+
+    /**
+     * Ordering state of one group's event stream.  Guarded by its own monitor.
+     */
+    private static final class GroupStream {
+        private long lastApplied;
+        private long highestSeen;
+        private final TreeMap<Long, Runnable> pending = new TreeMap<>();
+        private final TreeMap<Long, List<CompletableFuture<Void>>> waiters = new TreeMap<>();
+        private boolean requested;
+        private long requestedFrom;
+        private long requestedTo;
+        private long requestedAt;
+
+        GroupStream(long lastApplied) {
+            this.lastApplied = lastApplied;
+            this.highestSeen = lastApplied;
+        }
+
+        /**
+         * Apply or buffer an event.
+         *
+         * @return the range to request from the expense service, or {@code null}
+         */
+        long[] offer(long sequence, Runnable apply, int window, long now, long resendTimeout) {
+            if (sequence > lastApplied && !pending.containsKey(sequence)) {
+                highestSeen = Math.max(highestSeen, sequence);
+                if (sequence == lastApplied + 1) {
+                    apply.run();
+                    lastApplied = sequence;
+                    Runnable next;
+                    while ((next = pending.remove(lastApplied + 1)) != null) {
+                        next.run();
+                        lastApplied++;
+                    }
+                } else if (sequence - lastApplied <= window) {
+                    pending.put(sequence, apply);
+                }
+            }
+            return missingRange(window, now, resendTimeout);
+        }
+
+        /**
+         * Remove and return the waiters whose sequence has been applied.
+         */
+        List<CompletableFuture<Void>> takeSatisfiedWaiters() {
+            if (waiters.isEmpty() || waiters.firstKey() > lastApplied) {
+                return List.of();
+            }
+            Map<Long, List<CompletableFuture<Void>>> satisfied = waiters.headMap(lastApplied, true);
+            List<CompletableFuture<Void>> released = new ArrayList<>();
+            satisfied.values().forEach(released::addAll);
+            satisfied.clear();
+            return released;
+        }
+
+        /**
+         * The first run of missing sequence numbers, unless its start is
+         * covered by a request made within the resend timeout.
+         */
+        long[] missingRange(int window, long now, long resendTimeout) {
+            if (highestSeen <= lastApplied) {
+                return null;
+            }
+            long from = lastApplied + 1;
+            long to = pending.isEmpty() ? Math.min(highestSeen, lastApplied + window) : pending.firstKey() - 1;
+            boolean inFlight = requested
+                    && requestedFrom <= from && from <= requestedTo
+                    && now - requestedAt < resendTimeout;
+            if (inFlight) {
+                return null;
+            }
+            requested = true;
+            requestedFrom = from;
+            requestedTo = to;
+            requestedAt = now;
+            return new long[] {from, to};
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package org.ncsu.settleup.settlementservice.service;
+
+import org.ncsu.settleup.common.dto.PlanConstraints;
+import org.ncsu.settleup.common.dto.SettlementPlan;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Computes settlement plans that respect {@link PlanConstraints}, as a
+ * min-cost max-flow from debtors to creditors.
+ *
+ * <p>The flow network has a source feeding each debtor with what they
+ * owe and a sink draining each creditor of what they are owed.  Rather
+ * than an edge for every debtor and creditor pair, debtors free to pay
+ * anyone reach every creditor through a single hub node at the default
+ * cost, so the graph stays linear in the group size.  Pairs that cost
+ * less than the default get their own edge next to the hub.  A debtor
+ * restricted by {@code allowedPayees}, or with a pair that costs more
+ * than the default, does not use the hub at all and gets an edge to each
+ * creditor it may pay instead, as the hub would let it reach a penalised
+ * creditor at the default cost.
+ *
+ * <p>Every debtor using the hub pays each creditor at the same default
+ * cost, so flow through the hub can be split between them freely: it is
+ * split into transfers largest first, which keeps their number low and
+ * honours {@code maxIncomingTransfers}.  Transfers on direct pair edges
+ * count towards that limit too; a plan that exceeds it is rejected.
+ * Amounts are handled as whole units of the finest scale among the
+ * balances, so the flow itself is exact integer arithmetic.
+ */
+public final class FlowSettlementPlanner {
+
+    /** Cost of a pair when the constraints do not give a default. */
+    public static final int DEFAULT_COST = 10;
+
+    /** Cost of a pair that has exchanged transfers before, when preferred. */
+    static final int PAST_PAYEE_COST = 1;
+
+    private static final int SOURCE = 0;
+    private static final int SINK = 1;
+    private static final int HUB = 2;
+
+    private FlowSettlementPlanner() {
+    }
+
+    /**
+     * Plan transfers that settle the given balances.
+     *
+     * @param balances    memberId to net balance; positive is owed money
+     * @param constraints constraints and costs, or {@code null} for none
+     * @param pastPayees  memberId to the members they have paid before,
+     *                    used when past payees are preferred
+     * @return the transfers, with amounts at the balances' finest scale
+     * @throws IllegalArgumentException if the constraints are invalid or
+     *         leave some balance unsettled
+     */
+    public static List<SettlementPlan.TransferDto> plan(Map<Long, BigDecimal> balances,
+                                                        PlanConstraints constraints,
+                                                        Map<Long, Set<Long>> pastPayees) {
+        int scale = 0;
+        for (BigDecimal balance : balances.values()) {
+            if (balance.signum() != 0) {
+                scale = Math.max(scale, balance.stripTrailingZeros().scale());
+            }
+        }
+        List<Long> debtorIds = new ArrayList<>();
+        List<Long> creditorIds = new ArrayList<>();
+        List<Long> debts = new ArrayList<>();
+        List<Long> credits = new ArrayList<>();
+        for (Map.Entry<Long, BigDecimal> entry : balances.entrySet()) {
+            int sign = entry.getValue().signum();
+            if (sign < 0) {
+                debtorIds.add(entry.getKey());
+                debts.add(unitsOf(entry.getValue().negate(), scale));
+            } else if (sign > 0) {
+                creditorIds.add(entry.getKey());
+                credits.add(unitsOf(entry.getValue(), scale));
+            }
+        }
+        int debtorCount = debtorIds.size();
+        int creditorCount = creditorIds.size();
+        Map<Long, Integer> creditorIndex = new HashMap<>(creditorCount * 2);
+        for (int c = 0; c < creditorCount; c++) {
+            creditorIndex.put(creditorIds.get(c), c);
+        }
+
+        Map<Long, List<Long>> allowedPayees = constraints != null && constraints.allowedPayees() != null
+                ? constraints.allowedPayees() : Collections.emptyMap();
+        int defaultCost = constraints != null && constraints.defaultCost() != null
+                ? constraints.defaultCost() : DEFAULT_COST;
+        Integer maxIncoming = constraints != null ? constraints.maxIncomingTransfers() : null;
+        if (defaultCost < 0) {
+            throw new IllegalArgumentException("defaultCost must not be negative");
+        }
+        if (maxIncoming != null && maxIncoming < 1) {
+            throw new IllegalArgumentException("maxIncomingTransfers must be at least 1");
+        }
+        Map<Long, Map<Long, Integer>> pairCosts = pairCostsOf(constraints, pastPayees);
+
+        int firstDebtor = HUB + 1;
+        int firstCreditor = firstDebtor + debtorCount;
+        MinCostFlow flow = new MinCostFlow(firstCreditor + creditorCount, 2 * (debtorCount + creditorCount));
+        long totalDebt = 0;
+        long totalCredit = 0;
+        for (int d = 0; d < debtorCount; d++) {
+            flow.addEdge(SOURCE, firstDebtor + d, debts.get(d), 0);
+            totalDebt += debts.get(d);
+        }
+        int[] hubIn = new int[creditorCount];
+        for (int c = 0; c < creditorCount; c++) {
+            flow.addEdge(firstCreditor + c, SINK, credits.get(c), 0);
+            hubIn[c] = flow.addEdge(HUB, firstCreditor + c, MinCostFlow.INFINITE, 0);
+            totalCredit += credits.get(c);
+        }
+        int[] hubOut = new int[debtorCount];
+        List<int[]> pairEdges = new ArrayList<>();
+        for (int d = 0; d < debtorCount; d++) {
+            Long debtorId = debtorIds.get(d);
+            Map<Long, Integer> costs = pairCosts.getOrDefault(debtorId, Collections.emptyMap());
+            List<Long> allowed = allowedPayees.get(debtorId);
+            hubOut[d] = -1;
+            if (allowed == null && !hasPenalty(costs, creditorIndex, defaultCost)) {
+                hubOut[d] = flow.addEdge(firstDebtor + d, HUB, MinCostFlow.INFINITE, defaultCost);
+                for (Map.Entry<Long, Integer> pair : costs.entrySet()) {
+                    Integer c = creditorIndex.get(pair.getKey());
+                    // A pair at the default cost is no better than the hub
+                    if (c != null && pair.getValue() < defaultCost) {
+                        pairEdges.add(new int[] {d, c, flow.addEdge(firstDebtor + d, firstCreditor + c,
+                                MinCostFlow.INFINITE, pair.getValue())});
+                    }
+                }
+            } else {
+                for (Long payee : allowed != null ? allowed : creditorIds) {
+                    Integer c = creditorIndex.get(payee);
+                    if (c != null) {
+                        pairEdges.add(new int[] {d, c, flow.addEdge(firstDebtor + d, firstCreditor + c,
+                                MinCostFlow.INFINITE, costs.getOrDefault(payee, defaultCost))});
+                    }
+                }
+            }
+        }
+
+        long settled = flow.maxFlow(SOURCE, SINK);
+        if (settled < Math.min(totalDebt, totalCredit)) {
+            throw new IllegalArgumentException("allowedPayees leave some balances unsettled");
+        }
+
+        List<SettlementPlan.TransferDto> transfers = new ArrayList<>();
+        int[] incoming = new int[creditorCount];
+        for (int[] pair : pairEdges) {
+            long units = flow.flowOn(pair[2]);
+            if (units > 0) {
+                transfers.add(new SettlementPlan.TransferDto(debtorIds.get(pair[0]),
+                        creditorIds.get(pair[1]), BigDecimal.valueOf(units, scale)));
+                incoming[pair[1]]++;
+            }
+        }
+        // Direct pair edges are not capped in the flow, so a creditor can
+        // already be over the limit before any hub flow is split
+        if (maxIncoming != null) {
+            for (int c = 0; c < creditorCount; c++) {
+                if (incoming[c] > maxIncoming) {
+                    throw new IllegalArgumentException("Member " + creditorIds.get(c)
+                            + " cannot be settled within maxIncomingTransfers");
+                }
+            }
+        }
+        splitHubFlow(flow, hubOut, hubIn, incoming, maxIncoming, debtorIds, creditorIds, scale, transfers);
+        return transfers;
+    }
+
+    /**
+     * Turn the flow through the hub into transfers.  Creditors are served
+     * largest first from whichever debtor has the most left to pay, so
+     * most creditors are paid by a single transfer.
+     */
+    private static void splitHubFlow(MinCostFlow flow, int[] hubOut, int[] hubIn, int[] incoming,
+                                     Integer maxIncoming, List<Long> debtorIds, List<Long> creditorIds,
+                                     int scale, List<SettlementPlan.TransferDto> transfers) {
+        PriorityQueue<long[]> payers = new PriorityQueue<>((a, b) -> Long.compare(b[0], a[0]));
+        for (int d = 0; d < hubOut.length; d++) {
+            if (hubOut[d] >= 0 && flow.flowOn(hubOut[d]) > 0) {
+                payers.add(new long[] {flow.flowOn(hubOut[d]), d});
+            }
+        }
+        List<long[]> payees = new ArrayList<>();
+        for (int c = 0; c < hubIn.length; c++) {
+            if (flow.flowOn(hubIn[c]) > 0) {
+                payees.add(new long[] {flow.flowOn(hubIn[c]), c});
+            }
+        }
+        payees.sort((a, b) -> Long.compare(b[0], a[0]));
+        for (long[] payee : payees) {
+            int c = (int) payee[1];
+            long remaining = payee[0];
+            while (remaining > 0) {
+                long[] payer = payers.poll();
+                int slots = maxIncoming == null ? Integer.MAX_VALUE : maxIncoming - incoming[c];
+                if (payer == null || slots <= 0 || (slots == 1 && payer[0] < remaining)) {
+                    throw new IllegalArgumentException("Member " + creditorIds.get(c)
+                            + " cannot be settled within maxIncomingTransfers");
+                }
+                long amount = Math.min(payer[0], remaining);
+                transfers.add(new SettlementPlan.TransferDto(debtorIds.get((int) payer[1]),
+                        creditorIds.get(c), BigDecimal.valueOf(amount, scale)));
+                incoming[c]++;
+                remaining -= amount;
+                payer[0] -= amount;
+                if (payer[0] > 0) {
+                    payers.add(payer);
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether any of a debtor's pairs costs more than the default, which
+     * the hub would let it reach at the default cost.
+     */
+    private static boolean hasPenalty(Map<Long, Integer> costs, Map<Long, Integer> creditorIndex,
+                                      int defaultCost) {
+        for (Map.Entry<Long, Integer> pair : costs.entrySet()) {
+            if (pair.getValue() > defaultCost && creditorIndex.containsKey(pair.getKey())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Cost of each listed pair: past payees at {@link #PAST_PAYEE_COST}
+     * when preferred, overridden by explicit pair costs.
+     */
+    private static Map<Long, Map<Long, Integer>> pairCostsOf(PlanConstraints constraints,
+                                                             Map<Long, Set<Long>> pastPayees) {
+        Map<Long, Map<Long, Integer>> costs = new HashMap<>();
+        if (constraints == null) {
+            return costs;
+        }
+        if (constraints.preferPastPayees() && pastPayees != null) {
+            for (Map.Entry<Long, Set<Long>> entry : pastPayees.entrySet()) {
+                Map<Long, Integer> payees = costs.computeIfAbsent(entry.getKey(), k -> new HashMap<>());
+                for (Long payee : entry.getValue()) {
+                    payees.put(payee, PAST_PAYEE_COST);
+                }
+            }
+        }
+        if (constraints.pairCosts() != null) {
+            for (PlanConstraints.PairCost pair : constraints.pairCosts()) {
+                if (pair.cost() < 0) {
+                    throw new IllegalArgumentException("Pair costs must not be negative");
+                }
+                costs.computeIfAbsent(pair.fromMemberId(), k -> new HashMap<>())
+                        .put(pair.toMemberId(), pair.cost());
+            }
+        }
+        return costs;
+    }
+
+    private static long unitsOf(BigDecimal amount, int scale) {
+        try {
+            return amount.movePointRight(scale).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Balance " + amount.toPlainString() + " is too large to plan");
+        }
+    }
+}
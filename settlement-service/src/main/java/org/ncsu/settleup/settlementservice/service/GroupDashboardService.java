@@ -0,0 +1,240 @@
+package org.ncsu.settleup.settlementservice.service;
+
+import jakarta.annotation.PreDestroy;
+import org.ncsu.settleup.common.dto.SettlementPlan;
+import org.ncsu.settleup.settlementservice.client.ExpenseClient;
+import org.ncsu.settleup.settlementservice.client.MembershipClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Assembles everything the UI shows for one group in a single document.
+ *
+ * <p>The group, its members and categories (membership service), its
+ * latest expenses (expense service) and its settlement plan (computed
+ * here) are requested in parallel on a bounded pool of
+ * {@code settlement.dashboard.threads} threads.  The group lookup is the
+ * only existence check; when the group is unknown the answer is empty
+ * and the other sections are discarded.  Computing the plan only reads
+ * the balances, so an unknown group leaves nothing behind; when the plan
+ * has to wait for an expense event it waits only once the group is
+ * known, and fails if the group could not be loaded.
+ *
+ * <p>Every section has to answer within
+ * {@code settlement.dashboard.timeout} of the request; a section that
+ * fails or runs out of time is reported as such and the others are
+ * returned anyway.  The settlement plan names the members by email when
+ * the members section succeeded.
+ *
+ * <p>A call that has not started when its section times out is dropped.
+ * One already running is not interrupted and keeps its pool thread until
+ * the backend answers or the shared {@code RestTemplate} gives up after
+ * {@code settlement.http.read-timeout}, which defaults to the dashboard
+ * timeout.  A slow backend therefore holds up at most the pool, never
+ * the request threads, and each pool thread for little longer than the
+ * dashboard deadline.
+ */
+@Service
+public class GroupDashboardService {
+    private final MembershipClient membershipClient;
+    private final ExpenseClient expenseClient;
+    private final SettlementService settlementService;
+    private final ExpenseEventListener expenseEventListener;
+    private final Duration timeout;
+    private final int expensePageSize;
+    private final ExecutorService executor;
+
+    public GroupDashboardService(MembershipClient membershipClient,
+                                 ExpenseClient expenseClient,
+                                 SettlementService settlementService,
+                                 ExpenseEventListener expenseEventListener,
+                                 @Value("${settlement.dashboard.timeout:PT2S}") Duration timeout,
+                                 @Value("${settlement.dashboard.threads:16}") int threads,
+                                 @Value("${settlement.dashboard.expense-page-size:20}") int expensePageSize) {
+        this.membershipClient = membershipClient;
+        this.expenseClient = expenseClient;
+        this.settlementService = settlementService;
+        this.expenseEventListener = expenseEventListener;
+        this.timeout = timeout;
+        this.expensePageSize = expensePageSize;
+        AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "group-dashboard-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Load a group's dashboard.
+     *
+     * @param groupId     the group
+     * @param minSequence if not null, the plan is computed once this
+     *                    expense event has been applied
+     * @return the dashboard, or empty if the group does not exist
+     */
+    public CompletableFuture<Optional<Dashboard>> load(Long groupId, Long minSequence) {
+        long start = System.nanoTime();
+        CompletableFuture<Section<Optional<MembershipClient.Group>>> group =
+                section(CompletableFuture.supplyAsync(() -> membershipClient.findGroup(groupId), executor), start);
+        CompletableFuture<Section<List<MembershipClient.Member>>> members =
+                section(CompletableFuture.supplyAsync(() -> membershipClient.listMembers(groupId), executor), start);
+        CompletableFuture<Section<List<MembershipClient.Category>>> categories =
+                section(CompletableFuture.supplyAsync(() -> membershipClient.listCategories(groupId), executor), start);
+        CompletableFuture<Section<ExpenseClient.ExpensePage>> expenses = section(CompletableFuture.supplyAsync(
+                () -> expenseClient.firstExpensePage(groupId, expensePageSize), executor), start);
+        CompletableFuture<SettlementPlan> planCall = minSequence == null
+                ? CompletableFuture.supplyAsync(() -> settlementService.computeSettlement(groupId), executor)
+                : group.thenCompose(groupSection -> {
+                    // Waiting registers the group with the event listener, so only known groups wait
+                    if (groupSection.status() != Status.OK || groupSection.data().isEmpty()) {
+                        return CompletableFuture.failedFuture(
+                                new IllegalStateException("Group could not be verified"));
+                    }
+                    return expenseEventListener.whenApplied(groupId, minSequence)
+                            .thenApplyAsync(ignored -> settlementService.computeSettlement(groupId), executor);
+                });
+        CompletableFuture<Section<SettlementPlan>> plan = section(planCall, start);
+
+        return group.thenCompose(groupSection -> {
+            if (groupSection.status() == Status.OK && groupSection.data().isEmpty()) {
+                return CompletableFuture.completedFuture(Optional.<Dashboard>empty());
+            }
+            return CompletableFuture.allOf(members, categories, expenses, plan).thenApply(ignored -> {
+                Section<List<MembershipClient.Member>> memberSection = members.join();
+                return Optional.of(new Dashboard(
+                        groupId,
+                        groupSection.map(Optional::get),
+                        memberSection,
+                        categories.join(),
+                        expenses.join(),
+                        plan.join().map(p -> resolve(p, memberSection)),
+                        millisSince(start)));
+            });
+        });
+    }
+
+    /**
+     * Report the outcome of a call as a section, or a timeout if it has
+     * not completed by the deadline.  Whichever comes first wins.
+     */
+    private <T> CompletableFuture<Section<T>> section(CompletableFuture<T> call, long start) {
+        CompletableFuture<Section<T>> section = new CompletableFuture<>();
+        call.whenComplete((data, error) -> section.complete(error == null
+                ? new Section<>(Status.OK, data, millisSince(start), null)
+                : new Section<>(Status.FAILED, null, millisSince(start), describe(error))));
+        long remaining = timeout.toNanos() - (System.nanoTime() - start);
+        CompletableFuture.delayedExecutor(Math.max(0, remaining), TimeUnit.NANOSECONDS).execute(() -> {
+            if (section.complete(new Section<>(Status.TIMED_OUT, null, millisSince(start), null))) {
+                call.cancel(false);
+            }
+        });
+        return section;
+    }
+
+    /**
+     * Attach member emails to the plan's transfers.  Emails are left out
+     * when the members could not be loaded.
+     */
+    static ResolvedPlan resolve(SettlementPlan plan, Section<List<MembershipClient.Member>> members) {
+        Map<Long, String> emails = new HashMap<>();
+        if (members.status() == Status.OK) {
+            for (MembershipClient.Member member : members.data()) {
+                emails.put(member.id(), member.email());
+            }
+        }
+        List<ResolvedTransfer> transfers = plan.transfers().stream()
+                .map(t -> new ResolvedTransfer(t.fromMemberId(), emails.get(t.fromMemberId()),
+                        t.toMemberId(), emails.get(t.toMemberId()), t.amount()))
+                .toList();
+        return new ResolvedPlan(transfers, plan.version());
+    }
+
+    private static String describe(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+    }
+
+    private static long millisSince(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Outcome of one section of the dashboard.
+     */
+    public enum Status {
+        OK, FAILED, TIMED_OUT
+    }
+
+    /**
+     * One section of the dashboard.
+     *
+     * @param status outcome of the call behind the section
+     * @param data   the section's content, null unless the status is OK
+     * @param millis time from the start of the request until the section
+     *               completed or timed out
+     * @param error  why the call failed, null unless the status is FAILED
+     */
+    public static record Section<T>(Status status, T data, long millis, String error) {
+
+        <R> Section<R> map(Function<T, R> mapper) {
+            return new Section<>(status, data == null ? null : mapper.apply(data), millis, error);
+        }
+    }
+
+    /**
+     * Everything shown for one group.
+     *
+     * @param millis time taken to assemble the whole document
+     */
+    public static record Dashboard(Long groupId,
+                                   Section<MembershipClient.Group> group,
+                                   Section<List<MembershipClient.Member>> members,
+                                   Section<List<MembershipClient.Category>> categories,
+                                   Section<ExpenseClient.ExpensePage> expenses,
+                                   Section<ResolvedPlan> settlement,
+                                   long millis) {
+    }
+
+    /**
+     * A settlement plan whose transfers name the members involved.  The
+     * version is that of the {@link SettlementPlan}, for recording it.
+     */
+    public static record ResolvedPlan(List<ResolvedTransfer> transfers, Long version) {
+    }
+
+    /**
+     * A transfer of a settlement plan.  The emails are null when the
+     * members could not be loaded or a member is no longer in the group.
+     */
+    public static record ResolvedTransfer(Long fromMemberId,
+                                          String fromEmail,
+                                          Long toMemberId,
+                                          String toEmail,
+                                          BigDecimal amount) {
+    }
+}
@@ -0,0 +1,270 @@
+package org.ncsu.settleup.settlementservice.service;
+
+import java.util.Arrays;
+
+/**
+ * Min-cost max-flow on a graph held in primitive arrays.
+ *
+ * <p>Edges live in parallel arrays indexed by edge number, with each
+ * forward edge at an even index and its residual edge at the next odd
+ * one, and per-node adjacency lists threaded through {@code next}.  No
+ * objects are allocated per edge or per search.
+ *
+ * <p>The solver is primal-dual: Dijkstra over reduced costs finds the
+ * current shortest path length and updates the node potentials, then a
+ * Dinic-style blocking flow saturates every shortest path at once.  A
+ * graph with few distinct path costs therefore needs few Dijkstra runs
+ * however many augmenting paths it has.  Edge costs must not be negative.
+ */
+final class MinCostFlow {
+    /** Capacity that never limits a flow. */
+    static final long INFINITE = Long.MAX_VALUE / 4;
+
+    private final int nodeCount;
+    private final int[] head;
+    private int[] next;
+    private int[] to;
+    private long[] capacity;
+    private long[] cost;
+    private int edgeCount;
+
+    private final long[] potential;
+    private final long[] distance;
+    private final int[] level;
+    private final int[] iterator;
+    private final int[] queue;
+    private final int[] path;
+
+    MinCostFlow(int nodeCount, int expectedEdges) {
+        this.nodeCount = nodeCount;
+        this.head = new int[nodeCount];
+        Arrays.fill(head, -1);
+        int slots = Math.max(2, 2 * expectedEdges);
+        this.next = new int[slots];
+        this.to = new int[slots];
+        this.capacity = new long[slots];
+        this.cost = new long[slots];
+        this.potential = new long[nodeCount];
+        this.distance = new long[nodeCount];
+        this.level = new int[nodeCount];
+        this.iterator = new int[nodeCount];
+        this.queue = new int[nodeCount];
+        this.path = new int[nodeCount];
+    }
+
+    /**
+     * Add an edge and its residual edge.
+     *
+     * @return the index of the forward edge, for {@link #flowOn(int)}
+     */
+    int addEdge(int from, int toNode, long edgeCapacity, long unitCost) {
+        if (edgeCount + 2 > to.length) {
+            int slots = to.length * 2;
+            next = Arrays.copyOf(next, slots);
+            to = Arrays.copyOf(to, slots);
+            capacity = Arrays.copyOf(capacity, slots);
+            cost = Arrays.copyOf(cost, slots);
+        }
+        int edge = edgeCount;
+        link(edge, from, toNode, edgeCapacity, unitCost);
+        link(edge + 1, toNode, from, 0, -unitCost);
+        edgeCount += 2;
+        return edge;
+    }
+
+    /**
+     * Flow currently carried by a forward edge.
+     */
+    long flowOn(int edge) {
+        return capacity[edge ^ 1];
+    }
+
+    /**
+     * Push as much flow as possible from source to sink at minimum cost.
+     *
+     * @return the total flow
+     */
+    long maxFlow(int source, int sink) {
+        // Every residual edge can enter the heap once per search
+        long[] heapKeys = new long[edgeCount + 1];
+        int[] heapNodes = new int[edgeCount + 1];
+        long total = 0;
+        while (shortestPaths(source, sink, heapKeys, heapNodes)) {
+            while (levelShortestPaths(source, sink)) {
+                System.arraycopy(head, 0, iterator, 0, nodeCount);
+                total += blockingFlow(source, sink);
+            }
+        }
+        return total;
+    }
+
+    private void link(int edge, int from, int toNode, long edgeCapacity, long unitCost) {
+        to[edge] = toNode;
+        capacity[edge] = edgeCapacity;
+        cost[edge] = unitCost;
+        next[edge] = head[from];
+        head[from] = edge;
+    }
+
+    private long reducedCost(int edge, int from) {
+        return cost[edge] + potential[from] - potential[to[edge]];
+    }
+
+    /**
+     * Dijkstra over reduced costs from the source.  Adds each reachable
+     * node's distance to its potential, after which exactly the edges on
+     * shortest paths have a reduced cost of zero.
+     *
+     * @return whether the sink is reachable
+     */
+    private boolean shortestPaths(int source, int sink, long[] heapKeys, int[] heapNodes) {
+        Arrays.fill(distance, INFINITE);
+        distance[source] = 0;
+        int size = 0;
+        heapKeys[0] = 0;
+        heapNodes[0] = source;
+        size++;
+        while (size > 0) {
+            long d = heapKeys[0];
+            int u = heapNodes[0];
+            size--;
+            siftDown(heapKeys, heapNodes, size, heapKeys[size], heapNodes[size]);
+            if (d > distance[u]) {
+                continue;
+            }
+            for (int e = head[u]; e != -1; e = next[e]) {
+                if (capacity[e] <= 0) {
+                    continue;
+                }
+                int v = to[e];
+                long candidate = d + reducedCost(e, u);
+                if (candidate < distance[v]) {
+                    distance[v] = candidate;
+                    siftUp(heapKeys, heapNodes, size, candidate, v);
+                    size++;
+                }
+            }
+        }
+        if (distance[sink] == INFINITE) {
+            return false;
+        }
+        for (int v = 0; v < nodeCount; v++) {
+            if (distance[v] != INFINITE) {
+                potential[v] += distance[v];
+            }
+        }
+        return true;
+    }
+
+    private static void siftUp(long[] keys, int[] nodes, int index, long key, int node) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (keys[parent] <= key) {
+                break;
+            }
+            keys[index] = keys[parent];
+            nodes[index] = nodes[parent];
+            index = parent;
+        }
+        keys[index] = key;
+        nodes[index] = node;
+    }
+
+    private static void siftDown(long[] keys, int[] nodes, int size, long key, int node) {
+        if (size == 0) {
+            return;
+        }
+        int index = 0;
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && keys[child + 1] < keys[child]) {
+                child++;
+            }
+            if (key <= keys[child]) {
+                break;
+            }
+            keys[index] = keys[child];
+            nodes[index] = nodes[child];
+            index = child;
+        }
+        keys[index] = key;
+        nodes[index] = node;
+    }
+
+    /**
+     * Breadth-first levels over residual edges with zero reduced cost.
+     *
+     * @return whether the sink is reachable through such edges
+     */
+    private boolean levelShortestPaths(int source, int sink) {
+        Arrays.fill(level, -1);
+        level[source] = 0;
+        int headIndex = 0;
+        int tailIndex = 0;
+        queue[tailIndex++] = source;
+        while (headIndex < tailIndex) {
+            int u = queue[headIndex++];
+            for (int e = head[u]; e != -1; e = next[e]) {
+                int v = to[e];
+                if (capacity[e] > 0 && level[v] < 0 && reducedCost(e, u) == 0) {
+                    level[v] = level[u] + 1;
+                    queue[tailIndex++] = v;
+                }
+            }
+        }
+        return level[sink] >= 0;
+    }
+
+    /**
+     * Saturate every source-to-sink path of the level graph.  Iterative,
+     * so the depth of a path is not limited by the thread's stack.
+     */
+    private long blockingFlow(int source, int sink) {
+        long total = 0;
+        int depth = 0;
+        int u = source;
+        while (true) {
+            if (u == sink) {
+                long pushed = INFINITE;
+                for (int i = 0; i < depth; i++) {
+                    pushed = Math.min(pushed, capacity[path[i]]);
+                }
+                for (int i = 0; i < depth; i++) {
+                    capacity[path[i]] -= pushed;
+                    capacity[path[i] ^ 1] += pushed;
+                }
+                total += pushed;
+                // Resume from the tail of the first saturated edge
+                int saturated = 0;
+                while (capacity[path[saturated]] > 0) {
+                    saturated++;
+                }
+                depth = saturated;
+                u = to[path[saturated] ^ 1];
+                continue;
+            }
+            boolean advanced = false;
+            for (; iterator[u] != -1; iterator[u] = next[iterator[u]]) {
+                int e = iterator[u];
+                int v = to[e];
+                if (capacity[e] > 0 && level[v] == level[u] + 1 && reducedCost(e, u) == 0) {
+                    path[depth++] = e;
+                    u = v;
+                    advanced = true;
+                    break;
+                }
+            }
+            if (!advanced) {
+                if (u == source) {
+                    return total;
+                }
+                // Dead end: drop the node from this level graph and back up
+                level[u] = -1;
+                int e = path[--depth];
+                u = to[e ^ 1];
+                iterator[u] = next[iterator[u]];
+            }
+        }
+    }
+}
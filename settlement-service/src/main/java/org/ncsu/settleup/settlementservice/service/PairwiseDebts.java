@@ -0,0 +1,320 @@
+package org.ncsu.settleup.settlementservice.service;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * Sparse matrix of what members of one group owe each other directly.
+ *
+ * <p>Each unordered pair of members has at most one entry, keyed by the
+ * two member IDs with the lower ID first.  Its amount is what the lower
+ * member owes the higher one, negative when the debt runs the other way,
+ * so a debt in one direction automatically nets against a debt in the
+ * other.  Entries are stored column-wise in primitive arrays and found
+ * through an open-addressing table with linear probing.
+ *
+ * <p>Every member's entries are threaded into a linked list starting at
+ * a head entry keyed by the member's ID twice, so the debts of one member
+ * are listed in time proportional to the number of members they have a
+ * debt with.
+ *
+ * <p>Changed entries are remembered until {@link #drainChanges} reports
+ * them.  An entry whose amount reaches zero stays in place, and is
+ * skipped by queries, until it has been drained.  Not thread-safe; the
+ * owner holds the group's lock.
+ */
+final class PairwiseDebts {
+    private static final int NONE = -1;
+
+    // Entry columns.  lowIds[e] == highIds[e] marks a member's head entry.
+    private long[] lowIds;
+    private long[] highIds;
+    private BigDecimal[] amounts;
+    private int[] nextOfLow;
+    private int[] nextOfHigh;
+    private boolean[] changed;
+    private int entryCount;
+    private int freeEntry = NONE;
+
+    // Open-addressing index: entry + 1, or 0 for an empty slot
+    private int[] slots;
+    private int indexed;
+
+    private int[] changedEntries;
+    private int changedCount;
+
+    PairwiseDebts() {
+        int entries = 16;
+        lowIds = new long[entries];
+        highIds = new long[entries];
+        amounts = new BigDecimal[entries];
+        nextOfLow = new int[entries];
+        nextOfHigh = new int[entries];
+        changed = new boolean[entries];
+        changedEntries = new int[entries];
+        slots = new int[entries * 2];
+    }
+
+    /**
+     * Callback for one pairwise debt.
+     */
+    @FunctionalInterface
+    interface DebtConsumer {
+        /**
+         * @param lowMemberId  the lower of the two member IDs
+         * @param highMemberId the higher of the two member IDs
+         * @param amount       what the lower member owes the higher one
+         */
+        void accept(long lowMemberId, long highMemberId, BigDecimal amount);
+    }
+
+    /**
+     * Add to what one member owes another.  A negative amount reduces the
+     * debt and may reverse it.
+     */
+    void add(long debtorId, long creditorId, BigDecimal amount) {
+        if (debtorId == creditorId || amount.signum() == 0) {
+            return;
+        }
+        long low = Math.min(debtorId, creditorId);
+        long high = Math.max(debtorId, creditorId);
+        int entry = findOrInsert(low, high);
+        amounts[entry] = amounts[entry].add(debtorId == low ? amount : amount.negate());
+        markChanged(entry);
+    }
+
+    /**
+     * What one member owes another, negative if the other owes them.
+     */
+    BigDecimal owed(long debtorId, long creditorId) {
+        int entry = find(Math.min(debtorId, creditorId), Math.max(debtorId, creditorId));
+        if (entry == NONE || debtorId == creditorId) {
+            return BigDecimal.ZERO;
+        }
+        return debtorId < creditorId ? amounts[entry] : amounts[entry].negate();
+    }
+
+    /**
+     * List the non-zero debts of one member.
+     *
+     * @param memberId the member
+     * @param consumer receives each debt, the member's side included
+     */
+    void forEachOf(long memberId, DebtConsumer consumer) {
+        int head = find(memberId, memberId);
+        if (head == NONE) {
+            return;
+        }
+        for (int e = nextOfLow[head]; e != NONE; e = nextOf(e, memberId)) {
+            if (amounts[e].signum() != 0) {
+                consumer.accept(lowIds[e], highIds[e], amounts[e]);
+            }
+        }
+    }
+
+    /**
+     * List every non-zero debt.
+     */
+    void forEach(DebtConsumer consumer) {
+        for (int e = 0; e < entryCount; e++) {
+            if (isPair(e) && amounts[e].signum() != 0) {
+                consumer.accept(lowIds[e], highIds[e], amounts[e]);
+            }
+        }
+    }
+
+    /**
+     * Mark a pair as changed, for example to have it reported again after
+     * a failed write.
+     */
+    void touch(long lowMemberId, long highMemberId) {
+        if (lowMemberId != highMemberId) {
+            markChanged(findOrInsert(lowMemberId, highMemberId));
+        }
+    }
+
+    /**
+     * Report every pair changed since the previous drain, including pairs
+     * whose debt has been settled to zero, and then drop settled pairs.
+     */
+    void drainChanges(DebtConsumer consumer) {
+        int count = changedCount;
+        changedCount = 0;
+        for (int i = 0; i < count; i++) {
+            int e = changedEntries[i];
+            changed[e] = false;
+            consumer.accept(lowIds[e], highIds[e], amounts[e]);
+        }
+        for (int i = 0; i < count; i++) {
+            int e = changedEntries[i];
+            if (!changed[e] && amounts[e].signum() == 0) {
+                remove(e);
+            }
+        }
+    }
+
+    private boolean isPair(int entry) {
+        return amounts[entry] != null && lowIds[entry] != highIds[entry];
+    }
+
+    private int nextOf(int entry, long memberId) {
+        return lowIds[entry] == memberId ? nextOfLow[entry] : nextOfHigh[entry];
+    }
+
+    private void markChanged(int entry) {
+        if (!changed[entry]) {
+            changed[entry] = true;
+            if (changedCount == changedEntries.length) {
+                changedEntries = Arrays.copyOf(changedEntries, changedCount * 2);
+            }
+            changedEntries[changedCount++] = entry;
+        }
+    }
+
+    private static int hash(long low, long high) {
+        long h = low * 0x9E3779B97F4A7C15L + high;
+        h ^= h >>> 32;
+        h *= 0xD6E8FEB86659FD93L;
+        h ^= h >>> 32;
+        return (int) h;
+    }
+
+    private int find(long low, long high) {
+        int mask = slots.length - 1;
+        for (int i = hash(low, high) & mask; slots[i] != 0; i = (i + 1) & mask) {
+            int e = slots[i] - 1;
+            if (lowIds[e] == low && highIds[e] == high) {
+                return e;
+            }
+        }
+        return NONE;
+    }
+
+    private int findOrInsert(long low, long high) {
+        int entry = find(low, high);
+        if (entry != NONE) {
+            return entry;
+        }
+        entry = allocate(low, high);
+        if (low != high) {
+            // Link the pair into both members' lists, right after their heads
+            int lowHead = findOrInsert(low, low);
+            int highHead = findOrInsert(high, high);
+            nextOfLow[entry] = nextOfLow[lowHead];
+            nextOfLow[lowHead] = entry;
+            nextOfHigh[entry] = nextOfLow[highHead];
+            nextOfLow[highHead] = entry;
+        }
+        return entry;
+    }
+
+    private int allocate(long low, long high) {
+        int entry;
+        if (freeEntry != NONE) {
+            entry = freeEntry;
+            freeEntry = nextOfLow[entry];
+        } else {
+            if (entryCount == lowIds.length) {
+                int entries = entryCount * 2;
+                lowIds = Arrays.copyOf(lowIds, entries);
+                highIds = Arrays.copyOf(highIds, entries);
+                amounts = Arrays.copyOf(amounts, entries);
+                nextOfLow = Arrays.copyOf(nextOfLow, entries);
+                nextOfHigh = Arrays.copyOf(nextOfHigh, entries);
+                changed = Arrays.copyOf(changed, entries);
+            }
+            entry = entryCount++;
+        }
+        lowIds[entry] = low;
+        highIds[entry] = high;
+        amounts[entry] = BigDecimal.ZERO;
+        nextOfLow[entry] = NONE;
+        nextOfHigh[entry] = NONE;
+        if (2 * (indexed + 1) > slots.length) {
+            rehash(slots.length * 2);
+        }
+        insertSlot(entry);
+        indexed++;
+        return entry;
+    }
+
+    private void insertSlot(int entry) {
+        int mask = slots.length - 1;
+        int i = hash(lowIds[entry], highIds[entry]) & mask;
+        while (slots[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        slots[i] = entry + 1;
+    }
+
+    private void rehash(int size) {
+        int[] old = slots;
+        slots = new int[size];
+        for (int slot : old) {
+            if (slot != 0) {
+                insertSlot(slot - 1);
+            }
+        }
+    }
+
+    /**
+     * Unlink a settled pair from both members' lists, dropping a member's
+     * head once their list is empty, and free the entry.
+     */
+    private void remove(int entry) {
+        long low = lowIds[entry];
+        long high = highIds[entry];
+        unlink(entry, low);
+        unlink(entry, high);
+        free(entry);
+        for (long member : new long[] {low, high}) {
+            int head = find(member, member);
+            if (nextOfLow[head] == NONE) {
+                free(head);
+            }
+        }
+    }
+
+    private void unlink(int entry, long memberId) {
+        int head = find(memberId, memberId);
+        int previous = head;
+        int e = nextOfLow[head];
+        while (e != entry) {
+            previous = e;
+            e = nextOf(e, memberId);
+        }
+        int following = nextOf(entry, memberId);
+        if (previous == head || lowIds[previous] == memberId) {
+            nextOfLow[previous] = following;
+        } else {
+            nextOfHigh[previous] = following;
+        }
+    }
+
+    /**
+     * Remove an entry from the index, shifting back later entries of its
+     * probe run so that lookups never stop at the hole, and free it.
+     */
+    private void free(int entry) {
+        int mask = slots.length - 1;
+        int hole = hash(lowIds[entry], highIds[entry]) & mask;
+        while (slots[hole] != entry + 1) {
+            hole = (hole + 1) & mask;
+        }
+        for (int i = (hole + 1) & mask; slots[i] != 0; i = (i + 1) & mask) {
+            int e = slots[i] - 1;
+            int home = hash(lowIds[e], highIds[e]) & mask;
+            // Entries whose home lies cyclically in (hole, i] stay put
+            boolean stays = hole <= i ? hole < home && home <= i : hole < home || home <= i;
+            if (!stays) {
+                slots[hole] = slots[i];
+                hole = i;
+            }
+        }
+        slots[hole] = 0;
+        indexed--;
+        amounts[entry] = null;
+        nextOfLow[entry] = freeEntry;
+        freeEntry = entry;
+    }
+}
@@ -1,74 +1,199 @@
 package org.ncsu.settleup.settlementservice.service;
 
+import org.ncsu.settleup.common.dto.PlanConstraints;
 import org.ncsu.settleup.common.dto.SettlementPlan;
+import org.ncsu.settleup.common.events.ExpenseAdjustedEvent;
 import org.ncsu.settleup.common.events.ExpenseRecordedEvent;
-import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.ncsu.settleup.settlementservice.exception.StalePlanException;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Maintains per-group balances based on expense events and computes
- * settlement plans.  The balances are held in-memory; if the service
- * restarts, you may need to recompute balances from persisted
- * expenses.  In a production system, this state would be stored
- * durably.
+ * settlement plans.  The balances are held in-memory and written behind
+ * to the {@code member_balances} projection by {@link BalanceProjection},
+ * which also restores them on startup.
+ *
+ * <p>Transfers are already stored, one row each, before or as they are
+ * applied, so the projection leaves them out: the part of each balance
+ * and direct debt that comes from transfers is tracked separately and
+ * subtracted from what {@link #drainChanges()} reports, and
+ * {@link #restore} adds the stored transfers back.
+ *
+ * <p>Each group's balances are updated while holding the lock of the
+ * group's balance map, and every update increments the group's ledger
+ * version.  Settlement plans carry the version they were computed from
+ * so that a whole plan can be validated and applied in one step.  The
+ * members touched by each update are remembered until the projection
+ * drains them with {@link #drainChanges()}, so a burst of updates to a
+ * group costs one row write per member.
+ *
+ * <p>Groups in pairwise mode also keep a {@link PairwiseDebts} matrix of
+ * who owes whom directly: each participant of an expense owes its payer
+ * their share, and a transfer reduces what the payer owes the payee.
+ * Settlement plans for such groups list these direct debts instead of
+ * simplifying them.
  */
 @Service
 public class SettlementService {
     // groupId -> (memberId -> net balance)
     private final Map<Long, Map<Long, BigDecimal>> groupBalances = new ConcurrentHashMap<>();
+    // groupId -> number of updates applied to the group's balances
+    private final Map<Long, Long> ledgerVersions = new ConcurrentHashMap<>();
+    // groupId -> sequence of the last expense event applied to the group
+    private final Map<Long, Long> appliedSequences = new ConcurrentHashMap<>();
+    // groupId -> members changed since the last drain; guarded by the group's balance map
+    private final Map<Long, Set<Long>> changedMembers = new ConcurrentHashMap<>();
+    // groupId -> direct debts between members, for groups in pairwise mode;
+    // guarded by the group's balance map
+    private final Map<Long, PairwiseDebts> pairwiseDebts = new ConcurrentHashMap<>();
+    // groups whose debt mode changed since the last drain; guarded likewise
+    private final Set<Long> modeChanges = ConcurrentHashMap.newKeySet();
+    // groupId -> (memberId -> part of the net balance that comes from
+    // transfers); guarded likewise
+    private final Map<Long, Map<Long, BigDecimal>> transferBalances = new ConcurrentHashMap<>();
+    // groupId -> part of the direct debts that comes from transfers, kept
+    // for every group so that it is known when a group turns pairwise;
+    // never drained; guarded likewise
+    private final Map<Long, PairwiseDebts> transferDebts = new ConcurrentHashMap<>();
 
     /**
      * Handle an expense recorded event by updating the net balances.
      * The payer's balance increases by the total amount of the expense;
-     * each participant's balance decreases by their share.
+     * each participant's balance decreases by their share.  Called by
+     * {@link ExpenseEventListener} in group sequence order.
      */
-    @RabbitListener(queues = "settlement.expense.recorded.queue")
     public void handleExpenseRecorded(ExpenseRecordedEvent event) {
-        Map<Long, BigDecimal> balances = groupBalances.computeIfAbsent(event.groupId(), k -> new ConcurrentHashMap<>());
+        Map<Long, BigDecimal> balances = balancesOf(event.groupId());
 
         // Compute total of shares
         BigDecimal total = BigDecimal.ZERO;
         for (BigDecimal share : event.shares().values()) {
             total = total.add(share);
         }
-        // Payer gets credit for paying the total
-        balances.merge(event.payerMemberId(), total, BigDecimal::add);
-        // Each member owes their share
-        for (Map.Entry<Long, BigDecimal> entry : event.shares().entrySet()) {
-            Long memberId = entry.getKey();
-            BigDecimal amount = entry.getValue();
-            balances.merge(memberId, amount.negate(), BigDecimal::add);
+        synchronized (balances) {
+            PairwiseDebts pairs = pairwiseDebts.get(event.groupId());
+            // Payer gets credit for paying the total
+            add(event.groupId(), balances, event.payerMemberId(), total);
+            // Each member owes their share
+            for (Map.Entry<Long, BigDecimal> entry : event.shares().entrySet()) {
+                Long memberId = entry.getKey();
+                BigDecimal amount = entry.getValue();
+                add(event.groupId(), balances, memberId, amount.negate());
+                if (pairs != null) {
+                    pairs.add(memberId, event.payerMemberId(), amount);
+                }
+            }
+            updated(event.groupId(), event.sequence());
         }
     }
 
+    /**
+     * Handle an expense adjusted event, published when an expense is
+     * edited or deleted, by adding each member's balance delta.  Called
+     * by {@link ExpenseEventListener} in group sequence order.
+     */
+    public void handleExpenseAdjusted(ExpenseAdjustedEvent event) {
+        applyDeltas(event.groupId(), event.balanceDeltas(), event.sequence());
+    }
+
+    /**
+     * Snapshot of a group's net balances, ordered by member ID.  Positive
+     * balances are owed to the member; negative balances are owed by them.
+     *
+     * @param groupId the group identifier
+     * @return the group's balances, empty if nothing has been recorded
+     */
+    public Map<Long, BigDecimal> getBalances(Long groupId) {
+        return new TreeMap<>(groupBalances.getOrDefault(groupId, Map.of()));
+    }
+
+    /**
+     * Number of members with a balance in a group, without copying the
+     * balances.
+     *
+     * @param groupId the group identifier
+     * @return the number of members, 0 if nothing has been recorded
+     */
+    public int getMemberCount(Long groupId) {
+        return groupBalances.getOrDefault(groupId, Map.of()).size();
+    }
+
+    /**
+     * Number of updates applied to a group's balances so far.
+     *
+     * @param groupId the group identifier
+     * @return the group's ledger version, 0 if nothing has been recorded
+     */
+    public long getLedgerVersion(Long groupId) {
+        return ledgerVersions.getOrDefault(groupId, 0L);
+    }
+
+    /**
+     * Sequence number of the last expense event included in a group's
+     * balances, including events applied before a restart.
+     *
+     * @param groupId the group identifier
+     * @return the sequence, 0 if no sequenced event has been applied
+     */
+    public long getAppliedSequence(Long groupId) {
+        return appliedSequences.getOrDefault(groupId, 0L);
+    }
+
     /**
      * Compute a settlement plan by pairing debtors and creditors.  This
      * implementation uses a greedy algorithm: sort creditors (positive
      * balances) and debtors (negative balances) and settle the
-     * largest debts first.
+     * largest debts first.  For a group in pairwise mode the plan is its
+     * direct debts, one transfer per pair of members, ordered by payer
+     * and payee.
      *
      * @param groupId the group whose balances should be settled
-     * @return a plan consisting of transfers to settle all balances
+     * @return a plan consisting of transfers to settle all balances,
+     *         tagged with the ledger version it was computed from
      */
     public SettlementPlan computeSettlement(Long groupId) {
-        Map<Long, BigDecimal> balances = groupBalances.getOrDefault(groupId, Map.of());
+        Map<Long, BigDecimal> balances = existingBalancesOf(groupId);
         // Separate creditors and debtors
         List<Map.Entry<Long, BigDecimal>> creditors = new ArrayList<>();
         List<Map.Entry<Long, BigDecimal>> debtors = new ArrayList<>();
-        for (Map.Entry<Long, BigDecimal> entry : balances.entrySet()) {
-            if (entry.getValue().compareTo(BigDecimal.ZERO) > 0) {
-                creditors.add(Map.entry(entry.getKey(), entry.getValue()));
-            } else if (entry.getValue().compareTo(BigDecimal.ZERO) < 0) {
-                debtors.add(Map.entry(entry.getKey(), entry.getValue().negate()));
+        long version;
+        synchronized (balances) {
+            version = getLedgerVersion(groupId);
+            PairwiseDebts pairs = pairwiseDebts.get(groupId);
+            if (pairs != null) {
+                return new SettlementPlan(debtsOf(pairs), version);
+            }
+            for (Map.Entry<Long, BigDecimal> entry : balances.entrySet()) {
+                if (entry.getValue().compareTo(BigDecimal.ZERO) > 0) {
+                    creditors.add(Map.entry(entry.getKey(), entry.getValue()));
+                } else if (entry.getValue().compareTo(BigDecimal.ZERO) < 0) {
+                    debtors.add(Map.entry(entry.getKey(), entry.getValue().negate()));
+                }
             }
         }
+        return new SettlementPlan(largestFirst(debtors, creditors), version);
+    }
+
+    /**
+     * Pair debtors with creditors, largest amounts first.
+     *
+     * @param debtors memberId to the positive amount they owe
+     * @param creditors memberId to the positive amount they are owed
+     * @return transfers from debtors to creditors
+     */
+    private static List<SettlementPlan.TransferDto> largestFirst(List<Map.Entry<Long, BigDecimal>> debtors,
+                                                                 List<Map.Entry<Long, BigDecimal>> creditors) {
         // Sort by balance descending
         creditors.sort(Map.Entry.comparingByValue(Comparator.reverseOrder()));
         debtors.sort(Map.Entry.comparingByValue(Comparator.reverseOrder()));
@@ -96,7 +221,60 @@ public class SettlementService {
                 creditors.set(j, Map.entry(creditor.getKey(), newCredit));
             }
         }
-        return new SettlementPlan(transfers);
+        return transfers;
+    }
+
+    /**
+     * Pair the members with negative amounts with those with positive
+     * amounts, largest first, as in {@link #computeSettlement(Long)}.
+     */
+    private static List<SettlementPlan.TransferDto> largestFirst(Map<Long, BigDecimal> amounts) {
+        List<Map.Entry<Long, BigDecimal>> creditors = new ArrayList<>();
+        List<Map.Entry<Long, BigDecimal>> debtors = new ArrayList<>();
+        for (Map.Entry<Long, BigDecimal> entry : amounts.entrySet()) {
+            if (entry.getValue().signum() > 0) {
+                creditors.add(Map.entry(entry.getKey(), entry.getValue()));
+            } else if (entry.getValue().signum() < 0) {
+                debtors.add(Map.entry(entry.getKey(), entry.getValue().negate()));
+            }
+        }
+        return largestFirst(debtors, creditors);
+    }
+
+    /**
+     * Direct debts of a pairwise group as transfers from debtor to
+     * creditor, ordered by debtor and creditor.
+     */
+    private static List<SettlementPlan.TransferDto> debtsOf(PairwiseDebts pairs) {
+        List<SettlementPlan.TransferDto> debts = new ArrayList<>();
+        pairs.forEach((low, high, amount) -> debts.add(amount.signum() > 0
+                ? new SettlementPlan.TransferDto(low, high, amount)
+                : new SettlementPlan.TransferDto(high, low, amount.negate())));
+        debts.sort(Comparator.comparing(SettlementPlan.TransferDto::fromMemberId)
+                .thenComparing(SettlementPlan.TransferDto::toMemberId));
+        return debts;
+    }
+
+    /**
+     * Compute a settlement plan that respects the given constraints and
+     * minimises their total cost.  See {@link FlowSettlementPlanner}.
+     *
+     * @param groupId the group whose balances should be settled
+     * @param constraints constraints and costs for the plan
+     * @param pastPayees memberId to the members they have paid before
+     * @return a plan tagged with the ledger version it was computed from
+     * @throws IllegalArgumentException if the constraints cannot be met
+     */
+    public SettlementPlan computeSettlement(Long groupId, PlanConstraints constraints,
+                                            Map<Long, Set<Long>> pastPayees) {
+        Map<Long, BigDecimal> balances = existingBalancesOf(groupId);
+        Map<Long, BigDecimal> snapshot;
+        long version;
+        synchronized (balances) {
+            version = getLedgerVersion(groupId);
+            snapshot = new HashMap<>(balances);
+        }
+        return new SettlementPlan(FlowSettlementPlanner.plan(snapshot, constraints, pastPayees), version);
     }
 
     /**
@@ -110,10 +288,399 @@ public class SettlementService {
      * @param amount the amount transferred
      */
     public void applyTransfer(Long groupId, Long fromMemberId, Long toMemberId, BigDecimal amount) {
-        Map<Long, BigDecimal> balances = groupBalances.computeIfAbsent(groupId, k -> new ConcurrentHashMap<>());
-        // The debtor's balance increases (less owed)
-        balances.merge(fromMemberId, amount, BigDecimal::add);
-        // The creditor's balance decreases (less to collect)
-        balances.merge(toMemberId, amount.negate(), BigDecimal::add);
+        Map<Long, BigDecimal> balances = balancesOf(groupId);
+        synchronized (balances) {
+            // The debtor's balance increases (less owed)
+            add(groupId, balances, fromMemberId, amount);
+            // The creditor's balance decreases (less to collect)
+            add(groupId, balances, toMemberId, amount.negate());
+            PairwiseDebts pairs = pairwiseDebts.get(groupId);
+            if (pairs != null) {
+                pairs.add(fromMemberId, toMemberId, amount.negate());
+            }
+            recordTransfers(groupId, List.of(new SettlementPlan.TransferDto(fromMemberId, toMemberId, amount)));
+            updated(groupId, null);
+        }
+    }
+
+    /**
+     * Validate a set of settling transfers against the current balances
+     * and apply their combined effect in one step.  Every member's balance
+     * must move towards zero without crossing it, so a plan can settle
+     * part of what is owed but never create new debts.
+     *
+     * @param groupId the group identifier
+     * @param transfers the transfers to apply
+     * @param expectedVersion ledger version the transfers were planned
+     *                        against, or {@code null} to skip the check
+     * @return the balance delta applied to each member
+     * @throws StalePlanException if the balances changed since {@code expectedVersion}
+     * @throws IllegalArgumentException if a transfer would overpay or overcollect
+     */
+    public Map<Long, BigDecimal> applySettlement(Long groupId, List<SettlementPlan.TransferDto> transfers,
+                                                 Long expectedVersion) {
+        Map<Long, BigDecimal> deltas = netEffectOf(transfers);
+        Map<Long, BigDecimal> balances = balancesOf(groupId);
+        synchronized (balances) {
+            if (expectedVersion != null && expectedVersion != getLedgerVersion(groupId)) {
+                throw new StalePlanException(groupId, expectedVersion);
+            }
+            for (Map.Entry<Long, BigDecimal> entry : deltas.entrySet()) {
+                BigDecimal balance = balances.getOrDefault(entry.getKey(), BigDecimal.ZERO);
+                BigDecimal settled = balance.add(entry.getValue());
+                if (settled.signum() * balance.signum() < 0 || settled.abs().compareTo(balance.abs()) > 0) {
+                    throw new IllegalArgumentException("Transfers do not settle the balance of member "
+                            + entry.getKey() + " (" + balance.toPlainString() + ")");
+                }
+            }
+            settle(groupId, balances, deltas, transfers);
+        }
+        return deltas;
+    }
+
+    /**
+     * Undo the effect of transfers applied by {@link #applySettlement},
+     * for example because recording them failed.
+     *
+     * @param groupId the group identifier
+     * @param transfers the transfers to undo
+     */
+    public void revertSettlement(Long groupId, List<SettlementPlan.TransferDto> transfers) {
+        List<SettlementPlan.TransferDto> reversed = new ArrayList<>(transfers.size());
+        for (SettlementPlan.TransferDto transfer : transfers) {
+            reversed.add(new SettlementPlan.TransferDto(transfer.toMemberId(), transfer.fromMemberId(),
+                    transfer.amount()));
+        }
+        Map<Long, BigDecimal> balances = balancesOf(groupId);
+        synchronized (balances) {
+            settle(groupId, balances, netEffectOf(reversed), reversed);
+        }
+    }
+
+    // Callers hold the lock of the group's balance map
+    private void settle(Long groupId, Map<Long, BigDecimal> balances, Map<Long, BigDecimal> deltas,
+                        List<SettlementPlan.TransferDto> transfers) {
+        for (Map.Entry<Long, BigDecimal> entry : deltas.entrySet()) {
+            add(groupId, balances, entry.getKey(), entry.getValue());
+        }
+        PairwiseDebts pairs = pairwiseDebts.get(groupId);
+        if (pairs != null) {
+            for (SettlementPlan.TransferDto transfer : transfers) {
+                pairs.add(transfer.fromMemberId(), transfer.toMemberId(), transfer.amount().negate());
+            }
+        }
+        recordTransfers(groupId, transfers);
+        updated(groupId, null);
+    }
+
+    // Callers hold the lock of the group's balance map
+    private void recordTransfers(Long groupId, List<SettlementPlan.TransferDto> transfers) {
+        Map<Long, BigDecimal> balances = transferBalances.computeIfAbsent(groupId, k -> new HashMap<>());
+        PairwiseDebts debts = transferDebts.computeIfAbsent(groupId, k -> new PairwiseDebts());
+        for (SettlementPlan.TransferDto transfer : transfers) {
+            balances.merge(transfer.fromMemberId(), transfer.amount(), BigDecimal::add);
+            balances.merge(transfer.toMemberId(), transfer.amount().negate(), BigDecimal::add);
+            debts.add(transfer.fromMemberId(), transfer.toMemberId(), transfer.amount().negate());
+        }
+    }
+
+    /**
+     * Add a balance delta to each listed member of a group.  Deltas carry
+     * no payer or payee, so in pairwise mode the members whose balance
+     * falls are taken to owe those whose balance rises, largest first.
+     *
+     * @param groupId the group identifier
+     * @param deltas memberId to the amount added to the member's balance
+     */
+    public void applyDeltas(Long groupId, Map<Long, BigDecimal> deltas) {
+        applyDeltas(groupId, deltas, null);
+    }
+
+    private void applyDeltas(Long groupId, Map<Long, BigDecimal> deltas, Long sequence) {
+        Map<Long, BigDecimal> balances = balancesOf(groupId);
+        synchronized (balances) {
+            for (Map.Entry<Long, BigDecimal> entry : deltas.entrySet()) {
+                add(groupId, balances, entry.getKey(), entry.getValue());
+            }
+            PairwiseDebts pairs = pairwiseDebts.get(groupId);
+            if (pairs != null) {
+                for (SettlementPlan.TransferDto debt : largestFirst(deltas)) {
+                    pairs.add(debt.fromMemberId(), debt.toMemberId(), debt.amount());
+                }
+            }
+            updated(groupId, sequence);
+        }
+    }
+
+    /**
+     * Whether a group keeps direct debts between members instead of only
+     * net balances.
+     *
+     * @param groupId the group identifier
+     * @return {@code true} if the group is in pairwise mode
+     */
+    public boolean isPairwise(Long groupId) {
+        return pairwiseDebts.containsKey(groupId);
+    }
+
+    /**
+     * Switch a group into or out of pairwise mode.  Direct debts are only
+     * known from the moment a group is switched in, so they start out as
+     * the largest-first pairing of the current balances.
+     *
+     * @param groupId the group identifier
+     * @param pairwise {@code true} to keep direct debts
+     */
+    public void setPairwise(Long groupId, boolean pairwise) {
+        Map<Long, BigDecimal> balances = balancesOf(groupId);
+        synchronized (balances) {
+            if (pairwise == isPairwise(groupId)) {
+                return;
+            }
+            if (pairwise) {
+                PairwiseDebts pairs = new PairwiseDebts();
+                for (SettlementPlan.TransferDto debt : largestFirst(balances)) {
+                    pairs.add(debt.fromMemberId(), debt.toMemberId(), debt.amount());
+                }
+                PairwiseDebts transferred = transferDebts.get(groupId);
+                if (transferred != null) {
+                    // Stored debts leave transfers out, so pairs only transfers have settled are written too
+                    transferred.forEach((low, high, amount) -> pairs.touch(low, high));
+                }
+                pairwiseDebts.put(groupId, pairs);
+            } else {
+                pairwiseDebts.remove(groupId);
+            }
+            modeChanges.add(groupId);
+            changedMembers.computeIfAbsent(groupId, k -> new HashSet<>());
+            updated(groupId, null);
+        }
+    }
+
+    /**
+     * Direct debts between one member of a pairwise group and the others.
+     * Listed in time proportional to the number of members the member has
+     * a debt with; the amounts sum to the member's net balance.
+     *
+     * @param groupId the group identifier
+     * @param memberId the member identifier
+     * @return other memberId to the amount they owe the member, negative
+     *         if the member owes them; empty if the group is not pairwise
+     */
+    public Map<Long, BigDecimal> getMemberDebts(Long groupId, Long memberId) {
+        Map<Long, BigDecimal> debts = new TreeMap<>();
+        Map<Long, BigDecimal> balances = balancesOf(groupId);
+        synchronized (balances) {
+            PairwiseDebts pairs = pairwiseDebts.get(groupId);
+            if (pairs != null) {
+                pairs.forEachOf(memberId, (low, high, amount) -> {
+                    if (low == memberId) {
+                        debts.put(high, amount.negate());
+                    } else {
+                        debts.put(low, amount);
+                    }
+                });
+            }
+        }
+        return debts;
+    }
+
+    /**
+     * Take the balances of every member changed since the previous call,
+     * one snapshot per group.  Each snapshot is consistent with the
+     * group's ledger version and applied sequence at the time it was
+     * taken.  Balances and direct debts are reported without the part
+     * that comes from transfers.
+     *
+     * @return the changed balances, empty if nothing changed
+     */
+    public List<GroupSnapshot> drainChanges() {
+        List<GroupSnapshot> snapshots = new ArrayList<>();
+        for (Long groupId : new ArrayList<>(changedMembers.keySet())) {
+            Map<Long, BigDecimal> balances = balancesOf(groupId);
+            synchronized (balances) {
+                Set<Long> members = changedMembers.remove(groupId);
+                if (members == null) {
+                    continue;
+                }
+                Map<Long, BigDecimal> transferred = transferBalances.getOrDefault(groupId, Map.of());
+                Map<Long, BigDecimal> amounts = new HashMap<>();
+                for (Long memberId : members) {
+                    amounts.put(memberId, balances.getOrDefault(memberId, BigDecimal.ZERO)
+                            .subtract(transferred.getOrDefault(memberId, BigDecimal.ZERO)));
+                }
+                Boolean pairwise = modeChanges.remove(groupId) ? isPairwise(groupId) : null;
+                List<PairDebt> debts = new ArrayList<>();
+                PairwiseDebts pairs = pairwiseDebts.get(groupId);
+                if (pairs != null) {
+                    PairwiseDebts transferredDebts = transferDebts.get(groupId);
+                    pairs.drainChanges((low, high, amount) -> debts.add(new PairDebt(low, high,
+                            transferredDebts == null ? amount : amount.subtract(transferredDebts.owed(low, high)))));
+                }
+                snapshots.add(new GroupSnapshot(groupId, getLedgerVersion(groupId),
+                        getAppliedSequence(groupId), amounts, pairwise, debts));
+            }
+        }
+        return snapshots;
+    }
+
+    /**
+     * Mark the members of drained snapshots as changed again, for example
+     * because writing them failed.  Their current balances are taken by
+     * the next {@link #drainChanges()}.
+     */
+    public void requeueChanges(List<GroupSnapshot> snapshots) {
+        for (GroupSnapshot snapshot : snapshots) {
+            Map<Long, BigDecimal> balances = balancesOf(snapshot.groupId());
+            synchronized (balances) {
+                changedMembers.computeIfAbsent(snapshot.groupId(), k -> new HashSet<>())
+                        .addAll(snapshot.balances().keySet());
+                if (snapshot.pairwise() != null) {
+                    modeChanges.add(snapshot.groupId());
+                }
+                PairwiseDebts pairs = pairwiseDebts.get(snapshot.groupId());
+                if (pairs != null) {
+                    for (PairDebt debt : snapshot.pairs()) {
+                        pairs.touch(debt.lowMemberId(), debt.highMemberId());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Load a group's persisted balances on startup.  Ignored if the group
+     * has already been updated in memory.
+     *
+     * @param snapshot balances, ledger version, applied sequence and, for a
+     *                 pairwise group, direct debts to restore
+     * @return {@code true} if the snapshot was loaded
+     */
+    public boolean restore(GroupSnapshot snapshot) {
+        return restore(snapshot, List.of());
+    }
+
+    /**
+     * Load a group's persisted balances on startup together with the
+     * stored transfers, which the persisted balances leave out.  Ignored
+     * if the group has already been updated in memory.
+     *
+     * @param snapshot  balances, ledger version, applied sequence and, for a
+     *                  pairwise group, direct debts to restore
+     * @param transfers the group's stored transfers, or their totals per
+     *                  payer and payee
+     * @return {@code true} if the snapshot was loaded
+     */
+    public boolean restore(GroupSnapshot snapshot, List<SettlementPlan.TransferDto> transfers) {
+        Map<Long, BigDecimal> balances = balancesOf(snapshot.groupId());
+        synchronized (balances) {
+            if (ledgerVersions.containsKey(snapshot.groupId())) {
+                return false;
+            }
+            balances.putAll(snapshot.balances());
+            for (Map.Entry<Long, BigDecimal> delta : netEffectOf(transfers).entrySet()) {
+                balances.merge(delta.getKey(), delta.getValue(), BigDecimal::add);
+            }
+            if (Boolean.TRUE.equals(snapshot.pairwise())) {
+                PairwiseDebts pairs = new PairwiseDebts();
+                for (PairDebt debt : snapshot.pairs()) {
+                    pairs.add(debt.lowMemberId(), debt.highMemberId(), debt.amount());
+                }
+                for (SettlementPlan.TransferDto transfer : transfers) {
+                    pairs.add(transfer.fromMemberId(), transfer.toMemberId(), transfer.amount().negate());
+                }
+                // Restored debts are already persisted
+                pairs.drainChanges((low, high, amount) -> { });
+                pairwiseDebts.put(snapshot.groupId(), pairs);
+            }
+            recordTransfers(snapshot.groupId(), transfers);
+            ledgerVersions.put(snapshot.groupId(), snapshot.version());
+            appliedSequences.put(snapshot.groupId(), snapshot.appliedSequence());
+            return true;
+        }
+    }
+
+    /**
+     * Balances of some or all members of a group together with the
+     * group's ledger version and last applied expense event sequence.
+     * Balances and direct debts leave out the effect of transfers.
+     *
+     * @param pairwise the group's debt mode if it changed since the
+     *                 previous drain, otherwise {@code null}; when
+     *                 restoring, whether the group is pairwise
+     * @param pairs    direct debts changed since the previous drain,
+     *                 settled ones with a zero amount; when restoring,
+     *                 all of the group's direct debts
+     */
+    public record GroupSnapshot(Long groupId, long version, long appliedSequence,
+                                Map<Long, BigDecimal> balances, Boolean pairwise, List<PairDebt> pairs) {
+
+        /**
+         * Snapshot of a group whose debt mode is unchanged and has no
+         * direct debts to report.
+         */
+        public GroupSnapshot(Long groupId, long version, long appliedSequence, Map<Long, BigDecimal> balances) {
+            this(groupId, version, appliedSequence, balances, null, List.of());
+        }
+    }
+
+    /**
+     * Direct debt between two members of a pairwise group.
+     *
+     * @param lowMemberId  the lower of the two member IDs
+     * @param highMemberId the higher of the two member IDs
+     * @param amount       what the lower member owes the higher one,
+     *                     negative if the debt runs the other way
+     */
+    public record PairDebt(long lowMemberId, long highMemberId, BigDecimal amount) {
+    }
+
+    // Callers hold the lock of the group's balance map
+    private void add(Long groupId, Map<Long, BigDecimal> balances, Long memberId, BigDecimal amount) {
+        balances.merge(memberId, amount, BigDecimal::add);
+        changedMembers.computeIfAbsent(groupId, k -> new HashSet<>()).add(memberId);
+    }
+
+    // Callers hold the lock of the group's balance map
+    private void updated(Long groupId, Long sequence) {
+        ledgerVersions.merge(groupId, 1L, Long::sum);
+        if (sequence != null) {
+            appliedSequences.put(groupId, sequence);
+        }
+    }
+
+    /**
+     * Combined balance effect of a set of transfers: each payer's balance
+     * rises by what they pay and each payee's falls by what they receive.
+     * Members whose effect nets to zero are left out.
+     */
+    static Map<Long, BigDecimal> netEffectOf(List<SettlementPlan.TransferDto> transfers) {
+        Map<Long, BigDecimal> deltas = new HashMap<>();
+        for (SettlementPlan.TransferDto transfer : transfers) {
+            deltas.merge(transfer.fromMemberId(), transfer.amount(), BigDecimal::add);
+            deltas.merge(transfer.toMemberId(), transfer.amount().negate(), BigDecimal::add);
+        }
+        deltas.values().removeIf(delta -> delta.signum() == 0);
+        return deltas;
+    }
+
+    private Map<Long, BigDecimal> balancesOf(Long groupId) {
+        return groupBalances.computeIfAbsent(groupId, k -> new ConcurrentHashMap<>());
+    }
+
+    /**
+     * A group's balances for reading, without registering a group that
+     * has none, so that plans for unknown groups leave nothing behind.
+     */
+    private Map<Long, BigDecimal> existingBalancesOf(Long groupId) {
+        Map<Long, BigDecimal> balances = groupBalances.get(groupId);
+        return balances != null ? balances : new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Whether balances are held for a group.
+     */
+    boolean hasBalances(Long groupId) {
+        return groupBalances.containsKey(groupId);
     }
 }
@@ -0,0 +1,295 @@
+package org.ncsu.settleup.settlementservice.service;
+
+import org.ncsu.settleup.common.dto.SettlementPlan;
+import org.ncsu.settleup.settlementservice.model.Transfer;
+import org.ncsu.settleup.settlementservice.repo.TransferRepository;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Records several transfers of a group as one settle-up, edits and
+ * deletes single transfers, and serves paginated transfer history.
+ *
+ * <p>The plan is validated and applied to the in-memory balances first,
+ * under the group's ledger lock, so two settle-ups of the same group
+ * cannot both pass validation.  The transfer rows are then inserted in
+ * one transaction; Hibernate batches them using the pooled
+ * {@code transfers_seq} identifiers.  If the transaction does not commit
+ * the balance change is reversed.
+ *
+ * <p>Edits and deletes are compare-and-set operations on the transfer's
+ * version.  The in-memory balances are adjusted only after the
+ * transaction that won the compare-and-set commits, so two concurrent
+ * edits of the same transfer cannot both reverse its old amount.
+ *
+ * <p>History pages are ordered newest first by {@code (createdAt, id)}
+ * and continued with an opaque keyset cursor from {@link #cursorOf}.
+ */
+@Service
+public class TransferService {
+    /** Page size used when the caller does not specify one. */
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    /** Largest page size a caller may request. */
+    public static final int MAX_PAGE_SIZE = 200;
+
+    /** Compare-and-set attempts made for an edit without an expected version. */
+    static final int MAX_CAS_ATTEMPTS = 5;
+
+    // Keyset position before every stored transfer, used for the first page
+    private static final Instant FIRST_PAGE_CREATED_AT = Instant.parse("9999-12-31T23:59:59Z");
+
+    private final TransferRepository transferRepository;
+    private final SettlementService settlementService;
+
+    public TransferService(TransferRepository transferRepository, SettlementService settlementService) {
+        this.transferRepository = transferRepository;
+        this.settlementService = settlementService;
+    }
+
+    /**
+     * Record every transfer of a settlement plan.
+     *
+     * @param groupId the group being settled
+     * @param transfers the transfers to record
+     * @param planVersion ledger version the plan was computed from, or
+     *                    {@code null} to validate against the current balances only
+     * @param note note stored on each transfer
+     * @return the saved transfers, in request order
+     */
+    @Transactional
+    public List<Transfer> recordPlan(Long groupId, List<SettlementPlan.TransferDto> transfers,
+                                     Long planVersion, String note) {
+        settlementService.applySettlement(groupId, transfers, planVersion);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        settlementService.revertSettlement(groupId, transfers);
+                    }
+                }
+            });
+        }
+        List<Transfer> rows = new ArrayList<>(transfers.size());
+        for (SettlementPlan.TransferDto dto : transfers) {
+            Transfer transfer = new Transfer();
+            transfer.setGroupId(groupId);
+            transfer.setFromMemberId(dto.fromMemberId());
+            transfer.setToMemberId(dto.toMemberId());
+            transfer.setAmount(dto.amount());
+            transfer.setNote(note);
+            rows.add(transfer);
+        }
+        return transferRepository.saveAll(rows);
+    }
+
+    /**
+     * Replace the payer, payee, amount and note of a transfer.  The balance
+     * effect of the version that was replaced is reversed and the new
+     * values applied once the change commits.
+     *
+     * <p>With an {@code expectedVersion} the edit fails if the transfer has
+     * changed since the caller read it.  Without one the edit is retried
+     * against the latest version a few times, so the last writer wins.
+     *
+     * @param id the transfer to edit
+     * @param values the new group, members, amount and note
+     * @param expectedVersion version the caller read, or {@code null}
+     * @return the updated transfer, or empty if it does not exist
+     * @throws OptimisticLockingFailureException if the expected version is
+     *         stale or the transfer kept changing
+     */
+    @Transactional
+    public Optional<Transfer> updateTransfer(Long id, Transfer values, Long expectedVersion) {
+        for (int attempt = 0; attempt < MAX_CAS_ATTEMPTS; attempt++) {
+            Optional<Transfer> current = transferRepository.findById(id);
+            if (current.isEmpty()) {
+                return Optional.empty();
+            }
+            Transfer old = current.get();
+            checkVersion(old, expectedVersion);
+            int updated = transferRepository.compareAndSetUpdate(id, old.getVersion(), values.getGroupId(),
+                    values.getFromMemberId(), values.getToMemberId(), values.getAmount(), values.getNote());
+            if (updated == 1) {
+                Transfer saved = new Transfer();
+                saved.setId(id);
+                saved.setGroupId(values.getGroupId());
+                saved.setFromMemberId(values.getFromMemberId());
+                saved.setToMemberId(values.getToMemberId());
+                saved.setAmount(values.getAmount());
+                saved.setNote(values.getNote());
+                saved.setCreatedAt(old.getCreatedAt());
+                saved.setVersion(old.getVersion() + 1);
+                afterCommit(() -> {
+                    reverse(old);
+                    settlementService.applyTransfer(saved.getGroupId(), saved.getFromMemberId(),
+                            saved.getToMemberId(), saved.getAmount());
+                });
+                return Optional.of(saved);
+            }
+            if (expectedVersion != null) {
+                break;
+            }
+        }
+        throw new OptimisticLockingFailureException("Transfer " + id + " was changed concurrently; try again");
+    }
+
+    /**
+     * Delete a transfer and, once the deletion commits, reverse its effect
+     * on the balances.
+     *
+     * @param id the transfer to delete
+     * @param expectedVersion version the caller read, or {@code null}
+     * @return {@code true} if this call deleted the transfer, {@code false}
+     *         if it does not exist
+     * @throws OptimisticLockingFailureException if the expected version is
+     *         stale or the transfer kept changing
+     */
+    @Transactional
+    public boolean deleteTransfer(Long id, Long expectedVersion) {
+        for (int attempt = 0; attempt < MAX_CAS_ATTEMPTS; attempt++) {
+            Optional<Transfer> current = transferRepository.findById(id);
+            if (current.isEmpty()) {
+                return false;
+            }
+            Transfer old = current.get();
+            checkVersion(old, expectedVersion);
+            if (transferRepository.compareAndSetDelete(id, old.getVersion()) == 1) {
+                afterCommit(() -> reverse(old));
+                return true;
+            }
+            if (expectedVersion != null) {
+                break;
+            }
+        }
+        throw new OptimisticLockingFailureException("Transfer " + id + " was changed concurrently; try again");
+    }
+
+    private static void checkVersion(Transfer current, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(current.getVersion())) {
+            throw new OptimisticLockingFailureException("Transfer " + current.getId() + " is at version "
+                    + current.getVersion() + ", not " + expectedVersion);
+        }
+    }
+
+    private void reverse(Transfer transfer) {
+        settlementService.applyTransfer(transfer.getGroupId(), transfer.getToMemberId(),
+                transfer.getFromMemberId(), transfer.getAmount());
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Fetch one page of a group's transfer history.
+     *
+     * @param groupId group identifier
+     * @param cursor  cursor of the last transfer on the previous page, or {@code null}
+     * @param size    requested page size, clamped to {@link #MAX_PAGE_SIZE}
+     * @return transfers, newest first
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public List<Transfer> findGroupHistory(Long groupId, String cursor, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Position before = Position.parse(cursor);
+        return transferRepository.findGroupPage(groupId, before.createdAt(), before.id(), PageRequest.of(0, limit));
+    }
+
+    /**
+     * Fetch one page of the transfers a member paid or received within a
+     * group.  The paid and received sides are read from their own indexes,
+     * one page each, and merged.
+     *
+     * @param groupId  group identifier
+     * @param memberId member identifier
+     * @param cursor   cursor of the last transfer on the previous page, or {@code null}
+     * @param size     requested page size, clamped to {@link #MAX_PAGE_SIZE}
+     * @return transfers, newest first
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public List<Transfer> findMemberHistory(Long groupId, Long memberId, String cursor, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Position before = Position.parse(cursor);
+        PageRequest page = PageRequest.of(0, limit);
+        List<Transfer> merged = new ArrayList<>(transferRepository.findPaidByMemberPage(
+                groupId, memberId, before.createdAt(), before.id(), page));
+        merged.addAll(transferRepository.findReceivedByMemberPage(
+                groupId, memberId, before.createdAt(), before.id(), page));
+        merged.sort(Comparator.comparing(Transfer::getCreatedAt).thenComparing(Transfer::getId).reversed());
+        return merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged;
+    }
+
+    /**
+     * Members each member of a group has paid before, for plans that
+     * prefer past payees.
+     *
+     * @param groupId group identifier
+     * @return memberId to the members they have paid
+     */
+    public Map<Long, Set<Long>> pastPayees(Long groupId) {
+        Map<Long, Set<Long>> payees = new HashMap<>();
+        for (Object[] pair : transferRepository.findPaymentPairs(groupId)) {
+            payees.computeIfAbsent((Long) pair[0], k -> new HashSet<>()).add((Long) pair[1]);
+        }
+        return payees;
+    }
+
+    /**
+     * Build the cursor that continues a history listing after the given transfer.
+     *
+     * @param transfer last transfer of a history page
+     * @return opaque URL-safe cursor
+     */
+    public static String cursorOf(Transfer transfer) {
+        String raw = transfer.getCreatedAt() + "|" + transfer.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Keyset position of a history page: transfers strictly before it are returned.
+     */
+    private record Position(Instant createdAt, Long id) {
+
+        static Position parse(String cursor) {
+            if (cursor == null || cursor.isBlank()) {
+                return new Position(FIRST_PAGE_CREATED_AT, Long.MAX_VALUE);
+            }
+            try {
+                String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int sep = decoded.lastIndexOf('|');
+                return new Position(Instant.parse(decoded.substring(0, sep)),
+                        Long.parseLong(decoded.substring(sep + 1)));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+    }
+}
@@ -7,6 +7,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.mockito.Mockito.*;
@@ -24,12 +26,16 @@ class SettlementServiceApplicationTest {
     @Test
     void restTemplateBeanUsesBuilder() {
         RestTemplate expected = new RestTemplate();
+        when(builder.setConnectTimeout(Duration.ofSeconds(1))).thenReturn(builder);
+        when(builder.setReadTimeout(Duration.ofSeconds(2))).thenReturn(builder);
         when(builder.build()).thenReturn(expected);
 
         SettlementServiceApplication app = new SettlementServiceApplication();
-        RestTemplate actual = app.restTemplate(builder);
+        RestTemplate actual = app.restTemplate(builder, Duration.ofSeconds(1), Duration.ofSeconds(2));
 
         assertSame(expected, actual);
+        verify(builder).setConnectTimeout(Duration.ofSeconds(1));
+        verify(builder).setReadTimeout(Duration.ofSeconds(2));
         verify(builder).build();
     }
 
@@ -0,0 +1,120 @@
+package org.ncsu.settleup.settlementservice.benchmark;
+
+import org.ncsu.settleup.common.dto.PlanConstraints;
+import org.ncsu.settleup.common.dto.SettlementPlan;
+import org.ncsu.settleup.settlementservice.service.FlowSettlementPlanner;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Manual benchmark of {@link FlowSettlementPlanner} latency for groups
+ * of several thousand members, with and without constraints.  Balances
+ * are random amounts in cents; the constrained runs restrict one debtor
+ * in ten to a few payees, give every member a few past payees and cap
+ * incoming transfers.
+ *
+ * <p>This is not a unit test and is not picked up by surefire.  Run it
+ * with, for example:
+ * <pre>
+ * mvn -pl settlement-service test-compile exec:java \
+ *     -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.ncsu.settleup.settlementservice.benchmark.SettlementPlannerBenchmark
+ * </pre>
+ */
+public final class SettlementPlannerBenchmark {
+
+    private static final int[] GROUP_SIZES = {1000, 2000, 5000};
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int MEASURED_ITERATIONS = 50;
+
+    private SettlementPlannerBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        System.out.printf("%8s %12s %12s %12s %12s %10s%n",
+                "members", "constraints", "mean(us)", "p50(us)", "p99(us)", "transfers");
+        for (int members : GROUP_SIZES) {
+            Random random = new Random(members);
+            Map<Long, BigDecimal> balances = randomBalances(members, random);
+            run(members, "none", balances, null, null);
+            Map<Long, Set<Long>> pastPayees = randomPastPayees(members, random);
+            run(members, "all", balances, constraintsFor(balances, random), pastPayees);
+        }
+    }
+
+    private static void run(int members, String label, Map<Long, BigDecimal> balances,
+                            PlanConstraints constraints, Map<Long, Set<Long>> pastPayees) {
+        List<SettlementPlan.TransferDto> plan = null;
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            plan = FlowSettlementPlanner.plan(balances, constraints, pastPayees);
+        }
+        long[] samples = new long[MEASURED_ITERATIONS];
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            long start = System.nanoTime();
+            plan = FlowSettlementPlanner.plan(balances, constraints, pastPayees);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        long total = 0;
+        for (long sample : samples) {
+            total += sample;
+        }
+        System.out.printf("%8d %12s %12d %12d %12d %10d%n", members, label,
+                total / samples.length / 1_000,
+                samples[samples.length / 2] / 1_000,
+                samples[(int) (samples.length * 0.99)] / 1_000,
+                plan.size());
+    }
+
+    private static Map<Long, BigDecimal> randomBalances(int members, Random random) {
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        long sum = 0;
+        for (long member = 1; member < members; member++) {
+            long cents = random.nextInt(1_000_000) - 500_000;
+            balances.put(member, BigDecimal.valueOf(cents, 2));
+            sum += cents;
+        }
+        balances.put((long) members, BigDecimal.valueOf(-sum, 2));
+        return balances;
+    }
+
+    private static Map<Long, Set<Long>> randomPastPayees(int members, Random random) {
+        Map<Long, Set<Long>> pastPayees = new HashMap<>();
+        for (long member = 1; member <= members; member++) {
+            Set<Long> payees = new HashSet<>();
+            for (int i = 0; i < 3; i++) {
+                payees.add(1L + random.nextInt(members));
+            }
+            pastPayees.put(member, payees);
+        }
+        return pastPayees;
+    }
+
+    private static PlanConstraints constraintsFor(Map<Long, BigDecimal> balances, Random random) {
+        List<Long> creditors = new ArrayList<>();
+        balances.forEach((member, balance) -> {
+            if (balance.signum() > 0) {
+                creditors.add(member);
+            }
+        });
+        Map<Long, List<Long>> allowed = new HashMap<>();
+        for (Map.Entry<Long, BigDecimal> entry : balances.entrySet()) {
+            if (entry.getValue().signum() < 0 && entry.getKey() % 10 == 1) {
+                List<Long> payees = new ArrayList<>();
+                for (int i = 0; i < 20; i++) {
+                    payees.add(creditors.get(random.nextInt(creditors.size())));
+                }
+                allowed.put(entry.getKey(), payees);
+            }
+        }
+        return new PlanConstraints(allowed, 100, null, null, true);
+    }
+}
@@ -0,0 +1,71 @@
+package org.ncsu.settleup.settlementservice.client;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link ExpenseClient}.  The underlying
+ * {@link RestTemplate} is mocked so that no HTTP calls are made.
+ */
+class ExpenseClientTest {
+
+    private RestTemplate rest;
+    private ExpenseClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        rest = mock(RestTemplate.class);
+        client = new ExpenseClient(rest);
+        Field f = ExpenseClient.class.getDeclaredField("expenseServiceUrl");
+        f.setAccessible(true);
+        f.set(client, "http://dummy");
+    }
+
+    @Test
+    void requestResend_postsRangeAndReturnsTrue() {
+        when(rest.postForEntity(anyString(), isNull(), eq(Object.class)))
+                .thenReturn(ResponseEntity.accepted().build());
+
+        assertTrue(client.requestResend(3L, 5L, 8L));
+
+        verify(rest).postForEntity(eq("http://dummy/groups/3/events/resend?from=5&to=8"), isNull(), eq(Object.class));
+    }
+
+    @Test
+    void requestResend_returnsFalse_whenRestCallThrows() {
+        when(rest.postForEntity(anyString(), isNull(), eq(Object.class)))
+                .thenThrow(new RuntimeException("fail"));
+
+        assertFalse(client.requestResend(3L, 5L, 8L));
+    }
+
+    @Test
+    void firstExpensePage_asksForPageSize() {
+        ExpenseClient.ExpensePage page = new ExpenseClient.ExpensePage(List.of(Map.of("id", 1)), 1L);
+        when(rest.getForObject(anyString(), eq(ExpenseClient.ExpensePage.class))).thenReturn(page);
+
+        assertSame(page, client.firstExpensePage(3L, 20));
+
+        verify(rest).getForObject(eq("http://dummy/groups/3/expenses?size=20"), eq(ExpenseClient.ExpensePage.class));
+    }
+
+    @Test
+    void firstExpensePage_returnsEmptyPage_whenBodyNull() {
+        when(rest.getForObject(anyString(), eq(ExpenseClient.ExpensePage.class))).thenReturn(null);
+
+        ExpenseClient.ExpensePage page = client.firstExpensePage(3L, 20);
+
+        assertTrue(page.expenses().isEmpty());
+        assertNull(page.nextCursor());
+    }
+}
@@ -4,9 +4,12 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentMatchers;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
 import java.lang.reflect.Field;
@@ -14,6 +17,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -23,9 +28,10 @@ import static org.mockito.Mockito.*;
  * Unit tests for {@link MembershipClient}.  These tests mock the underlying
  * {@link RestTemplate} so that no HTTP calls are made.  Each test sets the
  * membershipServiceUrl via reflection to avoid a null pointer when constructing
- * request URLs.  Every branch of {@link MembershipClient#groupExists(Long)} and
- * {@link MembershipClient#memberExists(Long, Long)} is exercised to achieve
- * complete coverage of this class.
+ * request URLs.  Every branch of {@link MembershipClient#groupExists(Long)},
+ * {@link MembershipClient#memberExists(Long, Long)} and
+ * {@link MembershipClient#memberIds(Long)} is exercised to achieve complete
+ * coverage of this class.
  */
 class MembershipClientTest {
 
@@ -44,28 +50,45 @@ class MembershipClientTest {
 
     @Test
     void groupExists_returnsTrue_whenRestCallSucceeds() {
-        when(rest.getForEntity(anyString(), eq(Object.class)))
-                .thenReturn(ResponseEntity.ok().build());
+        when(rest.headForHeaders(anyString())).thenReturn(new HttpHeaders());
 
         assertTrue(client.groupExists(1L), "Expected true when REST call does not throw");
 
-        verify(rest, times(1))
-                .getForEntity(contains("/groups/1"), eq(Object.class));
+        verify(rest, times(1)).headForHeaders(endsWith("/groups/1"));
     }
 
     @Test
     void groupExists_returnsFalse_whenRestCallThrows() {
-        when(rest.getForEntity(anyString(), eq(Object.class)))
-                .thenThrow(new RuntimeException("fail"));
+        when(rest.headForHeaders(anyString()))
+                .thenThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND));
 
         assertFalse(client.groupExists(2L), "Expected false when REST call throws");
 
-        verify(rest, times(1))
-                .getForEntity(contains("/groups/2"), eq(Object.class));
+        verify(rest, times(1)).headForHeaders(endsWith("/groups/2"));
     }
 
     @Test
     void memberExists_returnsFalse_whenRestCallThrows() {
+        when(rest.headForHeaders(anyString()))
+                .thenThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND));
+
+        assertFalse(client.memberExists(1L, 2L), "Expected false when REST call throws");
+
+        verify(rest, times(1)).headForHeaders(endsWith("/groups/1/members/2"));
+    }
+
+    @Test
+    void memberExists_returnsTrue_whenHeadSucceeds() {
+        when(rest.headForHeaders(anyString())).thenReturn(new HttpHeaders());
+
+        assertTrue(client.memberExists(3L, 5L), "Expected true when the HEAD request succeeds");
+
+        verify(rest, times(1)).headForHeaders(endsWith("/groups/3/members/5"));
+        verifyNoMoreInteractions(rest);
+    }
+
+    @Test
+    void memberIds_returnsEmpty_whenRestCallThrows() {
         when(rest.exchange(
                 anyString(),
                 eq(HttpMethod.GET),
@@ -73,18 +96,11 @@ class MembershipClientTest {
                 ArgumentMatchers.<ParameterizedTypeReference<List<Map<String, Object>>>>any()
         )).thenThrow(new RuntimeException("fail"));
 
-        assertFalse(client.memberExists(1L, 2L), "Expected false when REST call throws");
-
-        verify(rest, times(1)).exchange(
-                contains("/groups/1/members"),
-                eq(HttpMethod.GET),
-                isNull(),
-                ArgumentMatchers.<ParameterizedTypeReference<List<Map<String, Object>>>>any()
-        );
+        assertTrue(client.memberIds(1L).isEmpty(), "Expected no IDs when REST call throws");
     }
 
     @Test
-    void memberExists_returnsFalse_whenBodyNull() {
+    void memberIds_returnsEmpty_whenBodyNull() {
         ResponseEntity<List<Map<String, Object>>> response =
                 new ResponseEntity<>(null, HttpStatus.OK);
 
@@ -95,38 +111,45 @@ class MembershipClientTest {
                 ArgumentMatchers.<ParameterizedTypeReference<List<Map<String, Object>>>>any()
         )).thenReturn(response);
 
-        assertFalse(client.memberExists(1L, 3L), "Expected false when response body is null");
-
-        verify(rest, times(1)).exchange(
-            contains("/groups/1/members"),
-            eq(HttpMethod.GET),
-            isNull(),
-            ArgumentMatchers.<ParameterizedTypeReference<List<Map<String, Object>>>>any()
-        );
+        assertTrue(client.memberIds(1L).isEmpty(), "Expected no IDs when response body is null");
     }
 
     @Test
-    void memberExists_returnsFalse_whenIdNotFound() {
-        // Response body contains a member but not the searched ID
+    void memberIds_skipsEntriesWithoutNumericId() {
         List<Map<String, Object>> members = new ArrayList<>();
         Map<String, Object> m = new HashMap<>();
-        m.put("id", 99L);
+        m.put("id", "not-a-number");
         members.add(m);
 
-        ResponseEntity<List<Map<String, Object>>> response =
-                new ResponseEntity<>(members, HttpStatus.OK);
+        when(rest.exchange(
+                anyString(),
+                eq(HttpMethod.GET),
+                isNull(),
+                ArgumentMatchers.<ParameterizedTypeReference<List<Map<String, Object>>>>any()
+        )).thenReturn(new ResponseEntity<>(members, HttpStatus.OK));
 
+        assertTrue(client.memberIds(2L).isEmpty(), "Expected entries without a numeric id to be skipped");
+    }
+
+    @Test
+    void memberIds_returnsAllIdsFromOneCall() {
+        List<Map<String, Object>> members = new ArrayList<>();
+        for (long id : new long[] {5L, 6L}) {
+            Map<String, Object> m = new HashMap<>();
+            m.put("id", id);
+            members.add(m);
+        }
         when(rest.exchange(
                 anyString(),
                 eq(HttpMethod.GET),
                 isNull(),
                 ArgumentMatchers.<ParameterizedTypeReference<List<Map<String, Object>>>>any()
-        )).thenReturn(response);
+        )).thenReturn(new ResponseEntity<>(members, HttpStatus.OK));
 
-        assertFalse(client.memberExists(2L, 1L), "Expected false when memberId not in list");
+        assertEquals(Set.of(5L, 6L), client.memberIds(4L));
 
         verify(rest, times(1)).exchange(
-                contains("/groups/2/members"),
+                contains("/groups/4/members"),
                 eq(HttpMethod.GET),
                 isNull(),
                 ArgumentMatchers.<ParameterizedTypeReference<List<Map<String, Object>>>>any()
@@ -134,30 +157,54 @@ class MembershipClientTest {
     }
 
     @Test
-    void memberExists_returnsTrue_whenIdFound() {
-        List<Map<String, Object>> members = new ArrayList<>();
-        Map<String, Object> m1 = new HashMap<>();
-        m1.put("id", 5L);
-        members.add(m1);
+    void findGroup_returnsGroup_whenFound() {
+        MembershipClient.Group group = new MembershipClient.Group(7L, "Trip", "EUR");
+        when(rest.getForObject(endsWith("/groups/7"), eq(MembershipClient.Group.class))).thenReturn(group);
 
-        ResponseEntity<List<Map<String, Object>>> response =
-                new ResponseEntity<>(members, HttpStatus.OK);
+        assertEquals(Optional.of(group), client.findGroup(7L));
+    }
+
+    @Test
+    void findGroup_returnsEmpty_whenNotFound() {
+        when(rest.getForObject(anyString(), eq(MembershipClient.Group.class)))
+                .thenThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND));
+
+        assertTrue(client.findGroup(7L).isEmpty());
+    }
+
+    @Test
+    void findGroup_propagatesOtherFailures() {
+        when(rest.getForObject(anyString(), eq(MembershipClient.Group.class)))
+                .thenThrow(new ResourceAccessException("connection refused"),
+                        new HttpClientErrorException(HttpStatus.FORBIDDEN));
 
+        assertThrows(ResourceAccessException.class, () -> client.findGroup(7L));
+        assertThrows(HttpClientErrorException.class, () -> client.findGroup(7L));
+    }
+
+    @Test
+    void listMembers_returnsMembers_andEmptyForNullBody() {
+        List<MembershipClient.Member> members = List.of(new MembershipClient.Member(5L, "a@example.com", "MEMBER"));
         when(rest.exchange(
-                anyString(),
+                endsWith("/groups/4/members"),
                 eq(HttpMethod.GET),
                 isNull(),
-                ArgumentMatchers.<ParameterizedTypeReference<List<Map<String, Object>>>>any()
-        )).thenReturn(response);
+                ArgumentMatchers.<ParameterizedTypeReference<List<MembershipClient.Member>>>any()
+        )).thenReturn(new ResponseEntity<>(members, HttpStatus.OK), new ResponseEntity<>(null, HttpStatus.OK));
 
-        assertTrue(client.memberExists(3L, 5L),
-                "Expected true when the id is present in response body");
+        assertEquals(members, client.listMembers(4L));
+        assertTrue(client.listMembers(4L).isEmpty());
+    }
 
-        verify(rest, times(1)).exchange(
-                contains("/groups/3/members"),
+    @Test
+    void listCategories_propagatesFailures() {
+        when(rest.exchange(
+                endsWith("/groups/4/categories"),
                 eq(HttpMethod.GET),
                 isNull(),
-                ArgumentMatchers.<ParameterizedTypeReference<List<Map<String, Object>>>>any()
-        );
+                ArgumentMatchers.<ParameterizedTypeReference<List<MembershipClient.Category>>>any()
+        )).thenThrow(new ResourceAccessException("timeout"));
+
+        assertThrows(ResourceAccessException.class, () -> client.listCategories(4L));
     }
-}
\ No newline at end of file
+}
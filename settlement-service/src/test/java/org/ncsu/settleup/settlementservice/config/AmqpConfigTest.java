@@ -1,12 +1,15 @@
 package org.ncsu.settleup.settlementservice.config;
 
 import org.junit.jupiter.api.Test;
+import org.ncsu.settleup.common.events.codec.BinaryEventMessageConverter;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.Queue;
 import org.springframework.amqp.core.TopicExchange;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -49,6 +52,17 @@ class AmqpConfigTest {
         assertEquals("expense.recorded", binding.getRoutingKey(), "Routing key should be 'expense.recorded'");
     }
 
+    @Test
+    void adjustedBinding_bindsAdjustedQueueWithAdjustedRoutingKey() {
+        AmqpConfig config = new AmqpConfig();
+        Queue queue = config.adjustedQueue();
+        assertEquals(AmqpConfig.ADJUSTED_QUEUE_NAME, queue.getName());
+        assertTrue(queue.isDurable(), "Queue should be durable");
+        Binding binding = config.adjustedBinding(queue, config.topicExchange());
+        assertEquals(queue.getName(), binding.getDestination());
+        assertEquals("expense.adjusted", binding.getRoutingKey());
+    }
+
     @Test
     void jackson2JsonMessageConverter_returnsInstance() {
         AmqpConfig config = new AmqpConfig();
@@ -73,4 +87,15 @@ class AmqpConfigTest {
         assertSame(connectionFactory, template.getConnectionFactory(), "ConnectionFactory should be the one provided");
         assertSame(converter, template.getMessageConverter(), "MessageConverter should be the one provided");
     }
+
+    @Test
+    void eventMessageConverter_delegatesByContentType() {
+        AmqpConfig config = new AmqpConfig();
+        MessageConverter converter = config.eventMessageConverter(config.jackson2JsonMessageConverter());
+        assertInstanceOf(ContentTypeDelegatingMessageConverter.class, converter);
+        ContentTypeDelegatingMessageConverter delegating = (ContentTypeDelegatingMessageConverter) converter;
+        assertInstanceOf(BinaryEventMessageConverter.class,
+                delegating.removeDelegate(BinaryEventMessageConverter.CONTENT_TYPE),
+                "Binary content type should be handled by the binary converter");
+    }
 }
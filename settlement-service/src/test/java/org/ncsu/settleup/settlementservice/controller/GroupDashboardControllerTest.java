@@ -0,0 +1,53 @@
+package org.ncsu.settleup.settlementservice.controller;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.ncsu.settleup.settlementservice.service.GroupDashboardService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the {@link GroupDashboardController}.  The dashboard
+ * service is mocked and the controller is invoked directly.
+ */
+@ExtendWith(MockitoExtension.class)
+class GroupDashboardControllerTest {
+
+    @Mock
+    private GroupDashboardService dashboardService;
+
+    @InjectMocks
+    private GroupDashboardController controller;
+
+    @Test
+    void getDashboard_returnsDashboard() {
+        GroupDashboardService.Dashboard dashboard =
+                new GroupDashboardService.Dashboard(1L, null, null, null, null, null, 12L);
+        when(dashboardService.load(1L, 3L)).thenReturn(CompletableFuture.completedFuture(Optional.of(dashboard)));
+
+        ResponseEntity<Object> resp = controller.getDashboard(1L, 3L).join();
+
+        assertEquals(HttpStatus.OK, resp.getStatusCode());
+        assertSame(dashboard, resp.getBody());
+    }
+
+    @Test
+    void getDashboard_returns404_whenGroupMissing() {
+        when(dashboardService.load(2L, null)).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+
+        ResponseEntity<Object> resp = controller.getDashboard(2L, null).join();
+
+        assertEquals(HttpStatus.NOT_FOUND, resp.getStatusCode());
+        assertEquals("Group not found", resp.getBody());
+    }
+}
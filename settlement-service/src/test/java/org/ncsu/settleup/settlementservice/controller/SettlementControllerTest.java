@@ -7,22 +7,36 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.ncsu.settleup.common.dto.PlanConstraints;
 import org.ncsu.settleup.common.dto.SettlementComputeRequest;
 import org.ncsu.settleup.common.dto.SettlementPlan;
 import org.ncsu.settleup.settlementservice.client.MembershipClient;
 import org.ncsu.settleup.settlementservice.model.Transfer;
 import org.ncsu.settleup.settlementservice.repo.TransferRepository;
+import org.ncsu.settleup.settlementservice.service.ExpenseEventListener;
 import org.ncsu.settleup.settlementservice.service.SettlementService;
+import org.ncsu.settleup.settlementservice.service.TransferService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -42,6 +56,12 @@ class SettlementControllerTest {
     @Mock
     private MembershipClient membershipClient;
 
+    @Mock
+    private ExpenseEventListener expenseEventListener;
+
+    @Mock
+    private TransferService transferService;
+
     @InjectMocks
     private SettlementController controller;
 
@@ -56,7 +76,7 @@ class SettlementControllerTest {
         SettlementComputeRequest req = new SettlementComputeRequest(groupId, "USD");
         when(membershipClient.groupExists(groupId)).thenReturn(false);
 
-        ResponseEntity<?> resp = controller.computeSettlement(req);
+        ResponseEntity<?> resp = controller.computeSettlement(req).join();
 
         assertEquals(HttpStatus.NOT_FOUND, resp.getStatusCode());
         assertEquals("Group not found", resp.getBody());
@@ -73,7 +93,7 @@ class SettlementControllerTest {
         when(membershipClient.groupExists(groupId)).thenReturn(true);
         when(settlementService.computeSettlement(groupId)).thenReturn(plan);
 
-        ResponseEntity<?> resp = controller.computeSettlement(req);
+        ResponseEntity<?> resp = controller.computeSettlement(req).join();
 
         assertEquals(HttpStatus.OK, resp.getStatusCode());
         assertSame(plan, resp.getBody());
@@ -81,6 +101,179 @@ class SettlementControllerTest {
         verify(settlementService).computeSettlement(groupId);
     }
 
+    @Test
+    void computeSettlement_withConstraints_usesConstrainedPlanner() {
+        Long groupId = 104L;
+        PlanConstraints constraints = new PlanConstraints(null, 2, null, null, false);
+        SettlementPlan plan = new SettlementPlan(List.of(), 3L);
+        when(membershipClient.groupExists(groupId)).thenReturn(true);
+        when(settlementService.computeSettlement(groupId, constraints, Map.of())).thenReturn(plan);
+
+        ResponseEntity<?> resp = controller.computeSettlement(
+                new SettlementComputeRequest(groupId, "USD", null, constraints)).join();
+
+        assertEquals(HttpStatus.OK, resp.getStatusCode());
+        assertSame(plan, resp.getBody());
+        verify(settlementService, never()).computeSettlement(groupId);
+        verifyNoInteractions(transferService);
+    }
+
+    @Test
+    void computeSettlement_preferPastPayees_passesPaymentHistory() {
+        Long groupId = 105L;
+        PlanConstraints constraints = new PlanConstraints(null, null, null, null, true);
+        Map<Long, Set<Long>> pastPayees = Map.of(1L, Set.of(2L));
+        SettlementPlan plan = new SettlementPlan(List.of(), 0L);
+        when(membershipClient.groupExists(groupId)).thenReturn(true);
+        when(transferService.pastPayees(groupId)).thenReturn(pastPayees);
+        when(settlementService.computeSettlement(groupId, constraints, pastPayees)).thenReturn(plan);
+
+        ResponseEntity<?> resp = controller.computeSettlement(
+                new SettlementComputeRequest(groupId, "USD", null, constraints)).join();
+
+        assertSame(plan, resp.getBody());
+    }
+
+    @Test
+    void computeSettlement_withMinSequence_waitsForEventBeforeComputing() {
+        Long groupId = 102L;
+        SettlementPlan plan = new SettlementPlan(List.of());
+        CompletableFuture<Void> applied = new CompletableFuture<>();
+        when(membershipClient.groupExists(groupId)).thenReturn(true);
+        when(expenseEventListener.whenApplied(groupId, 7L)).thenReturn(applied);
+        when(settlementService.computeSettlement(groupId)).thenReturn(plan);
+
+        CompletableFuture<ResponseEntity<Object>> pending =
+                controller.computeSettlement(new SettlementComputeRequest(groupId, "USD", 7L));
+
+        assertFalse(pending.isDone(), "Response should wait for the event");
+        verifyNoInteractions(settlementService);
+        applied.complete(null);
+        ResponseEntity<?> resp = pending.join();
+        assertEquals(HttpStatus.OK, resp.getStatusCode());
+        assertSame(plan, resp.getBody());
+    }
+
+    @Test
+    void computeSettlement_minSequenceNotAppliedInTime_returnsServiceUnavailable() {
+        Long groupId = 103L;
+        when(membershipClient.groupExists(groupId)).thenReturn(true);
+        when(expenseEventListener.whenApplied(groupId, 9L))
+                .thenReturn(CompletableFuture.failedFuture(new TimeoutException()));
+
+        ResponseEntity<?> resp = controller.computeSettlement(new SettlementComputeRequest(groupId, "USD", 9L)).join();
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, resp.getStatusCode());
+        assertEquals("1", resp.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        verifyNoInteractions(settlementService);
+    }
+
+    @Test
+    void getBalances_returnsBalancesAndAppliedSequence() {
+        Long groupId = 104L;
+        when(membershipClient.groupExists(groupId)).thenReturn(true);
+        when(settlementService.getBalances(groupId)).thenReturn(Map.of(1L, BigDecimal.TEN));
+        when(expenseEventListener.lastAppliedSequence(groupId)).thenReturn(12L);
+
+        ResponseEntity<?> resp = controller.getBalances(groupId, null).join();
+
+        assertEquals(HttpStatus.OK, resp.getStatusCode());
+        SettlementController.GroupBalances body = (SettlementController.GroupBalances) resp.getBody();
+        assertEquals(Map.of(1L, BigDecimal.TEN), body.balances());
+        assertEquals(12L, body.appliedSequence());
+        verify(expenseEventListener, never()).whenApplied(any(), anyLong());
+    }
+
+    @Test
+    void setPairwiseMode_switchesGroupAndReturnsMode() {
+        Long groupId = 106L;
+        when(membershipClient.groupExists(groupId)).thenReturn(true);
+        when(settlementService.isPairwise(groupId)).thenReturn(true);
+
+        ResponseEntity<Object> resp = controller.setPairwiseMode(groupId, new SettlementController.PairwiseMode(true));
+
+        assertEquals(HttpStatus.OK, resp.getStatusCode());
+        assertEquals(new SettlementController.PairwiseMode(true), resp.getBody());
+        verify(settlementService).setPairwise(groupId, true);
+    }
+
+    @Test
+    void getMemberDebts_groupNotPairwise_returnsBadRequest() {
+        Long groupId = 107L;
+        when(membershipClient.groupExists(groupId)).thenReturn(true);
+        when(settlementService.isPairwise(groupId)).thenReturn(false);
+
+        ResponseEntity<Object> resp = controller.getMemberDebts(groupId, 1L);
+
+        assertEquals(HttpStatus.BAD_REQUEST, resp.getStatusCode());
+        verify(settlementService, never()).getMemberDebts(any(), any());
+    }
+
+    @Test
+    void getMemberDebts_pairwiseGroup_returnsDirectDebts() {
+        Long groupId = 108L;
+        when(membershipClient.groupExists(groupId)).thenReturn(true);
+        when(settlementService.isPairwise(groupId)).thenReturn(true);
+        when(settlementService.getMemberDebts(groupId, 1L)).thenReturn(Map.of(2L, BigDecimal.TEN));
+
+        ResponseEntity<Object> resp = controller.getMemberDebts(groupId, 1L);
+
+        assertEquals(HttpStatus.OK, resp.getStatusCode());
+        assertEquals(new SettlementController.MemberDebts(groupId, 1L, Map.of(2L, BigDecimal.TEN)), resp.getBody());
+    }
+
+    @Test
+    void recordSettlement_validPlan_fetchesMembersOnceAndRecordsAllTransfers() {
+        Long groupId = 105L;
+        List<SettlementPlan.TransferDto> transfers = List.of(
+                new SettlementPlan.TransferDto(2L, 1L, BigDecimal.TEN),
+                new SettlementPlan.TransferDto(3L, 1L, BigDecimal.ONE));
+        List<Transfer> saved = List.of(new Transfer(), new Transfer());
+        when(membershipClient.groupExists(groupId)).thenReturn(true);
+        when(membershipClient.memberIds(groupId)).thenReturn(Set.of(1L, 2L, 3L));
+        when(transferService.recordPlan(groupId, transfers, 4L, "trip")).thenReturn(saved);
+
+        ResponseEntity<?> resp = controller.recordSettlement(groupId,
+                new SettlementController.SettlementRequest(transfers, 4L, "trip"));
+
+        assertEquals(HttpStatus.CREATED, resp.getStatusCode());
+        assertSame(saved, resp.getBody());
+        verify(membershipClient).memberIds(groupId);
+        verify(membershipClient, never()).memberExists(any(), any());
+        verifyNoInteractions(transferRepository);
+    }
+
+    @Test
+    void recordSettlement_memberOutsideGroup_returnsBadRequest() {
+        Long groupId = 106L;
+        List<SettlementPlan.TransferDto> transfers =
+                List.of(new SettlementPlan.TransferDto(2L, 9L, BigDecimal.TEN));
+        when(membershipClient.groupExists(groupId)).thenReturn(true);
+        when(membershipClient.memberIds(groupId)).thenReturn(Set.of(1L, 2L));
+
+        ResponseEntity<?> resp = controller.recordSettlement(groupId,
+                new SettlementController.SettlementRequest(transfers, null, null));
+
+        assertEquals(HttpStatus.BAD_REQUEST, resp.getStatusCode());
+        verifyNoInteractions(transferService);
+    }
+
+    @Test
+    void recordSettlement_nonPositiveAmountOrEmptyPlan_returnsBadRequest() {
+        Long groupId = 107L;
+        when(membershipClient.groupExists(groupId)).thenReturn(true);
+        when(membershipClient.memberIds(groupId)).thenReturn(Set.of(1L, 2L));
+
+        ResponseEntity<?> zero = controller.recordSettlement(groupId, new SettlementController.SettlementRequest(
+                List.of(new SettlementPlan.TransferDto(2L, 1L, BigDecimal.ZERO)), null, null));
+        ResponseEntity<?> empty = controller.recordSettlement(groupId,
+                new SettlementController.SettlementRequest(List.of(), null, null));
+
+        assertEquals(HttpStatus.BAD_REQUEST, zero.getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, empty.getStatusCode());
+        verifyNoInteractions(transferService);
+    }
+
     @Test
     void recordTransfer_groupNotFound_returnsNotFound() {
         Long groupId = 10L;
@@ -190,34 +383,38 @@ class SettlementControllerTest {
         verify(transferRepository).findById(id);
     }
 
+    @Test
+    void getTransfer_found_setsVersionAsETag() {
+        Transfer transfer = new Transfer();
+        transfer.setId(44L);
+        transfer.setVersion(3L);
+        when(transferRepository.findById(44L)).thenReturn(Optional.of(transfer));
+
+        ResponseEntity<Transfer> resp = controller.getTransfer(44L);
+
+        assertEquals("\"3\"", resp.getHeaders().getETag());
+    }
+
     @Test
     void updateTransfer_notFound_returnsNotFound() {
         Long id = 50L;
         SettlementController.TransferRequest request =
                 new SettlementController.TransferRequest(1L, 2L, 3L, BigDecimal.ONE, "note");
 
-        when(transferRepository.findById(id)).thenReturn(Optional.empty());
+        when(transferRepository.existsById(id)).thenReturn(false);
 
-        ResponseEntity<?> resp = controller.updateTransfer(id, request);
+        ResponseEntity<?> resp = controller.updateTransfer(id, request, null);
 
         assertEquals(HttpStatus.NOT_FOUND, resp.getStatusCode());
         assertEquals("Transfer not found", resp.getBody());
-        verify(transferRepository).findById(id);
-        verifyNoInteractions(settlementService);
+        verify(transferRepository).existsById(id);
+        verifyNoInteractions(settlementService, transferService, membershipClient);
     }
 
     @Test
     void updateTransfer_groupNotFound_returnsNotFound() {
         Long id = 60L;
-        Transfer existing = new Transfer();
-        existing.setId(id);
-        existing.setGroupId(5L);
-        existing.setFromMemberId(1L);
-        existing.setToMemberId(2L);
-        existing.setAmount(BigDecimal.TEN);
-        existing.setNote("old");
-
-        when(transferRepository.findById(id)).thenReturn(Optional.of(existing));
+        when(transferRepository.existsById(id)).thenReturn(true);
 
         // membershipClient.groupExists will be called with request.groupId
         Long newGroupId = 7L;
@@ -225,70 +422,43 @@ class SettlementControllerTest {
                 new SettlementController.TransferRequest(newGroupId, 3L, 4L, BigDecimal.ONE, "new");
         when(membershipClient.groupExists(newGroupId)).thenReturn(false);
 
-        ResponseEntity<?> resp = controller.updateTransfer(id, request);
+        ResponseEntity<?> resp = controller.updateTransfer(id, request, null);
 
         assertEquals(HttpStatus.NOT_FOUND, resp.getStatusCode());
         assertEquals("Group not found", resp.getBody());
         verify(membershipClient).groupExists(newGroupId);
         verifyNoMoreInteractions(membershipClient);
-        // findById should be invoked on the repository, but nothing else
-        verify(transferRepository).findById(id);
-        verifyNoMoreInteractions(transferRepository);
-        verifyNoInteractions(settlementService);
+        verifyNoInteractions(settlementService, transferService);
     }
 
     @Test
     void updateTransfer_invalidMembers_returnsBadRequest() {
         Long id = 61L;
-        Transfer existing = new Transfer();
-        existing.setId(id);
-        existing.setGroupId(5L);
-        existing.setFromMemberId(1L);
-        existing.setToMemberId(2L);
-        existing.setAmount(new BigDecimal("5"));
-        existing.setNote("old");
-
-        when(transferRepository.findById(id)).thenReturn(Optional.of(existing));
+        when(transferRepository.existsById(id)).thenReturn(true);
 
         Long newGroupId = 9L;
         Long newFromId = 10L;
         Long newToId = 11L;
-        BigDecimal newAmount = new BigDecimal("7");
-        String newNote = "new";
         SettlementController.TransferRequest request =
-                new SettlementController.TransferRequest(newGroupId, newFromId, newToId, newAmount, newNote);
+                new SettlementController.TransferRequest(newGroupId, newFromId, newToId, new BigDecimal("7"), "new");
 
         when(membershipClient.groupExists(newGroupId)).thenReturn(true);
         when(membershipClient.memberExists(newGroupId, newFromId)).thenReturn(false);
         // The second memberExists call is short-circuited because the first returned false
 
-        ResponseEntity<?> resp = controller.updateTransfer(id, request);
+        ResponseEntity<?> resp = controller.updateTransfer(id, request, null);
 
         assertEquals(HttpStatus.BAD_REQUEST, resp.getStatusCode());
         assertEquals("From or To member does not exist or is not part of the group", resp.getBody());
 
         verify(membershipClient).groupExists(newGroupId);
         verify(membershipClient).memberExists(newGroupId, newFromId);
-        // findById should be invoked on the repository, but no save/delete
-        verify(transferRepository).findById(id);
-        verifyNoMoreInteractions(transferRepository);
-        verifyNoInteractions(settlementService);
+        verifyNoInteractions(settlementService, transferService);
     }
 
     @Test
-    void updateTransfer_success_updatesAndReappliesBalances() {
+    void updateTransfer_success_delegatesCompareAndSetWithIfMatchVersion() {
         Long id = 62L;
-        // Existing transfer in repository
-        Transfer existing = new Transfer();
-        existing.setId(id);
-        existing.setGroupId(5L);
-        existing.setFromMemberId(1L);
-        existing.setToMemberId(2L);
-        existing.setAmount(new BigDecimal("3"));
-        existing.setNote("old");
-
-        when(transferRepository.findById(id)).thenReturn(Optional.of(existing));
-
         Long newGroupId = 6L;
         Long newFromId = 3L;
         Long newToId = 4L;
@@ -297,83 +467,65 @@ class SettlementControllerTest {
         SettlementController.TransferRequest request =
                 new SettlementController.TransferRequest(newGroupId, newFromId, newToId, newAmount, newNote);
 
+        when(transferRepository.existsById(id)).thenReturn(true);
         when(membershipClient.groupExists(newGroupId)).thenReturn(true);
         when(membershipClient.memberExists(newGroupId, newFromId)).thenReturn(true);
         when(membershipClient.memberExists(newGroupId, newToId)).thenReturn(true);
+        Transfer updated = new Transfer();
+        updated.setId(id);
+        updated.setVersion(3L);
+        when(transferService.updateTransfer(eq(id), any(Transfer.class), eq(2L))).thenReturn(Optional.of(updated));
 
-        // save returns the updated transfer
-        when(transferRepository.save(any(Transfer.class))).thenAnswer(invocation -> invocation.getArgument(0));
-
-        ResponseEntity<?> resp = controller.updateTransfer(id, request);
+        ResponseEntity<?> resp = controller.updateTransfer(id, request, "\"2\"");
 
         assertEquals(HttpStatus.OK, resp.getStatusCode());
-        Transfer saved = (Transfer) resp.getBody();
-
-        // There should be two balance updates (reverse + new)
-        verify(settlementService, times(2)).applyTransfer(any(), any(), any(), any());
-
-        // Ensure the *new* transfer was applied with correct arguments
-        verify(settlementService).applyTransfer(newGroupId, newFromId, newToId, newAmount);
-
-        // Membership checks
-        verify(membershipClient).groupExists(newGroupId);
-        verify(membershipClient).memberExists(newGroupId, newFromId);
-        verify(membershipClient).memberExists(newGroupId, newToId);
+        assertSame(updated, resp.getBody());
+        assertEquals("\"3\"", resp.getHeaders().getETag());
 
-        // Check the saved transfer has updated values
-        assertEquals(newGroupId, saved.getGroupId());
-        assertEquals(newFromId, saved.getFromMemberId());
-        assertEquals(newToId, saved.getToMemberId());
-        assertEquals(newAmount, saved.getAmount());
-        assertEquals(newNote, saved.getNote());
-
-        // Repository interactions: findById + save
-        ArgumentCaptor<Transfer> updatedCaptor = ArgumentCaptor.forClass(Transfer.class);
-        verify(transferRepository).findById(id);
-        verify(transferRepository).save(updatedCaptor.capture());
-        Transfer passed = updatedCaptor.getValue();
+        ArgumentCaptor<Transfer> values = ArgumentCaptor.forClass(Transfer.class);
+        verify(transferService).updateTransfer(eq(id), values.capture(), eq(2L));
+        Transfer passed = values.getValue();
         assertEquals(newGroupId, passed.getGroupId());
         assertEquals(newFromId, passed.getFromMemberId());
         assertEquals(newToId, passed.getToMemberId());
         assertEquals(newAmount, passed.getAmount());
         assertEquals(newNote, passed.getNote());
-        verifyNoMoreInteractions(transferRepository);
+        // Balances are adjusted by the service after commit, not by the controller
+        verifyNoInteractions(settlementService);
     }
 
+    @Test
+    void versionOf_parsesStrongWeakAndWildcardTags() {
+        assertEquals(4L, SettlementController.versionOf("\"4\""));
+        assertEquals(4L, SettlementController.versionOf("W/\"4\""));
+        assertNull(SettlementController.versionOf("*"));
+        assertNull(SettlementController.versionOf(null));
+        assertThrows(IllegalArgumentException.class, () -> SettlementController.versionOf("\"abc\""));
+    }
 
     @Test
     void deleteTransfer_notFound_returnsNotFound() {
         Long id = 70L;
-        when(transferRepository.findById(id)).thenReturn(Optional.empty());
+        when(transferService.deleteTransfer(id, null)).thenReturn(false);
 
-        ResponseEntity<String> resp = controller.deleteTransfer(id);
+        ResponseEntity<String> resp = controller.deleteTransfer(id, null);
 
         assertEquals(HttpStatus.NOT_FOUND, resp.getStatusCode());
         assertEquals("Transfer not found", resp.getBody());
-        verify(transferRepository).findById(id);
         verifyNoInteractions(settlementService);
     }
 
     @Test
-    void deleteTransfer_success_reversesAndDeletes() {
+    void deleteTransfer_success_delegatesToService() {
         Long id = 71L;
-        Transfer existing = new Transfer();
-        existing.setId(id);
-        existing.setGroupId(5L);
-        existing.setFromMemberId(1L);
-        existing.setToMemberId(2L);
-        existing.setAmount(new BigDecimal("9"));
-        existing.setNote("del");
-
-        when(transferRepository.findById(id)).thenReturn(Optional.of(existing));
+        when(transferService.deleteTransfer(id, 5L)).thenReturn(true);
 
-        ResponseEntity<String> resp = controller.deleteTransfer(id);
+        ResponseEntity<String> resp = controller.deleteTransfer(id, "5");
 
         assertEquals(HttpStatus.OK, resp.getStatusCode());
         assertEquals("Transfer deleted successfully", resp.getBody());
-
-        verify(settlementService).applyTransfer(existing.getGroupId(), existing.getToMemberId(), existing.getFromMemberId(), existing.getAmount());
-        verify(transferRepository).delete(existing);
+        verify(transferService).deleteTransfer(id, 5L);
+        verifyNoInteractions(settlementService);
     }
 
     @Test
@@ -381,31 +533,49 @@ class SettlementControllerTest {
         Long groupId = 80L;
         when(membershipClient.groupExists(groupId)).thenReturn(false);
 
-        ResponseEntity<?> resp = controller.getTransfersForGroup(groupId);
+        ResponseEntity<?> resp = controller.getTransfersForGroup(groupId, null, 50);
 
         assertEquals(HttpStatus.NOT_FOUND, resp.getStatusCode());
         assertEquals("Group not found", resp.getBody());
         verify(membershipClient).groupExists(groupId);
-        verifyNoInteractions(transferRepository);
+        verifyNoInteractions(transferRepository, transferService);
     }
 
     @Test
-    void getTransfersForGroup_groupExists_returnsList() {
+    void getTransfersForGroup_groupExists_returnsPage() {
         Long groupId = 81L;
         when(membershipClient.groupExists(groupId)).thenReturn(true);
 
         Transfer t1 = new Transfer();
-        t1.setId(1L);
+        t1.setId(2L);
+        t1.setCreatedAt(Instant.parse("2024-05-02T00:00:00Z"));
         Transfer t2 = new Transfer();
-        t2.setId(2L);
+        t2.setId(1L);
+        t2.setCreatedAt(Instant.parse("2024-05-01T00:00:00Z"));
         List<Transfer> list = List.of(t1, t2);
-        when(transferRepository.findByGroupId(groupId)).thenReturn(list);
+        when(transferService.findGroupHistory(groupId, null, 2)).thenReturn(list);
 
-        ResponseEntity<?> resp = controller.getTransfersForGroup(groupId);
+        ResponseEntity<?> resp = controller.getTransfersForGroup(groupId, null, 2);
 
         assertEquals(HttpStatus.OK, resp.getStatusCode());
-        assertSame(list, resp.getBody());
+        SettlementController.TransferPage page = (SettlementController.TransferPage) resp.getBody();
+        assertSame(list, page.transfers());
+        assertEquals(TransferService.cursorOf(t2), page.nextCursor(), "A full page links to the next one");
         verify(membershipClient).groupExists(groupId);
-        verify(transferRepository).findByGroupId(groupId);
+    }
+
+    @Test
+    void getTransfersForMember_partialPage_hasNoNextCursor() {
+        Long groupId = 82L;
+        when(membershipClient.groupExists(groupId)).thenReturn(true);
+        when(transferService.findMemberHistory(groupId, 3L, "abc", TransferService.MAX_PAGE_SIZE))
+                .thenReturn(List.of(new Transfer()));
+
+        ResponseEntity<?> resp = controller.getTransfersForMember(groupId, 3L, "abc", 1000);
+
+        assertEquals(HttpStatus.OK, resp.getStatusCode());
+        SettlementController.TransferPage page = (SettlementController.TransferPage) resp.getBody();
+        assertEquals(1, page.transfers().size());
+        assertNull(page.nextCursor());
     }
 }
\ No newline at end of file
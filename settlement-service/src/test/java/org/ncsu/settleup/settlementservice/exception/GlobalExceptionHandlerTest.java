@@ -22,6 +22,15 @@ class GlobalExceptionHandlerTest {
         assertEquals(errorMessage, response.getBody(), "Response body should contain the exception message");
     }
 
+    @Test
+    void handleStalePlan_returnsConflictWithMessage() {
+        GlobalExceptionHandler handler = new GlobalExceptionHandler();
+        StalePlanException ex = new StalePlanException(1L, 3L);
+        ResponseEntity<String> response = handler.handleStalePlan(ex);
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode(), "Status should be 409 Conflict");
+        assertEquals(ex.getMessage(), response.getBody());
+    }
+
     @Test
     void handleGeneralException_returnsInternalServerErrorWithGenericMessage() {
         GlobalExceptionHandler handler = new GlobalExceptionHandler();
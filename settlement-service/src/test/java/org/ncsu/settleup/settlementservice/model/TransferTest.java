@@ -22,6 +22,8 @@ class TransferTest {
         assertNull(transfer.getToMemberId(), "toMemberId should be null by default");
         assertNull(transfer.getAmount(), "amount should be null by default");
         assertNull(transfer.getNote(), "note should be null by default");
+        assertNull(transfer.getCreatedAt(), "createdAt should be null by default");
+        assertNull(transfer.getVersion(), "version should be null by default");
     }
 
     @Test
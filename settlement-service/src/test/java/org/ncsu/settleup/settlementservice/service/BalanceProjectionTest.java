@@ -0,0 +1,176 @@
+package org.ncsu.settleup.settlementservice.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.ncsu.settleup.common.events.ExpenseAdjustedEvent;
+import org.ncsu.settleup.common.events.ExpenseRecordedEvent;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link BalanceProjection}.  The {@link JdbcTemplate} is
+ * mocked so the tests check which rows are written and restored; a real
+ * {@link SettlementService} holds the ledger.
+ */
+class BalanceProjectionTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private SettlementService settlementService;
+    private BalanceProjection projection;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        settlementService = new SettlementService();
+        projection = new BalanceProjection(jdbcTemplate, mock(PlatformTransactionManager.class), settlementService);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> rowsFor(String table) {
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(contains("INSERT INTO " + table), rows.capture());
+        return rows.getValue();
+    }
+
+    @Test
+    void flush_writesOneRowPerChangedMember() {
+        for (long sequence = 1; sequence <= 5; sequence++) {
+            settlementService.handleExpenseAdjusted(new ExpenseAdjustedEvent(1L, sequence,
+                    Map.of(1L, BigDecimal.ONE, 2L, BigDecimal.ONE.negate()), sequence));
+        }
+
+        assertEquals(2, projection.flush());
+
+        List<Object[]> balances = rowsFor("member_balances");
+        assertEquals(2, balances.size(), "Five events for two members become two row writes");
+        for (Object[] row : balances) {
+            assertEquals(5L, row[3], "Rows carry the ledger version");
+        }
+        assertArrayEquals(new Object[] {1L, 5L, 5L}, rowsFor("group_ledgers").get(0));
+        assertEquals(0, projection.flush(), "Nothing changed since the last flush");
+    }
+
+    @Test
+    void flush_failure_requeuesChangedMembers() {
+        settlementService.applyTransfer(1L, 2L, 1L, BigDecimal.TEN);
+        when(jdbcTemplate.batchUpdate(contains("member_balances"), anyList()))
+                .thenThrow(new IllegalStateException("database down"))
+                .thenReturn(new int[0]);
+
+        assertThrows(IllegalStateException.class, () -> projection.flush());
+        assertEquals(2, projection.flush(), "The failed rows are written by the next flush");
+    }
+
+    @Test
+    void flush_pairwiseGroup_writesModeAndChangedPairs() {
+        settlementService.setPairwise(1L, true);
+        settlementService.handleExpenseRecorded(new ExpenseRecordedEvent(1L, 1L, 2L, Map.of(1L, BigDecimal.TEN)));
+        settlementService.handleExpenseRecorded(new ExpenseRecordedEvent(1L, 2L, 1L, Map.of(3L, BigDecimal.ONE)));
+        settlementService.handleExpenseRecorded(new ExpenseRecordedEvent(1L, 3L, 3L, Map.of(1L, BigDecimal.ONE)));
+
+        projection.flush();
+
+        verify(jdbcTemplate).batchUpdate(contains("UPDATE group_ledgers SET pairwise_debts"), anyList());
+        verify(jdbcTemplate).batchUpdate(contains("DELETE FROM member_pair_debts WHERE group_id = ? AND version"),
+                anyList());
+        List<Object[]> pairs = rowsFor("member_pair_debts");
+        assertEquals(1, pairs.size(), "The settled pair is deleted, not written");
+        assertArrayEquals(new Object[] {1L, 1L, 2L, BigDecimal.TEN, 4L}, pairs.get(0));
+        verify(jdbcTemplate).batchUpdate(contains("AND low_member_id = ?"), anyList());
+    }
+
+    @Test
+    void flush_leavesTransfersOutOfStoredBalances() {
+        settlementService.handleExpenseAdjusted(new ExpenseAdjustedEvent(1L, 1L,
+                Map.of(1L, BigDecimal.TEN, 2L, BigDecimal.TEN.negate()), 1L));
+        settlementService.applyTransfer(1L, 2L, 1L, new BigDecimal("4"));
+
+        projection.flush();
+
+        for (Object[] row : rowsFor("member_balances")) {
+            assertEquals(row[1].equals(1L) ? BigDecimal.TEN : BigDecimal.TEN.negate(), row[2],
+                    "Stored balances are what the expense events add up to");
+        }
+    }
+
+    @Test
+    void warmStart_restoresPersistedGroups() throws Exception {
+        ResultSet ledger = mock(ResultSet.class);
+        when(ledger.getLong(1)).thenReturn(7L);
+        when(ledger.getLong(2)).thenReturn(12L);
+        when(ledger.getLong(3)).thenReturn(30L);
+        ResultSet balance = mock(ResultSet.class);
+        when(balance.getLong(1)).thenReturn(7L);
+        when(balance.getLong(2)).thenReturn(3L);
+        when(balance.getBigDecimal(3)).thenReturn(new BigDecimal("-4.50"));
+        doAnswer(inv -> {
+            ((RowCallbackHandler) inv.getArgument(1)).processRow(ledger);
+            return null;
+        }).when(jdbcTemplate).query(contains("FROM group_ledgers"), any(RowCallbackHandler.class));
+        doAnswer(inv -> {
+            ((RowCallbackHandler) inv.getArgument(1)).processRow(balance);
+            return null;
+        }).when(jdbcTemplate).query(contains("FROM member_balances"), any(RowCallbackHandler.class));
+
+        assertEquals(1, projection.warmStart());
+
+        assertEquals(new BigDecimal("-4.50"), settlementService.getBalances(7L).get(3L));
+        assertEquals(12L, settlementService.getLedgerVersion(7L));
+        assertEquals(30L, settlementService.getAppliedSequence(7L));
+    }
+
+    @Test
+    void warmStart_addsStoredTransfersAndRestoresGroupsWithOnlyTransfers() throws Exception {
+        ResultSet ledger = mock(ResultSet.class);
+        when(ledger.getLong(1)).thenReturn(7L);
+        when(ledger.getLong(2)).thenReturn(12L);
+        when(ledger.getLong(3)).thenReturn(30L);
+        ResultSet balance = mock(ResultSet.class);
+        when(balance.getLong(1)).thenReturn(7L);
+        when(balance.getLong(2)).thenReturn(3L);
+        when(balance.getBigDecimal(3)).thenReturn(new BigDecimal("-10"));
+        ResultSet stored = mock(ResultSet.class);
+        ResultSet transferOnly = mock(ResultSet.class);
+        for (ResultSet rs : List.of(stored, transferOnly)) {
+            when(rs.getLong(2)).thenReturn(3L);
+            when(rs.getLong(3)).thenReturn(4L);
+            when(rs.getBigDecimal(4)).thenReturn(new BigDecimal("6"));
+        }
+        when(stored.getLong(1)).thenReturn(7L);
+        when(transferOnly.getLong(1)).thenReturn(8L);
+        doAnswer(inv -> {
+            ((RowCallbackHandler) inv.getArgument(1)).processRow(ledger);
+            return null;
+        }).when(jdbcTemplate).query(contains("FROM group_ledgers"), any(RowCallbackHandler.class));
+        doAnswer(inv -> {
+            ((RowCallbackHandler) inv.getArgument(1)).processRow(balance);
+            return null;
+        }).when(jdbcTemplate).query(contains("FROM member_balances"), any(RowCallbackHandler.class));
+        doAnswer(inv -> {
+            ((RowCallbackHandler) inv.getArgument(1)).processRow(stored);
+            ((RowCallbackHandler) inv.getArgument(1)).processRow(transferOnly);
+            return null;
+        }).when(jdbcTemplate).query(contains("FROM transfers"), any(RowCallbackHandler.class));
+
+        assertEquals(2, projection.warmStart());
+
+        assertEquals(new BigDecimal("-4"), settlementService.getBalances(7L).get(3L));
+        assertEquals(new BigDecimal("-6"), settlementService.getBalances(7L).get(4L));
+        assertEquals(12L, settlementService.getLedgerVersion(7L));
+        assertEquals(Map.of(3L, new BigDecimal("6"), 4L, new BigDecimal("-6")), settlementService.getBalances(8L));
+        assertEquals(0L, settlementService.getAppliedSequence(8L), "Expense events are fetched from the start");
+        assertTrue(settlementService.drainChanges().isEmpty(), "Nothing restored needs writing back");
+    }
+}
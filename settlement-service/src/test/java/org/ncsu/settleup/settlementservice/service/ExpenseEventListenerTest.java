@@ -0,0 +1,149 @@
+package org.ncsu.settleup.settlementservice.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ncsu.settleup.common.events.ExpenseAdjustedEvent;
+import org.ncsu.settleup.common.events.ExpenseRecordedEvent;
+import org.ncsu.settleup.settlementservice.client.ExpenseClient;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link ExpenseEventListener}.  Events are applied
+ * through a recording runnable so the tests can check the order in
+ * which they reach the balances; the {@link ExpenseClient} is mocked.
+ */
+class ExpenseEventListenerTest {
+
+    private ExpenseClient expenseClient;
+    private ExpenseEventListener listener;
+    private final List<Long> applied = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        expenseClient = mock(ExpenseClient.class);
+        listener = new ExpenseEventListener(mock(SettlementService.class), expenseClient, 4, Duration.ofMinutes(1), Duration.ofMinutes(1));
+    }
+
+    private void deliver(long sequence) {
+        listener.accept(1L, sequence, () -> applied.add(sequence));
+    }
+
+    @Test
+    void inOrderEvents_areAppliedWithoutResend() {
+        deliver(1);
+        deliver(2);
+        deliver(3);
+        assertEquals(List.of(1L, 2L, 3L), applied);
+        assertEquals(3L, listener.lastAppliedSequence(1L));
+        verifyNoInteractions(expenseClient);
+    }
+
+    @Test
+    void outOfOrderEvent_isBufferedUntilGapIsFilled() {
+        deliver(1);
+        deliver(3);
+        assertEquals(List.of(1L), applied);
+        verify(expenseClient).requestResend(1L, 2L, 2L);
+
+        deliver(2);
+        assertEquals(List.of(1L, 2L, 3L), applied);
+        assertEquals(3L, listener.lastAppliedSequence(1L));
+    }
+
+    @Test
+    void duplicateEvents_areIgnored() {
+        deliver(1);
+        deliver(1);
+        deliver(3);
+        deliver(3);
+        deliver(2);
+        assertEquals(List.of(1L, 2L, 3L), applied);
+    }
+
+    @Test
+    void sameGap_isRequestedOnlyOnceWithinTimeout() {
+        deliver(1);
+        deliver(4);
+        deliver(5);
+        verify(expenseClient, times(1)).requestResend(1L, 2L, 3L);
+        verify(expenseClient, times(1)).requestResend(anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    void eventsBeyondWindow_areDroppedAndRequestedLater() {
+        deliver(1);
+        deliver(10);
+        // Window is 4: only 2..5 can be requested and buffered for now
+        verify(expenseClient).requestResend(1L, 2L, 5L);
+        for (long s = 2; s <= 5; s++) {
+            deliver(s);
+        }
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), applied);
+        verify(expenseClient).requestResend(1L, 6L, 9L);
+    }
+
+    @Test
+    void unsequencedEvents_areAppliedImmediately() {
+        SettlementService settlementService = mock(SettlementService.class);
+        ExpenseEventListener plain = new ExpenseEventListener(settlementService, expenseClient, 4, Duration.ofMinutes(1), Duration.ofMinutes(1));
+        ExpenseRecordedEvent recorded = new ExpenseRecordedEvent(1L, 2L, 3L, Map.of(4L, BigDecimal.ONE));
+        ExpenseAdjustedEvent adjusted = new ExpenseAdjustedEvent(1L, 2L, Map.of(4L, BigDecimal.ONE));
+
+        plain.onExpenseRecorded(recorded);
+        plain.onExpenseAdjusted(adjusted);
+
+        verify(settlementService).handleExpenseRecorded(recorded);
+        verify(settlementService).handleExpenseAdjusted(adjusted);
+        assertEquals(0L, plain.lastAppliedSequence(1L));
+    }
+
+    @Test
+    void whenApplied_completesOnceSequenceIsApplied() {
+        deliver(1);
+        assertTrue(listener.whenApplied(1L, 1L).isDone(), "Already applied sequence should complete immediately");
+
+        CompletableFuture<Void> waiting = listener.whenApplied(1L, 3L);
+        deliver(3);
+        assertFalse(waiting.isDone(), "Buffered event is not applied yet");
+        deliver(2);
+        assertTrue(waiting.isDone());
+    }
+
+    @Test
+    void whenApplied_timesOutAndRequestsMissingEvents() {
+        ExpenseEventListener impatient = new ExpenseEventListener(mock(SettlementService.class), expenseClient,
+                4, Duration.ofMinutes(1), Duration.ofMillis(10));
+        impatient.accept(1L, 1L, () -> { });
+
+        CompletionException error = assertThrows(CompletionException.class,
+                () -> impatient.whenApplied(1L, 2L).join());
+
+        assertInstanceOf(TimeoutException.class, error.getCause());
+        verify(expenseClient, timeout(1000)).requestResend(1L, 2L, 2L);
+    }
+
+    @Test
+    void restoredGroup_resumesAfterPersistedSequence() {
+        SettlementService settlementService = mock(SettlementService.class);
+        when(settlementService.getAppliedSequence(1L)).thenReturn(10L);
+        listener = new ExpenseEventListener(settlementService, expenseClient, 4, Duration.ofMinutes(1), Duration.ofMinutes(1));
+
+        assertEquals(10L, listener.lastAppliedSequence(1L));
+        deliver(9);
+        deliver(11);
+        assertEquals(List.of(11L), applied, "Events already in the restored balances are skipped");
+        verifyNoInteractions(expenseClient);
+    }
+}
@@ -0,0 +1,182 @@
+package org.ncsu.settleup.settlementservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.ncsu.settleup.common.dto.PlanConstraints;
+import org.ncsu.settleup.common.dto.SettlementPlan;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link FlowSettlementPlanner}.  Each plan is checked to
+ * settle every balance exactly, in addition to the constraint under test.
+ */
+class FlowSettlementPlannerTest {
+
+    private static Map<Long, BigDecimal> balances(Object... pairs) {
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            balances.put((Long) pairs[i], new BigDecimal((String) pairs[i + 1]));
+        }
+        return balances;
+    }
+
+    private static void assertSettles(Map<Long, BigDecimal> balances, List<SettlementPlan.TransferDto> transfers) {
+        Map<Long, BigDecimal> remaining = new HashMap<>(balances);
+        for (SettlementPlan.TransferDto t : transfers) {
+            assertTrue(t.amount().signum() > 0, "transfer amounts are positive");
+            remaining.merge(t.fromMemberId(), t.amount(), BigDecimal::add);
+            remaining.merge(t.toMemberId(), t.amount().negate(), BigDecimal::add);
+        }
+        remaining.forEach((member, balance) ->
+                assertEquals(0, balance.signum(), "member " + member + " is settled"));
+    }
+
+    @Test
+    void plan_withoutConstraints_settlesWithFewTransfers() {
+        Map<Long, BigDecimal> balances = balances(1L, "-30", 2L, "-20", 3L, "40", 4L, "10");
+        List<SettlementPlan.TransferDto> transfers = FlowSettlementPlanner.plan(balances, null, null);
+        assertSettles(balances, transfers);
+        assertEquals(3, transfers.size());
+    }
+
+    @Test
+    void plan_keepsFinestScaleOfBalances() {
+        Map<Long, BigDecimal> balances = balances(1L, "-10.005", 2L, "10.005");
+        List<SettlementPlan.TransferDto> transfers = FlowSettlementPlanner.plan(balances, null, null);
+        assertEquals(List.of(new SettlementPlan.TransferDto(1L, 2L, new BigDecimal("10.005"))), transfers);
+    }
+
+    @Test
+    void plan_allowedPayees_restrictsWhoADebtorPays() {
+        Map<Long, BigDecimal> balances = balances(1L, "-30", 2L, "-70", 3L, "60", 4L, "40");
+        PlanConstraints constraints = new PlanConstraints(Map.of(1L, List.of(4L)), null, null, null, false);
+        List<SettlementPlan.TransferDto> transfers = FlowSettlementPlanner.plan(balances, constraints, null);
+        assertSettles(balances, transfers);
+        for (SettlementPlan.TransferDto t : transfers) {
+            if (t.fromMemberId() == 1L) {
+                assertEquals(4L, t.toMemberId());
+            }
+        }
+    }
+
+    @Test
+    void plan_allowedPayeesCannotSettle_throws() {
+        Map<Long, BigDecimal> balances = balances(1L, "-50", 2L, "-10", 3L, "30", 4L, "30");
+        PlanConstraints constraints = new PlanConstraints(Map.of(1L, List.of(4L)), null, null, null, false);
+        assertThrows(IllegalArgumentException.class,
+                () -> FlowSettlementPlanner.plan(balances, constraints, null));
+    }
+
+    @Test
+    void plan_pairCosts_preferCheaperPairs() {
+        Map<Long, BigDecimal> balances = balances(1L, "-10", 2L, "-10", 3L, "10", 4L, "10");
+        PlanConstraints constraints = new PlanConstraints(null, null,
+                List.of(new PlanConstraints.PairCost(1L, 4L, 1), new PlanConstraints.PairCost(2L, 3L, 1)),
+                null, false);
+        List<SettlementPlan.TransferDto> transfers = FlowSettlementPlanner.plan(balances, constraints, null);
+        assertSettles(balances, transfers);
+        assertTrue(transfers.contains(new SettlementPlan.TransferDto(1L, 4L, new BigDecimal("10"))));
+        assertTrue(transfers.contains(new SettlementPlan.TransferDto(2L, 3L, new BigDecimal("10"))));
+    }
+
+    @Test
+    void plan_pairCostAboveDefault_avoidsPenalisedPair() {
+        Map<Long, BigDecimal> balances = balances(1L, "-10", 2L, "-10", 3L, "10", 4L, "10");
+        PlanConstraints constraints = new PlanConstraints(null, null,
+                List.of(new PlanConstraints.PairCost(1L, 3L, 50)), null, false);
+        List<SettlementPlan.TransferDto> transfers = FlowSettlementPlanner.plan(balances, constraints, null);
+        assertSettles(balances, transfers);
+        assertTrue(transfers.stream().noneMatch(t -> t.fromMemberId() == 1L && t.toMemberId() == 3L));
+        assertTrue(transfers.contains(new SettlementPlan.TransferDto(1L, 4L, new BigDecimal("10"))));
+        assertTrue(transfers.contains(new SettlementPlan.TransferDto(2L, 3L, new BigDecimal("10"))));
+    }
+
+    @Test
+    void plan_pairCostAboveDefault_usedWhenNoOtherRoute() {
+        Map<Long, BigDecimal> balances = balances(1L, "-10", 3L, "10");
+        PlanConstraints constraints = new PlanConstraints(null, null,
+                List.of(new PlanConstraints.PairCost(1L, 3L, 50)), null, false);
+        List<SettlementPlan.TransferDto> transfers = FlowSettlementPlanner.plan(balances, constraints, null);
+        assertEquals(List.of(new SettlementPlan.TransferDto(1L, 3L, new BigDecimal("10"))), transfers);
+    }
+
+    @Test
+    void plan_preferPastPayees_routesThroughPastPairs() {
+        Map<Long, BigDecimal> balances = balances(1L, "-10", 2L, "-10", 3L, "10", 4L, "10");
+        PlanConstraints constraints = new PlanConstraints(null, null, null, null, true);
+        List<SettlementPlan.TransferDto> transfers =
+                FlowSettlementPlanner.plan(balances, constraints, Map.of(1L, Set.of(4L)));
+        assertSettles(balances, transfers);
+        assertTrue(transfers.contains(new SettlementPlan.TransferDto(1L, 4L, new BigDecimal("10"))));
+    }
+
+    @Test
+    void plan_maxIncomingTransfers_limitsTransfersPerPayee() {
+        Map<Long, BigDecimal> balances = balances(1L, "-40", 2L, "-30", 3L, "-30", 4L, "70", 5L, "30");
+        PlanConstraints constraints = new PlanConstraints(null, 2, null, null, false);
+        List<SettlementPlan.TransferDto> transfers = FlowSettlementPlanner.plan(balances, constraints, null);
+        assertSettles(balances, transfers);
+        Map<Long, Integer> incoming = new HashMap<>();
+        transfers.forEach(t -> incoming.merge(t.toMemberId(), 1, Integer::sum));
+        incoming.values().forEach(count -> assertTrue(count <= 2));
+    }
+
+    @Test
+    void plan_maxIncomingTransfersTooLow_throws() {
+        Map<Long, BigDecimal> balances = balances(1L, "-10", 2L, "-10", 3L, "20");
+        PlanConstraints constraints = new PlanConstraints(null, 1, null, null, false);
+        assertThrows(IllegalArgumentException.class,
+                () -> FlowSettlementPlanner.plan(balances, constraints, null));
+    }
+
+    @Test
+    void plan_restrictedDebtorsExceedingMaxIncomingTransfers_throws() {
+        Map<Long, BigDecimal> balances = balances(1L, "-10", 2L, "-10", 3L, "-10", 4L, "30");
+        PlanConstraints constraints = new PlanConstraints(
+                Map.of(1L, List.of(4L), 2L, List.of(4L), 3L, List.of(4L)), 2, null, null, false);
+        assertThrows(IllegalArgumentException.class,
+                () -> FlowSettlementPlanner.plan(balances, constraints, null));
+    }
+
+    @Test
+    void plan_invalidCosts_throw() {
+        Map<Long, BigDecimal> balances = balances(1L, "-10", 2L, "10");
+        assertThrows(IllegalArgumentException.class, () -> FlowSettlementPlanner.plan(balances,
+                new PlanConstraints(null, null, null, -1, false), null));
+        assertThrows(IllegalArgumentException.class, () -> FlowSettlementPlanner.plan(balances,
+                new PlanConstraints(null, null, List.of(new PlanConstraints.PairCost(1L, 2L, -5)), null, false),
+                null));
+        assertThrows(IllegalArgumentException.class, () -> FlowSettlementPlanner.plan(balances,
+                new PlanConstraints(null, 0, null, null, false), null));
+    }
+
+    @Test
+    void plan_largeRandomGroup_settlesEveryBalance() {
+        Random random = new Random(42);
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        Map<Long, List<Long>> allowed = new HashMap<>();
+        long sum = 0;
+        for (long member = 1; member < 2000; member++) {
+            long cents = random.nextInt(200_000) - 100_000;
+            balances.put(member, BigDecimal.valueOf(cents, 2));
+            sum += cents;
+        }
+        balances.put(2000L, BigDecimal.valueOf(-sum, 2));
+        for (Map.Entry<Long, BigDecimal> entry : balances.entrySet()) {
+            if (entry.getValue().signum() < 0 && entry.getKey() % 100 == 1) {
+                // Restricted debtors may pay any creditor among a handful of members
+                allowed.put(entry.getKey(), balances.entrySet().stream()
+                        .filter(e -> e.getValue().signum() > 0).map(Map.Entry::getKey).limit(50).toList());
+            }
+        }
+        PlanConstraints constraints = new PlanConstraints(allowed, null, null, null, false);
+        assertSettles(balances, FlowSettlementPlanner.plan(balances, constraints, null));
+    }
+}
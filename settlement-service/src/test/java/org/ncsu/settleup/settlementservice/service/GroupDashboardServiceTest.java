@@ -0,0 +1,160 @@
+package org.ncsu.settleup.settlementservice.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ncsu.settleup.settlementservice.client.ExpenseClient;
+import org.ncsu.settleup.settlementservice.client.MembershipClient;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link GroupDashboardService}.  The clients are mocked;
+ * a real {@link SettlementService} computes the plan.
+ */
+class GroupDashboardServiceTest {
+
+    private MembershipClient membershipClient;
+    private ExpenseClient expenseClient;
+    private ExpenseEventListener expenseEventListener;
+    private SettlementService settlementService;
+    private GroupDashboardService dashboardService;
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        membershipClient = mock(MembershipClient.class);
+        expenseClient = mock(ExpenseClient.class);
+        expenseEventListener = mock(ExpenseEventListener.class);
+        settlementService = new SettlementService();
+        dashboardService = new GroupDashboardService(membershipClient, expenseClient, settlementService,
+                expenseEventListener, Duration.ofMillis(300), 8, 20);
+        // Member 2 owes member 1 ten
+        settlementService.applyDeltas(1L, Map.of(1L, new BigDecimal("10"), 2L, new BigDecimal("-10")));
+        when(membershipClient.findGroup(1L)).thenReturn(Optional.of(new MembershipClient.Group(1L, "Trip", "USD")));
+        when(membershipClient.listMembers(1L)).thenReturn(List.of(
+                new MembershipClient.Member(1L, "alice@example.com", "ADMIN"),
+                new MembershipClient.Member(2L, "bob@example.com", "MEMBER")));
+        when(membershipClient.listCategories(1L)).thenReturn(List.of(new MembershipClient.Category(3L, "Food")));
+        when(expenseClient.firstExpensePage(1L, 20))
+                .thenReturn(new ExpenseClient.ExpensePage(List.of(Map.of("id", 9)), null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        dashboardService.shutdown();
+    }
+
+    @Test
+    void load_returnsAllSectionsWithEmailsInPlan() {
+        GroupDashboardService.Dashboard dashboard = dashboardService.load(1L, null).join().orElseThrow();
+
+        assertEquals(GroupDashboardService.Status.OK, dashboard.group().status());
+        assertEquals("Trip", dashboard.group().data().name());
+        assertEquals(2, dashboard.members().data().size());
+        assertEquals(1, dashboard.categories().data().size());
+        assertEquals(1, dashboard.expenses().data().expenses().size());
+        List<GroupDashboardService.ResolvedTransfer> transfers = dashboard.settlement().data().transfers();
+        assertEquals(1, transfers.size());
+        assertEquals("bob@example.com", transfers.get(0).fromEmail());
+        assertEquals("alice@example.com", transfers.get(0).toEmail());
+        assertEquals(0, new BigDecimal("10").compareTo(transfers.get(0).amount()));
+        assertEquals(settlementService.computeSettlement(1L).version(), dashboard.settlement().data().version());
+    }
+
+    @Test
+    void load_returnsEmpty_whenGroupDoesNotExist() {
+        when(membershipClient.findGroup(5L)).thenReturn(Optional.empty());
+
+        assertTrue(dashboardService.load(5L, null).join().isEmpty());
+    }
+
+    @Test
+    void load_unknownGroup_leavesNoStateBehind() {
+        when(membershipClient.findGroup(5L)).thenReturn(Optional.empty());
+
+        assertTrue(dashboardService.load(5L, null).join().isEmpty());
+        assertTrue(dashboardService.load(5L, 3L).join().isEmpty());
+
+        assertFalse(settlementService.hasBalances(5L));
+        verify(expenseEventListener, never()).whenApplied(eq(5L), anyLong());
+    }
+
+    @Test
+    void load_failsPlanWithoutWaiting_whenGroupLookupFailsAndMinSequenceGiven() {
+        when(membershipClient.findGroup(1L)).thenThrow(new ResourceAccessException("connection refused"));
+
+        GroupDashboardService.Dashboard dashboard = dashboardService.load(1L, 4L).join().orElseThrow();
+
+        assertEquals(GroupDashboardService.Status.FAILED, dashboard.settlement().status());
+        assertEquals("Group could not be verified", dashboard.settlement().error());
+        verify(expenseEventListener, never()).whenApplied(anyLong(), anyLong());
+    }
+
+    @Test
+    void load_reportsSlowSectionAsTimedOutAndReturnsTheRest() {
+        when(expenseClient.firstExpensePage(1L, 20)).thenAnswer(inv -> {
+            release.await(5, TimeUnit.SECONDS);
+            return new ExpenseClient.ExpensePage(List.of(), null);
+        });
+
+        long start = System.nanoTime();
+        GroupDashboardService.Dashboard dashboard = dashboardService.load(1L, null).join().orElseThrow();
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000, "Should not wait for the slow call");
+        assertEquals(GroupDashboardService.Status.TIMED_OUT, dashboard.expenses().status());
+        assertNull(dashboard.expenses().data());
+        assertTrue(dashboard.expenses().millis() >= 300);
+        assertEquals(GroupDashboardService.Status.OK, dashboard.members().status());
+        assertEquals(GroupDashboardService.Status.OK, dashboard.settlement().status());
+    }
+
+    @Test
+    void load_reportsFailedMembersAndLeavesEmailsOut() {
+        when(membershipClient.listMembers(1L)).thenThrow(new ResourceAccessException("connection refused"));
+
+        GroupDashboardService.Dashboard dashboard = dashboardService.load(1L, null).join().orElseThrow();
+
+        assertEquals(GroupDashboardService.Status.FAILED, dashboard.members().status());
+        assertEquals("connection refused", dashboard.members().error());
+        GroupDashboardService.ResolvedTransfer transfer = dashboard.settlement().data().transfers().get(0);
+        assertEquals(2L, transfer.fromMemberId());
+        assertNull(transfer.fromEmail());
+    }
+
+    @Test
+    void load_returnsTheRest_whenGroupLookupFails() {
+        when(membershipClient.findGroup(1L)).thenThrow(new ResourceAccessException("connection refused"));
+
+        GroupDashboardService.Dashboard dashboard = dashboardService.load(1L, null).join().orElseThrow();
+
+        assertEquals(GroupDashboardService.Status.FAILED, dashboard.group().status());
+        assertNull(dashboard.group().data());
+        assertEquals(GroupDashboardService.Status.OK, dashboard.categories().status());
+    }
+
+    @Test
+    void load_computesPlanAfterMinSequenceIsApplied() {
+        CompletableFuture<Void> applied = new CompletableFuture<>();
+        when(expenseEventListener.whenApplied(1L, 4L)).thenReturn(applied);
+
+        CompletableFuture<Optional<GroupDashboardService.Dashboard>> pending = dashboardService.load(1L, 4L);
+        settlementService.applyDeltas(1L, Map.of(1L, new BigDecimal("5"), 2L, new BigDecimal("-5")));
+        applied.complete(null);
+
+        GroupDashboardService.Dashboard dashboard = pending.join().orElseThrow();
+        assertEquals(0, new BigDecimal("15").compareTo(dashboard.settlement().data().transfers().get(0).amount()));
+    }
+}
@@ -0,0 +1,103 @@
+package org.ncsu.settleup.settlementservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link PairwiseDebts}.
+ */
+class PairwiseDebtsTest {
+
+    private static Map<Long, BigDecimal> debtsOf(PairwiseDebts debts, long memberId) {
+        Map<Long, BigDecimal> result = new HashMap<>();
+        debts.forEachOf(memberId, (low, high, amount) ->
+                result.put(low == memberId ? high : low, low == memberId ? amount : amount.negate()));
+        return result;
+    }
+
+    @Test
+    void add_netsReciprocalDebts() {
+        PairwiseDebts debts = new PairwiseDebts();
+        debts.add(2L, 1L, new BigDecimal("30"));
+        debts.add(1L, 2L, new BigDecimal("10"));
+
+        assertEquals(new BigDecimal("20"), debts.owed(2L, 1L));
+        assertEquals(new BigDecimal("-20"), debts.owed(1L, 2L));
+
+        debts.add(1L, 2L, new BigDecimal("25"));
+        assertEquals(new BigDecimal("5"), debts.owed(1L, 2L), "the debt reverses direction");
+    }
+
+    @Test
+    void add_ignoresSelfDebts() {
+        PairwiseDebts debts = new PairwiseDebts();
+        debts.add(1L, 1L, BigDecimal.TEN);
+        assertEquals(0, debts.owed(1L, 1L).signum());
+        assertTrue(debtsOf(debts, 1L).isEmpty());
+    }
+
+    @Test
+    void forEachOf_listsOnlyTheMembersNonZeroDebts() {
+        PairwiseDebts debts = new PairwiseDebts();
+        debts.add(1L, 2L, new BigDecimal("5"));
+        debts.add(3L, 1L, new BigDecimal("7"));
+        debts.add(2L, 3L, new BigDecimal("9"));
+        debts.add(4L, 1L, new BigDecimal("2"));
+        debts.add(1L, 4L, new BigDecimal("2"));
+
+        // Amounts are what member 1 owes each other member
+        assertEquals(Map.of(2L, new BigDecimal("5"), 3L, new BigDecimal("-7")), debtsOf(debts, 1L));
+    }
+
+    @Test
+    void drainChanges_reportsSettledPairsOnceAndDropsThem() {
+        PairwiseDebts debts = new PairwiseDebts();
+        debts.add(1L, 2L, new BigDecimal("5"));
+        debts.add(1L, 3L, new BigDecimal("4"));
+        debts.add(1L, 2L, new BigDecimal("-5"));
+
+        List<Object> drained = new ArrayList<>();
+        debts.drainChanges((low, high, amount) -> drained.add(low + "-" + high + ":" + amount));
+        assertEquals(2, drained.size());
+        assertTrue(drained.contains("1-2:0"), "a settled pair is reported so it can be deleted");
+
+        drained.clear();
+        debts.drainChanges((low, high, amount) -> drained.add(low + "-" + high));
+        assertTrue(drained.isEmpty(), "nothing changed since the last drain");
+        assertEquals(Map.of(3L, new BigDecimal("4")), debtsOf(debts, 1L));
+
+        debts.touch(1L, 3L);
+        debts.drainChanges((low, high, amount) -> drained.add(low + "-" + high + ":" + amount));
+        assertEquals(List.of("1-3:4"), drained);
+    }
+
+    @Test
+    void manyMembers_keepEveryPairAcrossGrowthAndRemoval() {
+        PairwiseDebts debts = new PairwiseDebts();
+        for (long member = 2; member <= 2000; member++) {
+            debts.add(member, 1L, BigDecimal.valueOf(member));
+            debts.add(member, member - 1, BigDecimal.ONE);
+        }
+        // Settle every other debt to member 1
+        for (long member = 2; member <= 2000; member += 2) {
+            debts.add(1L, member, BigDecimal.valueOf(member));
+        }
+        debts.drainChanges((low, high, amount) -> { });
+
+        Map<Long, BigDecimal> owedToOne = debtsOf(debts, 1L);
+        assertEquals(new BigDecimal("-1"), owedToOne.get(2L),
+                "member 2 still owes member 1 through the chain debt");
+        for (long member = 3; member <= 2000; member += 2) {
+            assertEquals(BigDecimal.valueOf(-member), owedToOne.get(member));
+        }
+        assertNull(owedToOne.get(4L));
+        assertEquals(new BigDecimal("1"), debts.owed(1000L, 999L));
+    }
+}
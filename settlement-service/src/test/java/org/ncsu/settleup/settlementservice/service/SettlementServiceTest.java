@@ -2,8 +2,11 @@ package org.ncsu.settleup.settlementservice.service;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.ncsu.settleup.common.dto.PlanConstraints;
 import org.ncsu.settleup.common.dto.SettlementPlan;
+import org.ncsu.settleup.common.events.ExpenseAdjustedEvent;
 import org.ncsu.settleup.common.events.ExpenseRecordedEvent;
+import org.ncsu.settleup.settlementservice.exception.StalePlanException;
 
 import java.lang.reflect.Field;
 import java.math.BigDecimal;
@@ -103,6 +106,30 @@ class SettlementServiceTest {
         assertEquals(new BigDecimal("-3"), map.get(7L));
     }
 
+    // ---------------------------------------------------------------------
+    // Tests for handleExpenseAdjusted
+    // ---------------------------------------------------------------------
+
+    @Test
+    void handleExpenseAdjusted_addsDeltasToExistingBalances() throws Exception {
+        // Expense 42 originally: payer 2 paid 5, member 1 owed 3 and member 3 owed 2
+        seedBalances(1L, Map.of(
+                1L, new BigDecimal("-3"),
+                2L, new BigDecimal("5"),
+                3L, new BigDecimal("-2")
+        ));
+        // Member 1's share drops to 1 and member 4 joins with a share of 2
+        settlementService.handleExpenseAdjusted(new ExpenseAdjustedEvent(1L, 42L, Map.of(
+                1L, new BigDecimal("2"),
+                4L, new BigDecimal("-2")
+        )));
+        Map<Long, BigDecimal> map = getBalances().get(1L);
+        assertEquals(new BigDecimal("-1"), map.get(1L));
+        assertEquals(new BigDecimal("5"), map.get(2L), "Unmentioned members should be untouched");
+        assertEquals(new BigDecimal("-2"), map.get(3L));
+        assertEquals(new BigDecimal("-2"), map.get(4L));
+    }
+
     // ---------------------------------------------------------------------
     // Tests for applyTransfer
     // ---------------------------------------------------------------------
@@ -116,6 +143,13 @@ class SettlementServiceTest {
         assertEquals(new BigDecimal("-5"), balances.get(2L));
     }
 
+    @Test
+    void getMemberCount_countsMembersWithABalance() {
+        assertEquals(0, settlementService.getMemberCount(3L));
+        settlementService.applyTransfer(3L, 1L, 2L, new BigDecimal("5"));
+        assertEquals(2, settlementService.getMemberCount(3L));
+    }
+
     @Test
     void applyTransfer_updatesExistingBalances() throws Exception {
         // Seed group 4 with some balances
@@ -159,6 +193,21 @@ class SettlementServiceTest {
         assertTrue(plan.transfers().isEmpty(), "No transfers expected when there are no debtors");
     }
 
+    @Test
+    void computeSettlement_withConstraints_respectsAllowedPayeesAndCarriesVersion() throws Exception {
+        seedBalances(9L, Map.of(
+                1L, new BigDecimal("10"),
+                2L, new BigDecimal("5"),
+                3L, new BigDecimal("-8"),
+                4L, new BigDecimal("-7")
+        ));
+        PlanConstraints constraints = new PlanConstraints(Map.of(4L, List.of(1L)), null, null, null, false);
+        SettlementPlan plan = settlementService.computeSettlement(9L, constraints, Map.of());
+        assertEquals(settlementService.getLedgerVersion(9L), plan.version());
+        assertTrue(plan.transfers().contains(new SettlementPlan.TransferDto(4L, 1L, new BigDecimal("7"))));
+        assertEquals(3, plan.transfers().size());
+    }
+
     @Test
     void computeSettlement_handlesZeroBalancesGracefully() throws Exception {
         seedBalances(7L, Map.of(
@@ -189,4 +238,183 @@ class SettlementServiceTest {
         assertTrue(transferSet.contains("4:1:2"), "Expected transfer of 2 from member 4 to 1");
         assertTrue(transferSet.contains("4:2:5"), "Expected transfer of 5 from member 4 to 2");
     }
-}
\ No newline at end of file
+
+    // ---------------------------------------------------------------------
+    // Tests for applySettlement
+    // ---------------------------------------------------------------------
+
+    @Test
+    void applySettlement_appliesCombinedEffectOfWholePlan() throws Exception {
+        settlementService.applyTransfer(9L, 2L, 1L, new BigDecimal("-10"));
+        SettlementPlan plan = settlementService.computeSettlement(9L);
+        assertEquals(1L, plan.version(), "Plan carries the ledger version it was computed from");
+
+        settlementService.applySettlement(9L, plan.transfers(), plan.version());
+
+        Map<Long, BigDecimal> map = getBalances().get(9L);
+        assertEquals(0, map.get(1L).signum());
+        assertEquals(0, map.get(2L).signum());
+        assertEquals(2L, settlementService.getLedgerVersion(9L));
+    }
+
+    @Test
+    void applySettlement_rejectsOverpaymentWithoutChangingBalances() throws Exception {
+        seedBalances(10L, Map.of(1L, new BigDecimal("5"), 2L, new BigDecimal("-5")));
+        List<SettlementPlan.TransferDto> transfers =
+                List.of(new SettlementPlan.TransferDto(2L, 1L, new BigDecimal("6")));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> settlementService.applySettlement(10L, transfers, null));
+        assertEquals(new BigDecimal("5"), getBalances().get(10L).get(1L));
+        assertEquals(0L, settlementService.getLedgerVersion(10L));
+    }
+
+    @Test
+    void applySettlement_rejectsPlanComputedFromOlderBalances() {
+        settlementService.applyTransfer(11L, 2L, 1L, new BigDecimal("-10"));
+        SettlementPlan plan = settlementService.computeSettlement(11L);
+        settlementService.applyTransfer(11L, 2L, 1L, new BigDecimal("4"));
+
+        assertThrows(StalePlanException.class,
+                () -> settlementService.applySettlement(11L, plan.transfers(), plan.version()));
+    }
+
+    // ---------------------------------------------------------------------
+    // Tests for the projection hooks
+    // ---------------------------------------------------------------------
+
+    @Test
+    void drainChanges_coalescesUpdatesPerMember() {
+        settlementService.handleExpenseRecorded(new ExpenseRecordedEvent(12L, 1L, 1L,
+                Map.of(2L, new BigDecimal("6")), 1L));
+        settlementService.handleExpenseRecorded(new ExpenseRecordedEvent(12L, 2L, 1L,
+                Map.of(2L, new BigDecimal("4")), 2L));
+        settlementService.applyTransfer(12L, 2L, 1L, new BigDecimal("3"));
+
+        List<SettlementService.GroupSnapshot> changes = settlementService.drainChanges();
+
+        assertEquals(1, changes.size());
+        SettlementService.GroupSnapshot change = changes.get(0);
+        assertEquals(3L, change.version());
+        assertEquals(2L, change.appliedSequence());
+        assertEquals(Map.of(1L, new BigDecimal("10"), 2L, new BigDecimal("-10")), change.balances(),
+                "The transfer is left out of the drained balances");
+        assertEquals(Map.of(1L, new BigDecimal("7"), 2L, new BigDecimal("-7")), settlementService.getBalances(12L));
+        assertTrue(settlementService.drainChanges().isEmpty(), "Drained members are not reported twice");
+
+        settlementService.requeueChanges(changes);
+        assertEquals(change.balances().keySet(), settlementService.drainChanges().get(0).balances().keySet());
+    }
+
+    @Test
+    void restore_loadsSnapshotOnlyForUntouchedGroups() {
+        SettlementService.GroupSnapshot snapshot =
+                new SettlementService.GroupSnapshot(13L, 5L, 9L, Map.of(1L, BigDecimal.TEN, 2L, BigDecimal.TEN.negate()));
+
+        assertTrue(settlementService.restore(snapshot));
+        assertFalse(settlementService.restore(snapshot));
+
+        assertEquals(BigDecimal.TEN, settlementService.getBalances(13L).get(1L));
+        assertEquals(5L, settlementService.getLedgerVersion(13L));
+        assertEquals(9L, settlementService.getAppliedSequence(13L));
+        assertTrue(settlementService.drainChanges().isEmpty(), "Restored balances are already persisted");
+    }
+
+    @Test
+    void pairwise_tracksDirectDebtsFromExpensesAndTransfers() {
+        settlementService.setPairwise(14L, true);
+        // Member 1 pays 30 for members 2 and 3; member 2 pays 10 for member 1
+        settlementService.handleExpenseRecorded(new ExpenseRecordedEvent(14L, 1L, 1L,
+                Map.of(2L, new BigDecimal("15"), 3L, new BigDecimal("15"))));
+        settlementService.handleExpenseRecorded(new ExpenseRecordedEvent(14L, 2L, 2L,
+                Map.of(1L, new BigDecimal("10"))));
+        settlementService.applyTransfer(14L, 3L, 1L, new BigDecimal("5"));
+
+        assertEquals(Map.of(2L, new BigDecimal("5"), 3L, new BigDecimal("10")),
+                settlementService.getMemberDebts(14L, 1L));
+        assertEquals(List.of(
+                        new SettlementPlan.TransferDto(2L, 1L, new BigDecimal("5")),
+                        new SettlementPlan.TransferDto(3L, 1L, new BigDecimal("10"))),
+                settlementService.computeSettlement(14L).transfers());
+        BigDecimal sum = settlementService.getMemberDebts(14L, 1L).values().stream()
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(0, sum.compareTo(settlementService.getBalances(14L).get(1L)),
+                "direct debts sum to the net balance");
+    }
+
+    @Test
+    void setPairwise_seedsFromBalancesAndPersistsModeChange() {
+        settlementService.applyDeltas(15L, Map.of(1L, new BigDecimal("10"), 2L, new BigDecimal("-10")));
+        settlementService.drainChanges();
+
+        settlementService.setPairwise(15L, true);
+        assertTrue(settlementService.isPairwise(15L));
+        assertEquals(Map.of(2L, new BigDecimal("10")), settlementService.getMemberDebts(15L, 1L));
+
+        SettlementService.GroupSnapshot snapshot = settlementService.drainChanges().get(0);
+        assertEquals(Boolean.TRUE, snapshot.pairwise());
+        assertEquals(List.of(new SettlementService.PairDebt(1L, 2L, new BigDecimal("-10"))), snapshot.pairs());
+
+        settlementService.setPairwise(15L, false);
+        assertTrue(settlementService.getMemberDebts(15L, 1L).isEmpty());
+        assertEquals(Boolean.FALSE, settlementService.drainChanges().get(0).pairwise());
+    }
+
+    @Test
+    void revertSettlement_undoesBalancesAndDirectDebts() {
+        settlementService.setPairwise(16L, true);
+        settlementService.handleExpenseRecorded(new ExpenseRecordedEvent(16L, 1L, 1L,
+                Map.of(2L, new BigDecimal("8"))));
+        List<SettlementPlan.TransferDto> plan = settlementService.computeSettlement(16L).transfers();
+
+        settlementService.applySettlement(16L, plan, null);
+        assertTrue(settlementService.getMemberDebts(16L, 1L).isEmpty());
+        settlementService.revertSettlement(16L, plan);
+
+        assertEquals(new BigDecimal("8"), settlementService.getBalances(16L).get(1L));
+        assertEquals(Map.of(2L, new BigDecimal("8")), settlementService.getMemberDebts(16L, 1L));
+    }
+
+    @Test
+    void restore_pairwiseSnapshot_rebuildsDirectDebts() {
+        assertTrue(settlementService.restore(new SettlementService.GroupSnapshot(17L, 3L, 2L,
+                Map.of(1L, new BigDecimal("-4"), 2L, new BigDecimal("4")), true,
+                List.of(new SettlementService.PairDebt(1L, 2L, new BigDecimal("4"))))));
+
+        assertTrue(settlementService.isPairwise(17L));
+        assertEquals(Map.of(1L, new BigDecimal("4")), settlementService.getMemberDebts(17L, 2L));
+        assertTrue(settlementService.drainChanges().isEmpty(), "Restored debts are already persisted");
+    }
+
+    @Test
+    void restore_addsStoredTransfersBackToBalancesAndDebts() {
+        assertTrue(settlementService.restore(new SettlementService.GroupSnapshot(18L, 3L, 2L,
+                        Map.of(1L, new BigDecimal("-10"), 2L, new BigDecimal("10")), true,
+                        List.of(new SettlementService.PairDebt(1L, 2L, new BigDecimal("10")))),
+                List.of(new SettlementPlan.TransferDto(1L, 2L, new BigDecimal("4")))));
+
+        assertEquals(Map.of(1L, new BigDecimal("-6"), 2L, new BigDecimal("6")), settlementService.getBalances(18L));
+        assertEquals(Map.of(2L, new BigDecimal("-6")), settlementService.getMemberDebts(18L, 1L));
+        assertTrue(settlementService.drainChanges().isEmpty(), "Restored transfers are already stored");
+
+        settlementService.applyTransfer(18L, 1L, 2L, new BigDecimal("6"));
+        SettlementService.GroupSnapshot change = settlementService.drainChanges().get(0);
+        assertEquals(Map.of(1L, new BigDecimal("-10"), 2L, new BigDecimal("10")), change.balances());
+        assertEquals(List.of(new SettlementService.PairDebt(1L, 2L, new BigDecimal("10"))), change.pairs(),
+                "A pair settled by transfers is still owed apart from them");
+    }
+
+    @Test
+    void setPairwise_reportsPairsSettledOnlyByTransfers() {
+        settlementService.handleExpenseRecorded(new ExpenseRecordedEvent(19L, 1L, 2L,
+                Map.of(1L, new BigDecimal("5"))));
+        settlementService.applyTransfer(19L, 1L, 2L, new BigDecimal("5"));
+        settlementService.drainChanges();
+
+        settlementService.setPairwise(19L, true);
+
+        assertTrue(settlementService.getMemberDebts(19L, 1L).isEmpty());
+        assertEquals(List.of(new SettlementService.PairDebt(1L, 2L, new BigDecimal("5"))),
+                settlementService.drainChanges().get(0).pairs());
+    }
+}
@@ -0,0 +1,317 @@
+package org.ncsu.settleup.settlementservice.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.ncsu.settleup.common.dto.SettlementPlan;
+import org.ncsu.settleup.settlementservice.model.Transfer;
+import org.ncsu.settleup.settlementservice.repo.TransferRepository;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link TransferService}.  A real {@link SettlementService}
+ * holds the balances so the tests can check the ledger after a plan is
+ * recorded or rolled back, and after concurrent edits of one transfer.
+ */
+class TransferServiceTest {
+
+    private TransferRepository transferRepository;
+    private SettlementService settlementService;
+    private TransferService transferService;
+
+    @BeforeEach
+    void setUp() {
+        transferRepository = mock(TransferRepository.class);
+        settlementService = new SettlementService();
+        transferService = new TransferService(transferRepository, settlementService);
+        when(transferRepository.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+        // Member 1 is owed 10 by member 2 and 5 by member 3
+        settlementService.applyDeltas(1L, Map.of(
+                1L, new BigDecimal("15"), 2L, new BigDecimal("-10"), 3L, new BigDecimal("-5")));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void recordPlan_savesAllTransfersInOneCallAndSettlesBalances() {
+        SettlementPlan plan = settlementService.computeSettlement(1L);
+
+        List<Transfer> saved = transferService.recordPlan(1L, plan.transfers(), plan.version(), "settle up");
+
+        ArgumentCaptor<List<Transfer>> rows = ArgumentCaptor.forClass(List.class);
+        verify(transferRepository).saveAll(rows.capture());
+        verify(transferRepository, never()).save(any());
+        assertEquals(2, rows.getValue().size());
+        assertEquals(saved, rows.getValue());
+        assertTrue(saved.stream().allMatch(t -> t.getGroupId().equals(1L) && "settle up".equals(t.getNote())));
+        settlementService.getBalances(1L).values()
+                .forEach(balance -> assertEquals(0, balance.signum(), "Every balance is settled"));
+    }
+
+    @Test
+    void recordPlan_rolledBack_reversesBalanceChange() {
+        List<SettlementPlan.TransferDto> transfers =
+                List.of(new SettlementPlan.TransferDto(2L, 1L, new BigDecimal("10")));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            transferService.recordPlan(1L, transfers, null, null);
+            assertEquals(0, settlementService.getBalances(1L).get(2L).signum());
+
+            for (TransactionSynchronization sync : TransactionSynchronizationManager.getSynchronizations()) {
+                sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(new BigDecimal("-10"), settlementService.getBalances(1L).get(2L));
+        assertEquals(new BigDecimal("15"), settlementService.getBalances(1L).get(1L));
+    }
+
+    @Test
+    void recordPlan_invalidPlan_savesNothing() {
+        List<SettlementPlan.TransferDto> transfers =
+                List.of(new SettlementPlan.TransferDto(3L, 1L, new BigDecimal("6")));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> transferService.recordPlan(1L, transfers, null, null));
+        verify(transferRepository, never()).saveAll(anyList());
+        assertEquals(new BigDecimal("-5"), settlementService.getBalances(1L).get(3L));
+    }
+
+    private static Transfer transfer(long id, String createdAt) {
+        Transfer transfer = new Transfer();
+        transfer.setId(id);
+        transfer.setCreatedAt(Instant.parse(createdAt));
+        return transfer;
+    }
+
+    @Test
+    void findGroupHistory_cursorContinuesAfterLastTransfer() {
+        Transfer last = transfer(7L, "2024-05-01T10:00:00Z");
+
+        transferService.findGroupHistory(1L, TransferService.cursorOf(last), 20);
+
+        verify(transferRepository).findGroupPage(eq(1L), eq(last.getCreatedAt()), eq(7L),
+                eq(PageRequest.of(0, 20)));
+    }
+
+    @Test
+    void findGroupHistory_malformedCursor_throws() {
+        assertThrows(IllegalArgumentException.class,
+                () -> transferService.findGroupHistory(1L, "not-a-cursor", 20));
+    }
+
+    @Test
+    void findMemberHistory_mergesPaidAndReceivedNewestFirst() {
+        Transfer paidOld = transfer(1L, "2024-05-01T00:00:00Z");
+        Transfer paidNew = transfer(4L, "2024-05-04T00:00:00Z");
+        Transfer receivedMid = transfer(3L, "2024-05-03T00:00:00Z");
+        when(transferRepository.findPaidByMemberPage(eq(1L), eq(2L), any(), any(), any()))
+                .thenReturn(List.of(paidNew, paidOld));
+        when(transferRepository.findReceivedByMemberPage(eq(1L), eq(2L), any(), any(), any()))
+                .thenReturn(List.of(receivedMid));
+
+        List<Transfer> page = transferService.findMemberHistory(1L, 2L, null, 2);
+
+        assertEquals(List.of(paidNew, receivedMid), page);
+    }
+
+    /**
+     * Back the repository's single-row operations with one in-memory row
+     * whose compare-and-set methods behave like the conditional SQL.
+     */
+    private Object[] storeRow(Transfer initial) {
+        Object[] row = {initial};
+        when(transferRepository.findById(initial.getId())).thenAnswer(inv -> {
+            synchronized (row) {
+                return Optional.ofNullable(row[0] == null ? null : copy((Transfer) row[0]));
+            }
+        });
+        when(transferRepository.compareAndSetUpdate(eq(initial.getId()), anyLong(), any(), any(), any(), any(), any()))
+                .thenAnswer(inv -> {
+                    synchronized (row) {
+                        Transfer current = (Transfer) row[0];
+                        if (current == null || !current.getVersion().equals(inv.getArgument(1))) {
+                            return 0;
+                        }
+                        Transfer next = copy(current);
+                        next.setGroupId(inv.getArgument(2));
+                        next.setFromMemberId(inv.getArgument(3));
+                        next.setToMemberId(inv.getArgument(4));
+                        next.setAmount(inv.getArgument(5));
+                        next.setNote(inv.getArgument(6));
+                        next.setVersion(current.getVersion() + 1);
+                        row[0] = next;
+                        return 1;
+                    }
+                });
+        when(transferRepository.compareAndSetDelete(eq(initial.getId()), anyLong())).thenAnswer(inv -> {
+            synchronized (row) {
+                Transfer current = (Transfer) row[0];
+                if (current == null || !current.getVersion().equals(inv.getArgument(1))) {
+                    return 0;
+                }
+                row[0] = null;
+                return 1;
+            }
+        });
+        return row;
+    }
+
+    private static Transfer copy(Transfer source) {
+        Transfer copy = new Transfer();
+        copy.setId(source.getId());
+        copy.setGroupId(source.getGroupId());
+        copy.setFromMemberId(source.getFromMemberId());
+        copy.setToMemberId(source.getToMemberId());
+        copy.setAmount(source.getAmount());
+        copy.setNote(source.getNote());
+        copy.setVersion(source.getVersion());
+        return copy;
+    }
+
+    private static Transfer values(long from, long to, String amount) {
+        Transfer values = new Transfer();
+        values.setGroupId(2L);
+        values.setFromMemberId(from);
+        values.setToMemberId(to);
+        values.setAmount(new BigDecimal(amount));
+        return values;
+    }
+
+    private Transfer recordedTransfer(long id, long from, long to, String amount) {
+        Transfer transfer = values(from, to, amount);
+        transfer.setId(id);
+        transfer.setVersion(0L);
+        settlementService.applyTransfer(2L, from, to, transfer.getAmount());
+        return transfer;
+    }
+
+    @Test
+    void updateTransfer_reversesReplacedVersionOnceAndAppliesNewValues() {
+        storeRow(recordedTransfer(5L, 1L, 2L, "10"));
+
+        Optional<Transfer> saved = transferService.updateTransfer(5L, values(1L, 3L, "4"), 0L);
+
+        assertTrue(saved.isPresent());
+        assertEquals(1L, saved.get().getVersion());
+        Map<Long, BigDecimal> balances = settlementService.getBalances(2L);
+        assertEquals(new BigDecimal("4"), balances.get(1L));
+        assertEquals(0, balances.get(2L).signum());
+        assertEquals(new BigDecimal("-4"), balances.get(3L));
+    }
+
+    @Test
+    void updateTransfer_staleExpectedVersion_conflictsWithoutTouchingBalances() {
+        storeRow(recordedTransfer(5L, 1L, 2L, "10"));
+        transferService.updateTransfer(5L, values(1L, 2L, "7"), 0L);
+        Map<Long, BigDecimal> before = settlementService.getBalances(2L);
+
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> transferService.updateTransfer(5L, values(1L, 2L, "1"), 0L));
+        assertEquals(before, settlementService.getBalances(2L));
+    }
+
+    @Test
+    void updateTransfer_balanceAdjustmentWaitsForCommit() {
+        storeRow(recordedTransfer(5L, 1L, 2L, "10"));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            transferService.updateTransfer(5L, values(1L, 2L, "3"), null);
+            assertEquals(new BigDecimal("10"), settlementService.getBalances(2L).get(1L),
+                    "Balances are unchanged until the transaction commits");
+            for (TransactionSynchronization sync : TransactionSynchronizationManager.getSynchronizations()) {
+                sync.afterCommit();
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(new BigDecimal("3"), settlementService.getBalances(2L).get(1L));
+    }
+
+    @Test
+    void deleteTransfer_secondDeleteFindsNothingToReverse() {
+        storeRow(recordedTransfer(5L, 1L, 2L, "10"));
+
+        assertTrue(transferService.deleteTransfer(5L, null));
+        assertFalse(transferService.deleteTransfer(5L, null));
+
+        settlementService.getBalances(2L).values()
+                .forEach(balance -> assertEquals(0, balance.signum(), "Reversed exactly once"));
+    }
+
+    /**
+     * Many threads edit the same transfer at once.  Whatever interleaving
+     * happens, each replaced version must be reversed exactly once, so the
+     * balances always equal the effect of the transfer's final state.
+     */
+    @Test
+    void concurrentEdits_balancesMatchFinalTransfer() throws Exception {
+        Object[] row = storeRow(recordedTransfer(5L, 1L, 2L, "10"));
+        int threads = 16;
+        int editsPerThread = 200;
+        AtomicInteger applied = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < editsPerThread; i++) {
+                        long from = 1 + random.nextInt(3);
+                        long to = from % 3 + 1;
+                        try {
+                            transferService.updateTransfer(5L, values(from, to, String.valueOf(1 + random.nextInt(100))), null);
+                            applied.incrementAndGet();
+                        } catch (OptimisticLockingFailureException e) {
+                            conflicts.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Transfer last = (Transfer) row[0];
+        assertEquals(applied.get(), last.getVersion().longValue(), "Every successful edit produced one version");
+        assertEquals(threads * editsPerThread, applied.get() + conflicts.get());
+        Map<Long, BigDecimal> balances = settlementService.getBalances(2L);
+        for (long member = 1; member <= 3; member++) {
+            BigDecimal expected = member == last.getFromMemberId() ? last.getAmount()
+                    : member == last.getToMemberId() ? last.getAmount().negate()
+                    : BigDecimal.ZERO;
+            assertEquals(0, expected.compareTo(balances.getOrDefault(member, BigDecimal.ZERO)),
+                    "Balance of member " + member);
+        }
+
+        assertTrue(transferService.deleteTransfer(5L, null));
+        settlementService.getBalances(2L).values()
+                .forEach(balance -> assertEquals(0, balance.signum()));
+    }
+}
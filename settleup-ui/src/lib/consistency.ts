@@ -0,0 +1,15 @@
+/**
+ * Remembers the group event sequence returned by the last expense write
+ * per group, so later settlement reads can ask for at least that
+ * sequence (read-your-writes) instead of sleeping and polling.
+ */
+const latest = new Map<number, number>();
+
+export function rememberSequence(groupId: number, sequence: number | null | undefined) {
+  if (sequence == null) return;
+  latest.set(groupId, Math.max(latest.get(groupId) ?? 0, sequence));
+}
+
+export function minSequenceFor(groupId: number): number | undefined {
+  return latest.get(groupId);
+}
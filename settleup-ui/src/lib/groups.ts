@@ -0,0 +1,21 @@
+import { MEMBERSHIP_BASE } from '../config';
+import { api } from './api';
+
+type GroupPage<G> = { groups: G[]; nextCursor: number | null };
+
+/**
+ * Loads every group for the group pickers, following nextCursor through
+ * the paginated listing.  Only the given fields are requested.
+ */
+export async function loadAllGroups<G>(fields: string): Promise<G[]> {
+  const groups: G[] = [];
+  let cursor: number | null = null;
+  do {
+    const params = new URLSearchParams({ size: '200', fields });
+    if (cursor!=null) params.set('cursor', String(cursor));
+    const page: GroupPage<G> = await api<GroupPage<G>>(`${MEMBERSHIP_BASE}/groups?${params.toString()}`);
+    groups.push(...page.groups);
+    cursor = page.nextCursor;
+  } while (cursor!=null);
+  return groups;
+}
@@ -2,6 +2,7 @@
 import { useEffect, useState } from 'react';
 import { MEMBERSHIP_BASE } from '../config';
 import { api } from '../lib/api';
+import { loadAllGroups } from '../lib/groups';
 
 type Category = { id: number; name: string };
 type Group = { id: number; name: string };
@@ -13,7 +14,7 @@ export default function Categories() {
   const [name, setName] = useState('General');
 
   async function loadGroups() {
-    const g = await api<Group[]>(`${MEMBERSHIP_BASE}/groups`);
+    const g = await loadAllGroups<Group>('id,name');
     setGroups(g);
     if (g.length && selectedGroup == null) setSelectedGroup(g[0].id);
   }
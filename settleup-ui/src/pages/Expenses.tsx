@@ -2,6 +2,8 @@
 import { useEffect, useState } from 'react';
 import { EXPENSE_BASE, MEMBERSHIP_BASE } from '../config';
 import { api } from '../lib/api';
+import { loadAllGroups } from '../lib/groups';
+import { rememberSequence } from '../lib/consistency';
 
 type Group = { id: number; name: string };
 type Member = { id: number; email: string };
@@ -12,7 +14,9 @@ type Expense = {
   currency: string;
   totalAmount: number;
   splits: { memberId: number; shareAmount: number }[];
+  eventSequence: number | null;
 };
+type ExpensePage = { expenses: Expense[]; nextCursor: number | null };
 
 export default function Expenses() {
   const [groups, setGroups] = useState<Group[]>([]);
@@ -23,9 +27,10 @@ export default function Expenses() {
   const [total, setTotal] = useState<number>(0);
   const [splits, setSplits] = useState<{ memberId: number; shareAmount: number }[]>([]);
   const [groupExpenses, setGroupExpenses] = useState<Expense[]>([]);
+  const [nextCursor, setNextCursor] = useState<number | null>(null);
 
   async function loadGroups() {
-    const g = await api<Group[]>(`${MEMBERSHIP_BASE}/groups`);
+    const g = await loadAllGroups<Group>('id,name');
     setGroups(g);
     if (g.length && selectedGroup==null) setSelectedGroup(g[0].id);
   }
@@ -36,8 +41,15 @@ export default function Expenses() {
     setSplits(m.map(mm => ({ memberId: mm.id, shareAmount: 0 })));
   }
   async function loadGroupExpenses(groupId: number) {
-    const list = await api<Expense[]>(`${EXPENSE_BASE}/groups/${groupId}/expenses`);
-    setGroupExpenses(list);
+    const page = await api<ExpensePage>(`${EXPENSE_BASE}/groups/${groupId}/expenses`);
+    setGroupExpenses(page.expenses);
+    setNextCursor(page.nextCursor);
+  }
+  async function loadMoreExpenses() {
+    if (selectedGroup==null || nextCursor==null) return;
+    const page = await api<ExpensePage>(`${EXPENSE_BASE}/groups/${selectedGroup}/expenses?cursor=${nextCursor}`);
+    setGroupExpenses(prev => [...prev, ...page.expenses]);
+    setNextCursor(page.nextCursor);
   }
 
   useEffect(() => { loadGroups(); }, []);
@@ -51,7 +63,7 @@ export default function Expenses() {
 
   async function createExpense() {
     if (selectedGroup==null || payer==null) return;
-    await api<Expense>(`${EXPENSE_BASE}/expenses`, {
+    const saved = await api<Expense>(`${EXPENSE_BASE}/expenses`, {
       method: 'POST',
       body: JSON.stringify({
         groupId: selectedGroup,
@@ -61,12 +73,15 @@ export default function Expenses() {
         splits
       })
     });
+    rememberSequence(selectedGroup, saved.eventSequence);
     setTotal(0);
     await loadGroupExpenses(selectedGroup);
   }
 
   async function deleteExpense(id: number) {
-    await fetch(`${EXPENSE_BASE}/expenses/${id}`, { method: 'DELETE' });
+    const res = await fetch(`${EXPENSE_BASE}/expenses/${id}`, { method: 'DELETE' });
+    const sequence = res.headers.get('X-Group-Sequence');
+    if (selectedGroup!=null && sequence) rememberSequence(selectedGroup, Number(sequence));
     if (selectedGroup!=null) await loadGroupExpenses(selectedGroup);
   }
 
@@ -124,6 +139,7 @@ export default function Expenses() {
               </li>
             ))}
           </ul>
+          {nextCursor!=null && <button className="btn bg-white mt-2" onClick={loadMoreExpenses}>Load more</button>}
         </div>
       </div>
     </div>
@@ -4,18 +4,35 @@ import { MEMBERSHIP_BASE } from '../config';
 import { api } from '../lib/api';
 
 type Group = { id: number; name: string; baseCurrency: string };
+type GroupPage = { groups: Group[]; nextCursor: number | null };
 
 export default function Groups() {
   const [groups, setGroups] = useState<Group[]>([]);
   const [name, setName] = useState('My Group');
   const [currency, setCurrency] = useState('USD');
   const [updateId, setUpdateId] = useState<number | null>(null);
+  const [filter, setFilter] = useState('');
+  const [nextCursor, setNextCursor] = useState<number | null>(null);
 
+  function groupsUrl(cursor: number | null) {
+    const params = new URLSearchParams();
+    if (filter) params.set('namePrefix', filter);
+    if (cursor!=null) params.set('cursor', String(cursor));
+    const query = params.toString();
+    return `${MEMBERSHIP_BASE}/groups${query ? `?${query}` : ''}`;
+  }
   async function refresh() {
-    const g = await api<Group[]>(`${MEMBERSHIP_BASE}/groups`);
-    setGroups(g);
+    const page = await api<GroupPage>(groupsUrl(null));
+    setGroups(page.groups);
+    setNextCursor(page.nextCursor);
+  }
+  async function loadMoreGroups() {
+    if (nextCursor==null) return;
+    const page = await api<GroupPage>(groupsUrl(nextCursor));
+    setGroups(prev => [...prev, ...page.groups]);
+    setNextCursor(page.nextCursor);
   }
-  useEffect(() => { refresh(); }, []);
+  useEffect(() => { refresh(); }, [filter]);
 
   async function createGroup() {
     await api<Group>(`${MEMBERSHIP_BASE}/groups`, {
@@ -63,6 +80,9 @@ export default function Groups() {
 
         <div className="backdrop">
           <h3 className="font-semibold mb-2">Existing groups</h3>
+          <div className="mb-2">
+            <input className="input" placeholder="Filter by name" value={filter} onChange={e=>setFilter(e.target.value)} />
+          </div>
           <ul className="space-y-2">
             {groups.map(g => (
               <li key={g.id} className="flex items-center justify-between">
@@ -77,6 +97,7 @@ export default function Groups() {
               </li>
             ))}
           </ul>
+          {nextCursor!=null && <button className="btn bg-white mt-2" onClick={loadMoreGroups}>Load more</button>}
         </div>
       </div>
     </div>
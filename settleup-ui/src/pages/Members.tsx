@@ -2,9 +2,10 @@
 import { useEffect, useState } from 'react';
 import { MEMBERSHIP_BASE } from '../config';
 import { api } from '../lib/api';
+import { loadAllGroups } from '../lib/groups';
 
 type Member = { id: number; email: string; role: string };
-type Group = { id: number; name: string; baseCurrency: string };
+type Group = { id: number; name: string };
 
 export default function Members() {
   const [groups, setGroups] = useState<Group[]>([]);
@@ -14,7 +15,7 @@ export default function Members() {
   const [role, setRole] = useState('MEMBER');
 
   async function loadGroups() {
-    const g = await api<Group[]>(`${MEMBERSHIP_BASE}/groups`);
+    const g = await loadAllGroups<Group>('id,name');
     setGroups(g);
     if (g.length && selectedGroup == null) setSelectedGroup(g[0].id);
   }
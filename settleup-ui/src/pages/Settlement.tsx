@@ -1,19 +1,22 @@
 
 import { useEffect, useState } from 'react';
-import { MEMBERSHIP_BASE, SETTLEMENT_BASE } from '../config';
+import { SETTLEMENT_BASE } from '../config';
 import { api } from '../lib/api';
+import { loadAllGroups } from '../lib/groups';
+import { minSequenceFor } from '../lib/consistency';
 
 type Group = { id: number; name: string; baseCurrency: string };
 type TransferDto = { fromMemberId: number; toMemberId: number; amount: number };
-type SettlementPlan = { transfers: TransferDto[] };
+type SettlementPlan = { transfers: TransferDto[]; version: number | null };
 
 export default function Settlement() {
   const [groups, setGroups] = useState<Group[]>([]);
   const [selectedGroup, setSelectedGroup] = useState<number | null>(null);
   const [plan, setPlan] = useState<SettlementPlan | null>(null);
+  const [recorded, setRecorded] = useState(false);
 
   async function loadGroups() {
-    const g = await api<Group[]>(`${MEMBERSHIP_BASE}/groups`);
+    const g = await loadAllGroups<Group>('id,name,baseCurrency');
     setGroups(g); if (g.length && selectedGroup==null) setSelectedGroup(g[0].id);
   }
   useEffect(() => { loadGroups(); }, []);
@@ -23,9 +26,23 @@ export default function Settlement() {
     const g = groups.find(x => x.id===selectedGroup);
     const res = await api<SettlementPlan>(`${SETTLEMENT_BASE}/settlements/compute`, {
       method: 'POST',
-      body: JSON.stringify({ groupId: selectedGroup, baseCurrency: g?.baseCurrency ?? 'USD' })
+      body: JSON.stringify({
+        groupId: selectedGroup,
+        baseCurrency: g?.baseCurrency ?? 'USD',
+        minSequence: minSequenceFor(selectedGroup)
+      })
     });
     setPlan(res);
+    setRecorded(false);
+  }
+
+  async function recordAll() {
+    if (selectedGroup==null || !plan || !plan.transfers.length) return;
+    await api(`${SETTLEMENT_BASE}/groups/${selectedGroup}/settlements`, {
+      method: 'POST',
+      body: JSON.stringify({ transfers: plan.transfers, version: plan.version, note: 'Settle up' })
+    });
+    setRecorded(true);
   }
 
   return (
@@ -50,6 +67,11 @@ export default function Settlement() {
               </li>
             ))}
           </ul>
+          {plan.transfers.length > 0 && (
+            <button className="btn bg-white mt-4" onClick={recordAll} disabled={recorded}>
+              {recorded ? 'Recorded' : 'Record all transfers'}
+            </button>
+          )}
         </div>
       )}
     </div>